@@ -0,0 +1,155 @@
+package carga;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Base de datos de la prueba de carga: H2 en memoria, en modo MySQL, con el esquema
+ * clinica_odontologica (clinica_odontologica.sql) y datos iniciales para las sesiones guionizadas.
+ *
+ * La base vive en la misma JVM que el Tomcat embebido: la aplicación se conecta con su propio pool
+ * (ConexionBDD) usando la URL que se publica en -Dendodental.db.url, sin cambiar su código.
+ *
+ * Los datos iniciales los genera GeneradorDatos (usuarios, odontólogos, pacientes, catálogo y
+ * varios años de citas, atenciones y facturas), con la agenda futura limitada a hoy para que las
+ * sesiones agenden sobre días libres. Las citas 'Atendida' de los últimos días son las que las
+ * sesiones facturan, una por factura.
+ * */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+final class BaseDatosPrueba {
+
+    static final String URL = "jdbc:h2:mem:clinica_odontologica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    static final String USUARIO = "root";
+    static final String CLAVE = "misifu";
+
+    // Credenciales con las que entran las sesiones
+    static final String SECRETARIA = "secretaria";
+    static final String CLAVE_SECRETARIA = "secretaria123";
+
+    // Horario de la agenda: 16 turnos de 30 minutos desde las 08:00
+    static final int TURNOS_POR_DIA = 16;
+
+    private BaseDatosPrueba() {
+    }
+
+    /**
+     * Resumen de lo que se cargó, para que las sesiones armen solicitudes válidas.
+     *
+     * @param odontologos   Ids de los odontólogos.
+     * @param pacientes     Ids de los pacientes activos.
+     * @param servicios     Ids de los servicios (en el mismo orden que sus precios).
+     * @param precios       Precio base de cada servicio.
+     * @param atendidas     Ids de las citas 'Atendida' listas para facturar.
+     */
+    record Datos(int[] odontologos, int[] pacientes, int[] servicios, BigDecimal[] precios, int[] atendidas) {
+    }
+
+    /**
+     * Crea el esquema, genera los datos iniciales y lee los ids que usan las sesiones.
+     * Lo que hubiera de una corrida anterior en la misma JVM se borra antes.
+     *
+     * @param parametros Parámetros del generador (escala, semilla, días sin facturar...).
+     * @return Ids de lo cargado.
+     */
+    static Datos crear(GeneradorDatos.Parametros parametros) throws SQLException, IOException, InterruptedException {
+        try (Connection conn = DriverManager.getConnection(URL, USUARIO, CLAVE)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+            ejecutarScript(conn, "/clinica_odontologica.sql");
+            new GeneradorDatos(URL, USUARIO, CLAVE, parametros).generar();
+
+            int[] odontologos = ids(conn, "SELECT id_odontologo FROM odontologos ORDER BY id_odontologo");
+            int[] pacientes = ids(conn, "SELECT id_paciente FROM pacientes WHERE estado = 1 ORDER BY id_paciente");
+            int[] servicios = ids(conn, "SELECT id_servicio FROM servicios ORDER BY id_servicio");
+            BigDecimal[] precios = new BigDecimal[servicios.length];
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT precio_base FROM servicios ORDER BY id_servicio")) {
+                for (int i = 0; rs.next(); i++) {
+                    precios[i] = rs.getBigDecimal(1);
+                }
+            }
+            int[] atendidas = ids(conn, "SELECT id_cita FROM citas WHERE estado = 'Atendida' ORDER BY id_cita");
+            return new Datos(odontologos, pacientes, servicios, precios, atendidas);
+        }
+    }
+
+    /**
+     * Ejecuta un script SQL del classpath. Las sentencias se separan por ';' al final de la línea
+     * y se ignoran las líneas de comentario.
+     */
+    static void ejecutarScript(Connection conn, String recurso) throws SQLException, IOException {
+        String script;
+        try (InputStream in = BaseDatosPrueba.class.getResourceAsStream(recurso)) {
+            if (in == null) {
+                throw new IOException("No se encontró el script " + recurso + " en el classpath");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        StringBuilder sentencia = new StringBuilder();
+        try (Statement stmt = conn.createStatement()) {
+            for (String linea : script.split("\n")) {
+                String limpia = linea.strip();
+                if (limpia.isEmpty() || limpia.startsWith("--")) {
+                    continue;
+                }
+                sentencia.append(linea).append('\n');
+                if (limpia.endsWith(";")) {
+                    stmt.execute(sentencia.substring(0, sentencia.lastIndexOf(";")));
+                    sentencia.setLength(0);
+                }
+            }
+        }
+    }
+
+    private static int[] ids(Connection conn, String sql) throws SQLException {
+        List<Integer> lista = new ArrayList<>();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                lista.add(rs.getInt(1));
+            }
+        }
+        return lista.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Genera una cédula ecuatoriana válida: provincia 01-24, tercer dígito menor a 6 y el dígito
+     * verificador del módulo 10 (coeficientes 2.1.2.1...).
+     */
+    static String cedulaValida(SplittableRandom aleatorio) {
+        int[] digitos = new int[10];
+        int provincia = aleatorio.nextInt(1, 25);
+        digitos[0] = provincia / 10;
+        digitos[1] = provincia % 10;
+        digitos[2] = aleatorio.nextInt(6);
+        for (int i = 3; i < 9; i++) {
+            digitos[i] = aleatorio.nextInt(10);
+        }
+        int suma = 0;
+        for (int i = 0; i < 9; i++) {
+            int valor = digitos[i] * (i % 2 == 0 ? 2 : 1);
+            suma += valor >= 10 ? valor - 9 : valor;
+        }
+        digitos[9] = (10 - suma % 10) % 10;
+
+        StringBuilder sb = new StringBuilder(10);
+        for (int d : digitos) {
+            sb.append(d);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,901 @@
+package carga;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Generador de datos sintéticos para clinica_odontologica, parametrizado por un factor
+ * de escala, para reproducir problemas de rendimiento con volúmenes de una clínica de varios años
+ * y varios odontólogos. Carga usuarios, odontólogos, pacientes (cédulas que pasan el módulo 10 de
+ * PacienteServiceImpl), servicios, productos, citas en los cinco estados, atenciones, facturas y
+ * sus detalles.
+ *
+ * Escala 1 = 10 odontólogos, 20.000 pacientes y unas 100.000 citas en 3 años; todo crece lineal
+ * con la escala (escala 100 = unos 10 millones de citas). El catálogo no crece.
+ *
+ * Para que sea rápido:
+ * - INSERT de varias filas por sentencia (500), preparadas una vez y reutilizadas.
+ * - Productores en paralelo, cada uno con su conexión: los pacientes por rangos y la agenda por
+ *   odontólogo. Cada odontólogo tiene su rango fijo de ids de cita (uno por turno del periodo),
+ *   así que no hay que leer claves generadas ni coordinar a los productores.
+ * - La factura y la atención de una cita llevan el mismo id que la cita; el detalle, id_factura*5+k.
+ *
+ * Reproducible: los datos dependen solo de la semilla, la escala y la fecha de referencia
+ * (generador.hoy), no del número de productores ni del orden en que terminan.
+ * Espera las tablas vacías (ids explícitos). Conviene generar antes del primer despliegue: así
+ * util.Migrador crea los índices una sola vez sobre las tablas cargadas, en lugar de mantenerlos
+ * fila por fila durante la carga.
+ *
+ *   mvn -Pcarga test-compile exec:exec -Dcarga.principal=carga.GeneradorDatos \
+ *       -Dcarga.args="-Dgenerador.escala=100 -Dendodental.db.url=jdbc:mysql://localhost:3306/clinica_odontologica"
+ *
+ * Propiedades (-D): generador.escala (1), generador.semilla (2026), generador.anios (3),
+ * generador.diasFuturos (56), generador.diasSinFacturar (14), generador.productores (núcleos),
+ * generador.hoy (hoy, aaaa-mm-dd), generador.crearEsquema (sí, si la URL es de H2 en memoria);
+ * la base se toma de endodental.db.url/usuario/clave, como la aplicación.
+ * */
+
+import util.PasswordUtil;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.MonthDay;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class GeneradorDatos {
+
+    // Tamaño de la clínica por unidad de escala
+    private static final int ODONTOLOGOS_POR_ESCALA = 10;
+    private static final int PACIENTES_POR_ESCALA = 20_000;
+    private static final int SECRETARIAS_POR_ESCALA = 2;
+    // Pacientes que ya existían al inicio del periodo; el resto se registra a lo largo de él
+    private static final double PACIENTES_INICIALES = 0.3;
+
+    private static final int FILAS_POR_SENTENCIA = 500;
+    private static final int PACIENTES_POR_TAREA = 20_000;
+    private static final int TURNOS = BaseDatosPrueba.TURNOS_POR_DIA;
+    private static final int ITEMS_POR_FACTURA = 5;
+    private static final BigDecimal TASA_IVA = new BigDecimal("0.15");
+
+    // Etapas: separan las secuencias aleatorias derivadas de la misma semilla
+    private static final long ETAPA_PACIENTES = 1L << 40;
+    private static final long ETAPA_AGENDA = 2L << 40;
+    private static final long ETAPA_CATALOGO = 3L << 40;
+
+    private static final String[] ESTADOS = {"Pendiente", "Confirmada", "Atendida", "Facturada", "Cancelada"};
+    private static final int PENDIENTE = 0;
+    private static final int CONFIRMADA = 1;
+    private static final int ATENDIDA = 2;
+    private static final int FACTURADA = 3;
+    private static final int CANCELADA = 4;
+
+    private static final String[] NOMBRES = {"María", "José", "Ana", "Luis", "Carmen", "Jorge", "Lucía",
+            "Diego", "Paola", "Andrés", "Sofía", "Mateo", "Valeria", "Santiago", "Gabriela", "Daniel", "Fernanda",
+            "Carlos", "Daniela", "Juan", "Camila", "Pablo", "Verónica", "Miguel", "Isabel", "Esteban", "Rosa",
+            "Xavier", "Patricia", "Fausto"};
+    private static final String[] APELLIDOS = {"Pérez", "Andrade", "Vega", "Torres", "Castillo", "Moreno",
+            "Guerrero", "Salazar", "Paredes", "Cevallos", "Benítez", "Villacís", "Ortiz", "Cárdenas", "Zambrano",
+            "Mendoza", "Chávez", "Herrera", "Jaramillo", "Núñez", "Espinoza", "Vásquez", "Romero", "Naranjo",
+            "Quishpe", "Tapia", "Carrera", "Sánchez", "Loor", "Pazmiño"};
+    private static final String[] ESPECIALIDADES = {"Odontología general", "Odontología general", "Endodoncia",
+            "Ortodoncia", "Periodoncia", "Odontopediatría", "Rehabilitación oral"};
+    private static final String[] ALERGIAS = {"Penicilina", "Látex", "Ibuprofeno", "Lidocaína", "Sulfas"};
+    private static final String[] DIRECCIONES = {"Av. Amazonas N34-120, Quito", "Av. 6 de Diciembre N24-55, Quito",
+            "Calle García Moreno 1130, Quito", "Av. 9 de Octubre 410, Guayaquil", "Av. Solano 2-45, Cuenca",
+            "Calle Bolívar 8-20, Ambato", "Av. Maldonado S12-40, Quito"};
+
+    // Catálogo fijo: nombre y precio
+    private static final String[] SERVICIOS = {"Consulta general", "Limpieza dental", "Tratamiento de conducto",
+            "Extracción simple", "Resina compuesta", "Blanqueamiento", "Radiografía periapical",
+            "Sellante de fosas", "Corona de porcelana", "Control de ortodoncia", "Curetaje", "Férula oclusal"};
+    private static final String[] PRECIOS_SERVICIOS = {"25.00", "40.00", "180.00", "45.00", "50.00", "150.00",
+            "15.00", "20.00", "350.00", "60.00", "80.00", "120.00"};
+    private static final int CONSULTA = 0;
+    private static final int RADIOGRAFIA = 6;
+    private static final int SELLANTE = 7;
+    private static final String[] PRODUCTOS = {"Enjuague bucal 500 ml", "Cepillo dental suave",
+            "Hilo dental 50 m", "Pasta dental con flúor", "Cepillo interdental", "Gel desensibilizante"};
+    private static final String[] PRECIOS_PRODUCTOS = {"6.50", "3.25", "4.00", "3.80", "5.20", "9.90"};
+
+    // Motivos de cita con su peso relativo
+    private static final String[] MOTIVOS = {"Control de rutina", "Limpieza dental", "Dolor de muela",
+            "Revisión de ortodoncia", "Sensibilidad dental", "Evaluación inicial", "Control post tratamiento",
+            "Sangrado de encías", "Urgencia: fractura dental", "Blanqueamiento"};
+    private static final double[] PESOS_MOTIVOS = acumulados(30, 20, 12, 10, 7, 7, 6, 4, 2, 2);
+
+    // Diagnóstico, tratamiento y el servicio que se factura por él, con su peso relativo
+    private static final String[][] ATENCIONES = {
+            {"Sin hallazgos patológicos", "Control y profilaxis"},
+            {"Gingivitis leve", "Profilaxis y fluorización"},
+            {"Caries oclusal", "Restauración con resina compuesta"},
+            {"Pulpitis irreversible", "Tratamiento de conducto"},
+            {"Periodontitis crónica", "Raspado y alisado radicular"},
+            {"Fractura coronal", "Reconstrucción con resina"},
+            {"Tercer molar retenido", "Extracción quirúrgica"},
+            {"Maloclusión clase II", "Ajuste de brackets"},
+            {"Bruxismo", "Toma de impresión para férula"},
+            {"Pigmentación extrínseca", "Blanqueamiento en consultorio"},
+            {"Pieza con tratamiento previo", "Corona de porcelana"}};
+    private static final int[] SERVICIO_DE_ATENCION = {0, 1, 4, 2, 10, 4, 3, 9, 11, 5, 8};
+    private static final double[] PESOS_ATENCIONES = acumulados(20, 18, 22, 8, 5, 6, 5, 9, 3, 2, 2);
+    // Servicios que se hacen sobre una pieza (los demás, sobre toda la boca)
+    private static final boolean[] SOBRE_PIEZA = {false, false, true, true, true, false, true, true, true, false,
+            false, false};
+    private static final String[] NOTAS = {"Control en 15 días", "Se indica analgésico por 3 días",
+            "Paciente refiere ansiedad", "Se recomienda uso de hilo dental", "Se programa siguiente sesión",
+            "Alérgico a la penicilina: se usó clindamicina"};
+
+    private static final String[] METODOS_PAGO = {"Efectivo", "Tarjeta", "Transferencia"};
+    private static final double[] PESOS_METODOS_PAGO = acumulados(45, 40, 15);
+
+    private final String url;
+    private final String usuario;
+    private final String clave;
+    private final Parametros p;
+
+    private final int odontologos;
+    private final int pacientes;
+    private final int secretarias;
+    private final LocalDate inicio;
+    private final int diasPasados;
+    private final int diasTotales;
+
+    private final Map<String, LongAdder> filas = new LinkedHashMap<>();
+    private final LongAdder[] porEstado = new LongAdder[ESTADOS.length];
+
+    /**
+     * Resultado de la generación.
+     *
+     * @param filas     Filas insertadas por tabla, en el orden de carga.
+     * @param porEstado Citas por estado (en el orden de ESTADOS).
+     * @param segundos  Duración total.
+     */
+    public record Resumen(Map<String, Long> filas, long[] porEstado, double segundos) {
+    }
+
+    /**
+     * @param escala          Factor de escala (1 = 10 odontólogos, 20.000 pacientes, ~100.000 citas en 3 años).
+     * @param semilla         Semilla de todas las secuencias aleatorias.
+     * @param anios           Años de historia hasta la fecha de referencia.
+     * @param diasFuturos     Días de agenda futura después de la fecha de referencia (0: solo ese día).
+     * @param diasSinFacturar Las citas atendidas en estos últimos días quedan 'Atendida' (aún sin factura).
+     * @param productores     Hilos productores, cada uno con su conexión.
+     * @param hoy             Fecha de referencia: lo anterior es historia y lo posterior, agenda.
+     */
+    public record Parametros(double escala, long semilla, int anios, int diasFuturos, int diasSinFacturar,
+                             int productores, LocalDate hoy) {
+
+        public Parametros {
+            if (escala <= 0) {
+                throw new IllegalArgumentException("La escala debe ser positiva");
+            }
+            if (anios < 1 || diasFuturos < 0 || diasSinFacturar < 0) {
+                throw new IllegalArgumentException("El periodo debe tener al menos un año y días no negativos");
+            }
+            if (productores < 1) {
+                throw new IllegalArgumentException("Se necesita al menos un productor");
+            }
+        }
+
+        /**
+         * Lee los parámetros de propiedades del sistema con el prefijo indicado; las que no existan
+         * toman los valores por defecto.
+         *
+         * @param prefijo Prefijo de las propiedades, por ejemplo "generador".
+         */
+        public static Parametros desdePropiedades(String prefijo) {
+            String hoy = System.getProperty(prefijo + ".hoy");
+            return new Parametros(
+                    Double.parseDouble(System.getProperty(prefijo + ".escala", "1")),
+                    Long.getLong(prefijo + ".semilla", 2026),
+                    Integer.getInteger(prefijo + ".anios", 3),
+                    Integer.getInteger(prefijo + ".diasFuturos", 56),
+                    Integer.getInteger(prefijo + ".diasSinFacturar", 14),
+                    Integer.getInteger(prefijo + ".productores", Runtime.getRuntime().availableProcessors()),
+                    hoy == null ? LocalDate.now() : LocalDate.parse(hoy));
+        }
+    }
+
+    public GeneradorDatos(String url, String usuario, String clave, Parametros parametros) {
+        this.url = url;
+        this.usuario = usuario;
+        this.clave = clave;
+        this.p = parametros;
+
+        odontologos = Math.max(1, (int) Math.round(ODONTOLOGOS_POR_ESCALA * p.escala()));
+        pacientes = Math.max(100, (int) Math.round(PACIENTES_POR_ESCALA * p.escala()));
+        secretarias = Math.max(1, (int) Math.round(SECRETARIAS_POR_ESCALA * p.escala()));
+        inicio = p.hoy().minusYears(p.anios());
+        diasPasados = (int) ChronoUnit.DAYS.between(inicio, p.hoy());
+        diasTotales = diasPasados + 1 + p.diasFuturos();
+
+        // Los ids de los detalles (id_cita * 5 + k) tienen que caber en un INT
+        long maximoDetalle = ((long) odontologos * diasTotales * TURNOS + 1) * ITEMS_POR_FACTURA;
+        if (maximoDetalle > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Escala o periodo demasiado grandes para ids INT");
+        }
+        for (String tabla : List.of("roles", "usuarios", "odontologos", "servicios", "productos", "pacientes",
+                "citas", "atenciones", "facturas", "detalles_factura")) {
+            filas.put(tabla, new LongAdder());
+        }
+        Arrays.setAll(porEstado, i -> new LongAdder());
+    }
+
+    /**
+     * Genera la base completa: primero el catálogo y los usuarios, luego los pacientes y al final
+     * la agenda (citas, atenciones, facturas y detalles), en ese orden por las claves foráneas.
+     *
+     * @return Filas insertadas y duración.
+     */
+    public Resumen generar() throws SQLException, InterruptedException {
+        long comienzo = System.nanoTime();
+        try (Connection conn = abrir()) {
+            insertarCatalogo(conn);
+        }
+        enParalelo((pacientes + PACIENTES_POR_TAREA - 1) / PACIENTES_POR_TAREA, this::insertarPacientes);
+
+        ScheduledExecutorService progreso = Executors.newSingleThreadScheduledExecutor();
+        progreso.scheduleAtFixedRate(() -> System.out.printf("  citas: %,d%n", filas.get("citas").sum()),
+                10, 10, TimeUnit.SECONDS);
+        try {
+            enParalelo(odontologos, (conn, indice) -> generarAgenda(conn, indice + 1));
+        } finally {
+            progreso.shutdownNow();
+        }
+
+        Map<String, Long> totales = new LinkedHashMap<>();
+        filas.forEach((tabla, cantidad) -> totales.put(tabla, cantidad.sum()));
+        long[] estados = Arrays.stream(porEstado).mapToLong(LongAdder::sum).toArray();
+        return new Resumen(totales, estados, (System.nanoTime() - comienzo) / 1e9);
+    }
+
+    /*
+     * =========================================================================================
+     * CATÁLOGO Y USUARIOS
+     * =========================================================================================
+     */
+
+    private void insertarCatalogo(Connection conn) throws SQLException {
+        SplittableRandom r = new SplittableRandom(mezclar(p.semilla(), ETAPA_CATALOGO));
+        try (Lote roles = lote(conn, "roles", "id_rol, nombre_rol")) {
+            roles.agregar(1, "Administrador");
+            roles.agregar(2, "Odontologo");
+            roles.agregar(3, "Secretaria");
+            roles.vaciar();
+        }
+
+        // Mismas credenciales que BaseDatosPrueba: la prueba de carga entra como "secretaria"
+        String claveAdmin = PasswordUtil.encriptar("admin123");
+        String claveSecretaria = PasswordUtil.encriptar(BaseDatosPrueba.CLAVE_SECRETARIA);
+        String claveDoctor = PasswordUtil.encriptar("doctor123");
+        try (Lote usuarios = lote(conn, "usuarios", "id_usuario, username, password, nombre_completo, email, id_rol, estado");
+             Lote medicos = lote(conn, "odontologos", "id_odontologo, especialidad, codigo_medico, id_usuario")) {
+            usuarios.agregar(1, "admin", claveAdmin, "Administrador General", "admin@endodental.ec", 1, 1);
+            for (int i = 1; i <= secretarias; i++) {
+                String username = i == 1 ? BaseDatosPrueba.SECRETARIA : BaseDatosPrueba.SECRETARIA + i;
+                usuarios.agregar(1 + i, username, claveSecretaria, nombreCompleto(r), username + "@endodental.ec", 3, 1);
+            }
+            int idUsuario = 1 + secretarias;
+            for (int d = 1; d <= odontologos; d++) {
+                idUsuario++;
+                usuarios.agregar(idUsuario, "doctor" + d, claveDoctor, "Dr. " + nombreCompleto(r),
+                        "doctor" + d + "@endodental.ec", 2, 1);
+                medicos.agregar(d, ESPECIALIDADES[r.nextInt(ESPECIALIDADES.length)], "MSP-" + (10_000 + d), idUsuario);
+            }
+            usuarios.vaciar();
+            medicos.vaciar();
+        }
+
+        try (Lote servicios = lote(conn, "servicios", "id_servicio, nombre, descripcion, precio_base");
+             Lote productos = lote(conn, "productos", "id_producto, nombre, marca, descripcion, precio_venta, stock, stock_minimo, estado")) {
+            for (int i = 0; i < SERVICIOS.length; i++) {
+                servicios.agregar(i + 1, SERVICIOS[i], SERVICIOS[i] + " (precio referencial)", new BigDecimal(PRECIOS_SERVICIOS[i]));
+            }
+            for (int i = 0; i < PRODUCTOS.length; i++) {
+                // Stock amplio: la historia no descuenta inventario y la prueba de carga vende productos
+                productos.agregar(i + 1, PRODUCTOS[i], "Marca " + (char) ('A' + i), PRODUCTOS[i],
+                        new BigDecimal(PRECIOS_PRODUCTOS[i]), 1_000_000, 10, 1);
+            }
+            servicios.vaciar();
+            productos.vaciar();
+        }
+        conn.commit();
+    }
+
+    private static String nombreCompleto(SplittableRandom r) {
+        return NOMBRES[r.nextInt(NOMBRES.length)] + " " + APELLIDOS[r.nextInt(APELLIDOS.length)];
+    }
+
+    /*
+     * =========================================================================================
+     * PACIENTES
+     * =========================================================================================
+     */
+
+    /**
+     * Inserta el rango de pacientes de una tarea. Cada paciente sale de su propia secuencia
+     * (persona(id)), así que la agenda puede volver a derivar su nombre y cédula para la factura
+     * sin consultarlos.
+     */
+    private void insertarPacientes(Connection conn, int tarea) throws SQLException {
+        int desde = tarea * PACIENTES_POR_TAREA + 1;
+        int hasta = Math.min(pacientes, desde + PACIENTES_POR_TAREA - 1);
+        String columnas = "id_paciente, cedula, nombres, apellidos, telefono, email, alergias, estado, fecha_registro";
+        try (Lote lote = lote(conn, "pacientes", columnas)) {
+            for (int id = desde; id <= hasta; id++) {
+                Persona persona = persona(id);
+                SplittableRandom r = persona.aleatorio();
+                String telefono = "09" + (10_000_000 + r.nextInt(90_000_000));
+                String email = r.nextInt(100) < 65 ? "paciente" + id + "@correo.ec" : null;
+                String alergias = r.nextInt(100) < 12 ? ALERGIAS[r.nextInt(ALERGIAS.length)] : null;
+                int estado = r.nextInt(100) < 97 ? 1 : 0;
+                lote.agregar(id, persona.cedula(), persona.nombres(), persona.apellidos(), telefono, email, alergias,
+                        estado, Timestamp.valueOf(fechaRegistro(id, r)));
+                if (lote.lleno()) {
+                    lote.vaciar();
+                    conn.commit();
+                }
+            }
+            lote.vaciar();
+        }
+        conn.commit();
+    }
+
+    private record Persona(String cedula, String nombres, String apellidos, SplittableRandom aleatorio) {
+    }
+
+    private Persona persona(int id) {
+        SplittableRandom r = new SplittableRandom(mezclar(p.semilla(), ETAPA_PACIENTES + id));
+        String nombres = NOMBRES[r.nextInt(NOMBRES.length)];
+        if (r.nextInt(100) < 60) {
+            nombres += " " + NOMBRES[r.nextInt(NOMBRES.length)];
+        }
+        String apellidos = APELLIDOS[r.nextInt(APELLIDOS.length)] + " " + APELLIDOS[r.nextInt(APELLIDOS.length)];
+        return new Persona(cedula(id), nombres, apellidos, r);
+    }
+
+    /**
+     * Cédula válida y única para el paciente: el id se reparte entre la provincia (01-24), el
+     * tercer dígito (0-5) y los seis siguientes, estos mezclados con un multiplicador coprimo con 10
+     * (una permutación, para que no salgan correlativas). Alcanza para 144 millones de pacientes.
+     * El décimo dígito es el verificador del módulo 10 (coeficientes 2.1.2.1...).
+     */
+    static String cedula(int id) {
+        int n = id - 1;
+        int provincia = 1 + n % 24;
+        n /= 24;
+        int tercero = n % 6;
+        n /= 6;
+        long medio = (n % 1_000_000L * 740_347L + 318_211L) % 1_000_000L;
+
+        int[] digitos = new int[10];
+        digitos[0] = provincia / 10;
+        digitos[1] = provincia % 10;
+        digitos[2] = tercero;
+        for (int i = 8; i >= 3; i--) {
+            digitos[i] = (int) (medio % 10);
+            medio /= 10;
+        }
+        int suma = 0;
+        for (int i = 0; i < 9; i++) {
+            int valor = digitos[i] * (i % 2 == 0 ? 2 : 1);
+            suma += valor >= 10 ? valor - 9 : valor;
+        }
+        digitos[9] = (10 - suma % 10) % 10;
+
+        char[] texto = new char[10];
+        for (int i = 0; i < 10; i++) {
+            texto[i] = (char) ('0' + digitos[i]);
+        }
+        return new String(texto);
+    }
+
+    // Los pacientes iniciales ya existían antes del periodo; los demás se registran a ritmo constante
+    private int pacientesIniciales() {
+        return Math.max(1, (int) (pacientes * PACIENTES_INICIALES));
+    }
+
+    /**
+     * @return Pacientes registrados hasta el día indicado (desde el inicio del periodo).
+     */
+    private int pacientesRegistrados(int dia) {
+        int iniciales = pacientesIniciales();
+        if (dia <= 0) {
+            return iniciales;
+        }
+        return iniciales + (int) ((long) (pacientes - iniciales) * Math.min(dia, diasPasados) / diasPasados);
+    }
+
+    private LocalDateTime fechaRegistro(int id, SplittableRandom r) {
+        int iniciales = pacientesIniciales();
+        LocalDate dia;
+        if (id <= iniciales) {
+            dia = inicio.minusDays(1 + r.nextInt(730));
+        } else {
+            // Primer día en que pacientesRegistrados(dia) >= id
+            long numerador = (long) (id - iniciales) * diasPasados;
+            int denominador = pacientes - iniciales;
+            dia = inicio.plusDays((numerador + denominador - 1) / denominador);
+        }
+        return dia.atTime(8, 0).plusMinutes(r.nextInt(8 * 60));
+    }
+
+    /*
+     * =========================================================================================
+     * AGENDA: CITAS, ATENCIONES, FACTURAS Y DETALLES
+     * =========================================================================================
+     */
+
+    /**
+     * Genera la agenda completa de un odontólogo, día por día y turno por turno. Cada turno
+     * tiene su id de cita fijo dentro del rango del odontólogo, así que nunca hay dos citas en el
+     * mismo turno (como exige CitaServiceImpl) y los ids no dependen del orden de los productores.
+     */
+    private void generarAgenda(Connection conn, int odontologo) throws SQLException {
+        SplittableRandom r = new SplittableRandom(mezclar(p.semilla(), ETAPA_AGENDA + odontologo));
+        // Ocupación propia del odontólogo: unos tienen la agenda más llena que otros
+        double ocupacionBase = 0.6 + 0.3 * r.nextDouble();
+        int base = (odontologo - 1) * diasTotales * TURNOS;
+
+        try (Lote citas = lote(conn, "citas", "id_cita, fecha_hora, motivo, estado, id_paciente, id_odontologo");
+             Lote atenciones = lote(conn, "atenciones", "id_atencion, id_cita, diagnostico, tratamiento_realizado, notas_adicionales");
+             Lote facturas = lote(conn, "facturas", "id_factura, id_cita, fecha_emision, identificacion_cliente, "
+                     + "nombre_cliente_factura, direccion_cliente, subtotal, monto_iva, total_pagar, metodo_pago");
+             Lote detalles = lote(conn, "detalles_factura", "id_detalle, id_factura, id_servicio, id_producto, "
+                     + "tipo_item, cantidad, precio_unitario, subtotal_item, diente_o_zona")) {
+
+            for (int dia = 0; dia < diasTotales; dia++) {
+                LocalDate fecha = inicio.plusDays(dia);
+                int turnos = turnosDelDia(fecha);
+                double ocupacion = ocupacion(ocupacionBase, dia, fecha);
+                for (int turno = 0; turno < turnos; turno++) {
+                    if (r.nextDouble() >= ocupacion) {
+                        continue;
+                    }
+                    int idCita = base + dia * TURNOS + turno + 1;
+                    LocalDateTime fechaHora = fecha.atTime(8, 0).plusMinutes(30L * turno);
+                    int estado = estado(r, dia);
+                    int paciente = elegirPaciente(r, dia);
+                    citas.agregar(idCita, Timestamp.valueOf(fechaHora), MOTIVOS[elegir(r, PESOS_MOTIVOS)],
+                            ESTADOS[estado], paciente, odontologo);
+                    porEstado[estado].increment();
+
+                    if (estado == ATENDIDA || estado == FACTURADA) {
+                        int atencion = elegir(r, PESOS_ATENCIONES);
+                        String notas = r.nextInt(100) < 40 ? NOTAS[r.nextInt(NOTAS.length)] : null;
+                        atenciones.agregar(idCita, idCita, ATENCIONES[atencion][0], ATENCIONES[atencion][1], notas);
+                        if (estado == FACTURADA) {
+                            facturar(r, facturas, detalles, idCita, fechaHora, paciente, atencion);
+                        }
+                    }
+
+                    // Las filas hijas solo se envían después de sus citas (y los detalles, de sus
+                    // facturas). Las citas y las facturas se envían completas; las atenciones y los
+                    // detalles, solo en sentencias llenas: el resto ya tiene a su padre en la base y
+                    // espera al siguiente envío, así casi no hacen falta sentencias a medida.
+                    if (citas.lleno()) {
+                        citas.vaciar();
+                        atenciones.vaciarLlenas();
+                        facturas.vaciar();
+                        detalles.vaciarLlenas();
+                        conn.commit();
+                    }
+                }
+            }
+            citas.vaciar();
+            atenciones.vaciar();
+            facturas.vaciar();
+            detalles.vaciar();
+            conn.commit();
+        }
+    }
+
+    // Horario: lunes a viernes 16 turnos, sábado solo la mañana; cerrado domingos y feriados fijos
+    private static int turnosDelDia(LocalDate fecha) {
+        MonthDay md = MonthDay.from(fecha);
+        if (fecha.getDayOfWeek() == DayOfWeek.SUNDAY || md.equals(MonthDay.of(1, 1))
+                || md.equals(MonthDay.of(12, 25))) {
+            return 0;
+        }
+        return fecha.getDayOfWeek() == DayOfWeek.SATURDAY ? TURNOS / 2 : TURNOS;
+    }
+
+    /**
+     * Probabilidad de que un turno esté ocupado. En la historia la clínica crece (del 70% al 100%
+     * de la ocupación propia del odontólogo) y agosto y diciembre son más flojos; en la agenda
+     * futura se llena menos cuanto más lejos está el día.
+     */
+    private double ocupacion(double base, int dia, LocalDate fecha) {
+        if (dia > diasPasados) {
+            return base * Math.max(0.15, 1.0 - (dia - diasPasados) / 60.0);
+        }
+        double crecimiento = 0.7 + 0.3 * dia / diasPasados;
+        double temporada = switch (fecha.getMonth()) {
+            case AUGUST, DECEMBER -> 0.8;
+            default -> 1.0;
+        };
+        return base * crecimiento * temporada;
+    }
+
+    /**
+     * Estado de la cita según cuándo es. Las pasadas casi siempre se atendieron (y se facturaron,
+     * salvo las de los últimos días); algunas se cancelaron y otras quedaron pendientes o confirmadas
+     * porque el paciente no vino. Hoy y las futuras están pendientes, confirmadas (más cuanto más
+     * cerca) o canceladas.
+     */
+    private int estado(SplittableRandom r, int dia) {
+        int u = r.nextInt(100);
+        if (dia >= diasPasados) {
+            int confirmadas = dia - diasPasados <= 2 ? 60 : 15;
+            return u < 8 ? CANCELADA : u < 8 + confirmadas ? CONFIRMADA : PENDIENTE;
+        }
+        if (u < 12) {
+            return CANCELADA;
+        }
+        if (u < 16) {
+            return PENDIENTE;
+        }
+        if (u < 19) {
+            return CONFIRMADA;
+        }
+        if (diasPasados - dia <= p.diasSinFacturar()) {
+            return ATENDIDA;
+        }
+        // Unas pocas atenciones antiguas nunca se facturaron (cortesías, garantías)
+        return r.nextInt(100) < 3 ? ATENDIDA : FACTURADA;
+    }
+
+    /**
+     * Paciente de la cita, entre los ya registrados ese día: la mitad son pacientes recientes
+     * (últimos 90 días, en tratamiento) y la otra mitad, cualquiera de los registrados.
+     */
+    private int elegirPaciente(SplittableRandom r, int dia) {
+        int registrados = pacientesRegistrados(dia);
+        if (r.nextBoolean()) {
+            int recientes = Math.max(1, registrados - pacientesRegistrados(dia - 90));
+            return registrados - r.nextInt(recientes);
+        }
+        return 1 + r.nextInt(registrados);
+    }
+
+    /**
+     * Factura de una cita atendida: el servicio del tratamiento, a veces una radiografía, una
+     * consulta o un sellante y a veces un producto. Los totales se calculan como FacturaServiceImpl
+     * (IVA 15% redondeado a centavos).
+     */
+    private void facturar(SplittableRandom r, Lote facturas, Lote detalles, int idFactura,
+                          LocalDateTime fechaHora, int paciente, int atencion) throws SQLException {
+        int servicio = SERVICIO_DE_ATENCION[atencion];
+        String pieza = "Pieza " + pieza(r);
+        int k = 0;
+        BigDecimal subtotal = servicio(r, detalles, idFactura, k++, servicio, SOBRE_PIEZA[servicio] ? pieza : null);
+        if (SOBRE_PIEZA[servicio] && r.nextInt(100) < 35) {
+            subtotal = subtotal.add(servicio(r, detalles, idFactura, k++, RADIOGRAFIA, pieza));
+        }
+        if (servicio != CONSULTA && r.nextInt(100) < 20) {
+            subtotal = subtotal.add(servicio(r, detalles, idFactura, k++, CONSULTA, null));
+        }
+        if (r.nextInt(100) < 5) {
+            subtotal = subtotal.add(servicio(r, detalles, idFactura, k++, SELLANTE, "Pieza " + pieza(r)));
+        }
+        if (r.nextInt(100) < 25) {
+            int producto = r.nextInt(PRODUCTOS.length);
+            int cantidad = 1 + r.nextInt(2);
+            BigDecimal precio = new BigDecimal(PRECIOS_PRODUCTOS[producto]);
+            BigDecimal subtotalItem = precio.multiply(BigDecimal.valueOf(cantidad));
+            detalles.agregar(idFactura * ITEMS_POR_FACTURA + k, idFactura, null, producto + 1, "Producto", cantidad,
+                    precio, subtotalItem, null);
+            subtotal = subtotal.add(subtotalItem);
+        }
+        BigDecimal iva = subtotal.multiply(TASA_IVA).setScale(2, RoundingMode.HALF_UP);
+
+        // Casi siempre factura el propio paciente; a veces con RUC o como consumidor final
+        int cliente = r.nextInt(100);
+        String identificacion;
+        String nombre;
+        if (cliente < 5) {
+            identificacion = "9999999999999";
+            nombre = "Consumidor Final";
+        } else {
+            Persona persona = persona(paciente);
+            identificacion = cliente < 12 ? persona.cedula() + "001" : persona.cedula();
+            nombre = persona.nombres() + " " + persona.apellidos();
+        }
+        LocalDateTime emision = fechaHora.plusMinutes(30 + r.nextInt(60));
+        facturas.agregar(idFactura, idFactura, Timestamp.valueOf(emision), identificacion, nombre,
+                DIRECCIONES[r.nextInt(DIRECCIONES.length)], subtotal, iva, subtotal.add(iva),
+                METODOS_PAGO[elegir(r, PESOS_METODOS_PAGO)]);
+    }
+
+    // Un servicio facturado; uno de cada diez lleva 10% de descuento
+    private static BigDecimal servicio(SplittableRandom r, Lote detalles, int idFactura, int k, int servicio,
+                                       String zona) throws SQLException {
+        BigDecimal precio = new BigDecimal(PRECIOS_SERVICIOS[servicio]);
+        if (r.nextInt(100) < 10) {
+            precio = precio.multiply(new BigDecimal("0.90")).setScale(2, RoundingMode.HALF_UP);
+        }
+        detalles.agregar(idFactura * ITEMS_POR_FACTURA + k, idFactura, servicio + 1, null, "Servicio", 1, precio, precio,
+                zona);
+        return precio;
+    }
+
+    // Pieza dental en notación FDI: cuadrante 1-4 y diente 1-8
+    private static int pieza(SplittableRandom r) {
+        return (1 + r.nextInt(4)) * 10 + 1 + r.nextInt(8);
+    }
+
+    /*
+     * =========================================================================================
+     * UTILIDADES
+     * =========================================================================================
+     */
+
+    @FunctionalInterface
+    private interface Tarea {
+        void ejecutar(Connection conn, int indice) throws SQLException;
+    }
+
+    /**
+     * Ejecuta las tareas 0..cantidad-1 con los productores configurados. Cada productor abre su
+     * conexión y toma la siguiente tarea libre hasta que no quedan; si uno falla, los demás se
+     * detienen y se relanza el error.
+     */
+    private void enParalelo(int cantidad, Tarea tarea) throws SQLException, InterruptedException {
+        AtomicInteger siguiente = new AtomicInteger();
+        int hilos = Math.min(p.productores(), cantidad);
+        ExecutorService productores = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Void>> resultados = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                resultados.add(productores.submit(() -> {
+                    try (Connection conn = abrir()) {
+                        int indice;
+                        while (!Thread.currentThread().isInterrupted()
+                                && (indice = siguiente.getAndIncrement()) < cantidad) {
+                            tarea.ejecutar(conn, indice);
+                        }
+                    } catch (SQLException e) {
+                        siguiente.set(cantidad);
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> resultado : resultados) {
+                try {
+                    resultado.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof SQLException sql) {
+                        throw sql;
+                    }
+                    throw new IllegalStateException("Falló un productor", e.getCause());
+                }
+            }
+        } finally {
+            productores.shutdownNow();
+        }
+    }
+
+    /**
+     * Conexión de un productor, con transacciones manuales (se confirma cada lote). En MySQL se
+     * desactivan las verificaciones de unicidad y de claves foráneas en la sesión: los datos ya
+     * salen consistentes y la carga es varias veces más rápida.
+     */
+    private Connection abrir() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, usuario, clave);
+        try {
+            conn.setAutoCommit(false);
+            if (conn.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET unique_checks = 0, foreign_key_checks = 0");
+                }
+            }
+            return conn;
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    private Lote lote(Connection conn, String tabla, String columnas) throws SQLException {
+        return new Lote(conn, tabla, columnas, filas.get(tabla));
+    }
+
+    private static double[] acumulados(double... pesos) {
+        double[] acumulados = new double[pesos.length];
+        double total = Arrays.stream(pesos).sum();
+        double suma = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            suma += pesos[i];
+            acumulados[i] = suma / total;
+        }
+        return acumulados;
+    }
+
+    // Índice al azar según pesos acumulados (normalizados a 1)
+    private static int elegir(SplittableRandom r, double[] acumulados) {
+        double u = r.nextDouble();
+        for (int i = 0; i < acumulados.length - 1; i++) {
+            if (u < acumulados[i]) {
+                return i;
+            }
+        }
+        return acumulados.length - 1;
+    }
+
+    // Mezcla de SplitMix64: semillas independientes por etapa y por entidad a partir de una sola
+    private static long mezclar(long semilla, long valor) {
+        long z = semilla + valor * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Filas pendientes de una tabla, enviadas con INSERT de varias filas. La sentencia de
+     * FILAS_POR_SENTENCIA filas se prepara una sola vez; el resto final usa una sentencia a medida.
+     * El búfer crece si hace falta (los detalles se acumulan hasta que se envían sus facturas).
+     */
+    private static final class Lote implements AutoCloseable {
+        private final Connection conn;
+        private final String tabla;
+        private final String columnas;
+        private final int porFila;
+        private final LongAdder contador;
+        private PreparedStatement completa;
+        private Object[] valores;
+        private int filas;
+
+        Lote(Connection conn, String tabla, String columnas, LongAdder contador) {
+            this.conn = conn;
+            this.tabla = tabla;
+            this.columnas = columnas;
+            this.porFila = columnas.split(",").length;
+            this.contador = contador;
+            this.valores = new Object[FILAS_POR_SENTENCIA * porFila];
+        }
+
+        void agregar(Object... fila) throws SQLException {
+            if (fila.length != porFila) {
+                throw new SQLException("Fila de " + fila.length + " valores para " + porFila + " columnas de " + tabla);
+            }
+            if ((filas + 1) * porFila > valores.length) {
+                valores = Arrays.copyOf(valores, valores.length * 2);
+            }
+            System.arraycopy(fila, 0, valores, filas * porFila, porFila);
+            filas++;
+        }
+
+        boolean lleno() {
+            return filas >= FILAS_POR_SENTENCIA;
+        }
+
+        // Envía todas las filas pendientes
+        void vaciar() throws SQLException {
+            int enviadas = enviarLlenas();
+            if (filas > enviadas) {
+                try (PreparedStatement resto = conn.prepareStatement(sql(filas - enviadas))) {
+                    enviar(resto, enviadas, filas - enviadas);
+                }
+            }
+            descartar(filas);
+        }
+
+        // Envía solo las sentencias llenas; el resto queda en el búfer
+        void vaciarLlenas() throws SQLException {
+            descartar(enviarLlenas());
+        }
+
+        private int enviarLlenas() throws SQLException {
+            int enviadas = 0;
+            while (filas - enviadas >= FILAS_POR_SENTENCIA) {
+                if (completa == null) {
+                    completa = conn.prepareStatement(sql(FILAS_POR_SENTENCIA));
+                }
+                enviar(completa, enviadas, FILAS_POR_SENTENCIA);
+                enviadas += FILAS_POR_SENTENCIA;
+            }
+            return enviadas;
+        }
+
+        // Quita del búfer las primeras filas ya enviadas y corre las demás al inicio
+        private void descartar(int enviadas) {
+            contador.add(enviadas);
+            int quedan = (filas - enviadas) * porFila;
+            System.arraycopy(valores, enviadas * porFila, valores, 0, quedan);
+            Arrays.fill(valores, quedan, filas * porFila, null);
+            filas -= enviadas;
+        }
+
+        private void enviar(PreparedStatement stmt, int desde, int cantidad) throws SQLException {
+            int inicio = desde * porFila;
+            for (int i = 0; i < cantidad * porFila; i++) {
+                Object valor = valores[inicio + i];
+                if (valor == null) {
+                    stmt.setNull(i + 1, Types.NULL);
+                } else {
+                    stmt.setObject(i + 1, valor);
+                }
+            }
+            stmt.executeUpdate();
+        }
+
+        private String sql(int cantidad) {
+            String fila = "(" + "?, ".repeat(porFila - 1) + "?)";
+            StringBuilder sb = new StringBuilder("INSERT INTO ").append(tabla).append(" (").append(columnas)
+                    .append(") VALUES ");
+            for (int i = 0; i < cantidad; i++) {
+                sb.append(i == 0 ? "" : ", ").append(fila);
+            }
+            return sb.toString();
+        }
+
+        // Solo libera la sentencia: lo pendiente se envía con vaciar(), en el orden de las claves foráneas
+        @Override
+        public void close() throws SQLException {
+            if (completa != null) {
+                completa.close();
+            }
+        }
+    }
+
+    /**
+     * Genera la base indicada en endodental.db.url con los parámetros generador.* e imprime el
+     * resumen. Si la URL es de H2 en memoria, crea antes el esquema (útil para medir el generador).
+     */
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("endodental.db.url", BaseDatosPrueba.URL);
+        String usuario = System.getProperty("endodental.db.usuario", BaseDatosPrueba.USUARIO);
+        String clave = System.getProperty("endodental.db.clave", BaseDatosPrueba.CLAVE);
+        boolean crearEsquema = Boolean.parseBoolean(System.getProperty("generador.crearEsquema",
+                String.valueOf(url.startsWith("jdbc:h2:mem:"))));
+        Parametros parametros = Parametros.desdePropiedades("generador");
+
+        // Una conexión abierta mantiene viva la base H2 en memoria mientras se genera
+        try (Connection conn = DriverManager.getConnection(url, usuario, clave)) {
+            if (crearEsquema) {
+                BaseDatosPrueba.ejecutarScript(conn, "/clinica_odontologica.sql");
+            }
+            GeneradorDatos generador = new GeneradorDatos(url, usuario, clave, parametros);
+            System.out.printf("Generando escala %s (semilla %d): %d odontólogos, %d pacientes, %s a %s, %d productores%n",
+                    parametros.escala(), parametros.semilla(), generador.odontologos, generador.pacientes,
+                    generador.inicio, parametros.hoy().plusDays(parametros.diasFuturos()), parametros.productores());
+            Resumen resumen = generador.generar();
+
+            long total = 0;
+            for (Map.Entry<String, Long> e : resumen.filas().entrySet()) {
+                System.out.printf("%-18s %,14d%n", e.getKey(), e.getValue());
+                total += e.getValue();
+            }
+            for (int i = 0; i < ESTADOS.length; i++) {
+                System.out.printf("  citas %-10s %,14d%n", ESTADOS[i], resumen.porEstado()[i]);
+            }
+            System.out.printf("%,d filas en %.1f s (%,.0f filas/s)%n", total, resumen.segundos(),
+                    total / resumen.segundos());
+        }
+    }
+}
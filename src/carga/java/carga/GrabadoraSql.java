@@ -0,0 +1,135 @@
+package carga;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Conexión que graba las sentencias SQL que ejecuta un repositorio, con sus
+ * parámetros, sin cambiar su comportamiento (todo se delega a la conexión real). PlanesConsultas
+ * la usa para descubrir qué SQL emite cada método y luego pedir su plan con EXPLAIN.
+ *
+ * Se implementa con proxies dinámicos de Connection, Statement y PreparedStatement: graba al
+ * ejecutar (execute*, addBatch), así que solo quedan las sentencias que de verdad se envían.
+ * Cada sentencia se guarda una vez por origen (el método del repositorio que se está ejecutando).
+ * */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+final class GrabadoraSql {
+
+    /**
+     * Sentencia grabada.
+     *
+     * @param origen     Método que la emitió ("CitaRepositoryImpl.buscar").
+     * @param sql        Texto SQL, con marcadores '?'.
+     * @param parametros Valores de los marcadores, en orden (null si se asignó NULL).
+     */
+    record Sentencia(String origen, String sql, List<Object> parametros) {
+    }
+
+    private final List<Sentencia> sentencias = new ArrayList<>();
+    private final Set<String> vistas = new HashSet<>();
+    private String origen = "(sin origen)";
+
+    /**
+     * Indica qué método se va a ejecutar: las sentencias siguientes se le atribuyen.
+     */
+    void origen(String origen) {
+        this.origen = origen;
+    }
+
+    /**
+     * @return Sentencias grabadas, en el orden en que se ejecutaron por primera vez.
+     */
+    List<Sentencia> sentencias() {
+        return sentencias;
+    }
+
+    /**
+     * @return Cantidad de sentencias distintas atribuidas al origen indicado.
+     */
+    long cantidad(String origen) {
+        return sentencias.stream().filter(s -> s.origen().equals(origen)).count();
+    }
+
+    /**
+     * Envuelve una conexión: lo que se prepare o cree con ella queda grabado.
+     */
+    Connection envolver(Connection real) {
+        return proxy(Connection.class, (p, metodo, args) -> {
+            Object resultado = delegar(real, metodo, args);
+            if (metodo.getName().equals("prepareStatement")) {
+                return proxy(PreparedStatement.class, new Preparada((PreparedStatement) resultado, (String) args[0]));
+            }
+            if (metodo.getName().equals("createStatement")) {
+                return proxy(Statement.class, (ps, m, a) -> {
+                    if (esEjecucion(m) && a != null && a.length > 0 && a[0] instanceof String sql) {
+                        grabar(sql, List.of());
+                    }
+                    return delegar(resultado, m, a);
+                });
+            }
+            return resultado;
+        });
+    }
+
+    // Sentencia preparada: acumula los parámetros asignados y graba al ejecutar
+    private final class Preparada implements InvocationHandler {
+        private final PreparedStatement real;
+        private final String sql;
+        private final Map<Integer, Object> parametros = new TreeMap<>();
+
+        Preparada(PreparedStatement real, String sql) {
+            this.real = real;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                parametros.put(indice, nombre.equals("setNull") ? null : args[1]);
+            } else if (nombre.equals("clearParameters")) {
+                parametros.clear();
+            } else if (esEjecucion(metodo) && (args == null || args.length == 0)) {
+                grabar(sql, new ArrayList<>(parametros.values()));
+            }
+            return delegar(real, metodo, args);
+        }
+    }
+
+    private void grabar(String sql, List<Object> parametros) {
+        if (vistas.add(origen + '\n' + sql)) {
+            sentencias.add(new Sentencia(origen, sql, parametros));
+        }
+    }
+
+    private static boolean esEjecucion(Method metodo) {
+        String nombre = metodo.getName();
+        return nombre.startsWith("execute") && !nombre.equals("executeBatch") || nombre.equals("addBatch");
+    }
+
+    private static Object delegar(Object real, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(real, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> tipo, InvocationHandler manejador) {
+        return tipo.cast(Proxy.newProxyInstance(GrabadoraSql.class.getClassLoader(), new Class<?>[]{tipo}, manejador));
+    }
+}
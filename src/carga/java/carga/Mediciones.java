@@ -0,0 +1,196 @@
+package carga;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Registro de las solicitudes de la prueba de carga, por endpoint ("POST /login",
+ * "GET /citas", ...). Guarda la latencia exacta de cada solicitud (no en cubetas, como
+ * util.Histograma) para calcular p50/p95/p99, y cuenta los errores por causa.
+ * Al final imprime la tabla de resultados y la guarda en CSV.
+ * */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class Mediciones {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong orden = new AtomicLong();
+
+    /**
+     * @param conocidos Endpoints en el orden en que se listan; los que aparezcan después van al final.
+     */
+    Mediciones(List<String> conocidos) {
+        for (String endpoint : conocidos) {
+            endpoints.put(endpoint, new Endpoint(orden.getAndIncrement()));
+        }
+    }
+
+    /**
+     * Registra una solicitud terminada.
+     *
+     * @param endpoint Nombre del endpoint (método y ruta).
+     * @param nanos    Latencia de la solicitud completa, incluido el cuerpo de la respuesta.
+     * @param error    Causa del error, o null si la respuesta fue la esperada.
+     */
+    void registrar(String endpoint, long nanos, String error) {
+        endpoints.computeIfAbsent(endpoint, k -> new Endpoint(orden.getAndIncrement())).registrar(nanos, error);
+    }
+
+    /**
+     * @return Solicitudes que terminaron con un error del servidor (HTTP 5xx), en todos los endpoints.
+     */
+    long erroresServidor() {
+        long total = 0;
+        for (Endpoint endpoint : endpoints.values()) {
+            for (Map.Entry<String, Long> causa : endpoint.causas.entrySet()) {
+                if (causa.getKey().startsWith("HTTP 5")) {
+                    total += causa.getValue();
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Imprime la tabla de resultados: solicitudes, rendimiento, percentiles de latencia y errores.
+     *
+     * @param salida   Dónde imprimir.
+     * @param segundos Duración de la medición (para el rendimiento por segundo).
+     */
+    void imprimir(PrintStream salida, double segundos) {
+        String formato = "%-24s %10s %9s %9s %9s %9s %9s %8s%n";
+        salida.printf(formato, "Endpoint", "Solicitudes", "Sol/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "Errores");
+        long total = 0;
+        long errores = 0;
+        for (Resumen r : resumenes(segundos)) {
+            salida.printf(Locale.ROOT, "%-24s %10d %9.1f %9.1f %9.1f %9.1f %9.1f %7.2f%%%n", r.endpoint, r.solicitudes,
+                    r.porSegundo, r.p50, r.p95, r.p99, r.maximo, r.porcentajeErrores());
+            total += r.solicitudes;
+            errores += r.errores;
+        }
+        salida.printf(Locale.ROOT, "%-24s %10d %9.1f %49s %7.2f%%%n", "TOTAL", total, total / segundos, "",
+                total == 0 ? 0.0 : 100.0 * errores / total);
+
+        for (Map.Entry<String, Endpoint> e : ordenados()) {
+            for (Map.Entry<String, Long> causa : e.getValue().causas.entrySet()) {
+                salida.printf("  %s: %d x %s%n", e.getKey(), causa.getValue(), causa.getKey());
+            }
+        }
+    }
+
+    /**
+     * Imprime dos corridas lado a lado, por endpoint: rendimiento, p95, p99 y errores de cada una.
+     *
+     * @param salida Dónde imprimir.
+     * @param a      Primera corrida (columna izquierda).
+     * @param segA   Duración de la medición de la primera corrida.
+     * @param b      Segunda corrida (columna derecha).
+     * @param segB   Duración de la medición de la segunda corrida.
+     */
+    static void imprimirComparacion(PrintStream salida, Mediciones a, double segA, Mediciones b, double segB) {
+        String formato = "%-24s %17s %19s %19s %15s%n";
+        salida.printf(formato, "Endpoint", "Sol/s", "p95 ms", "p99 ms", "Errores %");
+        Map<String, Resumen> derecha = new HashMap<>();
+        for (Resumen r : b.resumenes(segB)) {
+            derecha.put(r.endpoint, r);
+        }
+        for (Resumen izq : a.resumenes(segA)) {
+            Resumen der = derecha.getOrDefault(izq.endpoint, new Resumen(izq.endpoint, 0, 0, 0, 0, 0, 0, 0));
+            salida.printf(Locale.ROOT, "%-24s %8.1f / %6.1f %9.1f / %7.1f %9.1f / %7.1f %6.2f / %6.2f%n", izq.endpoint,
+                    izq.porSegundo, der.porSegundo, izq.p95, der.p95, izq.p99, der.p99,
+                    izq.porcentajeErrores(), der.porcentajeErrores());
+        }
+    }
+
+    /**
+     * Guarda los resultados en CSV (una fila por endpoint).
+     */
+    void guardarCsv(Path archivo, double segundos) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        lineas.add("endpoint,solicitudes,por_segundo,p50_ms,p95_ms,p99_ms,max_ms,errores");
+        for (Resumen r : resumenes(segundos)) {
+            lineas.add(String.format(Locale.ROOT, "\"%s\",%d,%.2f,%.2f,%.2f,%.2f,%.2f,%d", r.endpoint, r.solicitudes,
+                    r.porSegundo, r.p50, r.p95, r.p99, r.maximo, r.errores));
+        }
+        Files.createDirectories(archivo.toAbsolutePath().getParent());
+        Files.write(archivo, lineas);
+    }
+
+    private List<Map.Entry<String, Endpoint>> ordenados() {
+        List<Map.Entry<String, Endpoint>> lista = new ArrayList<>(endpoints.entrySet());
+        lista.sort((a, b) -> Long.compare(a.getValue().orden, b.getValue().orden));
+        return lista;
+    }
+
+    private List<Resumen> resumenes(double segundos) {
+        List<Resumen> lista = new ArrayList<>();
+        for (Map.Entry<String, Endpoint> e : ordenados()) {
+            lista.add(e.getValue().resumir(e.getKey(), segundos));
+        }
+        return lista;
+    }
+
+    private record Resumen(String endpoint, long solicitudes, double porSegundo, double p50, double p95,
+                           double p99, double maximo, long errores) {
+        double porcentajeErrores() {
+            return solicitudes == 0 ? 0.0 : 100.0 * errores / solicitudes;
+        }
+    }
+
+    /**
+     * Latencias y errores de un endpoint. Las latencias se agregan a un arreglo que crece al doble;
+     * registrar es sincronizado, pero su costo es despreciable frente a una solicitud HTTP.
+     */
+    private static final class Endpoint {
+        private final long orden;
+        private long[] latencias = new long[1024];
+        private int cantidad;
+        private long errores;
+        private final Map<String, Long> causas = new ConcurrentSkipListMap<>();
+
+        Endpoint(long orden) {
+            this.orden = orden;
+        }
+
+        synchronized void registrar(long nanos, String error) {
+            if (cantidad == latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad * 2);
+            }
+            latencias[cantidad++] = nanos;
+            if (error != null) {
+                errores++;
+                causas.merge(error, 1L, Long::sum);
+            }
+        }
+
+        synchronized Resumen resumir(String nombre, double segundos) {
+            long[] ordenadas = Arrays.copyOf(latencias, cantidad);
+            Arrays.sort(ordenadas);
+            return new Resumen(nombre, cantidad, cantidad / segundos, percentil(ordenadas, 50),
+                    percentil(ordenadas, 95), percentil(ordenadas, 99),
+                    cantidad == 0 ? 0 : ordenadas[cantidad - 1] / 1e6, errores);
+        }
+
+        // Percentil por el método del rango más cercano, en milisegundos
+        private static double percentil(long[] ordenadas, double p) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(p / 100.0 * ordenadas.length) - 1;
+            return ordenadas[Math.max(0, indice)] / 1e6;
+        }
+    }
+}
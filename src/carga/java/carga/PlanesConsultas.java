@@ -0,0 +1,639 @@
+package carga;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Verificación de los planes de ejecución de todas las sentencias SQL del paquete
+ * repository. Sobre una base con datos generados (GeneradorDatos) y los índices del Migrador:
+ *
+ * 1. Ejecuta un guion que llama a cada método público de cada repositorio (y a la carga de los
+ *    índices de pacientes y cédulas) sobre una conexión que graba el SQL emitido (GrabadoraSql),
+ *    dentro de una transacción que al final se deshace.
+ * 2. Comprueba la cobertura: todo método público de un repositorio debe estar en el guion y emitir
+ *    SQL, así que un método nuevo sin entrada en el guion hace fallar la verificación.
+ * 3. Pide el plan de cada sentencia distinta con los mismos parámetros (EXPLAIN ANALYZE en H2,
+ *    EXPLAIN en MySQL) y marca como problema, sobre las tablas grandes (citas, facturas,
+ *    detalles_factura y pacientes), un recorrido completo o un acceso por índice que lee más del
+ *    10% de la tabla (-Dplanes.fraccion). Un ordenamiento en memoria (filesort) se informa junto al
+ *    problema: ordenar las pocas filas que entrega un índice es barato, lo caro es leer y ordenar
+ *    la tabla entera para devolver una página. Los INSERT ... VALUES no leen tablas y no se explican.
+ *
+ * Los planes quedan en target/planes-consultas.txt y el programa termina con código 1 si hay
+ * problemas no permitidos. PlanesConsultasTest corre la misma verificación en 'mvn test', así que
+ * el build por defecto falla cuando una consulta nueva o un cambio de esquema pierde un índice. Las lecturas completas a propósito están en PERMITIDAS, cada
+ * una con su razón; un permiso que ya no hace falta se avisa para quitarlo.
+ *
+ * Por defecto usa una base H2 en memoria en modo MySQL, generada a escala -Dplanes.escala
+ * (valor por defecto 1). Con -Dplanes.url/usuario/clave se puede apuntar a un MySQL de pruebas:
+ * si la tabla citas está vacía se generan los datos, si no se usan los que tenga. En H2 se miden
+ * las filas leídas de verdad (EXPLAIN ANALYZE); en MySQL, las que estima EXPLAIN.
+ *
+ * Uso: mvn test (o mvn -Pcarga test-compile exec:exec -Dcarga.principal=carga.PlanesConsultas)
+ * */
+
+import models.Atencion;
+import models.Cita;
+import models.Cursor;
+import models.DetalleFactura;
+import models.Factura;
+import models.Odontologo;
+import models.Paciente;
+import models.Producto;
+import models.Rol;
+import models.Servicio;
+import models.Usuario;
+import repository.AtencionRepositoryImpl;
+import repository.CitaRepositoryImpl;
+import repository.CriteriosCita;
+import repository.CriteriosFactura;
+import repository.DashboardRepositoryImpl;
+import repository.DetalleFacturaRepositoryImpl;
+import repository.FacturaRepositoryImpl;
+import repository.IndicePacientes;
+import repository.OdontologoRepositoryImpl;
+import repository.PacienteRepositoryImpl;
+import repository.ProductoRepositoryImpl;
+import repository.ServicioRepositoryImpl;
+import repository.UsuarioRepositoryImpl;
+import util.Migrador;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class PlanesConsultas {
+
+    static final String URL = "jdbc:h2:mem:planes_consultas;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    // Tablas que crecen con el uso de la clínica: sobre ellas no se admite leer todo ni ordenar en memoria
+    static final Set<String> TABLAS_GRANDES = Set.of("citas", "facturas", "detalles_factura", "pacientes");
+
+    // Clases cuyos métodos públicos se verifican; las de índices exponen construir(Connection)
+    private static final List<Class<?>> REPOSITORIOS = List.of(
+            AtencionRepositoryImpl.class, CitaRepositoryImpl.class, DashboardRepositoryImpl.class,
+            DetalleFacturaRepositoryImpl.class, FacturaRepositoryImpl.class, OdontologoRepositoryImpl.class,
+            PacienteRepositoryImpl.class, ProductoRepositoryImpl.class, ServicioRepositoryImpl.class,
+            UsuarioRepositoryImpl.class);
+    private static final List<Class<?>> INDICES = List.of(IndicePacientes.class);
+
+    // Sentencias que leen una tabla grande completa por diseño, con la razón
+    private static final List<Permiso> PERMITIDAS = List.of(
+            new Permiso("CitaRepositoryImpl.listar", null, "historial completo sin filtro; las pantallas usan buscar() paginado"),
+            new Permiso("CitaRepositoryImpl.listarPorCedula", null, "LIKE '%cédula%' no puede usar un índice; sin uso desde los controladores"),
+            new Permiso("CitaRepositoryImpl.buscar", "p.cedula LIKE", "respaldo de buscarPorPaciente mientras el índice de pacientes se carga"),
+            new Permiso("FacturaRepositoryImpl.listar", null, "historial completo sin filtro; las pantallas usan buscar() paginado"),
+            new Permiso("PacienteRepositoryImpl.listar", null, "lista completa de pacientes activos (pantalla de pacientes y agenda)"),
+            new Permiso("DashboardRepositoryImpl.contarPacientesActivos", null, "conteo de todos los pacientes activos del dashboard"),
+            new Permiso("IndicePacientes.construir", null, "carga completa del índice en memoria al desplegar"));
+
+    // Fracción de una tabla grande que una sentencia puede leer antes de contar como recorrido completo
+    private static final double FRACCION_MAXIMA = Double.parseDouble(System.getProperty("planes.fraccion", "0.10"));
+
+    // Tabla, índice usado y filas leídas de cada acceso en un plan de EXPLAIN ANALYZE de H2
+    private static final Pattern ACCESO_H2 = Pattern.compile(
+            "\"public\"\\.\"(\\w+)\"(?: \"\\w+\")?\\s*/\\* (.*?)\\*/.*?/\\* scanCount: (\\d+) \\*/", Pattern.DOTALL);
+    private static final Pattern CLAVE_PRIMARIA_H2 = Pattern.compile("\\.PRIMARY_KEY_\\w*: \\w+ = ");
+    private static final Pattern IN_CON_RANGO_H2 = Pattern.compile(": \\w+ IN\\(.*\\R\\s*AND ");
+    private static final Pattern ORDEN = Pattern.compile("\\bORDER\\s+BY\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLA_PRINCIPAL = Pattern.compile("\\b(?:FROM|UPDATE)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLA_CON_ALIAS = Pattern.compile(
+            "\\b(?:FROM|JOIN|UPDATE)\\s+(\\w+)(?:\\s+(?:AS\\s+)?(\\w+))?", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Plan de una sentencia grabada.
+     *
+     * @param sentencia Sentencia y su origen.
+     * @param texto     Plan tal como lo entrega EXPLAIN (vacío si no se explicó).
+     * @param problemas Recorridos completos o lecturas amplias de tablas grandes.
+     * @param avisos    Lecturas amplias que se deben a una limitación de H2 y no fallan la verificación.
+     */
+    record Plan(GrabadoraSql.Sentencia sentencia, String texto, List<String> problemas, List<String> avisos) {
+
+        /**
+         * @return El permiso que cubre esta sentencia, o null si no está permitida.
+         */
+        Permiso permiso() {
+            return PERMITIDAS.stream().filter(p -> p.cubre(sentencia)).findFirst().orElse(null);
+        }
+    }
+
+    /**
+     * Lectura completa aceptada a propósito.
+     *
+     * @param origen    Método que emite la sentencia ("Clase.metodo").
+     * @param fragmento Texto que debe contener la sentencia, o null para todas las del método.
+     * @param razon     Por qué se acepta.
+     */
+    private record Permiso(String origen, String fragmento, String razon) {
+
+        boolean cubre(GrabadoraSql.Sentencia s) {
+            return s.origen().equals(origen) && (fragmento == null || s.sql().contains(fragmento));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Llamada {
+        void ejecutar() throws Exception;
+    }
+
+    private PlanesConsultas() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (verificar() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Ejecuta el guion, explica cada sentencia y escribe el informe. La usa main y también
+     * PlanesConsultasTest, que la corre en el build por defecto (mvn test).
+     *
+     * @return Cantidad de sentencias con problemas no permitidos más fallas del guion (0: todo bien).
+     */
+    static long verificar() throws Exception {
+        String url = System.getProperty("planes.url", URL);
+        String usuario = System.getProperty("planes.usuario", BaseDatosPrueba.USUARIO);
+        String clave = System.getProperty("planes.clave", BaseDatosPrueba.CLAVE);
+        Path salida = Path.of(System.getProperty("planes.salida", "target/planes-consultas.txt"));
+
+        try (Connection conn = DriverManager.getConnection(url, usuario, clave)) {
+            boolean h2 = conn.getMetaData().getDatabaseProductName().equalsIgnoreCase("H2");
+            preparar(conn, url, usuario, clave, h2);
+
+            // 1. Guion: cada método de cada repositorio, grabando el SQL y sin dejar cambios
+            GrabadoraSql grabadora = new GrabadoraSql();
+            List<String> fallas = new ArrayList<>();
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<String, Llamada> e : guion(grabadora.envolver(conn), conn).entrySet()) {
+                    grabadora.origen(e.getKey());
+                    try {
+                        e.getValue().ejecutar();
+                    } catch (Exception ex) {
+                        fallas.add(e.getKey() + ": la llamada falló (" + ex + ")");
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+
+            // 2. Cobertura del guion
+            for (String metodo : metodosPublicos()) {
+                if (grabadora.cantidad(metodo) == 0 && fallas.stream().noneMatch(f -> f.startsWith(metodo + ":"))) {
+                    fallas.add(metodo + ": no emitió SQL (¿falta en el guion de PlanesConsultas?)");
+                }
+            }
+
+            // 3. Planes, también dentro de una transacción: EXPLAIN ANALYZE ejecuta la sentencia
+            Map<String, Long> filas = new HashMap<>();
+            for (String tabla : TABLAS_GRANDES) {
+                filas.put(tabla, ((Number) fila(conn, "SELECT COUNT(*) FROM " + tabla)[0]).longValue());
+            }
+            List<Plan> planes = new ArrayList<>();
+            conn.setAutoCommit(false);
+            try {
+                for (GrabadoraSql.Sentencia s : grabadora.sentencias()) {
+                    planes.add(explicar(conn, s, h2, filas));
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            informar(planes, fallas, salida);
+
+            long problemas = planes.stream().filter(p -> !p.problemas().isEmpty() && p.permiso() == null).count();
+            return problemas + fallas.size();
+        }
+    }
+
+    /**
+     * Crea el esquema si hace falta, genera los datos si la tabla de citas está vacía, aplica las
+     * migraciones y actualiza las estadísticas para que el optimizador vea los tamaños reales.
+     */
+    private static void preparar(Connection conn, String url, String usuario, String clave, boolean h2)
+            throws SQLException, IOException, InterruptedException {
+        if (Boolean.parseBoolean(System.getProperty("planes.crearEsquema", String.valueOf(url.startsWith("jdbc:h2:mem:"))))) {
+            BaseDatosPrueba.ejecutarScript(conn, "/clinica_odontologica.sql");
+        }
+        if (((Number) fila(conn, "SELECT COUNT(*) FROM citas")[0]).longValue() == 0) {
+            GeneradorDatos.Parametros parametros = GeneradorDatos.Parametros.desdePropiedades("planes");
+            System.out.printf("[PlanesConsultas] Generando datos a escala %s%n", parametros.escala());
+            new GeneradorDatos(url, usuario, clave, parametros).generar();
+        }
+        Migrador.migrar(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(h2 ? "ANALYZE" : "ANALYZE TABLE " + String.join(", ", new TreeSet<>(TABLAS_GRANDES)));
+        }
+    }
+
+    /**
+     * Guion de llamadas, una entrada por método público ("Clase.metodo"). Una entrada puede hacer
+     * varias llamadas para cubrir las variantes de SQL que arma el método (INSERT y UPDATE, filtros
+     * opcionales), con las mismas combinaciones que usan los servicios y controladores.
+     *
+     * @param c    Conexión que graba, la que reciben los repositorios.
+     * @param real Conexión real, para leer ids de apoyo sin grabarlos.
+     */
+    private static Map<String, Llamada> guion(Connection c, Connection real) throws SQLException {
+        Object[] cita = fila(real, "SELECT id_cita, fecha_hora, id_paciente, id_odontologo FROM citas "
+                + "WHERE estado = 'Atendida' ORDER BY id_cita DESC LIMIT 1");
+        int idCita = ((Number) cita[0]).intValue();
+        LocalDateTime fechaHora = ((Timestamp) cita[1]).toLocalDateTime();
+        int idPaciente = ((Number) cita[2]).intValue();
+        int idOdontologo = ((Number) cita[3]).intValue();
+        LocalDate dia = fechaHora.toLocalDate();
+        String fecha = dia.toString();
+        String cedula = (String) fila(real, "SELECT cedula FROM pacientes WHERE id_paciente = " + idPaciente)[0];
+        int idUsuarioOdontologo = ((Number) fila(real, "SELECT id_usuario FROM odontologos WHERE id_odontologo = " + idOdontologo)[0]).intValue();
+        Object[] facturas = fila(real, "SELECT MAX(id_factura), MIN(id_factura) FROM facturas");
+        int idFactura = ((Number) facturas[0]).intValue();
+        int otraFactura = ((Number) facturas[1]).intValue();
+        int idProducto = ((Number) fila(real, "SELECT MIN(id_producto) FROM productos")[0]).intValue();
+        int idServicio = ((Number) fila(real, "SELECT MIN(id_servicio) FROM servicios")[0]).intValue();
+        Cursor cursor = new Cursor(fechaHora, idCita);
+
+        CitaRepositoryImpl citas = new CitaRepositoryImpl(c);
+        FacturaRepositoryImpl facturasRepo = new FacturaRepositoryImpl(c);
+        DetalleFacturaRepositoryImpl detalles = new DetalleFacturaRepositoryImpl(c);
+        PacienteRepositoryImpl pacientes = new PacienteRepositoryImpl(c);
+        ProductoRepositoryImpl productos = new ProductoRepositoryImpl(c);
+        ServicioRepositoryImpl servicios = new ServicioRepositoryImpl(c);
+        UsuarioRepositoryImpl usuarios = new UsuarioRepositoryImpl(c);
+        OdontologoRepositoryImpl odontologos = new OdontologoRepositoryImpl(c);
+        DashboardRepositoryImpl dashboard = new DashboardRepositoryImpl(c);
+
+        Map<String, Llamada> g = new LinkedHashMap<>();
+
+        g.put("CitaRepositoryImpl.listar", citas::listar);
+        g.put("CitaRepositoryImpl.listarPorFecha", () -> citas.listarPorFecha(fecha));
+        g.put("CitaRepositoryImpl.listarPorFechaYEstados", () -> citas.listarPorFechaYEstados(fecha, List.of("Pendiente", "Confirmada")));
+        g.put("CitaRepositoryImpl.listarPorCedula", () -> citas.listarPorCedula(cedula.substring(0, 6)));
+        g.put("CitaRepositoryImpl.listarPorEstado", () -> citas.listarPorEstado("Atendida"));
+        g.put("CitaRepositoryImpl.porId", () -> citas.porId(idCita));
+        g.put("CitaRepositoryImpl.existeCitaEnHorario", () -> citas.existeCitaEnHorario(idOdontologo, fechaHora));
+        g.put("CitaRepositoryImpl.listarPendientesPorDoctor", () -> citas.listarPendientesPorDoctor(idOdontologo, fecha));
+        g.put("CitaRepositoryImpl.guardar", () -> {
+            Paciente paciente = new Paciente();
+            paciente.setIdPaciente(idPaciente);
+            citas.guardar(new Cita(fechaHora.plusYears(10), "Control", paciente, new Odontologo(idOdontologo)));
+            citas.guardar(citas.porId(idCita));
+        });
+        g.put("CitaRepositoryImpl.actualizarEstado", () -> citas.actualizarEstado(idCita, "Atendida"));
+        g.put("CitaRepositoryImpl.buscar", () -> {
+            // Agenda del día (CitaServlet), citas por facturar (FacturaServlet) y búsqueda del historial
+            citas.buscar(new CriteriosCita().desde(dia.atStartOfDay()).hasta(dia.plusDays(1).atStartOfDay())
+                    .estados(List.of("Pendiente", "Confirmada")).despuesDe(cursor));
+            citas.buscar(new CriteriosCita().estados(List.of("Atendida")).descendente().tamano(CriteriosCita.TAMANO_MAXIMO));
+            citas.buscar(new CriteriosCita().descendente().despuesDe(cursor).pacientes(List.of(idPaciente)));
+            citas.buscar(new CriteriosCita().descendente().despuesDe(cursor).cedula(cedula.substring(0, 6)));
+            citas.buscar(new CriteriosCita().odontologo(idOdontologo).desde(dia.atStartOfDay()).hasta(dia.plusDays(7).atStartOfDay()));
+        });
+
+        g.put("DashboardRepositoryImpl.contarCitasDia", () -> dashboard.contarCitasDia(fecha));
+        g.put("DashboardRepositoryImpl.contarPacientesActivos", dashboard::contarPacientesActivos);
+        g.put("DashboardRepositoryImpl.sumarFacturadoDia", () -> dashboard.sumarFacturadoDia(fecha));
+
+        g.put("FacturaRepositoryImpl.listar", facturasRepo::listar);
+        g.put("FacturaRepositoryImpl.porId", () -> facturasRepo.porId(idFactura));
+        g.put("FacturaRepositoryImpl.guardar", () -> {
+            Cita atendida = new Cita();
+            atendida.setIdCita(idCita);
+            facturasRepo.guardar(new Factura(0, fechaHora, cedula, "Cliente", null, BigDecimal.TEN,
+                    new BigDecimal("1.50"), new BigDecimal("11.50"), "Efectivo", atendida));
+        });
+        g.put("FacturaRepositoryImpl.buscar", () -> {
+            facturasRepo.buscar(new CriteriosFactura());
+            facturasRepo.buscar(new CriteriosFactura().metodoPago("Efectivo").despuesDe(new Cursor(fechaHora, idFactura)));
+            facturasRepo.buscar(new CriteriosFactura().identificacionCliente(cedula));
+            facturasRepo.buscar(new CriteriosFactura().desde(dia.atStartOfDay()).hasta(dia.plusDays(1).atStartOfDay()));
+        });
+        g.put("FacturaRepositoryImpl.estimarTotal", () -> facturasRepo.estimarTotal(
+                new CriteriosFactura().desde(dia.minusMonths(1).atStartOfDay()).hasta(dia.atStartOfDay())));
+
+        g.put("DetalleFacturaRepositoryImpl.guardar", () -> {
+            Servicio servicio = new Servicio();
+            servicio.setIdServicio(idServicio);
+            detalles.guardar(idFactura, List.of(new DetalleFactura(0, "Servicio", 1, BigDecimal.TEN, BigDecimal.TEN,
+                    "Pieza 11", null, servicio, null)));
+        });
+        g.put("DetalleFacturaRepositoryImpl.listarPorFactura", () -> detalles.listarPorFactura(idFactura));
+        g.put("DetalleFacturaRepositoryImpl.listarPorFacturas", () -> detalles.listarPorFacturas(List.of(idFactura, otraFactura)));
+
+        g.put("AtencionRepositoryImpl.guardar", () -> {
+            Cita atendida = new Cita();
+            atendida.setIdCita(idCita);
+            new AtencionRepositoryImpl(c).guardar(new Atencion(0, "Caries", "Resina", null, atendida));
+        });
+
+        g.put("PacienteRepositoryImpl.listar", pacientes::listar);
+        g.put("PacienteRepositoryImpl.listarInactivos", pacientes::listarInactivos);
+        g.put("PacienteRepositoryImpl.porId", () -> pacientes.porId(idPaciente));
+        g.put("PacienteRepositoryImpl.porIds", () -> pacientes.porIds(List.of(idPaciente, idPaciente + 1)));
+        g.put("PacienteRepositoryImpl.porCedula", () -> pacientes.porCedula(cedula));
+        g.put("PacienteRepositoryImpl.guardar", () -> {
+            pacientes.guardar(new Paciente("0999999999", "Prueba", "Planes", null, null, null));
+            pacientes.guardar(pacientes.porId(idPaciente));
+        });
+        g.put("PacienteRepositoryImpl.eliminar", () -> pacientes.eliminar(idPaciente));
+        g.put("PacienteRepositoryImpl.activar", () -> pacientes.activar(idPaciente));
+
+        g.put("OdontologoRepositoryImpl.listar", odontologos::listar);
+        g.put("OdontologoRepositoryImpl.listarTodos", odontologos::listarTodos);
+        g.put("OdontologoRepositoryImpl.porId", () -> odontologos.porId(idOdontologo));
+        g.put("OdontologoRepositoryImpl.porIdUsuario", () -> odontologos.porIdUsuario(idUsuarioOdontologo));
+        g.put("OdontologoRepositoryImpl.guardar", () -> odontologos.guardar(odontologos.porId(idOdontologo)));
+
+        g.put("ProductoRepositoryImpl.listar", productos::listar);
+        g.put("ProductoRepositoryImpl.listarInactivos", productos::listarInactivos);
+        g.put("ProductoRepositoryImpl.porId", () -> productos.porId(idProducto));
+        g.put("ProductoRepositoryImpl.porIds", () -> productos.porIds(List.of(idProducto)));
+        g.put("ProductoRepositoryImpl.guardar", () -> {
+            productos.guardar(new Producto(0, "Hilo dental", "Marca", null, BigDecimal.ONE, 10, 2, 1));
+            productos.guardar(productos.porId(idProducto));
+        });
+        g.put("ProductoRepositoryImpl.eliminar", () -> productos.eliminar(idProducto));
+        g.put("ProductoRepositoryImpl.activar", () -> productos.activar(idProducto));
+        g.put("ProductoRepositoryImpl.actualizarStock", () -> productos.actualizarStock(idProducto, 5));
+        g.put("ProductoRepositoryImpl.descontarStock", () -> productos.descontarStock(Map.of(idProducto, 1)));
+
+        g.put("ServicioRepositoryImpl.listar", servicios::listar);
+        g.put("ServicioRepositoryImpl.porId", () -> servicios.porId(idServicio));
+        g.put("ServicioRepositoryImpl.guardar", () -> {
+            servicios.guardar(new Servicio(0, "Servicio de prueba", null, BigDecimal.TEN));
+            servicios.guardar(servicios.porId(idServicio));
+        });
+        g.put("ServicioRepositoryImpl.eliminar", () ->
+                servicios.eliminar(((Number) fila(real, "SELECT MAX(id_servicio) FROM servicios")[0]).intValue()));
+
+        g.put("UsuarioRepositoryImpl.porUsername", () -> usuarios.porUsername("admin"));
+        g.put("UsuarioRepositoryImpl.listar", usuarios::listar);
+        g.put("UsuarioRepositoryImpl.listarInactivos", usuarios::listarInactivos);
+        g.put("UsuarioRepositoryImpl.porId", () -> usuarios.porId(idUsuarioOdontologo));
+        g.put("UsuarioRepositoryImpl.guardar", () -> {
+            int nuevo = usuarios.guardar(new Usuario("planes", "clave", "Usuario de prueba", null, new Rol(2, "Secretaria"), 1));
+            Usuario usuario = usuarios.porId(nuevo);
+            usuario.setPassword("clave");
+            usuarios.guardar(usuario);
+        });
+        g.put("UsuarioRepositoryImpl.eliminar", () -> usuarios.eliminar(idUsuarioOdontologo));
+        g.put("UsuarioRepositoryImpl.activar", () -> usuarios.activar(idUsuarioOdontologo));
+
+        g.put("IndicePacientes.construir", () -> IndicePacientes.construir(c));
+        return g;
+    }
+
+    /**
+     * @return "Clase.metodo" de cada método público de instancia de los repositorios y de la
+     * carga de cada índice: lo que el guion debe cubrir.
+     */
+    private static Set<String> metodosPublicos() {
+        Set<String> metodos = new TreeSet<>();
+        for (Class<?> clase : REPOSITORIOS) {
+            for (Method m : clase.getDeclaredMethods()) {
+                if (Modifier.isPublic(m.getModifiers()) && !Modifier.isStatic(m.getModifiers()) && !m.isSynthetic()) {
+                    metodos.add(clase.getSimpleName() + "." + m.getName());
+                }
+            }
+        }
+        for (Class<?> clase : INDICES) {
+            metodos.add(clase.getSimpleName() + ".construir");
+        }
+        return metodos;
+    }
+
+    /**
+     * Pide el plan de una sentencia con sus parámetros y lo analiza. Las sentencias que ya son un
+     * EXPLAIN (la estimación de filas de facturas) se explican tal cual. En H2 se usa EXPLAIN
+     * ANALYZE, que ejecuta la sentencia y cuenta las filas leídas de cada tabla: quien llama debe
+     * deshacer la transacción.
+     *
+     * @param filas Filas de cada tabla grande, para medir qué fracción lee la sentencia.
+     */
+    private static Plan explicar(Connection conn, GrabadoraSql.Sentencia s, boolean h2, Map<String, Long> filas) {
+        String sql = s.sql().strip();
+        String mayusculas = sql.toUpperCase(Locale.ROOT);
+        if (mayusculas.startsWith("INSERT") && !mayusculas.contains("SELECT")) {
+            return new Plan(s, "", List.of(), List.of());
+        }
+        String consulta = mayusculas.startsWith("EXPLAIN") ? sql.substring("EXPLAIN".length()).strip() : sql;
+        try (PreparedStatement stmt = conn.prepareStatement((h2 ? "EXPLAIN ANALYZE " : "EXPLAIN ") + consulta)) {
+            for (int i = 0; i < s.parametros().size(); i++) {
+                stmt.setObject(i + 1, s.parametros().get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return h2 ? analizarH2(s, consulta, rs, filas) : analizarMySql(s, consulta, rs, filas);
+            }
+        } catch (SQLException e) {
+            return new Plan(s, "", List.of("no se pudo obtener el plan: " + e.getMessage()), List.of());
+        }
+    }
+
+    // H2 entrega el plan como texto: por cada tabla el índice usado ("public.citas.tableScan" si la
+    // recorre completa) y "scanCount: N" con las filas leídas; "index sorted" indica que el ORDER BY
+    // sale del índice sin ordenar en memoria. Cuando un índice empieza con una lista IN, H2 acota la
+    // lectura solo por esa columna y aplica como filtro las condiciones de las siguientes (MySQL lee
+    // un rango por valor): esa lectura amplia queda como aviso y no como problema.
+    private static Plan analizarH2(GrabadoraSql.Sentencia s, String sql, ResultSet rs, Map<String, Long> filas)
+            throws SQLException {
+        StringBuilder texto = new StringBuilder();
+        while (rs.next()) {
+            texto.append(rs.getString(1)).append('\n');
+        }
+        String ordenada = ORDEN.matcher(sql).find() && !texto.toString().contains("index sorted") ? tablaPrincipal(sql) : "";
+        Set<String> problemas = new LinkedHashSet<>();
+        Set<String> avisos = new LinkedHashSet<>();
+        Matcher acceso = ACCESO_H2.matcher(texto);
+        while (acceso.find()) {
+            String tabla = acceso.group(1).toLowerCase(Locale.ROOT);
+            String indice = acceso.group(2).strip();
+            String problema = evaluar(tabla, indice.endsWith(".tableScan"), CLAVE_PRIMARIA_H2.matcher(indice).find(),
+                    Long.parseLong(acceso.group(3)), filas.get(tabla), tabla.equals(ordenada));
+            if (problema != null && IN_CON_RANGO_H2.matcher(indice).find()) {
+                avisos.add(problema + ": H2 no acota por las columnas que siguen al IN del índice");
+            } else if (problema != null) {
+                problemas.add(problema);
+            }
+        }
+        return new Plan(s, texto.toString().strip(), new ArrayList<>(problemas), new ArrayList<>(avisos));
+    }
+
+    // MySQL entrega una fila por tabla: type=ALL es un recorrido completo, rows las filas estimadas
+    // por cada fila de las tablas anteriores (filtered el porcentaje que pasa) y "Using filesort" en
+    // Extra, un ordenamiento en memoria; eq_ref y const son búsquedas por clave, una fila por vuelta.
+    // La columna table trae el alias, que se resuelve con el SQL.
+    // Verificado solo contra la forma documentada de EXPLAIN: en este entorno no hay MySQL.
+    private static Plan analizarMySql(GrabadoraSql.Sentencia s, String sql, ResultSet rs, Map<String, Long> filas)
+            throws SQLException {
+        Map<String, String> alias = new HashMap<>();
+        Matcher m = TABLA_CON_ALIAS.matcher(sql);
+        while (m.find()) {
+            String tabla = m.group(1).toLowerCase(Locale.ROOT);
+            alias.put(tabla, tabla);
+            if (m.group(2) != null) {
+                alias.put(m.group(2).toLowerCase(Locale.ROOT), tabla);
+            }
+        }
+        ResultSetMetaData meta = rs.getMetaData();
+        StringBuilder texto = new StringBuilder();
+        List<String[]> accesos = new ArrayList<>();
+        boolean ordenaEnMemoria = false;
+        while (rs.next()) {
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                texto.append(meta.getColumnLabel(i)).append('=').append(rs.getString(i)).append(i < meta.getColumnCount() ? " " : "\n");
+            }
+            String tabla = rs.getString("table");
+            tabla = tabla == null ? "" : alias.getOrDefault(tabla.toLowerCase(Locale.ROOT), tabla.toLowerCase(Locale.ROOT));
+            accesos.add(new String[]{tabla, rs.getString("type"), rs.getString("rows"), rs.getString("filtered")});
+            String extra = rs.getString("Extra");
+            ordenaEnMemoria |= extra != null && extra.contains("Using filesort");
+        }
+        Set<String> problemas = new LinkedHashSet<>();
+        double vueltas = 1;
+        for (String[] a : accesos) {
+            long porVuelta = a[2] == null ? 0 : Long.parseLong(a[2]);
+            String problema = evaluar(a[0], "ALL".equalsIgnoreCase(a[1]),
+                    "eq_ref".equalsIgnoreCase(a[1]) || "const".equalsIgnoreCase(a[1]), Math.round(vueltas * porVuelta),
+                    filas.get(a[0]), ordenaEnMemoria && a[0].equals(tablaPrincipal(sql)));
+            if (problema != null) {
+                problemas.add(problema);
+            }
+            vueltas *= Math.max(1, porVuelta * (a[3] == null ? 100 : Double.parseDouble(a[3])) / 100);
+        }
+        return new Plan(s, texto.toString().strip(), new ArrayList<>(problemas), List.of());
+    }
+
+    private static String tablaPrincipal(String sql) {
+        Matcher m = TABLA_PRINCIPAL.matcher(sql);
+        return m.find() ? m.group(1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Evalúa el acceso a una tabla. Un recorrido completo de una tabla grande siempre es problema;
+     * un acceso por índice lo es si lee más de la fracción permitida de la tabla (un índice recorrido
+     * de punta a punta cuesta lo mismo que la tabla). Las búsquedas por clave primaria de un join leen
+     * una fila por cada fila que entrega la consulta, así que no se cuentan.
+     *
+     * @return Descripción del problema, o null si el acceso es aceptable.
+     */
+    private static String evaluar(String tabla, boolean recorrido, boolean porClave, long leidas, Long total,
+                                  boolean ordenaEnMemoria) {
+        if (!TABLAS_GRANDES.contains(tabla) || porClave) {
+            return null;
+        }
+        long filasTabla = total == null ? 0 : total;
+        String orden = ordenaEnMemoria ? " y las ordena en memoria" : "";
+        if (recorrido) {
+            return "recorre toda la tabla " + tabla + " (" + leidas + " de " + filasTabla + " filas)" + orden;
+        }
+        if (filasTabla > 0 && leidas > FRACCION_MAXIMA * filasTabla) {
+            return String.format(Locale.ROOT, "lee %d de %d filas de %s (%.0f%%)%s", leidas, filasTabla, tabla,
+                    100.0 * leidas / filasTabla, orden);
+        }
+        return null;
+    }
+
+    /**
+     * Escribe todos los planes en el archivo de salida y un resumen en la consola.
+     */
+    private static void informar(List<Plan> planes, List<String> fallas, Path salida) throws IOException {
+        StringBuilder informe = new StringBuilder();
+        Set<Permiso> permisosUsados = new HashSet<>();
+        List<Plan> rechazados = new ArrayList<>();
+        for (Plan p : planes) {
+            informe.append("== ").append(p.sentencia().origen()).append('\n')
+                    .append(p.sentencia().sql().strip()).append('\n');
+            if (!p.sentencia().parametros().isEmpty()) {
+                informe.append("-- parámetros: ").append(p.sentencia().parametros()).append('\n');
+            }
+            informe.append(p.texto().isEmpty() ? "-- sin plan (INSERT ... VALUES)" : p.texto()).append('\n');
+            Permiso permiso = p.permiso();
+            for (String problema : p.problemas()) {
+                informe.append(permiso != null ? "-- permitido: " + problema + " (" + permiso.razon() + ")" : "-- PROBLEMA: " + problema)
+                        .append('\n');
+            }
+            for (String aviso : p.avisos()) {
+                informe.append("-- aviso: ").append(aviso).append('\n');
+            }
+            informe.append('\n');
+            if (!p.problemas().isEmpty()) {
+                if (permiso != null) {
+                    permisosUsados.add(permiso);
+                } else {
+                    rechazados.add(p);
+                }
+            }
+        }
+        for (String falla : fallas) {
+            informe.append("-- FALLA: ").append(falla).append('\n');
+        }
+        Files.createDirectories(salida.toAbsolutePath().getParent());
+        Files.writeString(salida, informe, StandardCharsets.UTF_8);
+
+        System.out.printf("[PlanesConsultas] %d sentencias de %d métodos; planes en %s%n", planes.size(),
+                planes.stream().map(p -> p.sentencia().origen()).distinct().count(), salida);
+        System.out.flush();
+        for (Plan p : rechazados) {
+            System.err.printf("[PlanesConsultas] %s: %s%n    %s%n", p.sentencia().origen(),
+                    String.join("; ", p.problemas()), p.sentencia().sql().strip());
+        }
+        for (String falla : fallas) {
+            System.err.println("[PlanesConsultas] " + falla);
+        }
+        for (Plan p : planes) {
+            for (String aviso : p.avisos()) {
+                System.out.println("[PlanesConsultas] Aviso: " + p.sentencia().origen() + ": " + aviso);
+            }
+        }
+        for (Permiso permiso : PERMITIDAS) {
+            if (!permisosUsados.contains(permiso)) {
+                System.out.println("[PlanesConsultas] Aviso: " + permiso.origen()
+                        + " está en PERMITIDAS pero ya no lee toda una tabla grande");
+            }
+        }
+        System.out.println(rechazados.isEmpty() && fallas.isEmpty()
+                ? "[PlanesConsultas] Sin recorridos completos ni lecturas amplias sobre tablas grandes"
+                : "[PlanesConsultas] " + rechazados.size() + " sentencias con problemas, " + fallas.size() + " fallas del guion");
+    }
+
+    private static Object[] fila(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            if (!rs.next()) {
+                throw new SQLException("Sin filas: " + sql);
+            }
+            Object[] fila = new Object[rs.getMetaData().getColumnCount()];
+            for (int i = 0; i < fila.length; i++) {
+                fila[i] = rs.getObject(i + 1);
+            }
+            return fila;
+        }
+    }
+}
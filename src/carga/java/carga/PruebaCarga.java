@@ -0,0 +1,260 @@
+package carga;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Prueba de carga de punta a punta, sin el MySQL de producción.
+ * Levanta H2 en memoria (modo MySQL) con el esquema clinica_odontologica y datos de GeneradorDatos,
+ * arranca la aplicación en un Tomcat embebido apuntando a esa base (-Dendodental.db.url) y lanza
+ * usuarios virtuales (hilos virtuales) que recorren el guion de Sesion sin parar. Después del
+ * calentamiento (JSP compilados, pool y cachés llenos) mide durante la duración indicada e imprime,
+ * por endpoint: solicitudes, rendimiento, latencia p50/p95/p99/máxima y porcentaje de errores.
+ * Los resultados también quedan en target/carga-resultados.csv.
+ *
+ * Con -Dcarga.comparar=true hace dos corridas completas (datos regenerados y Tomcat nuevo en cada
+ * una): la primera con -Dendodental.virtual.habilitado=false (todo en hilos del contenedor) y la
+ * segunda con la ejecución virtual activada. Imprime ambas tablas, una comparación por endpoint
+ * y guarda target/carga-resultados-virtual-off.csv y target/carga-resultados-virtual-on.csv.
+ * La primera corrida también calienta la JVM de la prueba (H2, cliente HTTP); con una medición
+ * corta conviene subir carga.calentamiento para no favorecer a la segunda.
+ *
+ *   mvn -Pcarga test-compile exec:exec -Dcarga.args="-Dcarga.usuarios=50 -Dcarga.duracion=120"
+ *   mvn -Pcarga test-compile exec:exec -Dcarga.args="-Dcarga.comparar=true -Dcarga.usuarios=200"
+ *
+ * Propiedades (-D):
+ *   carga.usuarios       Usuarios virtuales concurrentes (20).
+ *   carga.duracion       Segundos de medición (60).
+ *   carga.calentamiento  Segundos de calentamiento, no medidos (15).
+ *   carga.pausa          Milisegundos de pausa entre pasos de cada usuario (0: sin pausa).
+ *   carga.escala         Factor de escala de GeneradorDatos (0.5: 5 odontólogos, 10.000 pacientes).
+ *   carga.semilla        Semilla de los datos generados (2026).
+ *   carga.sinFacturar    Días con citas atendidas aún sin factura, las que se facturan (90).
+ *   carga.puerto         Puerto de Tomcat (0: uno libre).
+ *   carga.comparar       Comparar ejecución virtual desactivada y activada (false).
+ *   carga.sinErroresServidor  Terminar con código 1 si alguna respuesta, incluso del
+ *                        calentamiento, fue un error del servidor (HTTP 5xx) (false).
+ *   carga.dentroDePresupuesto  Terminar con código 1 si /metrics reporta solicitudes que
+ *                        excedieron la cantidad de sentencias o repitieron una consulta (N+1) (false).
+ *
+ * 'mvn -Pcarga verify' corre una prueba corta con -Dendodental.presupuesto.estricto=true,
+ * -Dcarga.sinErroresServidor=true y -Dcarga.dentroDePresupuesto=true: una página con N+1 hace
+ * fallar el build. El conteo se toma de /metrics porque en las páginas GET el error del modo
+ * estricto llega con la respuesta ya confirmada y el cliente no recibe un 500.
+ * Las propiedades de la aplicación (endodental.pool.*, etc.) se pasan igual y la aplicación las lee.
+ * */
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public final class PruebaCarga {
+
+    // Referencias fuertes: JUL solo guarda referencias débiles a los loggers configurados
+    private static final Logger LOG_TOMCAT = Logger.getLogger("org.apache");
+    // Al detenerse, Tomcat advierte que no puede revisar fugas sin --add-opens: no aplica aquí
+    private static final Logger LOG_CARGADOR = Logger.getLogger("org.apache.catalina.loader");
+
+    private PruebaCarga() {
+    }
+
+    /**
+     * Resultado de una corrida.
+     *
+     * @param mediciones Lo registrado durante la medición.
+     * @param segundos   Duración real de la medición.
+     * @param erroresServidor    Respuestas HTTP 5xx, incluido el calentamiento.
+     * @param excesosPresupuesto Solicitudes que excedieron sentencias o repitieron consultas (-1: no se leyó).
+     */
+    private record Corrida(Mediciones mediciones, double segundos, long erroresServidor, long excesosPresupuesto) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LOG_TOMCAT.setLevel(Level.WARNING);
+        LOG_CARGADOR.setLevel(Level.SEVERE);
+        Path trabajo = Path.of("target", "carga");
+
+        if (!Boolean.getBoolean("carga.comparar")) {
+            Corrida corrida = correr(trabajo);
+            guardar(corrida, Path.of("target", "carga-resultados.csv"));
+            exigirResultado(corrida);
+            return;
+        }
+
+        // La propiedad se lee al cargar HttpServletVirtual; cada Tomcat carga la aplicación de nuevo
+        System.setProperty("endodental.virtual.habilitado", "false");
+        System.out.println("=== Corrida 1 de 2: ejecución virtual desactivada ===");
+        Corrida sinVirtual = correr(trabajo);
+        guardar(sinVirtual, Path.of("target", "carga-resultados-virtual-off.csv"));
+
+        System.setProperty("endodental.virtual.habilitado", "true");
+        System.out.println();
+        System.out.println("=== Corrida 2 de 2: ejecución virtual activada ===");
+        Corrida conVirtual = correr(trabajo);
+        guardar(conVirtual, Path.of("target", "carga-resultados-virtual-on.csv"));
+
+        System.out.println();
+        System.out.println("=== Comparación (virtual desactivada / activada) ===");
+        Mediciones.imprimirComparacion(System.out, sinVirtual.mediciones(), sinVirtual.segundos(),
+                conVirtual.mediciones(), conVirtual.segundos());
+        exigirResultado(sinVirtual);
+        exigirResultado(conVirtual);
+    }
+
+    /**
+     * Con -Dcarga.sinErroresServidor=true, termina con código 1 si la corrida tuvo errores HTTP 5xx
+     * y, con -Dcarga.dentroDePresupuesto=true, si alguna solicitud excedió el presupuesto de consultas.
+     */
+    private static void exigirResultado(Corrida corrida) {
+        if (Boolean.getBoolean("carga.sinErroresServidor") && corrida.erroresServidor() > 0) {
+            System.out.flush();
+            System.err.println("[PruebaCarga] " + corrida.erroresServidor()
+                    + " respuestas con error del servidor (HTTP 5xx); revise el log de la aplicación");
+            System.exit(1);
+        }
+        if (Boolean.getBoolean("carga.dentroDePresupuesto") && corrida.excesosPresupuesto() != 0) {
+            System.out.flush();
+            System.err.println("[PruebaCarga] " + (corrida.excesosPresupuesto() < 0
+                    ? "no se pudo leer el presupuesto de consultas en /metrics"
+                    : corrida.excesosPresupuesto() + " solicitudes excedieron el presupuesto de consultas (sentencias o N+1)")
+                    + "; revise el log de la aplicación");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Lee de /metrics cuántas solicitudes excedieron la cantidad de sentencias o repitieron una
+     * consulta. Cada Tomcat carga la aplicación de nuevo, así que el contador es de esta corrida.
+     *
+     * @return El contador, o -1 si no se pudo leer.
+     */
+    private static long excesosPresupuesto(HttpClient cliente, String base) {
+        String serie = "endodental_presupuesto_excedido_total{motivo=\"sentencias\"} ";
+        try {
+            HttpResponse<String> respuesta = cliente.send(HttpRequest.newBuilder(URI.create(base + "/metrics"))
+                    .timeout(Duration.ofSeconds(10)).build(), HttpResponse.BodyHandlers.ofString());
+            return respuesta.body().lines()
+                    .filter(linea -> linea.startsWith(serie))
+                    .mapToLong(linea -> Long.parseLong(linea.substring(serie.length()).trim()))
+                    .findFirst().orElse(-1);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("[PruebaCarga] No se pudo leer /metrics: " + e.getMessage());
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * Genera los datos, arranca la aplicación, lanza las sesiones y mide. Imprime la tabla de
+     * resultados de la corrida.
+     */
+    private static Corrida correr(Path trabajo) throws Exception {
+        int usuarios = Integer.getInteger("carga.usuarios", 20);
+        int duracion = Integer.getInteger("carga.duracion", 60);
+        int calentamiento = Integer.getInteger("carga.calentamiento", 15);
+        long pausa = Long.getLong("carga.pausa", 0L);
+        // Historia de 3 años y agenda futura solo hasta hoy: las sesiones agendan en días libres
+        GeneradorDatos.Parametros parametros = new GeneradorDatos.Parametros(
+                Double.parseDouble(System.getProperty("carga.escala", "0.5")),
+                Long.getLong("carga.semilla", 2026), 3, 0,
+                Integer.getInteger("carga.sinFacturar", 90),
+                Runtime.getRuntime().availableProcessors(), LocalDate.now());
+        int puerto = Integer.getInteger("carga.puerto", 0);
+
+        prepararAplicacion(trabajo);
+
+        System.out.printf("Generando datos (escala %s)...%n", parametros.escala());
+        BaseDatosPrueba.Datos datos = BaseDatosPrueba.crear(parametros);
+        System.out.printf("%d odontólogos, %d pacientes activos, %d citas atendidas por facturar%n",
+                datos.odontologos().length, datos.pacientes().length, datos.atendidas().length);
+        Queue<Integer> porFacturar = new ConcurrentLinkedQueue<>(IntStream.of(datos.atendidas()).boxed().toList());
+
+        try (ServidorPrueba servidor = new ServidorPrueba(puerto, Path.of("src", "main", "webapp"),
+                Path.of("target", "classes"), trabajo.resolve("tomcat"))) {
+            String base = "http://localhost:" + servidor.puerto();
+            System.out.printf("Aplicación en %s; %d usuarios, %d s de calentamiento y %d s de medición%n",
+                    base, usuarios, calentamiento, duracion);
+
+            HttpClient cliente = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            Mediciones deCalentamiento = new Mediciones(Sesion.ENDPOINTS);
+            AtomicReference<Mediciones> actual = new AtomicReference<>(deCalentamiento);
+
+            ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+            for (int i = 0; i < usuarios; i++) {
+                hilos.submit(new Sesion(cliente, base, datos, porFacturar, actual, pausa, 1000L + i));
+            }
+
+            // Calentamiento: lo registrado no entra en la tabla (solo en el conteo de errores del servidor)
+            Thread.sleep(TimeUnit.SECONDS.toMillis(calentamiento));
+            Mediciones mediciones = new Mediciones(Sesion.ENDPOINTS);
+            actual.set(mediciones);
+            long inicio = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(duracion));
+            actual.set(null);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            hilos.shutdown();
+            if (!hilos.awaitTermination(90, TimeUnit.SECONDS)) {
+                System.err.println("Algunas sesiones no terminaron a tiempo; se interrumpen.");
+                hilos.shutdownNow();
+            }
+
+            System.out.println();
+            mediciones.imprimir(System.out, segundos);
+            if (porFacturar.isEmpty()) {
+                System.out.println("Aviso: se agotaron las citas atendidas; aumente -Dcarga.sinFacturar o -Dcarga.escala.");
+            }
+            return new Corrida(mediciones, segundos,
+                    deCalentamiento.erroresServidor() + mediciones.erroresServidor(),
+                    excesosPresupuesto(cliente, base));
+        }
+    }
+
+    private static void guardar(Corrida corrida, Path csv) throws IOException {
+        corrida.mediciones().guardarCsv(csv, corrida.segundos());
+        System.out.println("Resultados guardados en " + csv);
+    }
+
+    /**
+     * Apunta la aplicación a la base en memoria y le da directorios propios dentro de target/carga.
+     * La caché de PDF se vacía: los ids de factura de una corrida anterior se repiten en esta.
+     */
+    private static void prepararAplicacion(Path trabajo) throws IOException {
+        System.setProperty("endodental.db.url", BaseDatosPrueba.URL);
+        System.setProperty("endodental.db.usuario", BaseDatosPrueba.USUARIO);
+        System.setProperty("endodental.db.clave", BaseDatosPrueba.CLAVE);
+
+        Path pdf = trabajo.resolve("pdf");
+        if (Files.exists(pdf)) {
+            try (Stream<Path> archivos = Files.walk(pdf)) {
+                for (Path p : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(p);
+                }
+            }
+        }
+        System.setProperty("endodental.pdf.cache.directorio", pdf.toAbsolutePath().toString());
+    }
+}
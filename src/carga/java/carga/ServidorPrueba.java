@@ -0,0 +1,68 @@
+package carga;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Tomcat embebido con la aplicación tal como se despliega: las vistas de
+ * src/main/webapp y las clases compiladas (target/classes) montadas como /WEB-INF/classes, así que
+ * los servlets, filtros y el listener se registran por sus anotaciones y los JSP se compilan con
+ * Jasper igual que en el servidor.
+ *
+ * No se escanean los jar del classpath (solo la aplicación): Tomcat, H2 y las demás dependencias
+ * de la prueba no tienen componentes web, y el escaneo solo haría más lento el arranque.
+ * */
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+import org.apache.tomcat.util.scan.StandardJarScanner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class ServidorPrueba implements AutoCloseable {
+
+    private final Tomcat tomcat = new Tomcat();
+
+    /**
+     * Arranca Tomcat con la aplicación en la raíz ("/").
+     *
+     * @param puerto   Puerto HTTP; 0 elige uno libre.
+     * @param webapp   Directorio de la aplicación web (src/main/webapp).
+     * @param clases   Clases compiladas de la aplicación (target/classes).
+     * @param trabajo  Directorio de trabajo de Tomcat (JSP compilados, sesiones).
+     */
+    ServidorPrueba(int puerto, Path webapp, Path clases, Path trabajo) throws LifecycleException, IOException {
+        Files.createDirectories(trabajo);
+        tomcat.setBaseDir(trabajo.toAbsolutePath().toString());
+        tomcat.setPort(puerto);
+        tomcat.getConnector();
+
+        Context contexto = tomcat.addWebapp("", webapp.toAbsolutePath().toString());
+        WebResourceRoot recursos = new StandardRoot(contexto);
+        recursos.addPreResources(new DirResourceSet(recursos, "/WEB-INF/classes",
+                clases.toAbsolutePath().toString(), "/"));
+        contexto.setResources(recursos);
+        ((StandardJarScanner) contexto.getJarScanner()).setScanClassPath(false);
+
+        tomcat.start();
+    }
+
+    /**
+     * @return El puerto en el que quedó escuchando (útil si se pidió el puerto 0).
+     */
+    int puerto() {
+        return tomcat.getConnector().getLocalPort();
+    }
+
+    @Override
+    public void close() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+}
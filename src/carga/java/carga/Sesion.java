@@ -0,0 +1,359 @@
+package carga;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Usuario virtual de la prueba de carga. Recorre en bucle el guion de una jornada de
+ * la secretaria, como lo haría el navegador:
+ *
+ *   1. POST /login                       (espera 302 hacia /dashboard)
+ *   2. GET  /dashboard
+ *   3. GET  /citas?accion=agenda         (hoy) y la agenda de otro día de la semana
+ *   4. POST /citas accion=guardar        (agenda una cita nueva; espera 302) y la agenda de ese día
+ *   5. GET  /facturacion
+ *   6. POST /facturacion accion=generar  (factura una cita atendida; espera 302 con idFactura)
+ *   7. GET  /facturacion/pdf?id=...      (espera application/pdf)
+ *   8. GET  /login?action=logout
+ *
+ * Mantiene la cookie de sesión y, como el navegador, guarda el ETag de cada página y lo envía
+ * en If-None-Match (un 304 cuenta como respuesta correcta). Las redirecciones no se siguen solas:
+ * cada solicitud se mide por separado.
+ *
+ * Es un error: un estado HTTP inesperado, una página que muestra una alerta de error
+ * (alert-danger), un PDF que no es PDF o una falla de red. La causa se normaliza (los números se
+ * reemplazan por #) para agrupar los errores iguales.
+ * */
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+final class Sesion implements Runnable {
+
+    private static final Pattern ID_FACTURA = Pattern.compile("idFactura=(\\d+)");
+    private static final Pattern ALERTA = Pattern.compile("alert-danger[^>]*>(.*?)</div>", Pattern.DOTALL);
+    private static final Duration TIEMPO_MAXIMO = Duration.ofSeconds(60);
+    private static final String[] METODOS_PAGO = {"Efectivo", "Tarjeta", "Transferencia"};
+
+    // Endpoints medidos, en el orden del guion
+    static final List<String> ENDPOINTS = List.of("POST /login", "GET /dashboard", "GET /citas", "POST /citas",
+            "GET /facturacion", "POST /facturacion", "GET /facturacion/pdf", "GET /login (logout)");
+
+    private final HttpClient cliente;
+    private final String base;
+    private final BaseDatosPrueba.Datos datos;
+    private final Queue<Integer> porFacturar;
+    private final AtomicReference<Mediciones> mediciones;
+    private final long pausaMs;
+    private final SplittableRandom aleatorio;
+
+    // Estado del "navegador": cookie de sesión y ETag de cada URL visitada
+    private String cookie;
+    private final Map<String, String> etags = new HashMap<>();
+
+    /**
+     * @param cliente     Cliente HTTP compartido (sin seguir redirecciones).
+     * @param base        URL base de la aplicación, sin barra final.
+     * @param datos       Ids de los datos cargados.
+     * @param porFacturar Citas atendidas aún sin factura, compartidas entre las sesiones.
+     * @param mediciones  Registro actual; cuando pasa a null la sesión termina.
+     * @param pausaMs     Pausa entre pasos (tiempo de lectura del usuario), 0 para ninguna.
+     * @param semilla     Semilla del generador aleatorio de este usuario.
+     */
+    Sesion(HttpClient cliente, String base, BaseDatosPrueba.Datos datos, Queue<Integer> porFacturar,
+           AtomicReference<Mediciones> mediciones, long pausaMs, long semilla) {
+        this.cliente = cliente;
+        this.base = base;
+        this.datos = datos;
+        this.porFacturar = porFacturar;
+        this.mediciones = mediciones;
+        this.pausaMs = pausaMs;
+        this.aleatorio = new SplittableRandom(semilla);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (mediciones.get() != null) {
+                recorrerGuion();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Un recorrido completo del guion. Si la prueba termina a mitad de camino, se abandona.
+     */
+    private void recorrerGuion() throws InterruptedException {
+        cookie = null;
+        if (!iniciarSesion()) {
+            return;
+        }
+        LocalDate hoy = LocalDate.now();
+        if (!pagina("GET /dashboard", "/dashboard")
+                || !pagina("GET /citas", "/citas?accion=agenda")
+                || !pagina("GET /citas", "/citas?accion=agenda&fecha=" + hoy.plusDays(aleatorio.nextInt(-3, 4)))) {
+            return;
+        }
+        String fechaCita = agendar(hoy);
+        if (fechaCita != null && !pagina("GET /citas", "/citas?accion=agenda&fecha=" + fechaCita + "&exito=guardada")) {
+            return;
+        }
+        if (!pagina("GET /facturacion", "/facturacion")) {
+            return;
+        }
+        Integer idFactura = facturar();
+        if (idFactura != null && !pdf(idFactura)) {
+            return;
+        }
+        Respuesta salida = enviar("GET /login (logout)", solicitud("/login?action=logout").GET());
+        if (salida != null) {
+            esperarRedireccion(salida, "/login.jsp");
+        }
+    }
+
+    private boolean iniciarSesion() throws InterruptedException {
+        Respuesta r = enviar("POST /login", formulario("/login", List.of(
+                "username", BaseDatosPrueba.SECRETARIA,
+                "password", BaseDatosPrueba.CLAVE_SECRETARIA)));
+        return r != null && esperarRedireccion(r, "/dashboard");
+    }
+
+    /**
+     * Agenda una cita con un odontólogo, día (próximas 8 semanas) y turno al azar.
+     *
+     * @return La fecha de la cita (para ver la agenda de ese día), o null si no se agendó.
+     */
+    private String agendar(LocalDate hoy) throws InterruptedException {
+        LocalDate fecha = hoy.plusDays(aleatorio.nextInt(1, 57));
+        int turno = aleatorio.nextInt(BaseDatosPrueba.TURNOS_POR_DIA);
+        String hora = String.format("%02d:%02d", 8 + turno / 2, (turno % 2) * 30);
+        Respuesta r = enviar("POST /citas", formulario("/citas", List.of(
+                "accion", "guardar",
+                "idCita", "0",
+                "idPaciente", String.valueOf(elegir(datos.pacientes())),
+                "idOdontologo", String.valueOf(elegir(datos.odontologos())),
+                "fecha", fecha.toString(),
+                "hora", hora,
+                "motivo", "Control de rutina",
+                "estado", "Pendiente")));
+        return r != null && esperarRedireccion(r, "/citas") ? fecha.toString() : null;
+    }
+
+    /**
+     * Factura una cita atendida con 1 a 4 servicios.
+     *
+     * @return El id de la factura emitida, o null si no se emitió (o ya no quedan citas por facturar).
+     */
+    private Integer facturar() throws InterruptedException {
+        Integer idCita = porFacturar.poll();
+        if (idCita == null) {
+            return null;
+        }
+        List<String> campos = new ArrayList<>(List.of(
+                "accion", "generar",
+                "id_cita", String.valueOf(idCita),
+                "identificacion_cliente", BaseDatosPrueba.cedulaValida(aleatorio),
+                "nombre_cliente_factura", "Cliente de prueba " + idCita,
+                "direccion_cliente", "Av. Amazonas N34-120, Quito",
+                "metodo_pago", METODOS_PAGO[aleatorio.nextInt(METODOS_PAGO.length)]));
+        int items = aleatorio.nextInt(1, 5);
+        for (int i = 0; i < items; i++) {
+            int servicio = aleatorio.nextInt(datos.servicios().length);
+            BigDecimal precio = datos.precios()[servicio];
+            campos.addAll(List.of(
+                    "detalle_tipo", "Servicio",
+                    "detalle_id", String.valueOf(datos.servicios()[servicio]),
+                    "detalle_cantidad", "1",
+                    "detalle_precio", precio.toPlainString(),
+                    "detalle_zona", "Pieza " + (11 + aleatorio.nextInt(38))));
+        }
+        Respuesta r = enviar("POST /facturacion", formulario("/facturacion", campos));
+        if (r == null || !esperarRedireccion(r, "/facturacion")) {
+            return null;
+        }
+        Matcher m = ID_FACTURA.matcher(r.ubicacion());
+        if (!m.find()) {
+            registrarError("POST /facturacion", r.nanos(), "redirección sin idFactura");
+            return null;
+        }
+        return Integer.valueOf(m.group(1));
+    }
+
+    private boolean pdf(int idFactura) throws InterruptedException {
+        String endpoint = "GET /facturacion/pdf";
+        Respuesta r = enviar(endpoint, solicitud("/facturacion/pdf?id=" + idFactura).GET());
+        if (r == null) {
+            return false;
+        }
+        String tipo = r.respuesta().headers().firstValue("Content-Type").orElse("");
+        if (r.estado() == 200 && tipo.startsWith("application/pdf")) {
+            registrarCorrecta(endpoint, r.nanos());
+            return true;
+        }
+        registrarError(endpoint, r.nanos(), r.estado() == 200 ? "respuesta no es PDF (" + tipo + ")" : "HTTP " + r.estado());
+        return false;
+    }
+
+    /**
+     * Pide una página HTML con If-None-Match (si ya la visitó) y verifica que no muestre un error.
+     */
+    private boolean pagina(String endpoint, String ruta) throws InterruptedException {
+        HttpRequest.Builder solicitud = solicitud(ruta).GET();
+        String etag = etags.get(ruta);
+        if (etag != null) {
+            solicitud.header("If-None-Match", etag);
+        }
+        Respuesta r = enviar(endpoint, solicitud);
+        if (r == null) {
+            return false;
+        }
+        if (r.estado() == 304) {
+            registrarCorrecta(endpoint, r.nanos());
+            return true;
+        }
+        if (r.estado() != 200) {
+            registrarError(endpoint, r.nanos(), "HTTP " + r.estado());
+            return false;
+        }
+        String alerta = alerta(r.cuerpo());
+        if (alerta != null) {
+            registrarError(endpoint, r.nanos(), alerta);
+            return false;
+        }
+        r.respuesta().headers().firstValue("ETag").ifPresent(e -> etags.put(ruta, e));
+        registrarCorrecta(endpoint, r.nanos());
+        return true;
+    }
+
+    private boolean esperarRedireccion(Respuesta r, String destino) {
+        if (r.estado() == 302 && r.ubicacion().contains(destino)) {
+            registrarCorrecta(r.endpoint(), r.nanos());
+            return true;
+        }
+        String alerta = r.estado() == 200 ? alerta(r.cuerpo()) : null;
+        registrarError(r.endpoint(), r.nanos(), alerta != null ? alerta
+                : "HTTP " + r.estado() + (r.estado() == 302 ? " hacia " + normalizar(r.ubicacion()) : ""));
+        return false;
+    }
+
+    // ------------------------------------------------------------------ HTTP
+
+    /**
+     * Respuesta de una solicitud con su latencia (hasta leer el cuerpo completo).
+     */
+    private record Respuesta(String endpoint, HttpResponse<byte[]> respuesta, long nanos) {
+        int estado() {
+            return respuesta.statusCode();
+        }
+
+        String ubicacion() {
+            return respuesta.headers().firstValue("Location").orElse("");
+        }
+
+        String cuerpo() {
+            return new String(respuesta.body(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Envía la solicitud y guarda la cookie de sesión. Las fallas de red se registran como error.
+     *
+     * @return La respuesta, o null si falló o la prueba ya terminó.
+     */
+    private Respuesta enviar(String endpoint, HttpRequest.Builder solicitud) throws InterruptedException {
+        if (mediciones.get() == null) {
+            return null;
+        }
+        if (pausaMs > 0) {
+            Thread.sleep(pausaMs);
+        }
+        if (cookie != null) {
+            solicitud.header("Cookie", cookie);
+        }
+        long inicio = System.nanoTime();
+        try {
+            HttpResponse<byte[]> respuesta = cliente.send(solicitud.build(), HttpResponse.BodyHandlers.ofByteArray());
+            long nanos = System.nanoTime() - inicio;
+            respuesta.headers().firstValue("Set-Cookie")
+                    .filter(c -> c.startsWith("JSESSIONID="))
+                    .ifPresent(c -> cookie = c.substring(0, c.indexOf(';') > 0 ? c.indexOf(';') : c.length()));
+            return new Respuesta(endpoint, respuesta, nanos);
+        } catch (IOException e) {
+            registrarError(endpoint, System.nanoTime() - inicio, e.getClass().getSimpleName());
+            return null;
+        }
+    }
+
+    private HttpRequest.Builder solicitud(String ruta) {
+        return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(TIEMPO_MAXIMO);
+    }
+
+    // Formulario x-www-form-urlencoded a partir de pares nombre, valor (los nombres pueden repetirse)
+    private HttpRequest.Builder formulario(String ruta, List<String> pares) {
+        StringBuilder cuerpo = new StringBuilder();
+        for (int i = 0; i < pares.size(); i += 2) {
+            if (i > 0) {
+                cuerpo.append('&');
+            }
+            cuerpo.append(URLEncoder.encode(pares.get(i), StandardCharsets.UTF_8)).append('=')
+                    .append(URLEncoder.encode(pares.get(i + 1), StandardCharsets.UTF_8));
+        }
+        return solicitud(ruta)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo.toString()));
+    }
+
+    private int elegir(int[] ids) {
+        return ids[aleatorio.nextInt(ids.length)];
+    }
+
+    // ------------------------------------------------------------------ Registro
+
+    private void registrarCorrecta(String endpoint, long nanos) {
+        Mediciones m = mediciones.get();
+        if (m != null) {
+            m.registrar(endpoint, nanos, null);
+        }
+    }
+
+    private void registrarError(String endpoint, long nanos, String causa) {
+        Mediciones m = mediciones.get();
+        if (m != null) {
+            m.registrar(endpoint, nanos, causa);
+        }
+    }
+
+    // Texto de la alerta de error de la página (sin etiquetas HTML), o null si no hay
+    private static String alerta(String html) {
+        Matcher m = ALERTA.matcher(html);
+        if (!m.find()) {
+            return null;
+        }
+        String texto = m.group(1).replaceAll("<[^>]*>", " ").replaceAll("\\s+", " ").strip();
+        return "alerta: " + normalizar(texto.length() > 120 ? texto.substring(0, 120) : texto);
+    }
+
+    // Reemplaza los números por # para que los errores con distintos ids se agrupen
+    private static String normalizar(String texto) {
+        return texto.replaceAll("\\d+", "#");
+    }
+}
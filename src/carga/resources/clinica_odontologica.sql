@@ -0,0 +1,113 @@
+-- =============================================================================
+-- Autor: Byron Melo
+-- Fecha: 17/10/2026
+-- Versión: 1.0
+-- Descripción: Esquema de la base clinica_odontologica reconstruido a partir de las consultas
+-- de los repositorios, para la prueba de carga (H2 en modo MySQL). Es SQL de MySQL: también se
+-- puede cargar en un MySQL local. Solo tiene las claves primarias, únicas y foráneas: los
+-- índices de las consultas los crea util.Migrador al desplegar la aplicación.
+-- =============================================================================
+
+CREATE TABLE roles (
+    id_rol INT AUTO_INCREMENT PRIMARY KEY,
+    nombre_rol VARCHAR(50) NOT NULL
+) ENGINE = InnoDB;
+
+CREATE TABLE usuarios (
+    id_usuario INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    password VARCHAR(64) NOT NULL,
+    nombre_completo VARCHAR(150) NOT NULL,
+    email VARCHAR(150),
+    id_rol INT NOT NULL,
+    estado TINYINT NOT NULL DEFAULT 1,
+    CONSTRAINT fk_usuarios_rol FOREIGN KEY (id_rol) REFERENCES roles (id_rol)
+) ENGINE = InnoDB;
+
+CREATE TABLE odontologos (
+    id_odontologo INT AUTO_INCREMENT PRIMARY KEY,
+    especialidad VARCHAR(100),
+    codigo_medico VARCHAR(30),
+    id_usuario INT NOT NULL,
+    CONSTRAINT fk_odontologos_usuario FOREIGN KEY (id_usuario) REFERENCES usuarios (id_usuario)
+) ENGINE = InnoDB;
+
+CREATE TABLE pacientes (
+    id_paciente INT AUTO_INCREMENT PRIMARY KEY,
+    cedula VARCHAR(10) NOT NULL,
+    nombres VARCHAR(100) NOT NULL,
+    apellidos VARCHAR(100) NOT NULL,
+    telefono VARCHAR(20),
+    email VARCHAR(150),
+    alergias VARCHAR(255),
+    estado TINYINT NOT NULL DEFAULT 1,
+    fecha_registro DATETIME DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_pacientes_cedula UNIQUE (cedula)
+) ENGINE = InnoDB;
+
+CREATE TABLE citas (
+    id_cita INT AUTO_INCREMENT PRIMARY KEY,
+    fecha_hora DATETIME NOT NULL,
+    motivo VARCHAR(255),
+    estado ENUM ('Pendiente', 'Confirmada', 'Atendida', 'Facturada', 'Cancelada') NOT NULL DEFAULT 'Pendiente',
+    id_paciente INT NOT NULL,
+    id_odontologo INT NOT NULL,
+    CONSTRAINT fk_citas_paciente FOREIGN KEY (id_paciente) REFERENCES pacientes (id_paciente),
+    CONSTRAINT fk_citas_odontologo FOREIGN KEY (id_odontologo) REFERENCES odontologos (id_odontologo)
+) ENGINE = InnoDB;
+
+CREATE TABLE atenciones (
+    id_atencion INT AUTO_INCREMENT PRIMARY KEY,
+    id_cita INT NOT NULL,
+    diagnostico TEXT,
+    tratamiento_realizado TEXT,
+    notas_adicionales TEXT,
+    CONSTRAINT fk_atenciones_cita FOREIGN KEY (id_cita) REFERENCES citas (id_cita)
+) ENGINE = InnoDB;
+
+CREATE TABLE servicios (
+    id_servicio INT AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(150) NOT NULL,
+    descripcion VARCHAR(255),
+    precio_base DECIMAL(10, 2) NOT NULL
+) ENGINE = InnoDB;
+
+CREATE TABLE productos (
+    id_producto INT AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(150) NOT NULL,
+    marca VARCHAR(100),
+    descripcion VARCHAR(255),
+    precio_venta DECIMAL(10, 2) NOT NULL,
+    stock INT NOT NULL DEFAULT 0,
+    stock_minimo INT NOT NULL DEFAULT 0,
+    estado TINYINT NOT NULL DEFAULT 1
+) ENGINE = InnoDB;
+
+CREATE TABLE facturas (
+    id_factura INT AUTO_INCREMENT PRIMARY KEY,
+    id_cita INT NOT NULL,
+    fecha_emision DATETIME NOT NULL,
+    identificacion_cliente VARCHAR(13) NOT NULL,
+    nombre_cliente_factura VARCHAR(150) NOT NULL,
+    direccion_cliente VARCHAR(255),
+    subtotal DECIMAL(10, 2) NOT NULL,
+    monto_iva DECIMAL(10, 2) NOT NULL,
+    total_pagar DECIMAL(10, 2) NOT NULL,
+    metodo_pago VARCHAR(30) NOT NULL,
+    CONSTRAINT fk_facturas_cita FOREIGN KEY (id_cita) REFERENCES citas (id_cita)
+) ENGINE = InnoDB;
+
+CREATE TABLE detalles_factura (
+    id_detalle INT AUTO_INCREMENT PRIMARY KEY,
+    id_factura INT NOT NULL,
+    id_servicio INT,
+    id_producto INT,
+    tipo_item ENUM ('Servicio', 'Producto') NOT NULL,
+    cantidad INT NOT NULL,
+    precio_unitario DECIMAL(10, 2) NOT NULL,
+    subtotal_item DECIMAL(10, 2) NOT NULL,
+    diente_o_zona VARCHAR(50),
+    CONSTRAINT fk_detalles_factura FOREIGN KEY (id_factura) REFERENCES facturas (id_factura),
+    CONSTRAINT fk_detalles_servicio FOREIGN KEY (id_servicio) REFERENCES servicios (id_servicio),
+    CONSTRAINT fk_detalles_producto FOREIGN KEY (id_producto) REFERENCES productos (id_producto)
+) ENGINE = InnoDB;
@@ -0,0 +1,168 @@
+package controllers;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Copia, solo para PlantillaFacturaBenchmark, del dibujo del PDF que tenía
+ * GenerarFacturaPdfServlet antes de PlantillaFactura: fuentes pedidas a FontFactory, formateador,
+ * encabezado y tablas armados de nuevo en cada factura, y un ByteArrayOutputStream nuevo por
+ * documento. Sirve de punto de comparación; no se usa en la aplicación y no se debe modificar.
+ */
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import models.DetalleFactura;
+import models.Factura;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+
+final class FacturaPdfAnterior {
+
+    private FacturaPdfAnterior() {
+    }
+
+    /**
+     * Método auxiliar que contiene la lógica de diseño del PDF usando iText.
+     * Construye el documento paso a paso: Títulos, Datos del Cliente, Tabla de Ítems y Totales.
+     *
+     * @param salida Flujo donde se escribe el PDF.
+     * @param factura Objeto Factura con los datos a imprimir.
+     * @throws DocumentException Si hay error en la estructura del PDF.
+     * @throws IOException Si falla la escritura en el stream.
+     */
+    static void generarDocumentoPdf(OutputStream salida, Factura factura) throws DocumentException, IOException {
+        // Inicialización del documento y el escritor
+        Document document = new Document();
+        PdfWriter.getInstance(document, salida);
+        document.open();
+
+        // --- DEFINICIÓN DE FUENTES ---
+        // Preparamos fuentes estándar para mantener consistencia visual (Títulos, Texto normal, Negritas)
+        Font tituloFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.DARK_GRAY);
+        Font subTituloFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.GRAY);
+        Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 10, BaseColor.BLACK);
+        Font negritaFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
+
+        // --- SECCIÓN 1: ENCABEZADO ---
+        Paragraph titulo = new Paragraph("CLÍNICA ENDODENTAL", tituloFont);
+        titulo.setAlignment(Element.ALIGN_CENTER);
+        document.add(titulo);
+
+        Paragraph subtitulo = new Paragraph("Comprobante de Factura #" + factura.getIdFactura(), subTituloFont);
+        subtitulo.setAlignment(Element.ALIGN_CENTER);
+        document.add(subtitulo);
+        document.add(new Paragraph(" ")); // Espaciado vertical
+
+        // --- SECCIÓN 2: DATOS DEL CLIENTE ---
+        // Usamos una tabla invisible (sin bordes) para alinear etiquetas y valores ordenadamente
+        PdfPTable datosTable = new PdfPTable(2);
+        datosTable.setWidthPercentage(100);
+        datosTable.setWidths(new float[]{1, 2}); // Columna 1 (Etiqueta) ocupa 1/3, Columna 2 (Valor) ocupa 2/3
+
+        agregarCeldaSinBorde(datosTable, "Cliente:", negritaFont);
+        agregarCeldaSinBorde(datosTable, factura.getNombreClienteFactura(), normalFont);
+
+        agregarCeldaSinBorde(datosTable, "RUC/Cédula:", negritaFont);
+        agregarCeldaSinBorde(datosTable, factura.getIdentificacionCliente(), normalFont);
+
+        agregarCeldaSinBorde(datosTable, "Dirección:", negritaFont);
+        agregarCeldaSinBorde(datosTable, factura.getDireccionCliente() != null ? factura.getDireccionCliente() : "S/N", normalFont);
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+        agregarCeldaSinBorde(datosTable, "Fecha Emisión:", negritaFont);
+        agregarCeldaSinBorde(datosTable, factura.getFechaEmision().format(formatter), normalFont);
+
+        document.add(datosTable);
+        document.add(new Paragraph(" "));
+        document.add(new Paragraph(" "));
+
+        // --- SECCIÓN 3: TABLA DE DETALLES (ÍTEMS) ---
+        PdfPTable table = new PdfPTable(4);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[]{3, 1, 1, 1}); // Anchos relativos de columnas
+
+        // Cabeceras de la tabla
+        agregarCeldaEncabezado(table, "Descripción / Servicio", negritaFont);
+        agregarCeldaEncabezado(table, "Cant.", negritaFont);
+        agregarCeldaEncabezado(table, "Precio", negritaFont);
+        agregarCeldaEncabezado(table, "Total", negritaFont);
+
+        // Iteración sobre los ítems de la factura
+        if (factura.getDetalles() != null) {
+            for (DetalleFactura d : factura.getDetalles()) {
+                // Lógica para determinar qué nombre mostrar (Servicio vs Producto vs Texto libre)
+                String nombreItem = "Item";
+                if (d.getServicio() != null && d.getServicio().getNombre() != null) {
+                    nombreItem = d.getServicio().getNombre();
+                } else if (d.getProducto() != null && d.getProducto().getNombre() != null) {
+                    nombreItem = d.getProducto().getNombre();
+                } else {
+                    nombreItem = d.getTipoItem(); // Fallback
+                }
+
+                // Agregamos las celdas de la fila
+                table.addCell(new Phrase(nombreItem, normalFont));
+                table.addCell(new Phrase(String.valueOf(d.getCantidad()), normalFont));
+                table.addCell(new Phrase("$" + d.getPrecioUnitario(), normalFont));
+                table.addCell(new Phrase("$" + d.getSubtotalItem(), normalFont));
+            }
+        } else {
+            // Fila vacía por si acaso no hay detalles (Edge case)
+            table.addCell(new Phrase("Sin detalles", normalFont));
+            table.addCell(new Phrase("-", normalFont));
+            table.addCell(new Phrase("-", normalFont));
+            table.addCell(new Phrase("-", normalFont));
+        }
+
+        document.add(table);
+        document.add(new Paragraph(" "));
+
+        // --- SECCIÓN 4: TOTALES ---
+        // Tabla alineada a la derecha para mostrar los montos finales
+        PdfPTable totalesTable = new PdfPTable(2);
+        totalesTable.setWidthPercentage(40); // Que ocupe solo el 40% del ancho
+        totalesTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
+
+        agregarCeldaTotales(totalesTable, "Subtotal:", negritaFont, "$" + factura.getSubtotal());
+        agregarCeldaTotales(totalesTable, "IVA (15%):", negritaFont, "$" + factura.getMontoIva());
+        agregarCeldaTotales(totalesTable, "TOTAL:", tituloFont, "$" + factura.getTotalPagar());
+
+        document.add(totalesTable);
+
+        document.close();
+    }
+
+    // --- MÉTODOS HELPERS (Para reducir duplicidad de código de estilo) ---
+
+    private static void agregarCeldaSinBorde(PdfPTable table, String text, Font font) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setPaddingBottom(5);
+        table.addCell(cell);
+    }
+
+    private static void agregarCeldaEncabezado(PdfPTable table, String text, Font font) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+        cell.setPadding(8);
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        table.addCell(cell);
+    }
+
+    private static void agregarCeldaTotales(PdfPTable table, String label, Font font, String valor) {
+        PdfPCell cellLabel = new PdfPCell(new Phrase(label, font));
+        cellLabel.setBorder(Rectangle.NO_BORDER);
+        cellLabel.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.addCell(cellLabel);
+
+        PdfPCell cellValor = new PdfPCell(new Phrase(valor, font));
+        cellValor.setBorder(Rectangle.NO_BORDER);
+        cellValor.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.addCell(cellValor);
+    }
+}
@@ -0,0 +1,81 @@
+package controllers;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Benchmark JMH del dibujo del PDF de una factura con PlantillaFactura, en el buffer
+ * del pool, igual que GenerarFacturaPdfServlet y la exportación masiva cuando la factura no está
+ * en la caché en disco, frente al dibujo anterior que armaba todo en cada factura
+ * (FacturaPdfAnterior). Facturas de 3 líneas (consulta típica) y de 30 (tratamiento largo).
+ *
+ *   mvn -Pbenchmarks test-compile exec:exec -Djmh.args="PlantillaFactura"
+ */
+
+import models.DetalleFactura;
+import models.Factura;
+import models.Servicio;
+import org.openjdk.jmh.annotations.*;
+import services.FacturaServiceImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantillaFacturaBenchmark {
+
+    @Param({"3", "30"})
+    public int lineas;
+
+    private Factura factura;
+
+    @Setup
+    public void preparar() {
+        List<DetalleFactura> detalles = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            Servicio s = new Servicio();
+            s.setIdServicio(i + 1);
+            s.setNombre("Tratamiento de conducto - pieza " + (11 + i));
+            DetalleFactura d = new DetalleFactura();
+            d.setTipoItem("Servicio");
+            d.setServicio(s);
+            d.setCantidad(1 + i % 2);
+            d.setPrecioUnitario(new BigDecimal("85.50"));
+            detalles.add(d);
+        }
+        factura = new Factura();
+        factura.setIdFactura(1234);
+        factura.setFechaEmision(LocalDateTime.of(2026, 10, 17, 10, 30));
+        factura.setIdentificacionCliente("1710034065");
+        factura.setNombreClienteFactura("María José Pérez Andrade");
+        factura.setDireccionCliente("Av. 10 de Agosto N24-55 y Cordero, Quito");
+        factura.setMetodoPago("Efectivo");
+        factura.setDetalles(detalles);
+        new FacturaServiceImpl(null).calcularTotales(factura);
+    }
+
+    @Benchmark
+    public int generar() throws Exception {
+        try (PlantillaFactura.Buffer buffer = PlantillaFactura.Buffer.prestar()) {
+            PlantillaFactura.generar(factura, buffer);
+            return buffer.size();
+        }
+    }
+
+    @Benchmark
+    public int generarAnterior() throws Exception {
+        // Como antes: un buffer nuevo de 16 KB por documento
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(16 * 1024);
+        FacturaPdfAnterior.generarDocumentoPdf(salida, factura);
+        return salida.size();
+    }
+}
@@ -0,0 +1,158 @@
+package repository;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Benchmark JMH del mapeo de filas a objetos de los repositorios:
+ * CitaRepositoryImpl.crearCitaCompleta (cita con paciente y odontólogo, usada por la agenda y los
+ * listados) y DetalleFacturaRepositoryImpl.crearDetalle (ítems de factura con servicio o producto).
+ *
+ * Las filas vienen de un CachedRowSet en memoria con las mismas columnas (y etiquetas) que las
+ * consultas reales, así que se mide el mapeo sin red ni base de datos. Los resultados se reportan
+ * por fila (OperationsPerInvocation). Incluyen el costo propio del CachedRowSet (búsqueda de la
+ * columna por nombre y valores guardados como objetos): sirven para comparar versiones del mapeo,
+ * no como el costo absoluto con el driver de MySQL.
+ *
+ *   mvn -Pbenchmarks test-compile exec:exec -Djmh.args="MapeoFilas"
+ */
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.sql.RowSetMetaData;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeoFilasBenchmark {
+
+    // Filas por invocación: una página de la agenda o los ítems de varias facturas
+    private static final int FILAS = 100;
+
+    private static final String[] ESTADOS = {"Pendiente", "Confirmada", "Atendida", "Cancelada", "No asistió"};
+
+    private CachedRowSet citas;
+    private CachedRowSet detalles;
+
+    @Setup
+    public void preparar() throws SQLException {
+        citas = filasCitas();
+        detalles = filasDetalles();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public void crearCitaCompleta(Blackhole bh) throws SQLException {
+        citas.beforeFirst();
+        while (citas.next()) {
+            bh.consume(CitaRepositoryImpl.crearCitaCompleta(citas));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public void crearDetalle(Blackhole bh) throws SQLException {
+        detalles.beforeFirst();
+        while (detalles.next()) {
+            bh.consume(DetalleFacturaRepositoryImpl.crearDetalle(detalles));
+        }
+    }
+
+    /**
+     * Filas con las columnas de las consultas de citas (c.*, p.nombres AS p_nom, ...).
+     */
+    private static CachedRowSet filasCitas() throws SQLException {
+        CachedRowSet rs = crear(
+                "id_cita", Types.INTEGER, "fecha_hora", Types.TIMESTAMP, "motivo", Types.VARCHAR,
+                "estado", Types.VARCHAR, "id_paciente", Types.INTEGER, "id_odontologo", Types.INTEGER,
+                "p_nom", Types.VARCHAR, "p_ape", Types.VARCHAR, "p_ced", Types.VARCHAR,
+                "especialidad", Types.VARCHAR, "doc_nom", Types.VARCHAR);
+        LocalDateTime inicio = LocalDateTime.of(2026, 10, 5, 8, 0);
+        for (int i = 1; i <= FILAS; i++) {
+            rs.moveToInsertRow();
+            rs.updateInt("id_cita", i);
+            rs.updateTimestamp("fecha_hora", Timestamp.valueOf(inicio.plusMinutes(30L * i)));
+            rs.updateString("motivo", "Control y limpieza " + i);
+            rs.updateString("estado", ESTADOS[i % ESTADOS.length]);
+            rs.updateInt("id_paciente", 1000 + i);
+            rs.updateInt("id_odontologo", 1 + i % 4);
+            rs.updateString("p_nom", "María José");
+            rs.updateString("p_ape", "Pérez Andrade");
+            rs.updateString("p_ced", String.format("17%08d", i));
+            rs.updateString("especialidad", "Endodoncia");
+            rs.updateString("doc_nom", "Dr. Carlos Vega");
+            rs.insertRow();
+        }
+        rs.moveToCurrentRow();
+        return rs;
+    }
+
+    /**
+     * Filas con las columnas de SELECT_DETALLES (df.*, s_nombre, p_nombre): dos de cada tres
+     * líneas son servicios (id_producto NULL) y la tercera un producto (id_servicio NULL).
+     */
+    private static CachedRowSet filasDetalles() throws SQLException {
+        CachedRowSet rs = crear(
+                "id_detalle", Types.INTEGER, "id_factura", Types.INTEGER, "tipo_item", Types.VARCHAR,
+                "id_servicio", Types.INTEGER, "id_producto", Types.INTEGER, "cantidad", Types.INTEGER,
+                "precio_unitario", Types.DECIMAL, "subtotal_item", Types.DECIMAL,
+                "diente_o_zona", Types.VARCHAR, "s_nombre", Types.VARCHAR, "p_nombre", Types.VARCHAR);
+        for (int i = 1; i <= FILAS; i++) {
+            boolean servicio = i % 3 != 0;
+            BigDecimal precio = BigDecimal.valueOf(1500 + i * 25L, 2);
+            int cantidad = 1 + i % 3;
+            rs.moveToInsertRow();
+            rs.updateInt("id_detalle", i);
+            rs.updateInt("id_factura", 1 + i / 4);
+            rs.updateString("tipo_item", servicio ? "Servicio" : "Producto");
+            if (servicio) {
+                rs.updateInt("id_servicio", 1 + i % 12);
+                rs.updateNull("id_producto");
+                rs.updateString("s_nombre", "Tratamiento de conducto");
+                rs.updateNull("p_nombre");
+            } else {
+                rs.updateNull("id_servicio");
+                rs.updateInt("id_producto", 1 + i % 30);
+                rs.updateNull("s_nombre");
+                rs.updateString("p_nombre", "Enjuague bucal 500 ml");
+            }
+            rs.updateInt("cantidad", cantidad);
+            rs.updateBigDecimal("precio_unitario", precio);
+            rs.updateBigDecimal("subtotal_item", precio.multiply(BigDecimal.valueOf(cantidad)));
+            rs.updateString("diente_o_zona", servicio ? "Pieza " + (11 + i % 38) : "-");
+            rs.insertRow();
+        }
+        rs.moveToCurrentRow();
+        return rs;
+    }
+
+    /**
+     * Crea un CachedRowSet vacío con las columnas indicadas como pares (nombre, tipo java.sql.Types).
+     */
+    private static CachedRowSet crear(Object... columnas) throws SQLException {
+        RowSetMetaData meta = new RowSetMetaDataImpl();
+        meta.setColumnCount(columnas.length / 2);
+        for (int i = 0; i < columnas.length / 2; i++) {
+            meta.setColumnName(i + 1, (String) columnas[2 * i]);
+            meta.setColumnLabel(i + 1, (String) columnas[2 * i]);
+            meta.setColumnType(i + 1, (Integer) columnas[2 * i + 1]);
+            meta.setNullable(i + 1, RowSetMetaData.columnNullable);
+        }
+        CachedRowSet rs = RowSetProvider.newFactory().createCachedRowSet();
+        rs.setMetaData(meta);
+        return rs;
+    }
+}
@@ -0,0 +1,63 @@
+package services;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Benchmark JMH de FacturaServiceImpl.calcularTotales sobre facturas de 1 a 200 líneas.
+ * Cada invocación limpia antes los subtotales de las líneas, para medir el mismo camino que sigue
+ * guardar() con una factura recién llegada del formulario (precio x cantidad por línea, suma,
+ * IVA y redondeos). El servicio se crea sin conexión: calcularTotales no consulta la base.
+ *
+ *   mvn -Pbenchmarks test-compile exec:exec -Djmh.args="CalculoTotales"
+ */
+
+import models.DetalleFactura;
+import models.Factura;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculoTotalesBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    public int lineas;
+
+    private final FacturaService servicio = new FacturaServiceImpl(null);
+    private Factura factura;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom aleatorio = new SplittableRandom(7);
+        List<DetalleFactura> detalles = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            DetalleFactura d = new DetalleFactura();
+            d.setTipoItem(i % 3 == 0 ? "Producto" : "Servicio");
+            d.setCantidad(aleatorio.nextInt(1, 6));
+            // Precios con centavos, como llegan del formulario (hasta 250.00)
+            d.setPrecioUnitario(BigDecimal.valueOf(aleatorio.nextInt(100, 25_001), 2));
+            detalles.add(d);
+        }
+        factura = new Factura();
+        factura.setDetalles(detalles);
+    }
+
+    @Benchmark
+    public Factura calcularTotales() {
+        for (DetalleFactura d : factura.getDetalles()) {
+            d.setSubtotalItem(null);
+        }
+        servicio.calcularTotales(factura);
+        return factura;
+    }
+}
@@ -0,0 +1,82 @@
+package services;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Benchmark JMH de la validación de cédulas (módulo 10) de PacienteServiceImpl,
+ * que se ejecuta en cada alta y edición de paciente. Recorre un arreglo de cédulas válidas y otro
+ * de cédulas con el dígito verificador alterado, para no medir siempre la misma entrada.
+ *
+ *   mvn -Pbenchmarks test-compile exec:exec -Djmh.args="ValidacionCedula"
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidacionCedulaBenchmark {
+
+    private static final int CANTIDAD = 1024;
+
+    private final String[] validas = new String[CANTIDAD];
+    private final String[] invalidas = new String[CANTIDAD];
+    private int posicion;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        for (int i = 0; i < CANTIDAD; i++) {
+            String valida = cedulaValida(aleatorio);
+            int verificador = valida.charAt(9) - '0';
+            validas[i] = valida;
+            invalidas[i] = valida.substring(0, 9) + (verificador + 1) % 10;
+        }
+    }
+
+    @Benchmark
+    public boolean valida() {
+        posicion = (posicion + 1) & (CANTIDAD - 1);
+        return PacienteServiceImpl.esCedulaValida(validas[posicion]);
+    }
+
+    @Benchmark
+    public boolean invalida() {
+        posicion = (posicion + 1) & (CANTIDAD - 1);
+        return PacienteServiceImpl.esCedulaValida(invalidas[posicion]);
+    }
+
+    /**
+     * Genera una cédula válida: provincia 01-24, tercer dígito menor a 6 y el dígito verificador
+     * calculado con los coeficientes 2.1.2.1...
+     */
+    static String cedulaValida(SplittableRandom aleatorio) {
+        int[] digitos = new int[10];
+        int provincia = aleatorio.nextInt(1, 25);
+        digitos[0] = provincia / 10;
+        digitos[1] = provincia % 10;
+        digitos[2] = aleatorio.nextInt(6);
+        for (int i = 3; i < 9; i++) {
+            digitos[i] = aleatorio.nextInt(10);
+        }
+        int suma = 0;
+        for (int i = 0; i < 9; i++) {
+            int valor = digitos[i] * (i % 2 == 0 ? 2 : 1);
+            suma += valor >= 10 ? valor - 9 : valor;
+        }
+        digitos[9] = (10 - suma % 10) % 10;
+
+        StringBuilder sb = new StringBuilder(10);
+        for (int d : digitos) {
+            sb.append(d);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package util;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Benchmark JMH del costo de la instrumentación JDBC (ConexionInstrumentada y
+ * MetricasJdbc). Sobre una base H2 en memoria, prepara y recorre una página de 50 citas leyendo
+ * seis columnas por fila, como un listado, con la conexión sin instrumentar y con la instrumentada;
+ * la diferencia entre ambas es lo que agrega la instrumentación por consulta. Además mide lo que
+ * cuesta resolver las métricas de un SQL ya visto (acierto de la caché de textos) y normalizar uno
+ * nuevo (una lista IN de largo no visto), que es lo que paga cada fallo de esa caché.
+ *
+ *   mvn -Pbenchmarks test-compile exec:exec -Djmh.args="ConexionInstrumentada"
+ */
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConexionInstrumentadaBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:instrumentacion;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final int CITAS = 2_000;
+    private static final int PAGINA = 50;
+    private static final String SQL_PAGINA = "SELECT id_cita, fecha_hora, motivo, estado, id_paciente, id_odontologo "
+            + "FROM citas WHERE id_cita > ? ORDER BY id_cita LIMIT " + PAGINA;
+
+    private Connection cruda;
+    private Connection instrumentada;
+    private final String[] listasIn = new String[1024];
+    private int posicion;
+    private int desde;
+
+    @Setup
+    public void preparar() throws SQLException {
+        cruda = DriverManager.getConnection(URL, "sa", "");
+        instrumentada = ConexionInstrumentada.envolver(cruda);
+        try (Statement stmt = cruda.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS citas (id_cita INT PRIMARY KEY, fecha_hora TIMESTAMP, "
+                    + "motivo VARCHAR(255), estado VARCHAR(20), id_paciente INT, id_odontologo INT)");
+            stmt.execute("DELETE FROM citas");
+        }
+        try (PreparedStatement ps = cruda.prepareStatement("INSERT INTO citas VALUES (?, ?, ?, ?, ?, ?)")) {
+            LocalDateTime inicio = LocalDateTime.of(2026, 1, 5, 8, 0);
+            for (int i = 1; i <= CITAS; i++) {
+                ps.setInt(1, i);
+                ps.setTimestamp(2, Timestamp.valueOf(inicio.plusMinutes(30L * i)));
+                ps.setString(3, "Control y limpieza " + i);
+                ps.setString(4, i % 3 == 0 ? "Atendida" : "Pendiente");
+                ps.setInt(5, 1 + i % 500);
+                ps.setInt(6, 1 + i % 5);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        // Listas IN de distinto largo, como las de CargadorPagina o descontarStock
+        for (int i = 0; i < listasIn.length; i++) {
+            StringJoiner marcas = new StringJoiner(", ", "SELECT id_producto, stock FROM productos WHERE id_producto IN (", ")");
+            for (int j = 0; j <= i % 40; j++) {
+                marcas.add("?");
+            }
+            listasIn[i] = marcas + " AND activo = " + i;
+        }
+    }
+
+    @TearDown
+    public void cerrar() throws SQLException {
+        cruda.close();
+    }
+
+    @Benchmark
+    public void paginaSinInstrumentar(Blackhole bh) throws SQLException {
+        leerPagina(cruda, bh);
+    }
+
+    @Benchmark
+    public void paginaInstrumentada(Blackhole bh) throws SQLException {
+        leerPagina(instrumentada, bh);
+    }
+
+    @Benchmark
+    public MetricasJdbc.MetricasSentencia metricasDeSqlConocido() {
+        return MetricasJdbc.getInstancia().de(SQL_PAGINA);
+    }
+
+    @Benchmark
+    public String normalizarSqlNuevo() {
+        posicion = (posicion + 1) & (listasIn.length - 1);
+        return MetricasJdbc.normalizar(listasIn[posicion]);
+    }
+
+    private void leerPagina(Connection conn, Blackhole bh) throws SQLException {
+        desde = (desde + PAGINA) % (CITAS - PAGINA);
+        try (PreparedStatement ps = conn.prepareStatement(SQL_PAGINA)) {
+            ps.setInt(1, desde);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    bh.consume(rs.getInt("id_cita"));
+                    bh.consume(rs.getTimestamp("fecha_hora"));
+                    bh.consume(rs.getString("motivo"));
+                    bh.consume(rs.getString("estado"));
+                    bh.consume(rs.getInt("id_paciente"));
+                    bh.consume(rs.getInt("id_odontologo"));
+                }
+            }
+        }
+    }
+}
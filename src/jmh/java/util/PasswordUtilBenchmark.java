@@ -0,0 +1,51 @@
+package util;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Benchmark JMH del hash de contraseñas (PasswordUtil), que se ejecuta en cada login
+ * y en cada alta o cambio de contraseña. Mide rendimiento y, con el perfil gc, la memoria asignada
+ * por llamada (MessageDigest, bytes de la contraseña y la conversión a hexadecimal).
+ *
+ *   mvn -Pbenchmarks test-compile exec:exec -Djmh.args="PasswordUtil"
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordUtilBenchmark {
+
+    // Contraseñas de longitud típica y larga (frase de paso)
+    @Param({"admin123", "una frase de paso bastante larga para el consultorio 2026"})
+    public String password;
+
+    private String hashGuardado;
+
+    @Setup
+    public void preparar() {
+        hashGuardado = PasswordUtil.encriptar(password);
+    }
+
+    @Benchmark
+    public String encriptar() {
+        return PasswordUtil.encriptar(password);
+    }
+
+    @Benchmark
+    public boolean verificarCorrecta() {
+        return PasswordUtil.verificar(password, hashGuardado);
+    }
+
+    @Benchmark
+    public boolean verificarIncorrecta() {
+        return PasswordUtil.verificar(password + "x", hashGuardado);
+    }
+}
@@ -0,0 +1,143 @@
+package controllers;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Caché condicional HTTP (ETag / If-None-Match) para las páginas de listado.
+ * El ETag se arma con las versiones de las tablas que muestra la página (VersionesTablas) y el
+ * usuario de la sesión (la barra lateral muestra su nombre). Si el navegador envía el mismo ETag,
+ * el servlet responde 304 antes de tocar los repositorios: no se pide conexión al pool ni se
+ * renderiza el JSP.
+ *
+ *   if (CacheCondicional.noModificado(req, resp, CacheCondicional.etag(req, Tabla.PACIENTES))) return;
+ *   ... consultas ...
+ *   CacheCondicional.publicar(req, resp);   // antes del forward al JSP
+ *
+ * La respuesta lleva "Cache-Control: private, no-cache": el navegador la guarda pero la revalida
+ * en cada visita, y ningún proxy compartido la almacena.
+ *
+ * Si la página se lee de la réplica y alguna de sus tablas cambió dentro de la ventana de retraso
+ * de la réplica (ConexionFilter.VENTANA_ESCRITURA_MS), no se emite ETag: la réplica podría
+ * devolver los datos anteriores con la versión nueva, y el navegador seguiría recibiendo 304 con
+ * esa página vieja.
+ * */
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import filter.ConexionFilter;
+import models.Usuario;
+import util.ConexionBDD;
+import util.VersionesTablas;
+
+final class CacheCondicional {
+
+    // ETag calculado antes de las consultas, guardado en el request hasta publicarlo
+    private static final String ATRIBUTO_ETAG = "cacheCondicional.etag";
+
+    private CacheCondicional() {
+    }
+
+    /**
+     * Arma el ETag de la página. Se llama antes de consultar los datos.
+     *
+     * @param req    Solicitud actual (de ella se toma el usuario de la sesión).
+     * @param tablas Tablas que muestra la página.
+     * @return ETag débil, con comillas, o null si la página no debe llevar ETag.
+     */
+    static String etag(HttpServletRequest req, VersionesTablas.Tabla... tablas) {
+        return etag(req, "", tablas);
+    }
+
+    /**
+     * Arma el ETag de una página que además depende de un dato propio (por ejemplo, la fecha
+     * de hoy cuando la URL no indica el día).
+     *
+     * @param req      Solicitud actual.
+     * @param variante Dato adicional que forma parte del contenido.
+     * @param tablas   Tablas que muestra la página.
+     * @return ETag débil, con comillas, o null si la lectura puede venir de una réplica atrasada.
+     */
+    static String etag(HttpServletRequest req, String variante, VersionesTablas.Tabla... tablas) {
+        // Las versiones son de esta JVM: las escrituras de otras instancias de la aplicación o
+        // hechas directamente en MySQL no las cambian, y el ETag seguiría validando la página
+        // anterior. Con varias instancias o cambios externos esta caché no sirve tal como está.
+        if (Boolean.TRUE.equals(req.getAttribute(ConexionFilter.ATRIBUTO_SOLO_LECTURA))
+                && ConexionBDD.tieneReplica()
+                && VersionesTablas.cambioReciente(ConexionFilter.VENTANA_ESCRITURA_MS, tablas)) {
+            return null;
+        }
+        HttpSession session = req.getSession(false);
+        Usuario usuario = session == null ? null : (Usuario) session.getAttribute("usuario");
+        return "W/\"" + VersionesTablas.etiqueta(tablas)
+                + "-u" + (usuario == null ? 0 : usuario.getIdUsuario())
+                + (variante.isEmpty() ? "" : "-" + variante) + "\"";
+    }
+
+    /**
+     * Responde 304 si la solicitud es un GET y el navegador ya tiene esta versión de la página.
+     * Si no, guarda el ETag en el request para que publicar() lo agregue a la respuesta.
+     *
+     * @param req  Solicitud actual.
+     * @param resp Respuesta.
+     * @param etag ETag de la página (null: la página se sirve completa y sin ETag).
+     * @return true si se respondió 304 y el servlet no debe hacer nada más.
+     */
+    static boolean noModificado(HttpServletRequest req, HttpServletResponse resp, String etag) {
+        if (etag == null || !"GET".equals(req.getMethod())) {
+            return false;
+        }
+        String enviado = req.getHeader("If-None-Match");
+        if (enviado != null && coincide(enviado, etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            agregarCabeceras(resp, etag);
+            return true;
+        }
+        req.setAttribute(ATRIBUTO_ETAG, etag);
+        return false;
+    }
+
+    /**
+     * Agrega el ETag a la página para que el navegador lo envíe en la próxima visita.
+     * Se llama antes del forward al JSP. No hace nada si la solicitud no pasó por noModificado()
+     * (un POST que vuelve a mostrar la página) o si la página muestra un error.
+     *
+     * @param req  Solicitud actual.
+     * @param resp Respuesta.
+     */
+    static void publicar(HttpServletRequest req, HttpServletResponse resp) {
+        String etag = (String) req.getAttribute(ATRIBUTO_ETAG);
+        if (etag != null && req.getAttribute("error") == null) {
+            agregarCabeceras(resp, etag);
+        }
+    }
+
+    private static void agregarCabeceras(HttpServletResponse resp, String etag) {
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Cache-Control", "private, no-cache");
+    }
+
+    /**
+     * Comparación débil de If-None-Match, que puede traer varias etiquetas separadas por comas o "*".
+     *
+     * @param enviado Valor de la cabecera If-None-Match.
+     * @param etag    ETag actual del recurso.
+     * @return true si el navegador ya tiene esa versión.
+     */
+    static boolean coincide(String enviado, String etag) {
+        String propio = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String parte : enviado.split(",")) {
+            String candidato = parte.trim();
+            if (candidato.equals("*")) {
+                return true;
+            }
+            if (candidato.startsWith("W/")) {
+                candidato = candidato.substring(2);
+            }
+            if (candidato.equals(propio)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -16,12 +16,18 @@ package controllers;
  */
 
 import models.Cita;
+import models.Cursor;
 import models.Odontologo;
 import models.Paciente;
+import models.Pagina;
+import repository.CriteriosCita;
 import services.*;
+import util.CargadorPagina;
+import util.VersionesTablas.Tabla;
+import filter.SoloLectura;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebInitParam;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -31,8 +37,17 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.regex.Pattern;
 
-@WebServlet("/citas")
-public class CitaServlet extends HttpServlet {
+@SoloLectura
+@WebServlet(value = "/citas", asyncSupported = true,
+        initParams = @WebInitParam(name = HttpServletVirtual.PARAMETRO_EJECUCION_VIRTUAL, value = "true"))
+public class CitaServlet extends HttpServletVirtual {
+
+    // Estados visibles en la agenda operativa del día
+    private static final List<String> ESTADOS_AGENDA = List.of("Pendiente", "Atendida");
+    // Cédula o nombre: letras (con tildes), dígitos y espacios, mínimo 2 caracteres
+    private static final Pattern PATRON_BUSQUEDA = Pattern.compile("[\\p{L}\\d ]{2,60}");
+    // El cargador deja la página en este atributo y luego se reemplaza por sus citas (el cursor va aparte)
+    private static final String ATRIBUTO_PAGINA = "citas";
 
     /**
      * Maneja las peticiones GET para la visualización y navegación de la agenda.
@@ -46,21 +61,31 @@ public class CitaServlet extends HttpServlet {
      */
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        // 1. Recuperación de la conexión inyectada por el filtro (Patrón Connection per Request)
-        Connection conn = (Connection) req.getAttribute("conn");
+        /*
+         * 0. CACHÉ CONDICIONAL (ETag / 304)
+         * La página muestra citas, pacientes y odontólogos; sin fecha en la URL muestra el día actual.
+         * Si ninguna de esas tablas cambió desde la última visita, respondemos 304 sin consultar nada.
+         */
+        String etag = CacheCondicional.etag(req, LocalDate.now().toString(),
+                Tabla.CITAS, Tabla.PACIENTES, Tabla.ODONTOLOGOS);
+        if (CacheCondicional.noModificado(req, resp, etag)) {
+            return;
+        }
 
-        // 2. Instanciación de servicios necesarios para la lógica de negocio
-        CitaServiceImpl citaService = new CitaServiceImpl(conn);
-        PacienteService pacienteService = new PacienteServiceImpl(conn);
-        OdontologoService odontologoService = new OdontologoServiceImpl(conn);
+        /*
+         * 1. Cargador de la página (Patrón Connection per Request + carga concurrente)
+         * Las consultas de la página son independientes: el cargador las ejecuta en paralelo,
+         * cada una con su propia conexión de solo lectura, y deja los resultados en el request.
+         */
+        CargadorPagina cargador = new CargadorPagina(req);
 
         /*
-         * CARGA DE CATÁLOGOS AUXILIARES
+         * 2. CARGA DE CATÁLOGOS AUXILIARES
          * Recuperamos las listas completas de Pacientes y Odontólogos.
          * Estos datos son fundamentales para poblar los <select> en el modal de "Nueva Cita".
          */
-        req.setAttribute("listaPacientes", pacienteService.listar());
-        req.setAttribute("listaOdontologos", odontologoService.listar());
+        cargador.agregar("listaPacientes", c -> new PacienteServiceImpl(c).listar(), List.of());
+        cargador.agregar("listaOdontologos", c -> new OdontologoServiceImpl(c).listar(), List.of());
 
         // 3. Gestión de Parámetros de Control de Vista
         // 'accion' determina qué pestaña o filtro se está solicitando (agenda, facturadas, etc.)
@@ -72,89 +97,119 @@ public class CitaServlet extends HttpServlet {
         if (fechaFiltro == null || fechaFiltro.isEmpty()) {
             fechaFiltro = LocalDate.now().toString();
         }
+        String fecha = fechaFiltro;
+
+        // 'cursor' indica desde dónde continuar la tabla (paginación por cursor); sin él, primera página
+        Cursor cursor = Cursor.decodificar(req.getParameter("cursor"));
 
-        List<Cita> listaMostrar;
         String tituloTabla;
 
         /*
          * ENRUTAMIENTO DE LÓGICA DE VISUALIZACIÓN
-         * Dependiendo de la acción, consultamos al servicio diferentes sets de datos.
+         * Dependiendo de la acción, registramos en el cargador la consulta de la tabla principal.
+         * Si la consulta falla, la tabla queda vacía para no romper el JSP.
          */
-        try {
-            switch (accion) {
-                case "agenda":
-                    // Muestra citas operativas del día (Pendientes y Atendidas)
-                    // Es la vista principal de trabajo para la secretaria.
-                    listaMostrar = citaService.listarAgendaPorFecha(fechaFiltro);
-                    tituloTabla = "Agenda de Citas";
-                    break;
-
-                case "facturadas":
-                    // Muestra el historial de citas ya cobradas en la fecha seleccionada
-                    listaMostrar = citaService.listarFacturadasPorFecha(fechaFiltro);
-                    tituloTabla = "Citas Facturadas";
-                    break;
-
-                case "canceladas":
-                    // Muestra citas que fueron canceladas, útil para auditoría o reagendamiento
-                    listaMostrar = citaService.listarCanceladasPorFecha(fechaFiltro);
-                    tituloTabla = "Citas Canceladas";
-                    break;
-
-                case "buscar":
-                    // Búsqueda global por cédula de paciente (ignora la fecha seleccionada)
-                    String cedula = req.getParameter("busqueda");
-                    if (cedula != null && Pattern.matches("\\d+", cedula)) {
-                        listaMostrar = citaService.buscarPorCedula(cedula);
-                        tituloTabla = "Búsqueda por Cédula: " + cedula;
-                        // Limpiamos el filtro de fecha visualmente ya que mostramos historial completo
-                        fechaFiltro = "";
-                    } else {
-                        req.setAttribute("error", "Cédula inválida. Ingrese solo números.");
-                        // Fallback: mostrar agenda de hoy
-                        listaMostrar = citaService.listarAgendaPorFecha(LocalDate.now().toString());
-                        tituloTabla = "Agenda";
-                    }
-                    break;
-
-                case "editar":
-                    // Carga los datos de una cita específica para mostrarlos en el Modal de Edición
-                    try {
-                        int id = Integer.parseInt(req.getParameter("id"));
-                        // Inyectamos el objeto 'citaEditar' para que el JSP lo detecte y abra el modal
-                        req.setAttribute("citaEditar", citaService.porId(id).orElse(null));
-                    } catch (Exception e) {
-                        // Si falla el ID, ignoramos silenciosamente y mostramos la lista
-                    }
-                    // Mantenemos la lista de fondo visible (Agenda Operativa)
-                    listaMostrar = citaService.listarAgendaPorFecha(fechaFiltro);
-                    tituloTabla = "Agenda de Citas";
-                    break;
-
-                default:
-                    // Caso por defecto de seguridad
-                    listaMostrar = citaService.listarAgendaPorFecha(fechaFiltro);
-                    tituloTabla = "Agenda de Citas";
-                    accion = "agenda";
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            req.setAttribute("error", e.getMessage());
-            // En caso de error crítico, inicializamos lista vacía para no romper el JSP
-            listaMostrar = List.of();
+        switch (accion) {
+            case "agenda":
+                // Muestra citas operativas del día (Pendientes y Atendidas)
+                // Es la vista principal de trabajo para la secretaria.
+                agregarPagina(cargador, c -> new CitaServiceImpl(c).buscar(delDia(fecha, ESTADOS_AGENDA, cursor)));
+                tituloTabla = "Agenda de Citas";
+                break;
+
+            case "facturadas":
+                // Muestra el historial de citas ya cobradas en la fecha seleccionada
+                agregarPagina(cargador, c -> new CitaServiceImpl(c).buscar(delDia(fecha, List.of("Facturada"), cursor)));
+                tituloTabla = "Citas Facturadas";
+                break;
+
+            case "canceladas":
+                // Muestra citas que fueron canceladas, útil para auditoría o reagendamiento
+                agregarPagina(cargador, c -> new CitaServiceImpl(c).buscar(delDia(fecha, List.of("Cancelada"), cursor)));
+                tituloTabla = "Citas Canceladas";
+                break;
+
+            case "buscar":
+                // Búsqueda global por cédula, nombres o apellidos del paciente (ignora la fecha seleccionada)
+                String busqueda = req.getParameter("busqueda") == null ? null : req.getParameter("busqueda").trim();
+                if (busqueda != null && PATRON_BUSQUEDA.matcher(busqueda).matches()) {
+                    agregarPagina(cargador, c -> new CitaServiceImpl(c).buscarPorPaciente(busqueda, cursor));
+                    tituloTabla = (Pattern.matches("\\d+", busqueda) ? "Búsqueda por Cédula: " : "Búsqueda por Paciente: ") + busqueda;
+                    // Limpiamos el filtro de fecha visualmente ya que mostramos historial completo
+                    fechaFiltro = "";
+                } else {
+                    req.setAttribute("error", "Búsqueda inválida. Ingrese una cédula o un nombre (mínimo 2 caracteres).");
+                    // Fallback: mostrar agenda de hoy
+                    String hoy = LocalDate.now().toString();
+                    agregarPagina(cargador, c -> new CitaServiceImpl(c).buscar(delDia(hoy, ESTADOS_AGENDA, null)));
+                    tituloTabla = "Agenda";
+                }
+                break;
+
+            case "editar":
+                // Carga los datos de una cita específica para mostrarlos en el Modal de Edición
+                try {
+                    int id = Integer.parseInt(req.getParameter("id"));
+                    // Inyectamos el objeto 'citaEditar' para que el JSP lo detecte y abra el modal
+                    cargador.agregar("citaEditar", c -> new CitaServiceImpl(c).porId(id).orElse(null));
+                } catch (Exception e) {
+                    // Si falla el ID, ignoramos silenciosamente y mostramos la lista
+                }
+                // Mantenemos la lista de fondo visible (Agenda Operativa)
+                agregarPagina(cargador, c -> new CitaServiceImpl(c).buscar(delDia(fecha, ESTADOS_AGENDA, cursor)));
+                tituloTabla = "Agenda de Citas";
+                break;
+
+            default:
+                // Caso por defecto de seguridad
+                agregarPagina(cargador, c -> new CitaServiceImpl(c).buscar(delDia(fecha, ESTADOS_AGENDA, cursor)));
+                tituloTabla = "Agenda de Citas";
+                accion = "agenda";
+        }
+
+        // 4. Ejecución de las consultas; si alguna falla mostramos el error y la página igual se arma
+        List<String> errores = cargador.cargar();
+        Pagina<?> pagina = (Pagina<?>) req.getAttribute(ATRIBUTO_PAGINA);
+        req.setAttribute(ATRIBUTO_PAGINA, pagina != null ? pagina.elementos() : List.of());
+        req.setAttribute("siguienteCursor",
+                pagina != null && pagina.hayMas() ? pagina.siguienteCursor().codificar() : null);
+        if (!errores.isEmpty()) {
+            req.setAttribute("error", String.join("; ", errores));
             tituloTabla = "Error cargando datos";
         }
+        CacheCondicional.publicar(req, resp);
 
-        // 4. Inyección de Atributos al Alcance de la Petición (Request Scope)
-        req.setAttribute("citas", listaMostrar);
+        // 5. Inyección de Atributos al Alcance de la Petición (Request Scope)
         req.setAttribute("titulo", tituloTabla);
         req.setAttribute("fechaFiltro", fechaFiltro);
         req.setAttribute("vistaActual", accion); // Necesario para resaltar la pestaña activa
 
-        // 5. Despacho a la Vista
+        // 6. Despacho a la Vista
         getServletContext().getRequestDispatcher("/WEB-INF/vistas/secretaria/citas_gestion.jsp").forward(req, resp);
     }
 
+    /**
+     * Registra en el cargador la consulta paginada de la tabla principal.
+     * Si la consulta falla, la tabla queda vacía para no romper el JSP.
+     */
+    private static void agregarPagina(CargadorPagina cargador, CargadorPagina.Consulta<Pagina<Cita>> consulta) {
+        cargador.agregar(ATRIBUTO_PAGINA, consulta, new Pagina<>(List.of(), null));
+    }
+
+    /**
+     * Criterios de las citas de un día [00:00, 00:00 del día siguiente) en los estados indicados,
+     * en orden cronológico. Se arman dentro de la consulta para que una fecha inválida se reporte
+     * como error de carga, igual que antes.
+     */
+    private static CriteriosCita delDia(String fecha, List<String> estados, Cursor cursor) {
+        LocalDate dia = LocalDate.parse(fecha);
+        return new CriteriosCita()
+                .desde(dia.atStartOfDay())
+                .hasta(dia.plusDays(1).atStartOfDay())
+                .estados(estados)
+                .despuesDe(cursor);
+    }
+
     /**
      * Maneja las peticiones POST para el procesamiento de transacciones (Crear, Editar, Cancelar).
      */
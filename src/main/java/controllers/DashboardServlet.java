@@ -15,6 +15,7 @@ package controllers;
 
 import services.DashboardService;
 import services.DashboardServiceImpl;
+import filter.SoloLectura;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -27,6 +28,7 @@ import java.sql.Connection;
  * Servlet mapeado a la ruta "/dashboard".
  * Gestiona la carga inicial de la aplicación post-login.
  */
+@SoloLectura
 @WebServlet("/dashboard")
 public class DashboardServlet extends HttpServlet {
 
@@ -0,0 +1,401 @@
+package controllers;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Exportación masiva de los PDF de las facturas de un período (cierre de mes para contabilidad).
+ * Recibe los mismos filtros que el historial de facturación (desde, hasta, metodo, cliente) y
+ * responde con un ZIP (un PDF por factura) o, con formato=pdf, con un único PDF que une todas.
+ *
+ *   /facturacion/exportar?desde=2026-09-01&hasta=2026-09-30             -> facturas_2026-09-01_2026-09-30.zip
+ *   /facturacion/exportar?desde=2026-09-01&hasta=2026-09-30&formato=pdf -> facturas_2026-09-01_2026-09-30.pdf
+ *
+ * Funcionamiento:
+ * 1. Las facturas se leen por lotes (CriteriosFactura.TAMANO_MAXIMO) con el cursor del historial, y
+ *    los detalles de cada lote con una sola consulta IN. Cada lote usa una conexión de lectura
+ *    propia que se devuelve al pool apenas termina: la conexión no queda ocupada mientras el
+ *    navegador descarga el archivo.
+ * 2. Los PDF se dibujan en un pool acotado de hilos (-Dendodental.exportacion.hilos, por defecto
+ *    hasta 4), compartido por todas las exportaciones. Los que ya están en la caché en disco
+ *    (GenerarFacturaPdfServlet.CACHE) se copian sin volver a dibujarlos ni cargar sus detalles; los
+ *    nuevos se guardan en ella.
+ * 3. Los documentos se escriben en la respuesta en orden y a medida que están listos. Solo hay unos
+ *    pocos documentos en vuelo por exportación, así que la memoria no depende del tamaño del rango.
+ * 4. La descarga de un mes completo puede durar más que el timeout general de la ejecución virtual
+ *    (-Dendodental.virtual.timeoutMs): la exportación tiene el suyo, -Dendodental.exportacion.timeoutMs,
+ *    sin límite por defecto. Como no retiene una conexión mientras escribe, un cliente lento solo
+ *    ocupa un hilo virtual.
+ */
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.PdfCopy;
+import com.itextpdf.text.pdf.PdfReader;
+import filter.SoloLectura;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebInitParam;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import models.Cursor;
+import models.Factura;
+import models.Pagina;
+import repository.CriteriosFactura;
+import services.FacturaService;
+import services.FacturaServiceImpl;
+import services.ServiceJdbcException;
+import util.CachePdf;
+import util.ConexionBDD;
+import util.ConexionDiferida;
+import util.ConexionInstrumentada;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@SoloLectura
+@WebServlet(value = "/facturacion/exportar", asyncSupported = true,
+        initParams = @WebInitParam(name = HttpServletVirtual.PARAMETRO_EJECUCION_VIRTUAL, value = "true"))
+public class ExportarFacturasServlet extends HttpServletVirtual {
+
+    // Hilos que dibujan los PDF (trabajo de CPU): compartidos por todas las exportaciones
+    private static final int HILOS = Integer.getInteger("endodental.exportacion.hilos",
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    // Documentos pedidos y aún no escritos, por exportación: acota la memoria de cada descarga
+    private static final int EN_VUELO = HILOS * 4;
+    // Timeout del contexto asíncrono de una exportación (0: sin límite)
+    private static final long TIMEOUT_MS = Long.getLong("endodental.exportacion.timeoutMs", 0);
+
+    /**
+     * Factura del lote lista para pasar al pool: si su PDF estaba en la caché, 'entrada' lo indica
+     * y la factura no trae detalles.
+     */
+    private record Pendiente(Factura factura, CachePdf.Entrada entrada) {
+    }
+
+    /**
+     * PDF de una factura listo para escribirse. El buffer vuelve al pool al cerrar el documento.
+     */
+    private record Documento(int idFactura, PlantillaFactura.Buffer buffer, long crc) implements AutoCloseable {
+        @Override
+        public void close() {
+            buffer.close();
+        }
+    }
+
+    /**
+     * Destino de los documentos exportados (ZIP o PDF unido).
+     * terminar() escribe el cierre del archivo (directorio del ZIP, trailer del PDF) y solo se
+     * llama si se escribieron todas las facturas: una descarga cortada por un error queda inválida
+     * en lugar de parecer completa con facturas de menos.
+     */
+    private interface Salida {
+        void agregar(Documento documento) throws IOException, DocumentException;
+
+        void terminar() throws IOException;
+    }
+
+    private ExecutorService trabajadores;
+
+    /**
+     * La exportación no usa el timeout general de la ejecución virtual: al vencer, el contexto
+     * cortaría el ZIP a medio escribir.
+     */
+    @Override
+    protected long tiempoMaximoMs() {
+        return TIMEOUT_MS;
+    }
+
+    @Override
+    public void init() throws ServletException {
+        AtomicInteger contador = new AtomicInteger();
+        trabajadores = Executors.newFixedThreadPool(HILOS, r -> {
+            Thread hilo = new Thread(r, "exportacion-facturas-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        trabajadores.shutdownNow();
+    }
+
+    /**
+     * Maneja la petición GET de exportación.
+     * Si los filtros no son válidos o no hay facturas en el rango, vuelve a la pantalla de
+     * facturación con el error antes de enviar nada; una vez iniciada la descarga, un error la deja incompleta.
+     *
+     * @param req  Solicitud con los filtros del historial y 'formato' (zip o pdf).
+     * @param resp Respuesta donde se escribe el archivo.
+     * @throws ServletException Si ocurre un error en el Servlet.
+     * @throws IOException Si falla la escritura de la respuesta.
+     */
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        // 1. FILTROS (los mismos del historial) y tamaño de lote
+        CriteriosFactura criterios = FacturaServlet.criteriosHistorial(req).tamano(CriteriosFactura.TAMANO_MAXIMO);
+        if (req.getAttribute("error") != null) {
+            volverConError(req, resp, (String) req.getAttribute("error"));
+            return;
+        }
+        boolean unirEnPdf = "pdf".equalsIgnoreCase(req.getParameter("formato"));
+
+        // 2. PRIMER LOTE: si el rango está vacío, no se inicia la descarga
+        List<Pendiente> lote = new ArrayList<>();
+        Cursor siguiente = leerLote(criterios, lote);
+        if (lote.isEmpty()) {
+            volverConError(req, resp, "No hay facturas para exportar con esos filtros");
+            return;
+        }
+
+        // 3. RESPUESTA: descarga de un archivo cuyo tamaño no se conoce de antemano (chunked)
+        String nombre = nombreArchivo(criterios) + (unirEnPdf ? ".pdf" : ".zip");
+        resp.setContentType(unirEnPdf ? "application/pdf" : "application/zip");
+        resp.setHeader("Content-Disposition", "attachment; filename=" + nombre);
+
+        // 4. DIBUJO EN PARALELO Y ESCRITURA EN ORDEN
+        ArrayDeque<Future<Documento>> enVuelo = new ArrayDeque<>();
+        try {
+            Salida salida = unirEnPdf ? new SalidaPdf(resp.getOutputStream()) : new SalidaZip(resp.getOutputStream());
+            while (true) {
+                for (Pendiente pendiente : lote) {
+                    if (enVuelo.size() >= EN_VUELO) {
+                        escribirSiguiente(enVuelo, salida);
+                    }
+                    enVuelo.add(trabajadores.submit(() -> generar(pendiente)));
+                }
+                if (siguiente == null) {
+                    break;
+                }
+                // El siguiente lote se lee mientras el pool dibuja el anterior
+                lote.clear();
+                siguiente = leerLote(criterios.despuesDe(siguiente), lote);
+            }
+            while (!enVuelo.isEmpty()) {
+                escribirSiguiente(enVuelo, salida);
+            }
+            salida.terminar();
+        } catch (DocumentException e) {
+            throw new IOException("Error al unir los PDF: " + e.getMessage(), e);
+        } finally {
+            descartar(enVuelo);
+        }
+    }
+
+    /**
+     * Lee un lote de facturas y deja en 'lote' cada una con su entrada de la caché de PDF, si existe.
+     * Los detalles se cargan con una sola consulta y solo para las facturas que hay que dibujar.
+     *
+     * @return Cursor del siguiente lote, o null si era el último.
+     */
+    private static Cursor leerLote(CriteriosFactura criterios, List<Pendiente> lote) {
+        return conLectura(service -> {
+            Pagina<Factura> pagina = service.buscar(criterios);
+            List<Factura> porDibujar = new ArrayList<>();
+            for (Factura factura : pagina.elementos()) {
+                CachePdf.Entrada entrada = GenerarFacturaPdfServlet.CACHE.buscar(factura.getIdFactura());
+                if (entrada == null) {
+                    porDibujar.add(factura);
+                }
+                lote.add(new Pendiente(factura, entrada));
+            }
+            service.cargarDetalles(porDibujar);
+            return pagina.siguienteCursor();
+        });
+    }
+
+    /**
+     * Ejecuta una operación del servicio de facturas con una conexión de lectura propia, que vuelve
+     * al pool al terminar. La exportación puede durar lo que tarde la descarga: no conviene retener
+     * la conexión de la solicitud ni sumar sus lotes al presupuesto de consultas de una página.
+     */
+    private static <T> T conLectura(Function<FacturaService, T> operacion) {
+        try (ConexionDiferida conexion = new ConexionDiferida(
+                () -> ConexionInstrumentada.envolver(ConexionBDD.getConexionLectura()), false)) {
+            return operacion.apply(new FacturaServiceImpl(conexion.getConexion()));
+        } catch (SQLException e) {
+            throw new ServiceJdbcException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tarea del pool: obtiene el PDF de una factura (desde la caché o dibujándolo con la plantilla)
+     * y calcula su CRC para la entrada del ZIP.
+     */
+    private static Documento generar(Pendiente pendiente) throws IOException, DocumentException {
+        Factura factura = pendiente.factura();
+        PlantillaFactura.Buffer buffer = PlantillaFactura.Buffer.prestar();
+        try {
+            if (pendiente.entrada() == null || !copiarDeCache(pendiente.entrada(), buffer)) {
+                if (factura.getDetalles() == null) {
+                    // Estaba en la caché al leer el lote pero se desalojó: faltan sus detalles
+                    conLectura(service -> {
+                        service.cargarDetalles(List.of(factura));
+                        return null;
+                    });
+                }
+                PlantillaFactura.generar(factura, buffer);
+                GenerarFacturaPdfServlet.CACHE.guardar(factura.getIdFactura(), buffer.datos(), buffer.size());
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.datos(), 0, buffer.size());
+            return new Documento(factura.getIdFactura(), buffer, crc.getValue());
+        } catch (IOException | DocumentException | RuntimeException e) {
+            buffer.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copia al buffer el PDF guardado en la caché.
+     * @return false si el archivo fue desalojado antes de abrirlo.
+     */
+    private static boolean copiarDeCache(CachePdf.Entrada entrada, PlantillaFactura.Buffer buffer) throws IOException {
+        try (FileChannel canal = GenerarFacturaPdfServlet.CACHE.abrir(entrada)) {
+            if (canal == null) {
+                return false;
+            }
+            Channels.newInputStream(canal).transferTo(buffer);
+            return true;
+        }
+    }
+
+    /**
+     * Espera el documento más antiguo en vuelo y lo escribe en la salida.
+     */
+    private static void escribirSiguiente(ArrayDeque<Future<Documento>> enVuelo, Salida salida)
+            throws IOException, DocumentException {
+        try (Documento documento = enVuelo.poll().get()) {
+            salida.agregar(documento);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportación interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException io) {
+                throw io;
+            } else if (causa instanceof DocumentException de) {
+                throw de;
+            } else if (causa instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(causa);
+        }
+    }
+
+    /**
+     * Si la exportación se corta (error o descarga cancelada), cancela los documentos pendientes y
+     * devuelve al pool los buffers de los que ya estaban listos.
+     */
+    private static void descartar(ArrayDeque<Future<Documento>> enVuelo) {
+        for (Future<Documento> futuro : enVuelo) {
+            if (!futuro.cancel(true) && futuro.state() == Future.State.SUCCESS) {
+                futuro.resultNow().close();
+            }
+        }
+        enVuelo.clear();
+    }
+
+    // Nombre del archivo descargado según el rango (las fechas ya fueron validadas como LocalDate)
+    private static String nombreArchivo(CriteriosFactura criterios) {
+        return "facturas"
+                + "_" + (criterios.getDesde() != null ? criterios.getDesde().toLocalDate() : "inicio")
+                + "_" + (criterios.getHasta() != null ? criterios.getHasta().toLocalDate().minusDays(1) : "hoy");
+    }
+
+    // Vuelve a la pantalla de facturación con los mismos filtros y el mensaje de error
+    private void volverConError(HttpServletRequest req, HttpServletResponse resp, String error)
+            throws ServletException, IOException {
+        req.setAttribute("error", error);
+        getServletContext().getRequestDispatcher("/facturacion").forward(req, resp);
+    }
+
+    /**
+     * ZIP con un PDF por factura. Los PDF ya vienen comprimidos por iText, así que se guardan sin
+     * volver a comprimir (STORED); el tamaño y el CRC se calculan en el pool.
+     */
+    private static final class SalidaZip implements Salida {
+
+        private final ZipOutputStream zip;
+
+        SalidaZip(OutputStream salida) {
+            zip = new ZipOutputStream(salida);
+            zip.setMethod(ZipOutputStream.STORED);
+        }
+
+        @Override
+        public void agregar(Documento documento) throws IOException {
+            ZipEntry entrada = new ZipEntry("Factura_" + documento.idFactura() + ".pdf");
+            entrada.setSize(documento.buffer().size());
+            entrada.setCompressedSize(documento.buffer().size());
+            entrada.setCrc(documento.crc());
+            zip.putNextEntry(entrada);
+            documento.buffer().writeTo(zip);
+            zip.closeEntry();
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            zip.finish();
+            zip.flush();
+        }
+    }
+
+    /**
+     * Un solo PDF con las páginas de todas las facturas, copiadas con PdfCopy. Cada documento se
+     * libera (freeReader) apenas se copia. Las páginas se copian una por una con getImportedPage:
+     * addDocument() no limpia el mapa interno de objetos padre de PdfCopy y acumula unos 7 KB por
+     * factura; así solo queda la tabla de referencias del PDF (unos cientos de bytes por página).
+     */
+    private static final class SalidaPdf implements Salida {
+
+        private final Document documento = new Document();
+        private final PdfCopy copia;
+
+        SalidaPdf(OutputStream salida) throws IOException {
+            try {
+                copia = new PdfCopy(documento, salida);
+            } catch (DocumentException e) {
+                throw new IOException(e);
+            }
+            copia.setCloseStream(false);
+            documento.open();
+        }
+
+        @Override
+        public void agregar(Documento pdf) throws IOException, DocumentException {
+            PdfReader lector = new PdfReader(new ByteArrayInputStream(pdf.buffer().datos(), 0, pdf.buffer().size()));
+            try {
+                for (int pagina = 1; pagina <= lector.getNumberOfPages(); pagina++) {
+                    copia.addPage(copia.getImportedPage(lector, pagina));
+                }
+                copia.freeReader(lector);
+            } finally {
+                lector.close();
+            }
+        }
+
+        @Override
+        public void terminar() {
+            documento.close();
+        }
+    }
+}
@@ -15,24 +15,37 @@ package controllers;
  * 4. Orquestar el guardado y redireccionar a la impresión del PDF.
  */
 
+import filter.SoloLectura;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebInitParam;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import models.*;
+import repository.CriteriosCita;
+import repository.CriteriosFactura;
 import services.*;
+import util.CargadorPagina;
+import util.VersionesTablas.Tabla;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.Connection;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
-@WebServlet("/facturacion")
-public class FacturaServlet extends HttpServlet {
+@SoloLectura
+@WebServlet(value = "/facturacion", asyncSupported = true,
+        initParams = @WebInitParam(name = HttpServletVirtual.PARAMETRO_EJECUCION_VIRTUAL, value = "true"))
+public class FacturaServlet extends HttpServletVirtual {
+
+    // El cargador deja las páginas del historial y de las citas por facturar en estos atributos;
+    // luego se reemplazan por sus elementos
+    private static final String ATRIBUTO_PAGINA = "facturas";
+    private static final String ATRIBUTO_CITAS = "citasPendientes";
 
     /**
      * Maneja la petición GET para mostrar la pantalla de facturación.
@@ -41,14 +54,24 @@ public class FacturaServlet extends HttpServlet {
      */
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        // 1. Obtener la conexión compartida del filtro (Transacción por Request)
-        Connection conn = (Connection) req.getAttribute("conn");
+        /*
+         * 1. Registrar las consultas de la página en el cargador.
+         * Son independientes entre sí, así que el cargador las ejecuta en paralelo (cada una con su
+         * propia conexión de solo lectura) y deja cada resultado en el atributo indicado.
+         * Si una falla, su atributo queda con una lista vacía y las demás se muestran igual.
+         */
+        CargadorPagina cargador = new CargadorPagina(req);
 
-        // 2. Instanciar los servicios necesarios para consultar datos
-        FacturaService facturaService = new FacturaServiceImpl(conn);
-        CitaService citaService = new CitaServiceImpl(conn);
-        ServicioService servicioService = new ServicioServiceImpl(conn);
-        ProductoService productoService = new ProductoServiceImpl(conn);
+        /*
+         * CACHÉ CONDICIONAL (ETag / 304)
+         * La página muestra facturas, citas atendidas (con su paciente) y los catálogos de servicios
+         * y productos (con su stock). Si nada de eso cambió, respondemos 304 sin consultar.
+         */
+        String etag = CacheCondicional.etag(req, Tabla.FACTURAS, Tabla.CITAS, Tabla.PACIENTES,
+                Tabla.SERVICIOS, Tabla.PRODUCTOS);
+        if (CacheCondicional.noModificado(req, resp, etag)) {
+            return;
+        }
 
         /*
          * LÓGICA DE PRE-LLENADO (UX - Experiencia de Usuario)
@@ -63,34 +86,108 @@ public class FacturaServlet extends HttpServlet {
             // Buscamos la cita para pre-llenar datos del cliente (Cédula, Nombre)
             try {
                 int id = Integer.parseInt(idPre);
-                Optional<Cita> citaOpt = citaService.porId(id);
-                if (citaOpt.isPresent()) {
-                    req.setAttribute("citaPre", citaOpt.get());
-                }
-            } catch (Exception e) {
+                cargador.agregar("citaPre", c -> new CitaServiceImpl(c).porId(id).orElse(null));
+            } catch (NumberFormatException e) {
                 e.printStackTrace();
             }
         }
 
-        try {
-            // 3. Cargar datos para la vista
-            req.setAttribute("facturas", facturaService.listar());
+        // 2. Cargar datos para la vista
+        // Historial: una página filtrada (desde, hasta, método, cliente) y su total estimado
+        CriteriosFactura criterios = criteriosHistorial(req);
+        cargador.agregar(ATRIBUTO_PAGINA, c -> new FacturaServiceImpl(c).buscar(criterios),
+                new Pagina<>(List.of(), null));
+        cargador.agregar("totalFacturasEstimado", c -> new FacturaServiceImpl(c).estimarTotal(criterios), -1L);
 
-            // CRÍTICO: Usamos listarAtendidas() para mostrar SOLO las citas que el doctor ya finalizó.
-            // Esto evita facturar citas que aún no ocurren o están pendientes.
-            req.setAttribute("citasPendientes", citaService.listarAtendidas());
+        // CRÍTICO: Mostramos SOLO las citas 'Atendida', las que el doctor ya finalizó.
+        // Esto evita facturar citas que aún no ocurren o están pendientes.
+        // Se limita a las más recientes (una página) en lugar de todo el histórico; las más
+        // antiguas se encuentran filtrando por paciente (cédula o nombre).
+        String pacienteCita = req.getParameter("paciente_cita");
+        CriteriosCita criteriosCitas = new CriteriosCita()
+                .estados(List.of("Atendida"))
+                .descendente()
+                .tamano(CriteriosCita.TAMANO_MAXIMO);
+        cargador.agregar(ATRIBUTO_CITAS, c -> pacienteCita == null || pacienteCita.isBlank()
+                        ? new CitaServiceImpl(c).buscar(criteriosCitas)
+                        : new CitaServiceImpl(c).buscarPorPaciente(pacienteCita.strip(), criteriosCitas),
+                new Pagina<>(List.of(), null));
 
-            // Catálogos para agregar ítems a la factura
-            req.setAttribute("servicios", servicioService.listar());
-            req.setAttribute("productos", productoService.listar());
-        } catch (Exception e) {
-            req.setAttribute("error", "Error cargando datos: " + e.getMessage());
+        // Catálogos para agregar ítems a la factura
+        cargador.agregar("servicios", c -> new ServicioServiceImpl(c).listar(), List.of());
+        cargador.agregar("productos", c -> new ProductoServiceImpl(c).listar(), List.of());
+
+        // 3. Ejecutar todas las consultas y reportar las que fallaron
+        List<String> errores = cargador.cargar();
+        if (!errores.isEmpty()) {
+            req.setAttribute("error", "Error cargando datos: " + String.join("; ", errores));
         }
 
+        // Si hay más citas atendidas que las mostradas, la vista lo avisa y ofrece el filtro por paciente
+        Pagina<?> citas = (Pagina<?>) req.getAttribute(ATRIBUTO_CITAS);
+        req.setAttribute(ATRIBUTO_CITAS, citas != null ? citas.elementos() : List.of());
+        req.setAttribute("citasPendientesIncompletas", citas != null && citas.hayMas());
+
+        Pagina<?> pagina = (Pagina<?>) req.getAttribute(ATRIBUTO_PAGINA);
+        req.setAttribute(ATRIBUTO_PAGINA, pagina != null ? pagina.elementos() : List.of());
+        req.setAttribute("siguienteCursorFacturas",
+                pagina != null && pagina.hayMas() ? pagina.siguienteCursor().codificar() : null);
+
+        // La cita preseleccionada puede ser más antigua que la página cargada: se agrega al inicio
+        incluirCitaPreseleccionada(req);
+
         // 4. Despachar al JSP
+        CacheCondicional.publicar(req, resp);
         getServletContext().getRequestDispatcher("/WEB-INF/vistas/secretaria/facturacion.jsp").forward(req, resp);
     }
 
+    /**
+     * Arma los criterios del historial con los parámetros del formulario de filtros.
+     * Las fechas llegan como yyyy-MM-dd y ambas son inclusivas; una fecha inválida se ignora.
+     * También lo usa ExportarFacturasServlet, para exportar exactamente lo que muestra el historial.
+     */
+    static CriteriosFactura criteriosHistorial(HttpServletRequest req) {
+        CriteriosFactura criterios = new CriteriosFactura()
+                .metodoPago(req.getParameter("metodo"))
+                .identificacionCliente(req.getParameter("cliente"))
+                .despuesDe(Cursor.decodificar(req.getParameter("cursor")));
+        try {
+            String desde = req.getParameter("desde");
+            if (desde != null && !desde.isEmpty()) {
+                criterios.desde(LocalDate.parse(desde).atStartOfDay());
+            }
+            String hasta = req.getParameter("hasta");
+            if (hasta != null && !hasta.isEmpty()) {
+                criterios.hasta(LocalDate.parse(hasta).plusDays(1).atStartOfDay());
+            }
+        } catch (DateTimeParseException e) {
+            req.setAttribute("error", "Fecha de filtro inválida: " + e.getParsedString());
+        }
+        return criterios;
+    }
+
+    /**
+     * Asegura que la cita preseleccionada ('citaPre') aparezca en la lista de citas por facturar
+     * cuando sigue en estado 'Atendida' pero quedó fuera de la página más reciente.
+     */
+    @SuppressWarnings("unchecked")
+    private static void incluirCitaPreseleccionada(HttpServletRequest req) {
+        Cita citaPre = (Cita) req.getAttribute("citaPre");
+        List<Cita> pendientes = (List<Cita>) req.getAttribute("citasPendientes");
+        if (citaPre == null || pendientes == null || !"Atendida".equals(citaPre.getEstado())) {
+            return;
+        }
+        for (Cita c : pendientes) {
+            if (c.getIdCita() == citaPre.getIdCita()) {
+                return;
+            }
+        }
+        List<Cita> conPreseleccionada = new ArrayList<>(pendientes.size() + 1);
+        conPreseleccionada.add(citaPre);
+        conPreseleccionada.addAll(pendientes);
+        req.setAttribute("citasPendientes", conPreseleccionada);
+    }
+
     /**
      * Maneja la petición POST para procesar el formulario de facturación.
      */
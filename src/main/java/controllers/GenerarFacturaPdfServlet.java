@@ -1,22 +1,23 @@
 package controllers;
 
-import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.PdfPCell;
-import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
+import com.itextpdf.text.DocumentException;
+import filter.SoloLectura;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebInitParam;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import models.DetalleFactura;
+import jakarta.servlet.http.HttpServletResponseWrapper;
 import models.Factura;
 import services.FacturaService;
 import services.FacturaServiceImpl;
+import util.CachePdf;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.sql.Connection;
-import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 
 /*
@@ -31,14 +32,33 @@ import java.util.Optional;
  * Funcionalidades:
  * 1. Recuperación de datos de factura mediante ID.
  * 2. Configuración de la respuesta HTTP para servir archivos binarios (PDF).
- * 3. Diseño y maquetación del documento (Encabezado, Cliente, Detalles, Totales).
+ * 3. Diseño y maquetación del documento (Encabezado, Cliente, Detalles, Totales), con la
+ *    plantilla precompilada PlantillaFactura.
+ * 4. Caché en disco de los PDF generados (CachePdf): una factura ya emitida no cambia, así que
+ *    las siguientes descargas se sirven desde el archivo, sin base de datos ni iText.
  */
 
-@WebServlet("/facturacion/pdf")
-public class GenerarFacturaPdfServlet extends HttpServlet {
+@SoloLectura
+@WebServlet(value = "/facturacion/pdf", asyncSupported = true,
+        initParams = @WebInitParam(name = HttpServletVirtual.PARAMETRO_EJECUCION_VIRTUAL, value = "true"))
+public class GenerarFacturaPdfServlet extends HttpServletVirtual {
+
+    // Versión de la plantilla del PDF: cambiarla descarta los documentos guardados en la caché
+    static final int VERSION_PLANTILLA = 1;
+    // Caché en disco de los PDF ya generados (una factura no cambia después del commit)
+    static final CachePdf CACHE = CachePdf.desdePropiedades("factura", VERSION_PLANTILLA);
+    // El PDF de una factura no cambia: el navegador puede guardarlo sin revalidar (solo él, no proxies)
+    private static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+    // Atributos de Tomcat para enviar un archivo con sendfile (los mismos que usa su DefaultServlet)
+    private static final String SENDFILE_DISPONIBLE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
 
     /**
      * Maneja la petición GET para generar y descargar el PDF.
+     * Si el PDF ya está en la caché en disco se envía directamente desde el archivo, sin pedir
+     * una conexión a la base de datos ni volver a dibujarlo; si no, se genera, se guarda y se envía.
      *
      * @param req  La solicitud HTTP que contiene el parámetro 'id' de la factura.
      * @param resp La respuesta HTTP donde se escribirá el flujo de bytes del PDF.
@@ -48,12 +68,7 @@ public class GenerarFacturaPdfServlet extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
-        // 1. INYECCIÓN DE DEPENDENCIAS
-        // Obtenemos la conexión y el servicio necesarios para consultar la factura.
-        Connection conn = (Connection) req.getAttribute("conn");
-        FacturaService service = new FacturaServiceImpl(conn);
-
-        // 2. VALIDACIÓN DE PARÁMETROS
+        // 1. VALIDACIÓN DE PARÁMETROS
         // Obtenemos el ID de la factura desde la URL (ej: /facturacion/pdf?id=5)
         String idStr = req.getParameter("id");
         if (idStr == null || idStr.isEmpty()) {
@@ -64,26 +79,37 @@ public class GenerarFacturaPdfServlet extends HttpServlet {
         try {
             int idFactura = Integer.parseInt(idStr);
 
-            // 3. BÚSQUEDA DE DATOS
+            // 2. CACHÉ EN DISCO
+            // La conexión del request es diferida: si respondemos desde la caché, nunca se abre.
+            CachePdf.Entrada entrada = CACHE.buscar(idFactura);
+            if (entrada != null && enviarDesdeCache(req, resp, idFactura, entrada)) {
+                return;
+            }
+
+            // 3. INYECCIÓN DE DEPENDENCIAS Y BÚSQUEDA DE DATOS
             // Recuperamos la factura completa (incluyendo sus detalles/ítems)
+            Connection conn = (Connection) req.getAttribute("conn");
+            FacturaService service = new FacturaServiceImpl(conn);
             Optional<Factura> oFactura = service.porId(idFactura);
 
             if (oFactura.isPresent()) {
                 Factura factura = oFactura.get();
 
-                /*
-                 * 4. CONFIGURACIÓN DE LA RESPUESTA HTTP
-                 * - setContentType("application/pdf"): Indica al navegador que el contenido es un PDF.
-                 * - setHeader("Content-Disposition", ...):
-                 * "inline": Abre el PDF en el visor del navegador.
-                 * "attachment": Fuerza la descarga del archivo.
-                 */
-                resp.setContentType("application/pdf");
-                resp.setHeader("Content-Disposition", "inline; filename=Factura_" + idFactura + ".pdf");
-
-                // 5. GENERACIÓN DEL DOCUMENTO
-                // Llamamos al método auxiliar que construye el contenido visual.
-                generarDocumentoPdf(resp, factura);
+                // 4. GENERACIÓN DEL DOCUMENTO
+                // Se dibuja con la plantilla precompilada en un buffer del pool, para conocer su
+                // tamaño (Content-Length) y guardarlo en la caché.
+                try (PlantillaFactura.Buffer buffer = PlantillaFactura.Buffer.prestar()) {
+                    PlantillaFactura.generar(factura, buffer);
+
+                    CachePdf.Entrada nueva = CACHE.guardar(idFactura, buffer.datos(), buffer.size());
+                    if (nueva != null && enviarDesdeCache(req, resp, idFactura, nueva)) {
+                        return;
+                    }
+                    // Caché desactivada o sin espacio en disco: enviamos el documento desde memoria
+                    String etag = "\"" + CachePdf.hash(buffer.datos(), buffer.size()) + "\"";
+                    prepararRespuesta(resp, idFactura, etag, buffer.size());
+                    buffer.writeTo(resp.getOutputStream());
+                }
 
             } else {
                 resp.sendRedirect(req.getContextPath() + "/facturacion?error=Factura no encontrada");
@@ -98,142 +124,63 @@ public class GenerarFacturaPdfServlet extends HttpServlet {
     }
 
     /**
-     * Método auxiliar que contiene la lógica de diseño del PDF usando iText.
-     * Construye el documento paso a paso: Títulos, Datos del Cliente, Tabla de Ítems y Totales.
+     * Envía un PDF de la caché. Si el navegador ya tiene esa versión (If-None-Match), responde 304
+     * sin abrir el archivo: el hash del nombre es el ETag. Si el conector de Tomcat admite sendfile,
+     * el archivo lo envía el propio conector desde el disco al socket al terminar la solicitud; si
+     * no, se copia a la respuesta en bloques con FileChannel.transferTo, sin cargarlo completo en memoria.
      *
-     * @param resp Objeto Response para obtener el Output Stream.
-     * @param factura Objeto Factura con los datos a imprimir.
-     * @throws DocumentException Si hay error en la estructura del PDF.
-     * @throws IOException Si falla la escritura en el stream.
+     * @return false si el archivo fue desalojado antes de abrirlo (hay que generarlo de nuevo).
      */
-    private void generarDocumentoPdf(HttpServletResponse resp, Factura factura) throws DocumentException, IOException {
-        // Inicialización del documento y el escritor
-        Document document = new Document();
-        PdfWriter.getInstance(document, resp.getOutputStream());
-        document.open();
-
-        // --- DEFINICIÓN DE FUENTES ---
-        // Preparamos fuentes estándar para mantener consistencia visual (Títulos, Texto normal, Negritas)
-        Font tituloFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.DARK_GRAY);
-        Font subTituloFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.GRAY);
-        Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 10, BaseColor.BLACK);
-        Font negritaFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
-
-        // --- SECCIÓN 1: ENCABEZADO ---
-        Paragraph titulo = new Paragraph("CLÍNICA ENDODENTAL", tituloFont);
-        titulo.setAlignment(Element.ALIGN_CENTER);
-        document.add(titulo);
-
-        Paragraph subtitulo = new Paragraph("Comprobante de Factura #" + factura.getIdFactura(), subTituloFont);
-        subtitulo.setAlignment(Element.ALIGN_CENTER);
-        document.add(subtitulo);
-        document.add(new Paragraph(" ")); // Espaciado vertical
-
-        // --- SECCIÓN 2: DATOS DEL CLIENTE ---
-        // Usamos una tabla invisible (sin bordes) para alinear etiquetas y valores ordenadamente
-        PdfPTable datosTable = new PdfPTable(2);
-        datosTable.setWidthPercentage(100);
-        datosTable.setWidths(new float[]{1, 2}); // Columna 1 (Etiqueta) ocupa 1/3, Columna 2 (Valor) ocupa 2/3
-
-        agregarCeldaSinBorde(datosTable, "Cliente:", negritaFont);
-        agregarCeldaSinBorde(datosTable, factura.getNombreClienteFactura(), normalFont);
-
-        agregarCeldaSinBorde(datosTable, "RUC/Cédula:", negritaFont);
-        agregarCeldaSinBorde(datosTable, factura.getIdentificacionCliente(), normalFont);
-
-        agregarCeldaSinBorde(datosTable, "Dirección:", negritaFont);
-        agregarCeldaSinBorde(datosTable, factura.getDireccionCliente() != null ? factura.getDireccionCliente() : "S/N", normalFont);
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
-        agregarCeldaSinBorde(datosTable, "Fecha Emisión:", negritaFont);
-        agregarCeldaSinBorde(datosTable, factura.getFechaEmision().format(formatter), normalFont);
-
-        document.add(datosTable);
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph(" "));
-
-        // --- SECCIÓN 3: TABLA DE DETALLES (ÍTEMS) ---
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{3, 1, 1, 1}); // Anchos relativos de columnas
-
-        // Cabeceras de la tabla
-        agregarCeldaEncabezado(table, "Descripción / Servicio", negritaFont);
-        agregarCeldaEncabezado(table, "Cant.", negritaFont);
-        agregarCeldaEncabezado(table, "Precio", negritaFont);
-        agregarCeldaEncabezado(table, "Total", negritaFont);
-
-        // Iteración sobre los ítems de la factura
-        if (factura.getDetalles() != null) {
-            for (DetalleFactura d : factura.getDetalles()) {
-                // Lógica para determinar qué nombre mostrar (Servicio vs Producto vs Texto libre)
-                String nombreItem = "Item";
-                if (d.getServicio() != null && d.getServicio().getNombre() != null) {
-                    nombreItem = d.getServicio().getNombre();
-                } else if (d.getProducto() != null && d.getProducto().getNombre() != null) {
-                    nombreItem = d.getProducto().getNombre();
-                } else {
-                    nombreItem = d.getTipoItem(); // Fallback
-                }
-
-                // Agregamos las celdas de la fila
-                table.addCell(new Phrase(nombreItem, normalFont));
-                table.addCell(new Phrase(String.valueOf(d.getCantidad()), normalFont));
-                table.addCell(new Phrase("$" + d.getPrecioUnitario(), normalFont));
-                table.addCell(new Phrase("$" + d.getSubtotalItem(), normalFont));
+    private static boolean enviarDesdeCache(HttpServletRequest req, HttpServletResponse resp, int idFactura,
+                                            CachePdf.Entrada entrada) throws IOException {
+        String etag = "\"" + entrada.hash() + "\"";
+        String enviado = req.getHeader("If-None-Match");
+        if (enviado != null && CacheCondicional.coincide(enviado, etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            resp.setHeader("ETag", etag);
+            resp.setHeader("Cache-Control", CACHE_CONTROL);
+            return true;
+        }
+        // Abrirlo confirma que sigue en disco también cuando lo enviará el conector
+        FileChannel canal = CACHE.abrir(entrada);
+        if (canal == null) {
+            return false;
+        }
+        try (canal) {
+            prepararRespuesta(resp, idFactura, etag, entrada.tamano());
+            // Como en el DefaultServlet de Tomcat, una respuesta envuelta por un filtro no usa sendfile
+            if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_DISPONIBLE)) && !(resp instanceof HttpServletResponseWrapper)) {
+                /*
+                Tomcat abre el archivo por su nombre después de que el servlet termina. Si la caché
+                lo desaloja justo en ese intervalo, la descarga falla y el siguiente intento lo genera.
+                 */
+                req.setAttribute(SENDFILE_ARCHIVO, entrada.archivo().toAbsolutePath().toString());
+                req.setAttribute(SENDFILE_INICIO, 0L);
+                req.setAttribute(SENDFILE_FIN, entrada.tamano());
+                return true;
+            }
+            WritableByteChannel destino = Channels.newChannel(resp.getOutputStream());
+            long enviados = 0;
+            while (enviados < entrada.tamano()) {
+                enviados += canal.transferTo(enviados, entrada.tamano() - enviados, destino);
             }
-        } else {
-            // Fila vacía por si acaso no hay detalles (Edge case)
-            table.addCell(new Phrase("Sin detalles", normalFont));
-            table.addCell(new Phrase("-", normalFont));
-            table.addCell(new Phrase("-", normalFont));
-            table.addCell(new Phrase("-", normalFont));
         }
-
-        document.add(table);
-        document.add(new Paragraph(" "));
-
-        // --- SECCIÓN 4: TOTALES ---
-        // Tabla alineada a la derecha para mostrar los montos finales
-        PdfPTable totalesTable = new PdfPTable(2);
-        totalesTable.setWidthPercentage(40); // Que ocupe solo el 40% del ancho
-        totalesTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
-
-        agregarCeldaTotales(totalesTable, "Subtotal:", negritaFont, "$" + factura.getSubtotal());
-        agregarCeldaTotales(totalesTable, "IVA (15%):", negritaFont, "$" + factura.getMontoIva());
-        agregarCeldaTotales(totalesTable, "TOTAL:", tituloFont, "$" + factura.getTotalPagar());
-
-        document.add(totalesTable);
-
-        document.close();
+        return true;
     }
 
-    // --- MÉTODOS HELPERS (Para reducir duplicidad de código de estilo) ---
-
-    private void agregarCeldaSinBorde(PdfPTable table, String text, Font font) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
-        cell.setBorder(Rectangle.NO_BORDER);
-        cell.setPaddingBottom(5);
-        table.addCell(cell);
-    }
-
-    private void agregarCeldaEncabezado(PdfPTable table, String text, Font font) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
-        cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-        cell.setPadding(8);
-        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        table.addCell(cell);
-    }
-
-    private void agregarCeldaTotales(PdfPTable table, String label, Font font, String valor) {
-        PdfPCell cellLabel = new PdfPCell(new Phrase(label, font));
-        cellLabel.setBorder(Rectangle.NO_BORDER);
-        cellLabel.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        table.addCell(cellLabel);
-
-        PdfPCell cellValor = new PdfPCell(new Phrase(valor, font));
-        cellValor.setBorder(Rectangle.NO_BORDER);
-        cellValor.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        table.addCell(cellValor);
+    /**
+     * CONFIGURACIÓN DE LA RESPUESTA HTTP
+     * - setContentType("application/pdf"): Indica al navegador que el contenido es un PDF.
+     * - setHeader("Content-Disposition", ...):
+     * "inline": Abre el PDF en el visor del navegador.
+     * "attachment": Fuerza la descarga del archivo.
+     * - Content-Length, ETag (hash del contenido) y Cache-Control para la caché del navegador.
+     */
+    private static void prepararRespuesta(HttpServletResponse resp, int idFactura, String etag, long tamano) {
+        resp.setContentType("application/pdf");
+        resp.setHeader("Content-Disposition", "inline; filename=Factura_" + idFactura + ".pdf");
+        resp.setContentLengthLong(tamano);
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Cache-Control", CACHE_CONTROL);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,183 @@
+package controllers;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Servlet base con ejecución opcional en hilos virtuales.
+ * Los servlets que pasan mucho tiempo bloqueados en JDBC o generando PDF con iText ocupan un hilo
+ * del contenedor durante toda la solicitud; una ráfaga de solicitudes lentas puede agotar el pool
+ * de hilos y dejar sin atender incluso las páginas rápidas. Con la ejecución virtual activada, el
+ * servlet inicia un AsyncContext, libera de inmediato el hilo del contenedor y atiende la solicitud
+ * (doGet, doPost...) en un hilo virtual.
+ *
+ * La transacción sigue a cargo de ConexionFilter: al terminar el servlet, el hilo virtual cierra la
+ * TransaccionSolicitud (commit o rollback y devolución de la conexión) antes de completar el contexto.
+ *
+ * Se activa por servlet con el parámetro de inicio "ejecucionVirtual":
+ *   @WebServlet(value = "/ruta", asyncSupported = true,
+ *               initParams = @WebInitParam(name = "ejecucionVirtual", value = "true"))
+ * y se puede desactivar en toda la aplicación con -Dendodental.virtual.habilitado=false.
+ *
+ * Límites:
+ * - -Dendodental.virtual.maximo (256): solicitudes atendidas a la vez en hilos virtuales. Pasado
+ *   ese número la solicitud se atiende en el hilo del contenedor, como sin ejecución virtual, así
+ *   que el pool de hilos de Tomcat vuelve a frenar la entrada en lugar de acumular hilos sin fin.
+ * - -Dendodental.virtual.timeoutMs (60000): timeout del contexto asíncrono. Al vencer se
+ *   interrumpe el hilo virtual y el contenedor responde con error; el hilo, al salir, igual
+ *   cierra la transacción. Tomcat descarta los objetos request/response de una solicitud
+ *   terminada, así que una escritura tardía del servlet falla en lugar de caer en otra respuesta.
+ *   Un servlet cuyas respuestas duran más que eso por diseño (descargas largas) sobrescribe
+ *   tiempoMaximoMs() con su propio límite.
+ * */
+
+import filter.ConexionFilter;
+import filter.TransaccionSolicitud;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+public abstract class HttpServletVirtual extends HttpServlet {
+
+    public static final String PARAMETRO_EJECUCION_VIRTUAL = "ejecucionVirtual";
+
+    private static final boolean HABILITADO = !"false".equalsIgnoreCase(
+            System.getProperty("endodental.virtual.habilitado"));
+    private static final long TIMEOUT_MS = Long.getLong("endodental.virtual.timeoutMs", 60_000);
+
+    // Un hilo virtual por solicitud; el semáforo limita cuántas se atienden así a la vez
+    private static final ExecutorService HILOS = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Semaphore CUPOS = new Semaphore(Integer.getInteger("endodental.virtual.maximo", 256));
+
+    private boolean ejecucionVirtual;
+
+    /*
+     * Se sobrescribe init(ServletConfig) y no init() para que las subclases puedan seguir
+     * sobrescribiendo init() sin tener que llamar a super.
+     */
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        ejecucionVirtual = HABILITADO && Boolean.parseBoolean(config.getInitParameter(PARAMETRO_EJECUCION_VIRTUAL));
+    }
+
+    /**
+     * Atiende la solicitud en un hilo virtual si la ejecución virtual está activa y el contenedor
+     * permite iniciar un contexto asíncrono; en otro caso la atiende en el hilo actual.
+     */
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        /*
+        Los forward/include internos y las solicitudes que ya son asíncronas se atienden en el hilo actual.
+        Si algún filtro de la cadena no declara asyncSupported, isAsyncSupported() es false.
+         */
+        if (!ejecucionVirtual || req.getDispatcherType() != DispatcherType.REQUEST
+                || !req.isAsyncSupported() || req.isAsyncStarted() || !CUPOS.tryAcquire()) {
+            super.service(req, resp);
+            return;
+        }
+
+        try {
+            TransaccionSolicitud transaccion =
+                    (TransaccionSolicitud) req.getAttribute(ConexionFilter.ATRIBUTO_TRANSACCION);
+            if (transaccion != null) {
+                transaccion.iniciarAtencion();
+            }
+            AsyncContext contexto = req.startAsync(req, resp);
+            contexto.setTimeout(tiempoMaximoMs());
+            HILOS.execute(() -> {
+                contexto.addListener(new Interrupcion(Thread.currentThread()));
+                try {
+                    atender(contexto, transaccion, req, resp);
+                } finally {
+                    CUPOS.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            CUPOS.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Timeout del contexto asíncrono de las solicitudes de este servlet.
+     * Por defecto es -Dendodental.virtual.timeoutMs; 0 o un valor negativo significa sin límite.
+     *
+     * @return Milisegundos antes de que el contexto venza.
+     */
+    protected long tiempoMaximoMs() {
+        return TIMEOUT_MS;
+    }
+
+    /**
+     * Interrumpe el hilo virtual si el contexto asíncrono vence: una espera del pool o un sleep
+     * terminan en ese momento en lugar de seguir ocupando la conexión.
+     */
+    private record Interrupcion(Thread hilo) implements AsyncListener {
+
+        @Override
+        public void onTimeout(AsyncEvent evento) {
+            hilo.interrupt();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent evento) {
+        }
+
+        @Override
+        public void onError(AsyncEvent evento) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent evento) {
+        }
+    }
+
+    /**
+     * Ejecuta el servlet en el hilo virtual, cierra la transacción de la solicitud y completa el contexto.
+     */
+    private void atender(AsyncContext contexto, TransaccionSolicitud transaccion,
+                         HttpServletRequest req, HttpServletResponse resp) {
+        Throwable error = null;
+        try {
+            super.service(req, resp);
+        } catch (Throwable t) {
+            error = t;
+        }
+
+        try {
+            if (transaccion != null) {
+                transaccion.terminar(error);
+            } else if (error != null) {
+                throw error;
+            }
+        } catch (Throwable t) {
+            // El error ya no puede propagarse al contenedor: se registra y se responde con 500
+            System.err.println("[" + getServletName() + "] Error atendiendo " + req.getRequestURI() + ": " + t);
+            t.printStackTrace();
+            if (!resp.isCommitted()) {
+                try {
+                    resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } catch (IOException | IllegalStateException ignorada) {
+                    // La respuesta ya no se puede modificar
+                }
+            }
+        } finally {
+            try {
+                contexto.complete();
+            } catch (IllegalStateException vencido) {
+                // El contexto ya se completó (timeout o error del contenedor)
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package controllers;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Controlador (Servlet) que expone las métricas de la capa de datos en formato de texto de
+ * Prometheus. Publica, por cada sentencia SQL normalizada, los histogramas de tiempo de ejecución,
+ * tiempo de lectura y filas, por cada pool de conexiones el tiempo de espera y sus contadores,
+ * los aciertos y recargas de las cachés de catálogo, los de la caché en disco de PDF y las
+ * solicitudes que excedieron el presupuesto de consultas.
+ *
+ * El servlet no usa la conexión de la solicitud, por lo que consultarlo no ocupa el pool.
+ */
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import util.CacheInstantanea;
+import util.CachePdf;
+import util.ConexionBDD;
+import util.EstadisticasPool;
+import util.Histograma;
+import util.MetricasJdbc;
+import util.PoolConexiones;
+import util.PresupuestoConsultas;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Servlet mapeado a la ruta "/metrics" (ruta convencional para Prometheus).
+ */
+@WebServlet("/metrics")
+public class MetricasServlet extends HttpServlet {
+
+    /**
+     * Procesa las solicitudes HTTP GET escribiendo todas las métricas en texto plano.
+     *
+     * @param req  La solicitud HTTP.
+     * @param resp La respuesta HTTP con las métricas.
+     * @throws ServletException Si ocurre un error en el ciclo de vida del Servlet.
+     * @throws IOException Si hay errores de escritura en la respuesta.
+     */
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+
+        StringBuilder sb = new StringBuilder(16 * 1024);
+
+        // 1. Sentencias SQL (ordenadas para que la salida sea estable entre consultas)
+        Map<String, MetricasJdbc.MetricasSentencia> sentencias = new TreeMap<>(MetricasJdbc.getInstancia().getSentencias());
+        encabezado(sb, "endodental_sql_ejecucion_segundos", "histogram", "Tiempo de ejecución de cada sentencia SQL");
+        for (MetricasJdbc.MetricasSentencia m : sentencias.values()) {
+            escribirHistograma(sb, "endodental_sql_ejecucion_segundos", "sql", m.getSql(), m.getEjecucion());
+        }
+        encabezado(sb, "endodental_sql_lectura_segundos", "histogram", "Tiempo de recorrido del ResultSet (del primer next al último o al close)");
+        for (MetricasJdbc.MetricasSentencia m : sentencias.values()) {
+            escribirHistograma(sb, "endodental_sql_lectura_segundos", "sql", m.getSql(), m.getLectura());
+        }
+        encabezado(sb, "endodental_sql_filas", "histogram", "Filas leídas o modificadas por sentencia");
+        for (MetricasJdbc.MetricasSentencia m : sentencias.values()) {
+            escribirHistograma(sb, "endodental_sql_filas", "sql", m.getSql(), m.getFilas());
+        }
+
+        // 2. Pools de conexiones (principal y, si existe, réplica)
+        List<PoolConexiones> pools = new ArrayList<>();
+        pools.add(ConexionBDD.getPool());
+        if (ConexionBDD.getPoolReplica() != null) {
+            pools.add(ConexionBDD.getPoolReplica());
+        }
+        encabezado(sb, "endodental_pool_espera_segundos", "histogram", "Tiempo de espera para obtener una conexión");
+        for (PoolConexiones pool : pools) {
+            escribirHistograma(sb, "endodental_pool_espera_segundos", "pool", pool.getNombre(), pool.getHistogramaEspera());
+        }
+        List<EstadisticasPool> estadisticas = new ArrayList<>();
+        for (PoolConexiones pool : pools) {
+            estadisticas.add(pool.getEstadisticas());
+        }
+        encabezado(sb, "endodental_pool_conexiones", "gauge", "Conexiones por estado");
+        for (EstadisticasPool e : estadisticas) {
+            String etiqueta = "pool=\"" + escapar(e.pool()) + "\"";
+            sb.append("endodental_pool_conexiones{").append(etiqueta).append(",estado=\"activas\"} ").append(e.activas()).append('\n');
+            sb.append("endodental_pool_conexiones{").append(etiqueta).append(",estado=\"libres\"} ").append(e.libres()).append('\n');
+            sb.append("endodental_pool_conexiones{").append(etiqueta).append(",estado=\"esperando\"} ").append(e.esperando()).append('\n');
+        }
+        contador(sb, "endodental_pool_prestamos_total", "Conexiones prestadas", estadisticas, EstadisticasPool::prestamos);
+        contador(sb, "endodental_pool_esperas_agotadas_total", "Solicitudes sin conexión por tiempo de espera agotado",
+                estadisticas, EstadisticasPool::esperasAgotadas);
+        contador(sb, "endodental_pool_conexiones_creadas_total", "Conexiones físicas abiertas", estadisticas, EstadisticasPool::creadas);
+        contador(sb, "endodental_pool_conexiones_destruidas_total", "Conexiones físicas cerradas", estadisticas, EstadisticasPool::destruidas);
+        contador(sb, "endodental_pool_fugas_total", "Conexiones reportadas como posibles fugas", estadisticas, EstadisticasPool::fugasDetectadas);
+        contador(sb, "endodental_pool_sentencias_cache_aciertos_total", "Sentencias preparadas reutilizadas de la caché",
+                estadisticas, EstadisticasPool::sentenciasAciertos);
+        contador(sb, "endodental_pool_sentencias_cache_fallos_total", "Sentencias preparadas que no estaban en la caché",
+                estadisticas, EstadisticasPool::sentenciasFallos);
+        contador(sb, "endodental_pool_sentencias_cache_desalojos_total", "Sentencias desalojadas de la caché",
+                estadisticas, EstadisticasPool::sentenciasDesalojadas);
+
+        // 3. Cachés de catálogo (instantáneas en memoria)
+        List<CacheInstantanea<?>> caches = CacheInstantanea.getRegistradas();
+        encabezado(sb, "endodental_cache_aciertos_total", "counter", "Lecturas atendidas desde la caché");
+        for (CacheInstantanea<?> cache : caches) {
+            sb.append("endodental_cache_aciertos_total{cache=\"").append(escapar(cache.getNombre())).append("\"} ")
+                    .append(cache.getAciertos()).append('\n');
+        }
+        encabezado(sb, "endodental_cache_recargas_total", "counter", "Cargas de la caché desde la base de datos");
+        for (CacheInstantanea<?> cache : caches) {
+            sb.append("endodental_cache_recargas_total{cache=\"").append(escapar(cache.getNombre())).append("\"} ")
+                    .append(cache.getRecargas()).append('\n');
+        }
+
+        // 4. Caché en disco de los PDF de facturas
+        CachePdf pdf = GenerarFacturaPdfServlet.CACHE;
+        encabezado(sb, "endodental_pdf_cache_aciertos_total", "counter", "PDF de facturas enviados desde la caché en disco");
+        sb.append("endodental_pdf_cache_aciertos_total ").append(pdf.getAciertos()).append('\n');
+        encabezado(sb, "endodental_pdf_cache_fallos_total", "counter", "PDF de facturas que hubo que generar");
+        sb.append("endodental_pdf_cache_fallos_total ").append(pdf.getFallos()).append('\n');
+        encabezado(sb, "endodental_pdf_cache_bytes", "gauge", "Espacio ocupado por la caché de PDF");
+        sb.append("endodental_pdf_cache_bytes ").append(pdf.getBytesOcupados()).append('\n');
+
+        // 5. Presupuesto de consultas por solicitud
+        encabezado(sb, "endodental_presupuesto_excedido_total", "counter",
+                "Solicitudes que excedieron el presupuesto de consultas (sentencias o N+1, o solo tiempo)");
+        sb.append("endodental_presupuesto_excedido_total{motivo=\"sentencias\"} ")
+                .append(PresupuestoConsultas.getExcesosSentencias()).append('\n');
+        sb.append("endodental_presupuesto_excedido_total{motivo=\"tiempo\"} ")
+                .append(PresupuestoConsultas.getExcesosTiempo()).append('\n');
+
+        PrintWriter out = resp.getWriter();
+        out.write(sb.toString());
+    }
+
+    /**
+     * Escribe las líneas # HELP y # TYPE de una métrica.
+     */
+    private void encabezado(StringBuilder sb, String nombre, String tipo, String ayuda) {
+        sb.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        sb.append("# TYPE ").append(nombre).append(' ').append(tipo).append('\n');
+    }
+
+    /**
+     * Escribe un histograma con sus buckets acumulados, la suma y el total.
+     */
+    private void escribirHistograma(StringBuilder sb, String nombre, String etiqueta, String valor, Histograma h) {
+        String base = etiqueta + "=\"" + escapar(valor) + "\"";
+        double[] limites = h.getLimites();
+        long[] acumulados = h.getConteosAcumulados();
+        for (int i = 0; i < limites.length; i++) {
+            sb.append(nombre).append("_bucket{").append(base).append(",le=\"").append(limites[i]).append("\"} ")
+                    .append(acumulados[i]).append('\n');
+        }
+        long total = acumulados[acumulados.length - 1];
+        sb.append(nombre).append("_bucket{").append(base).append(",le=\"+Inf\"} ").append(total).append('\n');
+        sb.append(nombre).append("_sum{").append(base).append("} ").append(h.getSuma()).append('\n');
+        sb.append(nombre).append("_count{").append(base).append("} ").append(total).append('\n');
+    }
+
+    /**
+     * Escribe un contador con una serie por pool.
+     */
+    private void contador(StringBuilder sb, String nombre, String ayuda, List<EstadisticasPool> estadisticas,
+                          ToLongFunction<EstadisticasPool> valor) {
+        encabezado(sb, nombre, "counter", ayuda);
+        for (EstadisticasPool e : estadisticas) {
+            sb.append(nombre).append("{pool=\"").append(escapar(e.pool())).append("\"} ")
+                    .append(valor.applyAsLong(e)).append('\n');
+        }
+    }
+
+    /**
+     * Escapa un valor de etiqueta según el formato de Prometheus (barra invertida, comillas y saltos de línea).
+     */
+    private String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -20,9 +20,11 @@ import models.Paciente;
 import services.PacienteService;
 import services.PacienteServiceImpl;
 import services.ServiceJdbcException;
+import util.VersionesTablas.Tabla;
+import filter.SoloLectura;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebInitParam;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -37,8 +39,10 @@ import java.util.regex.Pattern;
  * Implementa el patrón Front Controller para este módulo específico, delegando
  * las acciones a métodos privados según el parámetro 'accion'.
  */
-@WebServlet("/pacientes")
-public class PacienteServlet extends HttpServlet {
+@SoloLectura(accionesEscritura = {"eliminar", "activar"})
+@WebServlet(value = "/pacientes", asyncSupported = true,
+        initParams = @WebInitParam(name = HttpServletVirtual.PARAMETRO_EJECUCION_VIRTUAL, value = "true"))
+public class PacienteServlet extends HttpServletVirtual {
 
     /**
      * Procesa las solicitudes HTTP GET.
@@ -70,6 +74,16 @@ public class PacienteServlet extends HttpServlet {
         String accion = req.getParameter("accion");
         if (accion == null) accion = "listar";
 
+        /*
+         * 3. CACHÉ CONDICIONAL (ETag / 304)
+         * Las vistas de lectura solo muestran pacientes: si la tabla no cambió desde la última
+         * visita respondemos 304 sin consultarla. 'eliminar' y 'activar' son escrituras.
+         */
+        boolean lectura = !"eliminar".equals(accion) && !"activar".equals(accion);
+        if (lectura && CacheCondicional.noModificado(req, resp, CacheCondicional.etag(req, Tabla.PACIENTES))) {
+            return;
+        }
+
         // Switch para delegar la lógica a métodos especializados
         switch (accion) {
             case "listar":
@@ -220,6 +234,7 @@ public class PacienteServlet extends HttpServlet {
         req.setAttribute("pacientes", lista);
         req.setAttribute("titulo", "Gestión de Pacientes");
         req.setAttribute("esPapelera", false); // Indica al JSP que muestre botones normales
+        CacheCondicional.publicar(req, resp);
         getServletContext().getRequestDispatcher("/WEB-INF/vistas/secretaria/lista.jsp").forward(req, resp);
     }
 
@@ -231,6 +246,7 @@ public class PacienteServlet extends HttpServlet {
         req.setAttribute("pacientes", lista);
         req.setAttribute("titulo", "Papelera de Pacientes");
         req.setAttribute("esPapelera", true); // Indica al JSP que muestre botón "Restaurar"
+        CacheCondicional.publicar(req, resp);
         getServletContext().getRequestDispatcher("/WEB-INF/vistas/secretaria/lista.jsp").forward(req, resp);
     }
 
@@ -304,6 +320,7 @@ public class PacienteServlet extends HttpServlet {
         req.setAttribute("pacientes", lista);
         req.setAttribute("titulo", titulo);
         req.setAttribute("esPapelera", false);
+        CacheCondicional.publicar(req, resp);
         getServletContext().getRequestDispatcher("/WEB-INF/vistas/secretaria/lista.jsp").forward(req, resp);
     }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package controllers;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Controlador (Servlet) de autocompletado de pacientes.
+ * Recibe lo que el usuario va escribiendo (cédula, nombres o apellidos, con o sin tildes) y
+ * devuelve en JSON los pacientes activos más parecidos, resueltos con el índice en memoria
+ * (IndicePacientes) en lugar de un LIKE sobre la tabla.
+ *
+ *   GET /pacientes/sugerencias?q=maria lo&limite=10
+ *   [{"id":12,"cedula":"0912345678","nombre":"María López"}, ...]
+ */
+
+import filter.SoloLectura;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import models.Paciente;
+import services.PacienteService;
+import services.PacienteServiceImpl;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.util.List;
+
+@SoloLectura
+@WebServlet("/pacientes/sugerencias")
+public class PacienteSugerenciasServlet extends HttpServlet {
+
+    private static final int LIMITE_POR_DEFECTO = 10;
+    private static final int LIMITE_MAXIMO = 50;
+
+    /**
+     * Devuelve las sugerencias en formato JSON (arreglo vacío si el texto es muy corto).
+     *
+     * @param req  La solicitud HTTP con los parámetros 'q' y, opcionalmente, 'limite'.
+     * @param resp La respuesta HTTP con el arreglo JSON.
+     * @throws ServletException Si ocurre un error en el Servlet.
+     * @throws IOException Si hay errores de escritura en la respuesta.
+     */
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        Connection conn = (Connection) req.getAttribute("conn");
+        PacienteService service = new PacienteServiceImpl(conn);
+
+        String texto = req.getParameter("q");
+        int limite = LIMITE_POR_DEFECTO;
+        try {
+            String parametro = req.getParameter("limite");
+            if (parametro != null) {
+                limite = Math.max(1, Math.min(Integer.parseInt(parametro), LIMITE_MAXIMO));
+            }
+        } catch (NumberFormatException e) {
+            // Límite inválido: se usa el valor por defecto
+        }
+
+        List<Paciente> pacientes = texto == null ? List.of() : service.sugerir(texto, limite);
+
+        StringBuilder json = new StringBuilder("[");
+        for (Paciente p : pacientes) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(p.getIdPaciente())
+                    .append(",\"cedula\":\"").append(escaparJson(p.getCedula()))
+                    .append("\",\"nombre\":\"").append(escaparJson(p.getNombres() + " " + p.getApellidos()))
+                    .append("\"}");
+        }
+        json.append(']');
+
+        resp.setContentType("application/json; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(json.toString());
+    }
+
+    // Escapa comillas, barras y caracteres de control para incluir un texto en JSON
+    private static String escaparJson(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (char c : texto.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                default -> {
+                    if (c < 0x20 || c == '<' || c == '>') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,293 @@
+package controllers;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Plantilla precompilada del PDF de una factura.
+ * Todo lo que no depende de la factura se arma una sola vez al cargar la clase y se comparte entre
+ * hilos: las fuentes, el formato de fecha, el membrete, las celdas de etiquetas y el esqueleto de
+ * la tabla de ítems (anchos y fila de encabezado). Por cada factura solo se crean el documento,
+ * los valores y las filas de ítems.
+ *
+ * Los objetos compartidos nunca se modifican después de construirlos: PdfPTable.addCell(PdfPCell)
+ * y new PdfPTable(PdfPTable) trabajan sobre copias, así que varios hilos pueden usarlos a la vez.
+ * Las fuentes usan BaseFont (Helvetica estándar), que iText ya comparte entre documentos.
+ * El membrete no se guarda como XObject (PdfTemplate): en iText 5 un PdfTemplate pertenece a un solo
+ * PdfWriter y no se puede reutilizar entre documentos ni entre hilos.
+ *
+ * El PDF se escribe en un Buffer reutilizable (pool acotado) para conocer su tamaño antes de
+ * enviarlo (Content-Length) sin copiar el arreglo de bytes.
+ *
+ * El diseño es el mismo que dibujaba GenerarFacturaPdfServlet: Encabezado, Cliente, Detalles y
+ * Totales. Si cambia, hay que incrementar GenerarFacturaPdfServlet.VERSION_PLANTILLA.
+ * */
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Chunk;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.SplitCharacter;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.DefaultSplitCharacter;
+import com.itextpdf.text.pdf.PdfChunk;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import models.DetalleFactura;
+import models.Factura;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+
+final class PlantillaFactura {
+
+    // --- FUENTES ---
+    private static final Font TITULO;
+    private static final Font SUBTITULO;
+    private static final Font NORMAL;
+    private static final Font NEGRITA;
+
+    /*
+     * Regla de corte de línea. La de iText (DefaultSplitCharacter) convierte toda la línea en un
+     * String y le aplica una expresión regular de fechas por CADA carácter que evalúa: era la mayor
+     * fuente de basura al dibujar la factura. Esta aplica los mismos cortes (espacios, guiones y
+     * caracteres CJK) mirando solo el carácter actual, y no corta un guion entre dígitos para que
+     * las fechas y números no se partan, que es lo que busca la expresión regular de iText.
+     */
+    private static final SplitCharacter CORTE_DE_LINEA = new DefaultSplitCharacter() {
+        @Override
+        public boolean isSplitCharacter(int start, int current, int end, char[] cc, PdfChunk[] ck) {
+            char c = getCurrentCharacter(current, cc, ck);
+            if (c == '-') {
+                return !(current > start && current + 1 < end
+                        && Character.isDigit(getCurrentCharacter(current - 1, cc, ck))
+                        && Character.isDigit(getCurrentCharacter(current + 1, cc, ck)));
+            }
+            if (c <= ' ' || c == '\u2010') {
+                return true;
+            }
+            if (c < '\u2002') {
+                return false;
+            }
+            return c <= '\u200b'
+                    || (c >= '\u2e80' && c < '\ud7a0')
+                    || (c >= '\uf900' && c < '\ufb00')
+                    || (c >= '\ufe30' && c < '\ufe50')
+                    || (c >= '\uff61' && c < '\uffa0');
+        }
+    };
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    // --- PARTES FIJAS ---
+    private static final Paragraph MEMBRETE;
+    private static final Paragraph ESPACIO;
+    private static final PdfPCell ETIQUETA_CLIENTE;
+    private static final PdfPCell ETIQUETA_IDENTIFICACION;
+    private static final PdfPCell ETIQUETA_DIRECCION;
+    private static final PdfPCell ETIQUETA_FECHA;
+    private static final PdfPCell ETIQUETA_SUBTOTAL;
+    private static final PdfPCell ETIQUETA_IVA;
+    private static final PdfPCell ETIQUETA_TOTAL;
+    // Tabla de ítems con sus anchos y la fila de encabezado ya agregada
+    private static final PdfPTable ESQUELETO_DETALLES;
+
+    static {
+        try {
+            BaseFont helvetica = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            BaseFont helveticaNegrita = BaseFont.createFont(BaseFont.HELVETICA_BOLD, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            TITULO = new Font(helveticaNegrita, 18, Font.NORMAL, BaseColor.DARK_GRAY);
+            SUBTITULO = new Font(helveticaNegrita, 12, Font.NORMAL, BaseColor.GRAY);
+            NORMAL = new Font(helvetica, 10, Font.NORMAL, BaseColor.BLACK);
+            NEGRITA = new Font(helveticaNegrita, 10, Font.NORMAL, BaseColor.BLACK);
+
+            MEMBRETE = new Paragraph(texto("CLÍNICA ENDODENTAL", TITULO));
+            MEMBRETE.setAlignment(Element.ALIGN_CENTER);
+            ESPACIO = new Paragraph(texto(" ", new Font()));
+
+            ETIQUETA_CLIENTE = celdaSinBorde("Cliente:", NEGRITA);
+            ETIQUETA_IDENTIFICACION = celdaSinBorde("RUC/Cédula:", NEGRITA);
+            ETIQUETA_DIRECCION = celdaSinBorde("Dirección:", NEGRITA);
+            ETIQUETA_FECHA = celdaSinBorde("Fecha Emisión:", NEGRITA);
+            ETIQUETA_SUBTOTAL = celdaTotal("Subtotal:", NEGRITA);
+            ETIQUETA_IVA = celdaTotal("IVA (15%):", NEGRITA);
+            ETIQUETA_TOTAL = celdaTotal("TOTAL:", TITULO);
+
+            ESQUELETO_DETALLES = new PdfPTable(4);
+            ESQUELETO_DETALLES.setWidthPercentage(100);
+            ESQUELETO_DETALLES.setWidths(new float[]{3, 1, 1, 1}); // Anchos relativos de columnas
+            ESQUELETO_DETALLES.addCell(celdaEncabezado("Descripción / Servicio"));
+            ESQUELETO_DETALLES.addCell(celdaEncabezado("Cant."));
+            ESQUELETO_DETALLES.addCell(celdaEncabezado("Precio"));
+            ESQUELETO_DETALLES.addCell(celdaEncabezado("Total"));
+        } catch (DocumentException | IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private PlantillaFactura() {
+    }
+
+    /**
+     * Dibuja el PDF de una factura.
+     *
+     * @param factura Factura con sus detalles.
+     * @param salida  Flujo donde se escribe el PDF (queda abierto).
+     * @throws DocumentException Si hay error en la estructura del PDF.
+     */
+    static void generar(Factura factura, OutputStream salida) throws DocumentException {
+        Document document = new Document();
+        // El flujo es de quien lo pasa (puede ser un Buffer del pool): cerrar el documento no lo cierra
+        PdfWriter.getInstance(document, salida).setCloseStream(false);
+        document.open();
+
+        // --- SECCIÓN 1: ENCABEZADO ---
+        document.add(MEMBRETE);
+        Paragraph subtitulo = new Paragraph(texto("Comprobante de Factura #" + factura.getIdFactura(), SUBTITULO));
+        subtitulo.setAlignment(Element.ALIGN_CENTER);
+        document.add(subtitulo);
+        document.add(ESPACIO);
+
+        // --- SECCIÓN 2: DATOS DEL CLIENTE ---
+        PdfPTable datosTable = new PdfPTable(2);
+        datosTable.setWidthPercentage(100);
+        datosTable.setWidths(new float[]{1, 2});
+        datosTable.addCell(ETIQUETA_CLIENTE);
+        datosTable.addCell(celdaSinBorde(factura.getNombreClienteFactura(), NORMAL));
+        datosTable.addCell(ETIQUETA_IDENTIFICACION);
+        datosTable.addCell(celdaSinBorde(factura.getIdentificacionCliente(), NORMAL));
+        datosTable.addCell(ETIQUETA_DIRECCION);
+        datosTable.addCell(celdaSinBorde(factura.getDireccionCliente() != null ? factura.getDireccionCliente() : "S/N", NORMAL));
+        datosTable.addCell(ETIQUETA_FECHA);
+        datosTable.addCell(celdaSinBorde(factura.getFechaEmision().format(FORMATO_FECHA), NORMAL));
+        document.add(datosTable);
+        document.add(ESPACIO);
+        document.add(ESPACIO);
+
+        // --- SECCIÓN 3: TABLA DE DETALLES (ÍTEMS) ---
+        PdfPTable table = new PdfPTable(ESQUELETO_DETALLES);
+        if (factura.getDetalles() != null) {
+            for (DetalleFactura d : factura.getDetalles()) {
+                table.addCell(frase(nombreItem(d), NORMAL));
+                table.addCell(frase(String.valueOf(d.getCantidad()), NORMAL));
+                table.addCell(frase("$" + d.getPrecioUnitario(), NORMAL));
+                table.addCell(frase("$" + d.getSubtotalItem(), NORMAL));
+            }
+        } else {
+            // Fila vacía por si acaso no hay detalles (Edge case)
+            table.addCell(frase("Sin detalles", NORMAL));
+            table.addCell(frase("-", NORMAL));
+            table.addCell(frase("-", NORMAL));
+            table.addCell(frase("-", NORMAL));
+        }
+        document.add(table);
+        document.add(ESPACIO);
+
+        // --- SECCIÓN 4: TOTALES ---
+        PdfPTable totalesTable = new PdfPTable(2);
+        totalesTable.setWidthPercentage(40);
+        totalesTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        totalesTable.addCell(ETIQUETA_SUBTOTAL);
+        totalesTable.addCell(celdaTotal("$" + factura.getSubtotal(), NEGRITA));
+        totalesTable.addCell(ETIQUETA_IVA);
+        totalesTable.addCell(celdaTotal("$" + factura.getMontoIva(), NEGRITA));
+        totalesTable.addCell(ETIQUETA_TOTAL);
+        totalesTable.addCell(celdaTotal("$" + factura.getTotalPagar(), TITULO));
+        document.add(totalesTable);
+
+        document.close();
+    }
+
+    // Texto con la regla de corte de línea de la plantilla (ver CORTE_DE_LINEA)
+    private static Chunk texto(String texto, Font font) {
+        return new Chunk(texto, font).setSplitCharacter(CORTE_DE_LINEA);
+    }
+
+    private static Phrase frase(String texto, Font font) {
+        return new Phrase(texto(texto, font));
+    }
+
+    // Nombre a mostrar del ítem: Servicio, Producto o el tipo como texto libre
+    private static String nombreItem(DetalleFactura d) {
+        if (d.getServicio() != null && d.getServicio().getNombre() != null) {
+            return d.getServicio().getNombre();
+        } else if (d.getProducto() != null && d.getProducto().getNombre() != null) {
+            return d.getProducto().getNombre();
+        }
+        return d.getTipoItem();
+    }
+
+    private static PdfPCell celdaSinBorde(String texto, Font font) {
+        PdfPCell cell = new PdfPCell(frase(texto, font));
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setPaddingBottom(5);
+        return cell;
+    }
+
+    private static PdfPCell celdaEncabezado(String texto) {
+        PdfPCell cell = new PdfPCell(frase(texto, NEGRITA));
+        cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+        cell.setPadding(8);
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        return cell;
+    }
+
+    private static PdfPCell celdaTotal(String texto, Font font) {
+        PdfPCell cell = new PdfPCell(frase(texto, font));
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        return cell;
+    }
+
+    /**
+     * Buffer en memoria para un PDF, reutilizable: al cerrarlo vuelve al pool con su arreglo
+     * interno, de modo que las siguientes facturas no vuelvan a reservarlo.
+     *
+     *   try (PlantillaFactura.Buffer buffer = PlantillaFactura.Buffer.prestar()) { ... }
+     */
+    static final class Buffer extends ByteArrayOutputStream implements AutoCloseable {
+
+        private static final int TAMANO_INICIAL = 16 * 1024;
+        // Un buffer que creció más que esto (factura enorme) no se devuelve al pool
+        private static final int TAMANO_MAXIMO_EN_POOL = 512 * 1024;
+        private static final ArrayBlockingQueue<Buffer> POOL = new ArrayBlockingQueue<>(32);
+
+        private Buffer() {
+            super(TAMANO_INICIAL);
+        }
+
+        /**
+         * @return Un buffer vacío del pool, o uno nuevo si el pool está vacío.
+         */
+        static Buffer prestar() {
+            Buffer buffer = POOL.poll();
+            return buffer != null ? buffer : new Buffer();
+        }
+
+        /**
+         * @return Arreglo interno; solo los primeros size() bytes son válidos.
+         */
+        byte[] datos() {
+            return buf;
+        }
+
+        /**
+         * Devuelve el buffer al pool. No se debe usar después de cerrarlo.
+         */
+        @Override
+        public void close() {
+            if (buf.length <= TAMANO_MAXIMO_EN_POOL) {
+                reset();
+                POOL.offer(this);
+            }
+        }
+    }
+}
@@ -8,6 +8,11 @@ Filtro encargado de administrar la conexión a la base de datos para todas las
 solicitudes que lleguen a la aplicación. El filtro obtiene una conexión,
 la agrega como atributo en el request para que otros componentes (servlets o DAOs)
 puedan utilizarla, y realiza commit o rollback según corresponda.
+La conexión es diferida: solo se toma del pool si la solicitud realmente la usa.
+Las solicitudes GET de servlets anotados con @SoloLectura reciben una conexión de solo
+lectura (posiblemente de la réplica); las escrituras siempre van a la base principal.
+El cierre de la transacción está en TransaccionSolicitud: si el servlet atiende la solicitud
+en un hilo virtual (HttpServletVirtual), la transacción se cierra cuando ese hilo termina.
  */
 
 import jakarta.servlet.*;
@@ -15,18 +20,28 @@ import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import util.ConexionBDD;
+import util.ConexionDiferida;
+import util.ConexionInstrumentada;
+import util.PresupuestoConsultas;
 import services.ServiceJdbcException;
 
+import jakarta.servlet.ServletRegistration;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpSession;
+
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
 Implementamos una anotación que nos permite ejecutar este filtro para
 todas las rutas de la aplicación ("/*"). Eso significa que cada request
 pasará por este filtro antes de llegar al recurso solicitado.
+asyncSupported permite que los servlets con ejecución virtual inicien un AsyncContext.
  */
-@WebFilter("/*")
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
 public class ConexionFilter implements Filter {
 
     /*
@@ -70,50 +85,194 @@ public class ConexionFilter implements Filter {
         }
 
 
-        // Obtenemos una conexión desde la clase utilitaria ConexionBDD
-        try (Connection conn = ConexionBDD.getConnection()) {
+        /*
+        Creamos una conexión diferida: todavía no se pide ninguna conexión al pool.
+        La conexión real y su transacción se abren solo cuando un servlet o repositorio
+        usa el objeto por primera vez. Las páginas que no consultan la base de datos
+        (login, index, logout) no ocupan una conexión del pool.
+         */
+        boolean soloLectura = esSolicitudDeLectura(req);
+        /*
+        La conexión que reciben servlets y repositorios va instrumentada: cada sentencia registra
+        su tiempo de ejecución, de lectura y sus filas en MetricasJdbc (expuesto en /metrics).
+         */
+        PresupuestoConsultas presupuesto = new PresupuestoConsultas(describir(req));
+        ConexionDiferida.ProveedorConexion proveedor = soloLectura
+                ? () -> ConexionInstrumentada.envolver(ConexionBDD.getConexionLectura(), presupuesto)
+                : () -> ConexionInstrumentada.envolver(ConexionBDD.getConnection(), presupuesto);
+
+        ConexionDiferida conexion = new ConexionDiferida(proveedor, !soloLectura);
+        TransaccionSolicitud transaccion = new TransaccionSolicitud(conexion, presupuesto, req,
+                (HttpServletResponse) response);
+
+        /*
+        Agregamos la conexión como atributo dentro del request.
+        Esto permite que servlets, DAOs u otros filtros puedan obtenerla
+        mediante el siguiente código: (Connection) request.getAttribute("conn").
+         */
+        request.setAttribute("conn", conexion.getConexion());
+        request.setAttribute(ATRIBUTO_PRESUPUESTO, presupuesto);
+        request.setAttribute(ATRIBUTO_SOLO_LECTURA, soloLectura);
+        request.setAttribute(ATRIBUTO_TRANSACCION, transaccion);
+
+        /*
+        En modo estricto los servlets reciben una respuesta que revisa el presupuesto antes de
+        confirmarse (forward, redirección, escritura): así el 500 todavía llega al cliente.
+         */
+        ServletResponse respuesta = PresupuestoConsultas.ESTRICTO
+                ? new RespuestaEstricta((HttpServletResponse) response, transaccion)
+                : response;
+
+        try {
+            // Pasamos la solicitud y respuesta al siguiente filtro o servlet
+            filterChain.doFilter(request, respuesta);
+        } catch (IOException | ServletException | RuntimeException e) {
+            /*
+            Si ocurre algún error durante la ejecución de la solicitud, se realiza un rollback
+            para evitar que los cambios se guarden de forma incorrecta. Los errores de base de datos
+            se responden con 500; el resto se vuelve a lanzar al contenedor.
+             */
+            transaccion.terminar(e);
+            return;
+        }
 
+        if (request.isAsyncStarted()) {
             /*
-            Antes de procesar la solicitud verificamos y configuramos el autocommit.
-            Si el autocommit está en true, lo desactivamos para poder controlar
-            manualmente las transacciones (commit o rollback).
+            El servlet sigue atendiendo la solicitud en un hilo virtual (HttpServletVirtual).
+            La transacción la termina ese hilo antes de completar el contexto asíncrono; el listener
+            es el respaldo para cuando el contexto vence o falla sin que el servlet haya terminado.
              */
-            if (conn.getAutoCommit()) {
-                conn.setAutoCommit(false);
+            try {
+                request.getAsyncContext().addListener(new CierreAsincrono(transaccion));
+            } catch (IllegalStateException yaCompletado) {
+                // El contexto se completó mientras volvíamos del servlet: la transacción ya se cerró
+                transaccion.terminar(null);
             }
+        } else {
+            // Confirmamos (o revertimos si falla el presupuesto) y devolvemos la conexión al pool
+            transaccion.terminar(null);
+        }
+    }
 
+    /**
+     * Cierra la transacción de una solicitud asíncrona cuando su contexto termina.
+     * Si el servlet ya la cerró, terminar() no hace nada.
+     */
+    private record CierreAsincrono(TransaccionSolicitud transaccion) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent evento) throws IOException {
+            cerrar(null);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent evento) throws IOException {
+            cerrar(new ServiceJdbcException("La solicitud excedió el tiempo máximo de atención"));
+        }
+
+        @Override
+        public void onError(AsyncEvent evento) throws IOException {
+            Throwable error = evento.getThrowable();
+            cerrar(error != null ? error : new ServiceJdbcException("Error en la solicitud asíncrona"));
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent evento) {
+            // Un nuevo startAsync mantiene el mismo contexto; el listener sigue registrado
+        }
+
+        private void cerrar(Throwable error) {
+            if (transaccion.estaEnAtencion()) {
+                // El hilo que atiende la solicitud sigue usando la conexión; la cerrará al terminar
+                return;
+            }
             try {
-                /*
-                Agregamos la conexión como atributo dentro del request.
-                Esto permite que servlets, DAOs u otros filtros puedan obtenerla
-                mediante el siguiente código: (Connection) request.getAttribute("conn").
-                 */
-                request.setAttribute("conn", conn);
-
-                // Pasamos la solicitud y respuesta al siguiente filtro o servlet
-                filterChain.doFilter(request, response);
-
-                // Si sale bien confirmamos los cambios
-                conn.commit();
-
-            } catch (SQLException | ServiceJdbcException e) {
-                 /*
-                Si ocurre algún error durante la ejecución de la solicitud,
-                realizamos un rollback para evitar que los cambios se guarden
-                de forma incorrecta.
-                 */
-                conn.rollback();
-                /*
-
-                Se envía el código de error 500 al cliente indicando un problema interno del servidor
-                 */
-                ((HttpServletResponse) response).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
-                        e.getMessage());
+                transaccion.terminar(error);
+            } catch (IOException | ServletException | RuntimeException e) {
                 e.printStackTrace();
             }
-        }catch(SQLException throwables) {
-            throwables.printStackTrace();
+        }
+    }
 
+    /*
+    Tiempo (ms) después de una escritura durante el cual las lecturas de la misma sesión
+    se envían a la base principal, para que el usuario vea de inmediato lo que acaba de guardar
+    aunque la réplica todavía no haya recibido el cambio. CacheCondicional la usa como el retraso
+    máximo esperado de la réplica.
+     */
+    public static final long VENTANA_ESCRITURA_MS = Long.getLong("endodental.lectura.ventanaEscrituraMs", 5_000);
+    static final String ATRIBUTO_ULTIMA_ESCRITURA = "ultimaEscritura";
+    // Atributo del request con el presupuesto de consultas (lo usan otros componentes que abren conexiones)
+    public static final String ATRIBUTO_PRESUPUESTO = "presupuestoConsultas";
+    // Atributo del request que indica si la solicitud se atiende en modo de solo lectura
+    public static final String ATRIBUTO_SOLO_LECTURA = "conn.soloLectura";
+    // Atributo del request con la TransaccionSolicitud (la usa HttpServletVirtual para cerrarla)
+    public static final String ATRIBUTO_TRANSACCION = "conn.transaccion";
+
+    // Anotación @SoloLectura de cada servlet, resuelta una sola vez por nombre de servlet
+    private final Map<String, Optional<SoloLectura>> anotaciones = new ConcurrentHashMap<>();
+
+    /**
+     * Decide si la solicitud puede atenderse con una conexión de solo lectura:
+     * debe ser GET o HEAD, dirigirse a un servlet anotado con @SoloLectura, no ser una de sus
+     * acciones de escritura y no estar dentro de la ventana posterior a una escritura de la sesión.
+     *
+     * @param req Solicitud HTTP.
+     * @return true si se usará una conexión de solo lectura.
+     */
+    private boolean esSolicitudDeLectura(HttpServletRequest req) {
+        String metodo = req.getMethod();
+        if (!"GET".equals(metodo) && !"HEAD".equals(metodo)) {
+            return false;
+        }
+        Optional<SoloLectura> anotacion = anotacionDe(req);
+        if (anotacion.isEmpty()) {
+            return false;
+        }
+        String accion = req.getParameter("accion");
+        if (accion != null && Arrays.asList(anotacion.get().accionesEscritura()).contains(accion)) {
+            return false;
         }
+        HttpSession session = req.getSession(false);
+        if (session != null) {
+            Object ultima = session.getAttribute(ATRIBUTO_ULTIMA_ESCRITURA);
+            if (ultima instanceof Long instante && System.currentTimeMillis() - instante < VENTANA_ESCRITURA_MS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Busca la anotación @SoloLectura del servlet al que se despachará la solicitud.
+     * Los servlets del contenedor (JSP, recursos por defecto) no la tienen.
+     */
+    private Optional<SoloLectura> anotacionDe(HttpServletRequest req) {
+        HttpServletMapping mapeo = req.getHttpServletMapping();
+        if (mapeo == null || mapeo.getServletName() == null) {
+            return Optional.empty();
+        }
+        return anotaciones.computeIfAbsent(mapeo.getServletName(), nombre -> {
+            ServletRegistration registro = req.getServletContext().getServletRegistration(nombre);
+            if (registro == null || registro.getClassName() == null) {
+                return Optional.empty();
+            }
+            try {
+                Class<?> clase = Class.forName(registro.getClassName(), false,
+                        req.getServletContext().getClassLoader());
+                return Optional.ofNullable(clase.getAnnotation(SoloLectura.class));
+            } catch (ClassNotFoundException | LinkageError e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Describe la solicitud para los avisos: servlet que la atiende, método y URI.
+     */
+    private String describir(HttpServletRequest req) {
+        HttpServletMapping mapeo = req.getHttpServletMapping();
+        String servlet = mapeo != null && mapeo.getServletName() != null ? mapeo.getServletName() : "?";
+        return servlet + " " + req.getMethod() + " " + req.getRequestURI();
     }
 }
\ No newline at end of file
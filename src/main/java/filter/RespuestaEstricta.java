@@ -0,0 +1,99 @@
+package filter;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Respuesta que ConexionFilter entrega a los servlets en el modo estricto del
+ * presupuesto de consultas (-Dendodental.presupuesto.estricto=true).
+ * El presupuesto se revisaba al cerrar la transacción, cuando el forward a la JSP o la redirección
+ * ya habían confirmado la respuesta: un POST que se revertía llegaba al cliente como 200 o 302.
+ * Esta respuesta revisa el presupuesto en el primer punto que confirma la respuesta (pedir el
+ * writer o el stream, como hace la JSP al escribir, redirigir, enviar un error o vaciar el buffer);
+ * si se excedió, se responde 500 en ese momento y la transacción se revierte al terminar.
+ * */
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+class RespuestaEstricta extends HttpServletResponseWrapper {
+
+    private final TransaccionSolicitud transaccion;
+
+    /**
+     * @param resp        Respuesta original del contenedor.
+     * @param transaccion Transacción de la solicitud, que evalúa el presupuesto.
+     */
+    RespuestaEstricta(HttpServletResponse resp, TransaccionSolicitud transaccion) {
+        super(resp);
+        this.transaccion = transaccion;
+    }
+
+    /*
+     * Si el presupuesto ya se rechazó, la respuesta original tiene el 500 y lo que se escriba
+     * después el contenedor lo descarta.
+     */
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        transaccion.antesDeResponder();
+        return super.getWriter();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        transaccion.antesDeResponder();
+        return super.getOutputStream();
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        if (transaccion.antesDeResponder()) {
+            super.sendRedirect(location);
+        }
+    }
+
+    @Override
+    public void sendRedirect(String location, int sc) throws IOException {
+        if (transaccion.antesDeResponder()) {
+            super.sendRedirect(location, sc);
+        }
+    }
+
+    @Override
+    public void sendRedirect(String location, boolean clearBuffer) throws IOException {
+        if (transaccion.antesDeResponder()) {
+            super.sendRedirect(location, clearBuffer);
+        }
+    }
+
+    @Override
+    public void sendRedirect(String location, int sc, boolean clearBuffer) throws IOException {
+        if (transaccion.antesDeResponder()) {
+            super.sendRedirect(location, sc, clearBuffer);
+        }
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        if (transaccion.antesDeResponder()) {
+            super.sendError(sc, msg);
+        }
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        if (transaccion.antesDeResponder()) {
+            super.sendError(sc);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (transaccion.antesDeResponder()) {
+            super.flushBuffer();
+        }
+    }
+}
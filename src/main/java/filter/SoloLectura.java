@@ -0,0 +1,30 @@
+package filter;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Anotación que marca un servlet cuyas solicitudes GET solo leen datos.
+ * ConexionFilter la consulta antes de despachar la solicitud: si el servlet está anotado,
+ * la solicitud GET recibe una conexión de solo lectura (setReadOnly(true), sin transacción
+ * de escritura) que puede provenir de la réplica configurada con -Dendodental.db.replica.url.
+ *
+ * Las solicitudes POST siempre van a la base principal, igual que los GET cuyo parámetro
+ * 'accion' figure en accionesEscritura (por ejemplo el borrado lógico por enlace).
+ * */
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface SoloLectura {
+
+    /**
+     * Valores del parámetro 'accion' que, aun llegando por GET, modifican datos
+     * y por lo tanto deben ejecutarse en la base principal dentro de una transacción.
+     * @return Acciones de escritura del servlet.
+     */
+    String[] accionesEscritura() default {};
+}
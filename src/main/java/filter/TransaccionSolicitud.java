@@ -0,0 +1,205 @@
+package filter;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Cierre de la transacción de una solicitud.
+ * Reúne lo que ConexionFilter hace al terminar cada solicitud: revisar el presupuesto de consultas,
+ * confirmar o revertir, abrir la ventana de lectura tras una escritura, devolver la conexión al pool y,
+ * ante un error de base de datos, responder con 500.
+ *
+ * Normalmente lo invoca el propio filtro al volver de la cadena. Cuando el servlet atiende la
+ * solicitud en un hilo virtual (HttpServletVirtual con AsyncContext), el filtro vuelve antes de que
+ * el servlet termine; en ese caso lo invoca el servlet al finalizar y, como respaldo, el AsyncListener
+ * registrado por el filtro. terminar() se ejecuta una sola vez.
+ * */
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import services.ServiceJdbcException;
+import util.ConexionDiferida;
+import util.PresupuestoConsultas;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+public class TransaccionSolicitud {
+
+    private final ConexionDiferida conexion;
+    private final PresupuestoConsultas presupuesto;
+    private final HttpServletRequest req;
+    private final HttpServletResponse resp;
+    private boolean terminada;
+    // Reporte del presupuesto excedido si la solicitud ya se rechazó con 500 antes de responder
+    private String rechazo;
+    // true mientras un hilo virtual de HttpServletVirtual está atendiendo la solicitud
+    private volatile boolean enAtencion;
+
+    /**
+     * @param conexion    Conexión diferida de la solicitud.
+     * @param presupuesto Presupuesto de consultas de la solicitud.
+     * @param req         Solicitud HTTP.
+     * @param resp        Respuesta HTTP (para enviar el error 500 si hace falta).
+     */
+    TransaccionSolicitud(ConexionDiferida conexion, PresupuestoConsultas presupuesto,
+                         HttpServletRequest req, HttpServletResponse resp) {
+        this.conexion = conexion;
+        this.presupuesto = presupuesto;
+        this.req = req;
+        this.resp = resp;
+    }
+
+    /**
+     * Marca que un hilo virtual empezó a atender la solicitud. Mientras tanto, los avisos del
+     * contexto asíncrono (error, timeout) no cierran la conexión que ese hilo todavía está usando;
+     * la cierra el propio hilo con terminar() al finalizar.
+     */
+    public void iniciarAtencion() {
+        enAtencion = true;
+    }
+
+    /**
+     * @return true si un hilo virtual sigue atendiendo la solicitud.
+     */
+    public boolean estaEnAtencion() {
+        return enAtencion;
+    }
+
+    /**
+     * Termina la transacción de la solicitud.
+     * Sin error: revisa el presupuesto y confirma. Con error: revierte.
+     * Los errores de base de datos (SQLException, ServiceJdbcException) se responden con 500;
+     * cualquier otro error se vuelve a lanzar después de revertir y devolver la conexión.
+     *
+     * @param error Error con el que terminó el servlet, o null si terminó bien.
+     * @throws IOException      Si el servlet terminó con IOException o falla el envío del error.
+     * @throws ServletException Si el servlet terminó con ServletException.
+     */
+    public synchronized void terminar(Throwable error) throws IOException, ServletException {
+        if (terminada) {
+            return;
+        }
+        terminada = true;
+        enAtencion = false;
+
+        try {
+            if (error == null && rechazo != null) {
+                // El cliente ya recibió el 500 del presupuesto excedido (modo estricto)
+                conexion.revertir();
+            } else if (error == null) {
+                /*
+                Revisamos el presupuesto de consultas de la solicitud. Si se excedió, se deja
+                el aviso en el log; en modo estricto además la solicitud falla y se revierte.
+                 */
+                verificarPresupuesto();
+
+                // Si sale bien confirmamos los cambios (solo si la conexión llegó a abrirse)
+                conexion.confirmar();
+
+                // Si hubo escritura, abrimos la ventana de "leer lo que escribí" para esta sesión.
+                // Un POST que solo leyó (login, búsquedas) no la abre: seguiría leyendo de la réplica.
+                if (conexion.esTransaccional() && presupuesto.modificoDatos()) {
+                    registrarEscritura();
+                }
+            } else {
+                conexion.revertir();
+            }
+        } catch (SQLException | ServiceJdbcException e) {
+            error = e;
+            revertirSinFallar();
+        } finally {
+            try {
+                conexion.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (error instanceof SQLException || error instanceof ServiceJdbcException) {
+            /*
+            Se envía el código de error 500 al cliente indicando un problema interno del servidor
+             */
+            if (!resp.isCommitted()) {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, error.getMessage());
+            }
+            error.printStackTrace();
+        } else if (error instanceof IOException e) {
+            throw e;
+        } else if (error instanceof ServletException e) {
+            throw e;
+        } else if (error instanceof RuntimeException e) {
+            throw e;
+        } else if (error instanceof Error e) {
+            throw e;
+        } else if (error != null) {
+            throw new ServletException(error);
+        }
+    }
+
+    private void revertirSinFallar() {
+        try {
+            conexion.revertir();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * En modo estricto, revisa el presupuesto antes de que la respuesta se confirme (la llama
+     * RespuestaEstricta). Si ya se excedió, responde 500 en ese momento, mientras el cliente todavía
+     * puede recibirlo, y la transacción se revertirá al terminar.
+     *
+     * @return true si el servlet puede seguir respondiendo; false si la solicitud se rechazó.
+     * @throws IOException Si falla el envío del error.
+     */
+    synchronized boolean antesDeResponder() throws IOException {
+        if (rechazo != null) {
+            return false;
+        }
+        if (terminada || !PresupuestoConsultas.ESTRICTO) {
+            return true;
+        }
+        List<String> incumplimientos = presupuesto.evaluar();
+        if (incumplimientos.isEmpty() || !presupuesto.excedeSentencias()) {
+            return true;
+        }
+        presupuesto.registrarExceso();
+        rechazo = presupuesto.reporte(incumplimientos);
+        System.err.println("[ConexionFilter] " + rechazo);
+        if (!resp.isCommitted()) {
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, rechazo);
+        }
+        return false;
+    }
+
+    /**
+     * Evalúa el presupuesto de consultas de la solicitud y registra los incumplimientos.
+     * En modo estricto, si hubo demasiadas sentencias o un N+1, lanza una excepción para que la
+     * solicitud falle y se haga rollback.
+     */
+    private void verificarPresupuesto() {
+        List<String> incumplimientos = presupuesto.evaluar();
+        if (incumplimientos.isEmpty()) {
+            return;
+        }
+        presupuesto.registrarExceso();
+        String reporte = presupuesto.reporte(incumplimientos);
+        if (PresupuestoConsultas.ESTRICTO && presupuesto.excedeSentencias()) {
+            throw new ServiceJdbcException(reporte);
+        }
+        System.err.println("[ConexionFilter] " + reporte);
+    }
+
+    /**
+     * Guarda en la sesión (si existe) el instante de la última escritura confirmada.
+     */
+    private void registrarEscritura() {
+        HttpSession session = req.getSession(false);
+        if (session != null) {
+            session.setAttribute(ConexionFilter.ATRIBUTO_ULTIMA_ESCRITURA, System.currentTimeMillis());
+        }
+    }
+}
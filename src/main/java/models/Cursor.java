@@ -0,0 +1,53 @@
+package models;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Cursor de paginación por clave (keyset): la fecha y el ID de la última fila entregada.
+ * El ID desempata las filas con la misma fecha, así que el par identifica una posición única
+ * dentro del orden (fecha, id). Se transporta en la URL como un texto opaco (Base64 URL-safe).
+ */
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * @param fecha Fecha de la última fila entregada.
+ * @param id    ID de la última fila entregada.
+ */
+public record Cursor(LocalDateTime fecha, int id) {
+
+    /**
+     * Convierte el cursor en un texto apto para un parámetro de URL.
+     * @return Cursor codificado.
+     */
+    public String codificar() {
+        String texto = fecha + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reconstruye un cursor recibido en la URL.
+     * @param codificado Texto generado por codificar(); puede ser null o vacío.
+     * @return El cursor, o null si no viene o no es válido (se empieza desde la primera página).
+     */
+    public static Cursor decodificar(String codificado) {
+        if (codificado == null || codificado.isBlank()) {
+            return null;
+        }
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(codificado), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf('|');
+            if (separador < 0) {
+                return null;
+            }
+            return new Cursor(LocalDateTime.parse(texto.substring(0, separador)),
+                    Integer.parseInt(texto.substring(separador + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return null;
+        }
+    }
+}
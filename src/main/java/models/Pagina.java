@@ -0,0 +1,28 @@
+package models;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Página de resultados de una búsqueda paginada por cursor (keyset).
+ * En lugar de un número de página (OFFSET, que obliga a la base de datos a recorrer y descartar
+ * todas las filas anteriores), cada página trae el cursor de su última fila; la siguiente página
+ * continúa desde ahí usando el índice, por lo que cuesta lo mismo sin importar cuánta historia haya.
+ */
+import java.util.List;
+
+/**
+ * @param elementos       Filas de la página.
+ * @param siguienteCursor Cursor para pedir la página siguiente, o null si esta es la última.
+ * @param <T>             Tipo de las filas.
+ */
+public record Pagina<T>(List<T> elementos, Cursor siguienteCursor) {
+
+    /**
+     * @return true si hay más resultados después de esta página.
+     */
+    public boolean hayMas() {
+        return siguienteCursor != null;
+    }
+}
@@ -14,6 +14,7 @@ package repository;
  */
 
 import models.Cita;
+import models.Pagina;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -122,4 +123,14 @@ public interface CitaRepository {
      * @throws SQLException Si ocurre un error SQL.
      */
     List<Cita> listarPendientesPorDoctor(int idOdontologo, String fecha) throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * Busca citas según los criterios indicados, paginadas por cursor sobre (fecha_hora, id_cita).
+     * El costo de cada página no depende del tamaño del historial.
+     *
+     * @param criterios Filtros, orden, cursor y tamaño de página.
+     * @return La página de citas y el cursor de la siguiente (null si no hay más).
+     * @throws SQLException Si ocurre un error en la consulta.
+     */
+    Pagina<Cita> buscar(CriteriosCita criterios) throws SQLException;
+}
@@ -12,12 +12,17 @@ package repository;
  * 1. Mapeo Objeto-Relacional (ORM) manual mediante JOINs para reconstruir objetos complejos (Cita -> Paciente/Odontologo).
  * 2. Manejo avanzado de fechas Java (LocalDate/LocalDateTime) vs SQL (Timestamp).
  * 3. Consultas dinámicas para filtros flexibles (Por fecha y múltiples estados).
+ * 4. Búsqueda paginada por cursor (keyset) sobre (fecha_hora, id_cita).
  */
 
 import models.Cita;
+import models.Cursor;
 import models.Odontologo;
+import models.Pagina;
 import models.Paciente;
 import models.Usuario;
+import util.VersionesTablas;
+import util.VersionesTablas.Tabla;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -222,6 +227,7 @@ public class CitaRepositoryImpl implements CitaRepository {
             }
             stmt.executeUpdate();
         }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.CITAS);
     }
 
     /**
@@ -237,6 +243,7 @@ public class CitaRepositoryImpl implements CitaRepository {
             stmt.setInt(2, idCita);
             stmt.executeUpdate();
         }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.CITAS);
     }
 
     /**
@@ -267,6 +274,81 @@ public class CitaRepositoryImpl implements CitaRepository {
         });
     }
 
+    /**
+     * Búsqueda filtrable y paginada por cursor (keyset) sobre (fecha_hora, id_cita).
+     * En lugar de OFFSET, la página siguiente arranca con una condición sobre la última fila
+     * entregada, de modo que MySQL lee solo las filas de la página usando el índice de fecha_hora,
+     * sin importar cuántas citas haya en la tabla. Se pide una fila de más para saber si hay otra página.
+     */
+    @Override
+    public Pagina<Cita> buscar(CriteriosCita criterios) throws SQLException {
+        if (criterios.getIdsPaciente() != null && criterios.getIdsPaciente().isEmpty()) {
+            // Búsqueda de pacientes sin resultados: no hay citas que mostrar
+            return new Pagina<>(List.of(), null);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT c.*, p.nombres AS p_nom, p.apellidos AS p_ape, p.cedula AS p_ced, " +
+                "o.especialidad, u.nombre_completo AS doc_nom " +
+                "FROM citas c " +
+                "INNER JOIN pacientes p ON c.id_paciente = p.id_paciente " +
+                "INNER JOIN odontologos o ON c.id_odontologo = o.id_odontologo " +
+                "INNER JOIN usuarios u ON o.id_usuario = u.id_usuario " +
+                "WHERE 1 = 1");
+        List<Object> parametros = new ArrayList<>();
+
+        if (criterios.getIdOdontologo() != null) {
+            sql.append(" AND c.id_odontologo = ?");
+            parametros.add(criterios.getIdOdontologo());
+        }
+        if (criterios.getDesde() != null) {
+            sql.append(" AND c.fecha_hora >= ?");
+            parametros.add(criterios.getDesde());
+        }
+        if (criterios.getHasta() != null) {
+            sql.append(" AND c.fecha_hora < ?");
+            parametros.add(criterios.getHasta());
+        }
+        if (!criterios.getEstados().isEmpty()) {
+            sql.append(" AND c.estado IN (").append(ParametrosSql.marcadores(criterios.getEstados().size())).append(")");
+            parametros.addAll(criterios.getEstados());
+        }
+        if (criterios.getIdsPaciente() != null) {
+            sql.append(" AND c.id_paciente IN (").append(ParametrosSql.marcadores(criterios.getIdsPaciente().size())).append(")");
+            parametros.addAll(criterios.getIdsPaciente());
+        }
+        if (criterios.getCedula() != null && !criterios.getCedula().isEmpty()) {
+            sql.append(" AND p.cedula LIKE ?");
+            parametros.add("%" + criterios.getCedula() + "%");
+        }
+
+        // Condición del cursor: filas estrictamente posteriores (o anteriores) a la última entregada
+        String comparador = criterios.isDescendente() ? "<" : ">";
+        Cursor cursor = criterios.getDespuesDe();
+        if (cursor != null) {
+            sql.append(" AND (c.fecha_hora ").append(comparador).append(" ?")
+                    .append(" OR (c.fecha_hora = ? AND c.id_cita ").append(comparador).append(" ?))");
+            parametros.add(cursor.fecha());
+            parametros.add(cursor.fecha());
+            parametros.add(cursor.id());
+        }
+
+        String orden = criterios.isDescendente() ? "DESC" : "ASC";
+        sql.append(" ORDER BY c.fecha_hora ").append(orden).append(", c.id_cita ").append(orden);
+        sql.append(" LIMIT ?");
+        parametros.add(criterios.getTamano() + 1);
+
+        List<Cita> citas = ejecutarConsultaParametrizada(sql.toString(), stmt -> ParametrosSql.asignar(stmt, parametros));
+
+        // Si vino la fila de más, hay otra página: la descartamos y el cursor apunta a la última entregada
+        Cursor siguiente = null;
+        if (citas.size() > criterios.getTamano()) {
+            citas = citas.subList(0, criterios.getTamano());
+            Cita ultima = citas.get(citas.size() - 1);
+            siguiente = new Cursor(ultima.getFechaHora(), ultima.getIdCita());
+        }
+        return new Pagina<>(new ArrayList<>(citas), siguiente);
+    }
+
     /*
      * -------------------------------------------------------------------------
      * SECCIÓN DE MÉTODOS PRIVADOS Y HELPERS
@@ -311,11 +393,12 @@ public class CitaRepositoryImpl implements CitaRepository {
     /**
      * Mapea una fila del ResultSet a un objeto Cita completo.
      * Reconstruye la jerarquía de objetos (Cita -> Paciente, Cita -> Odontólogo -> Usuario).
+     * Es visible en el paquete para medirla en los benchmarks (src/jmh/java).
      *
      * @param rs El ResultSet posicionado en la fila actual.
      * @return El objeto Cita poblado.
      */
-    private Cita crearCitaCompleta(ResultSet rs) throws SQLException {
+    static Cita crearCitaCompleta(ResultSet rs) throws SQLException {
         Cita c = new Cita();
         c.setIdCita(rs.getInt("id_cita"));
         // Conversión Timestamp SQL -> LocalDateTime Java
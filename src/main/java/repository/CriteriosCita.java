@@ -0,0 +1,130 @@
+package repository;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Criterios de búsqueda de citas para CitaRepository.buscar().
+ * Todos los filtros son opcionales y se combinan con AND; los que no se indican no se aplican.
+ * Los métodos devuelven la misma instancia para poder encadenarlos:
+ *
+ *   new CriteriosCita().desde(inicio).hasta(fin).estados(List.of("Pendiente")).tamano(50)
+ *
+ * El orden es siempre (fecha_hora, id_cita), ascendente por defecto (agenda) o descendente
+ * (historial), y el tamaño de página está acotado por TAMANO_MAXIMO.
+ */
+
+import models.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class CriteriosCita {
+
+    public static final int TAMANO_POR_DEFECTO = 50;
+    public static final int TAMANO_MAXIMO = 200;
+
+    private Integer idOdontologo;
+    private LocalDateTime desde;
+    private LocalDateTime hasta;
+    private List<String> estados = List.of();
+    private List<Integer> idsPaciente;
+    private String cedula;
+    private boolean descendente;
+    private Cursor despuesDe;
+    private int tamano = TAMANO_POR_DEFECTO;
+
+    /** Solo citas del odontólogo indicado. */
+    public CriteriosCita odontologo(int idOdontologo) {
+        this.idOdontologo = idOdontologo;
+        return this;
+    }
+
+    /** Citas con fecha_hora mayor o igual al instante indicado. */
+    public CriteriosCita desde(LocalDateTime desde) {
+        this.desde = desde;
+        return this;
+    }
+
+    /** Citas con fecha_hora estrictamente menor al instante indicado. */
+    public CriteriosCita hasta(LocalDateTime hasta) {
+        this.hasta = hasta;
+        return this;
+    }
+
+    /** Citas en cualquiera de los estados indicados. */
+    public CriteriosCita estados(List<String> estados) {
+        this.estados = estados == null ? List.of() : List.copyOf(estados);
+        return this;
+    }
+
+    /**
+     * Citas de cualquiera de los pacientes indicados. Una lista vacía no coincide con ninguna cita
+     * (por ejemplo, una búsqueda de pacientes sin resultados).
+     */
+    public CriteriosCita pacientes(List<Integer> idsPaciente) {
+        this.idsPaciente = idsPaciente == null ? null : List.copyOf(idsPaciente);
+        return this;
+    }
+
+    /** Citas de pacientes cuya cédula contiene el texto indicado. */
+    public CriteriosCita cedula(String cedula) {
+        this.cedula = cedula;
+        return this;
+    }
+
+    /** Ordena de la más reciente a la más antigua (historial). */
+    public CriteriosCita descendente() {
+        this.descendente = true;
+        return this;
+    }
+
+    /** Continúa después de la última fila de la página anterior. */
+    public CriteriosCita despuesDe(Cursor cursor) {
+        this.despuesDe = cursor;
+        return this;
+    }
+
+    /** Cantidad de citas por página, entre 1 y TAMANO_MAXIMO. */
+    public CriteriosCita tamano(int tamano) {
+        this.tamano = Math.max(1, Math.min(tamano, TAMANO_MAXIMO));
+        return this;
+    }
+
+    public Integer getIdOdontologo() {
+        return idOdontologo;
+    }
+
+    public LocalDateTime getDesde() {
+        return desde;
+    }
+
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+
+    public List<String> getEstados() {
+        return estados;
+    }
+
+    public List<Integer> getIdsPaciente() {
+        return idsPaciente;
+    }
+
+    public String getCedula() {
+        return cedula;
+    }
+
+    public boolean isDescendente() {
+        return descendente;
+    }
+
+    public Cursor getDespuesDe() {
+        return despuesDe;
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+}
@@ -0,0 +1,97 @@
+package repository;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Criterios de búsqueda del historial de facturas para FacturaRepository.buscar().
+ * Todos los filtros son opcionales y se combinan con AND; los métodos devuelven la misma
+ * instancia para poder encadenarlos:
+ *
+ *   new CriteriosFactura().desde(inicio).hasta(fin).metodoPago("Efectivo").tamano(50)
+ *
+ * El orden es siempre (fecha_emision, id_factura) descendente: primero las más recientes.
+ */
+
+import models.Cursor;
+
+import java.time.LocalDateTime;
+
+public class CriteriosFactura {
+
+    public static final int TAMANO_POR_DEFECTO = 50;
+    public static final int TAMANO_MAXIMO = 200;
+
+    private LocalDateTime desde;
+    private LocalDateTime hasta;
+    private String metodoPago;
+    private String identificacionCliente;
+    private Cursor despuesDe;
+    private int tamano = TAMANO_POR_DEFECTO;
+
+    /** Facturas emitidas en o después del instante indicado. */
+    public CriteriosFactura desde(LocalDateTime desde) {
+        this.desde = desde;
+        return this;
+    }
+
+    /** Facturas emitidas estrictamente antes del instante indicado. */
+    public CriteriosFactura hasta(LocalDateTime hasta) {
+        this.hasta = hasta;
+        return this;
+    }
+
+    /** Facturas pagadas con el método indicado (Efectivo, Tarjeta, Transferencia). */
+    public CriteriosFactura metodoPago(String metodoPago) {
+        this.metodoPago = vacioANulo(metodoPago);
+        return this;
+    }
+
+    /** Facturas emitidas a la cédula/RUC indicada (coincidencia exacta). */
+    public CriteriosFactura identificacionCliente(String identificacionCliente) {
+        this.identificacionCliente = vacioANulo(identificacionCliente);
+        return this;
+    }
+
+    /** Continúa después de la última fila de la página anterior. */
+    public CriteriosFactura despuesDe(Cursor cursor) {
+        this.despuesDe = cursor;
+        return this;
+    }
+
+    /** Cantidad de facturas por página, entre 1 y TAMANO_MAXIMO. */
+    public CriteriosFactura tamano(int tamano) {
+        this.tamano = Math.max(1, Math.min(tamano, TAMANO_MAXIMO));
+        return this;
+    }
+
+    // Un filtro de texto vacío (campo del formulario sin llenar) equivale a no filtrar
+    private static String vacioANulo(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    public LocalDateTime getDesde() {
+        return desde;
+    }
+
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+
+    public String getMetodoPago() {
+        return metodoPago;
+    }
+
+    public String getIdentificacionCliente() {
+        return identificacionCliente;
+    }
+
+    public Cursor getDespuesDe() {
+        return despuesDe;
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+}
@@ -11,6 +11,7 @@ package repository;
  */
 
 import java.sql.*;
+import java.time.LocalDate;
 
 public class DashboardRepositoryImpl implements DashboardRepository {
 
@@ -35,12 +36,13 @@ public class DashboardRepositoryImpl implements DashboardRepository {
      */
     @Override
     public int contarCitasDia(String fecha) throws SQLException {
-        // Consulta SQL: Usamos la función DATE() de MySQL para extraer solo la parte de la fecha del campo DATETIME
-        // y filtramos para no contar las citas con estado 'Cancelada'.
-        String sql = "SELECT COUNT(*) FROM citas WHERE DATE(fecha_hora) = ? AND estado != 'Cancelada'";
+        // Consulta SQL: filtramos el día como rango [inicio del día, inicio del día siguiente) en lugar de
+        // DATE(fecha_hora) = ?, que obliga a MySQL a evaluar la función en cada fila y no puede usar el
+        // índice de fecha_hora. No contamos las citas con estado 'Cancelada'.
+        String sql = "SELECT COUNT(*) FROM citas WHERE fecha_hora >= ? AND fecha_hora < ? AND estado != 'Cancelada'";
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, fecha); // Asignación segura del parámetro fecha
+            asignarDia(stmt, fecha); // Asignación segura de los límites del día
 
             try (ResultSet rs = stmt.executeQuery()) {
                 // La función COUNT siempre devuelve una fila, incluso si es 0
@@ -84,10 +86,11 @@ public class DashboardRepositoryImpl implements DashboardRepository {
      */
     @Override
     public double sumarFacturadoDia(String fecha) throws SQLException {
-        String sql = "SELECT SUM(total_pagar) FROM facturas WHERE DATE(fecha_emision) = ?";
+        // Mismo rango de día que en contarCitasDia, para usar el índice de fecha_emision
+        String sql = "SELECT SUM(total_pagar) FROM facturas WHERE fecha_emision >= ? AND fecha_emision < ?";
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, fecha);
+            asignarDia(stmt, fecha);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 // Si hay facturas, retorna la suma.
@@ -99,4 +102,17 @@ public class DashboardRepositoryImpl implements DashboardRepository {
         }
         return 0.0;
     }
+
+    /**
+     * Asigna a los parámetros 1 y 2 el inicio del día indicado y el inicio del día siguiente.
+     *
+     * @param stmt  Sentencia con los dos límites del rango.
+     * @param fecha Fecha en formato 'YYYY-MM-DD'.
+     * @throws SQLException Si hay error al asignar los parámetros.
+     */
+    private static void asignarDia(PreparedStatement stmt, String fecha) throws SQLException {
+        LocalDate dia = LocalDate.parse(fecha);
+        stmt.setTimestamp(1, Timestamp.valueOf(dia.atStartOfDay()));
+        stmt.setTimestamp(2, Timestamp.valueOf(dia.plusDays(1).atStartOfDay()));
+    }
 }
\ No newline at end of file
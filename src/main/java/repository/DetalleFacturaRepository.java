@@ -15,7 +15,9 @@ package repository;
 
 import models.DetalleFactura;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface DetalleFacturaRepository {
 
@@ -40,4 +42,14 @@ public interface DetalleFacturaRepository {
      * @throws SQLException Si ocurre un error en la consulta SQL.
      */
     List<DetalleFactura> listarPorFactura(int idFactura) throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * Recupera en una sola consulta (IN) los detalles de varias facturas.
+     * Se usa al procesar facturas por lotes (exportación), para no ejecutar una consulta por factura.
+     *
+     * @param idsFactura IDs de las facturas.
+     * @return Mapa ID de factura -> sus detalles. Las facturas sin detalles no aparecen en el mapa.
+     * @throws SQLException Si ocurre un error en la consulta SQL.
+     */
+    Map<Integer, List<DetalleFactura>> listarPorFacturas(Collection<Integer> idsFactura) throws SQLException;
+}
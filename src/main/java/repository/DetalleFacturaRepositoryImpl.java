@@ -13,6 +13,7 @@ package repository;
  * 1. Uso de Batch Update para inserciones masivas eficientes.
  * 2. Manejo de relaciones polimórficas en base de datos (Servicio/Producto).
  * 3. Reconstrucción de objetos anidados mediante consultas con JOIN.
+ * 4. Consulta de los detalles de varias facturas a la vez (IN), para procesos por lotes.
  */
 
 import models.DetalleFactura;
@@ -20,11 +21,20 @@ import models.Producto;
 import models.Servicio;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.math.BigDecimal;
 
 public class DetalleFacturaRepositoryImpl implements DetalleFacturaRepository {
 
+    // Detalles con los nombres de sus servicios o productos (común a las consultas por factura)
+    private static final String SELECT_DETALLES = "SELECT df.*, s.nombre AS s_nombre, p.nombre AS p_nombre FROM detalles_factura df " +
+            "LEFT JOIN servicios s ON df.id_servicio = s.id_servicio " +
+            "LEFT JOIN productos p ON df.id_producto = p.id_producto ";
+
     // Conexión compartida inyectada para mantener la sesión de base de datos activa
     private Connection conn;
 
@@ -105,10 +115,7 @@ public class DetalleFacturaRepositoryImpl implements DetalleFacturaRepository {
     @Override
     public List<DetalleFactura> listarPorFactura(int idFactura) throws SQLException {
         // Query optimizada: Trae datos de la tabla intermedia y nombres de las tablas maestras
-        String sql = "SELECT df.*, s.nombre AS s_nombre, p.nombre AS p_nombre FROM detalles_factura df " +
-                "LEFT JOIN servicios s ON df.id_servicio = s.id_servicio " +
-                "LEFT JOIN productos p ON df.id_producto = p.id_producto " +
-                "WHERE df.id_factura = ?";
+        String sql = SELECT_DETALLES + "WHERE df.id_factura = ?";
 
         List<DetalleFactura> lista = new ArrayList<>();
 
@@ -117,39 +124,84 @@ public class DetalleFacturaRepositoryImpl implements DetalleFacturaRepository {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    DetalleFactura d = new DetalleFactura();
-
-                    // Mapeo básico de columnas
-                    d.setIdDetalle(rs.getInt("id_detalle"));
-                    d.setTipoItem(rs.getString("tipo_item"));
-                    d.setCantidad(rs.getInt("cantidad"));
-                    d.setPrecioUnitario(rs.getBigDecimal("precio_unitario"));
-                    d.setSubtotalItem(rs.getBigDecimal("subtotal_item"));
-                    d.setDienteOZona(rs.getString("diente_o_zona"));
-
-                    // Reconstrucción condicional de objetos relacionados
-                    // Verificamos cuál de las dos FKs tiene valor
-
-                    int idServ = rs.getInt("id_servicio");
-                    if (!rs.wasNull()) { // Si id_servicio NO es NULL en BD
-                        Servicio s = new Servicio();
-                        s.setIdServicio(idServ);
-                        s.setNombre(rs.getString("s_nombre")); // Nombre traído por el JOIN
-                        d.setServicio(s);
-                    }
-
-                    int idProd = rs.getInt("id_producto");
-                    if (!rs.wasNull()) { // Si id_producto NO es NULL en BD
-                        Producto p = new Producto();
-                        p.setIdProducto(idProd);
-                        p.setNombre(rs.getString("p_nombre")); // Nombre traído por el JOIN
-                        d.setProducto(p);
-                    }
-
-                    lista.add(d);
+                    lista.add(crearDetalle(rs));
                 }
             }
         }
         return lista;
     }
-}
\ No newline at end of file
+
+    /**
+     * Recupera los detalles de varias facturas con una sola consulta IN, con los mismos JOIN que
+     * listarPorFactura(). Las filas se agrupan por factura conservando el orden en que llegan.
+     *
+     * @param idsFactura IDs de las facturas a consultar.
+     * @return Mapa ID de factura -> lista de detalles.
+     * @throws SQLException Si ocurre un error de lectura.
+     */
+    @Override
+    public Map<Integer, List<DetalleFactura>> listarPorFacturas(Collection<Integer> idsFactura) throws SQLException {
+        Map<Integer, List<DetalleFactura>> detalles = new HashMap<>();
+        if (idsFactura.isEmpty()) {
+            return detalles;
+        }
+        // Un marcador ? por ID: WHERE df.id_factura IN (?, ?, ?)
+        String marcadores = String.join(", ", Collections.nCopies(idsFactura.size(), "?"));
+        String sql = SELECT_DETALLES + "WHERE df.id_factura IN (" + marcadores + ")";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (Integer id : idsFactura) {
+                stmt.setInt(i++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    detalles.computeIfAbsent(rs.getInt("id_factura"), k -> new ArrayList<>()).add(crearDetalle(rs));
+                }
+            }
+        }
+        return detalles;
+    }
+
+    /**
+     * Convierte la fila actual del ResultSet en un DetalleFactura, reconstruyendo el Servicio
+     * o el Producto según cuál de las dos claves foráneas tenga valor.
+     * Es visible en el paquete para medirla en los benchmarks (src/jmh/java).
+     *
+     * @param rs ResultSet posicionado en la fila (con las columnas s_nombre y p_nombre del JOIN).
+     * @return Detalle poblado.
+     * @throws SQLException Si ocurre un error al leer las columnas.
+     */
+    static DetalleFactura crearDetalle(ResultSet rs) throws SQLException {
+        DetalleFactura d = new DetalleFactura();
+
+        // Mapeo básico de columnas
+        d.setIdDetalle(rs.getInt("id_detalle"));
+        d.setTipoItem(rs.getString("tipo_item"));
+        d.setCantidad(rs.getInt("cantidad"));
+        d.setPrecioUnitario(rs.getBigDecimal("precio_unitario"));
+        d.setSubtotalItem(rs.getBigDecimal("subtotal_item"));
+        d.setDienteOZona(rs.getString("diente_o_zona"));
+
+        // Reconstrucción condicional de objetos relacionados
+        // Verificamos cuál de las dos FKs tiene valor
+
+        int idServ = rs.getInt("id_servicio");
+        if (!rs.wasNull()) { // Si id_servicio NO es NULL en BD
+            Servicio s = new Servicio();
+            s.setIdServicio(idServ);
+            s.setNombre(rs.getString("s_nombre")); // Nombre traído por el JOIN
+            d.setServicio(s);
+        }
+
+        int idProd = rs.getInt("id_producto");
+        if (!rs.wasNull()) { // Si id_producto NO es NULL en BD
+            Producto p = new Producto();
+            p.setIdProducto(idProd);
+            p.setNombre(rs.getString("p_nombre")); // Nombre traído por el JOIN
+            d.setProducto(p);
+        }
+
+        return d;
+    }
+}
@@ -11,6 +11,7 @@ package repository;
  */
 
 import models.Factura;
+import models.Pagina;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -46,4 +47,24 @@ public interface FacturaRepository {
      * @throws SQLException Si ocurre un error durante la inserción (ej: restricción de clave foránea).
      */
     int guardar(Factura factura) throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * Busca facturas del historial según los criterios indicados, de la más reciente a la más
+     * antigua, paginadas por cursor sobre (fecha_emision, id_factura).
+     *
+     * @param criterios Filtros, cursor y tamaño de página.
+     * @return La página de facturas y el cursor de la siguiente (null si no hay más).
+     * @throws SQLException Si ocurre un error en la consulta.
+     */
+    Pagina<Factura> buscar(CriteriosFactura criterios) throws SQLException;
+
+    /**
+     * Estima cuántas facturas cumplen los filtros sin recorrerlas (el cursor y el tamaño de página
+     * se ignoran). Es un valor aproximado, suficiente para mostrar "≈ N facturas".
+     *
+     * @param criterios Filtros de la búsqueda.
+     * @return Cantidad estimada, o -1 si el motor no entrega una estimación.
+     * @throws SQLException Si ocurre un error en la consulta.
+     */
+    long estimarTotal(CriteriosFactura criterios) throws SQLException;
+}
@@ -12,10 +12,15 @@ package repository;
  * 1. Inserción de registros con recuperación de claves primarias autogeneradas (IDs).
  * 2. Consultas con JOINs para vincular facturas con sus citas correspondientes.
  * 3. Mapeo manual de ResultSet a objetos Factura.
+ * 4. Historial filtrable paginado por cursor, con conteo estimado mediante EXPLAIN.
  */
 
+import models.Cursor;
 import models.Factura;
 import models.Cita;
+import models.Pagina;
+import util.VersionesTablas;
+import util.VersionesTablas.Tabla;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -110,6 +115,7 @@ public class FacturaRepositoryImpl implements FacturaRepository {
 
             // Ejecutamos la inserción
             stmt.executeUpdate();
+            VersionesTablas.cambioAlConfirmar(conn, Tabla.FACTURAS);
 
             // Recuperamos el ID generado (Auto-increment)
             try (ResultSet rsKeys = stmt.getGeneratedKeys()) {
@@ -122,6 +128,103 @@ public class FacturaRepositoryImpl implements FacturaRepository {
         }
     }
 
+    /**
+     * Historial filtrable paginado por cursor (keyset) sobre (fecha_emision, id_factura).
+     * Cada página continúa desde la última factura entregada, así que MySQL recorre el índice de
+     * fecha_emision solo hasta completar la página, en lugar de leer y ordenar toda la tabla.
+     * Se pide una fila de más para saber si existe otra página.
+     */
+    @Override
+    public Pagina<Factura> buscar(CriteriosFactura criterios) throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT f.* FROM facturas f WHERE 1 = 1");
+        agregarFiltros(sql, parametros, criterios);
+
+        Cursor cursor = criterios.getDespuesDe();
+        if (cursor != null) {
+            sql.append(" AND (f.fecha_emision < ? OR (f.fecha_emision = ? AND f.id_factura < ?))");
+            parametros.add(cursor.fecha());
+            parametros.add(cursor.fecha());
+            parametros.add(cursor.id());
+        }
+        sql.append(" ORDER BY f.fecha_emision DESC, f.id_factura DESC LIMIT ?");
+        parametros.add(criterios.getTamano() + 1);
+
+        List<Factura> facturas = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            ParametrosSql.asignar(stmt, parametros);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    facturas.add(crearFactura(rs));
+                }
+            }
+        }
+
+        // Si vino la fila de más, hay otra página: se descarta y el cursor apunta a la última entregada
+        Cursor siguiente = null;
+        if (facturas.size() > criterios.getTamano()) {
+            facturas.remove(facturas.size() - 1);
+            Factura ultima = facturas.get(facturas.size() - 1);
+            siguiente = new Cursor(ultima.getFechaEmision(), ultima.getIdFactura());
+        }
+        return new Pagina<>(facturas, siguiente);
+    }
+
+    /**
+     * Estimación del total con EXPLAIN: el optimizador calcula las filas a examinar a partir de las
+     * estadísticas del índice (columna 'rows', ajustada por el porcentaje 'filtered') sin leerlas,
+     * a diferencia de un COUNT(*) que recorre todas las facturas que cumplen el filtro.
+     */
+    @Override
+    public long estimarTotal(CriteriosFactura criterios) throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("EXPLAIN SELECT f.id_factura FROM facturas f WHERE 1 = 1");
+        agregarFiltros(sql, parametros, criterios);
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            ParametrosSql.asignar(stmt, parametros);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || !tieneColumna(rs, "rows")) {
+                    return -1; // El motor no entrega estimación (no es MySQL)
+                }
+                long filas = rs.getLong("rows");
+                double filtrado = tieneColumna(rs, "filtered") ? rs.getDouble("filtered") : 100.0;
+                return Math.round(filas * filtrado / 100.0);
+            }
+        }
+    }
+
+    // Agrega al WHERE los filtros opcionales de la búsqueda, comunes a buscar() y estimarTotal()
+    private void agregarFiltros(StringBuilder sql, List<Object> parametros, CriteriosFactura criterios) {
+        if (criterios.getDesde() != null) {
+            sql.append(" AND f.fecha_emision >= ?");
+            parametros.add(criterios.getDesde());
+        }
+        if (criterios.getHasta() != null) {
+            sql.append(" AND f.fecha_emision < ?");
+            parametros.add(criterios.getHasta());
+        }
+        if (criterios.getMetodoPago() != null) {
+            sql.append(" AND f.metodo_pago = ?");
+            parametros.add(criterios.getMetodoPago());
+        }
+        if (criterios.getIdentificacionCliente() != null) {
+            sql.append(" AND f.identificacion_cliente = ?");
+            parametros.add(criterios.getIdentificacionCliente());
+        }
+    }
+
+    // Indica si el ResultSet trae la columna indicada
+    private boolean tieneColumna(ResultSet rs, String columna) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (columna.equalsIgnoreCase(meta.getColumnLabel(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Método auxiliar (Helper) para convertir una fila del ResultSet en un objeto Java.
      * Centraliza la lógica de mapeo para evitar duplicidad de código.
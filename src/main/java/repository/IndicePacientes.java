@@ -0,0 +1,186 @@
+package repository;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Índice de búsqueda de pacientes en memoria (cédula, nombres y apellidos sin tildes).
+ * Reemplaza a los LIKE '%texto%' sobre pacientes, que recorren toda la tabla en cada búsqueda,
+ * y habilita la búsqueda por nombre y el autocompletado.
+ *
+ * - Se construye al desplegar la aplicación (AplicacionListener) leyendo la tabla en modo
+ *   streaming, sin cargar todo el ResultSet en memoria.
+ * - PacienteRepositoryImpl lo mantiene al día: guardar, eliminar y activar actualizan el índice
+ *   después del commit de su transacción (si se revierte, el índice no cambia).
+ * - Mientras se construye, las búsquedas devuelven null y quien llama usa la consulta SQL.
+ */
+
+import models.Paciente;
+import util.ConexionBDD;
+import util.ConexionDiferida;
+import util.IndiceNgramas;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class IndicePacientes {
+
+    // Cambio registrado en el índice vigente, para repetirlo en uno que se está construyendo
+    @FunctionalInterface
+    private interface Cambio {
+        void aplicar(IndiceNgramas indice, Set<Integer> inactivos);
+    }
+
+    private static volatile IndiceNgramas indice;
+    private static volatile Set<Integer> inactivos = ConcurrentHashMap.newKeySet();
+    // Cambios confirmados mientras se construye un índice nuevo (null si no hay construcción en curso)
+    private static List<Cambio> cambiosDuranteCarga;
+
+    private IndicePacientes() {
+    }
+
+    /**
+     * Construye el índice en un hilo virtual, sin demorar el despliegue.
+     */
+    public static void cargarEnSegundoPlano() {
+        Thread.ofVirtual().name("indice-pacientes").start(() -> {
+            try (Connection conn = ConexionBDD.getConnection()) {
+                long inicio = System.nanoTime();
+                construir(conn);
+                System.out.println("[IndicePacientes] " + indice.tamano() + " pacientes indexados en "
+                        + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+            } catch (SQLException e) {
+                System.err.println("[IndicePacientes] No se pudo construir el índice: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Lee todos los pacientes y publica un índice nuevo. Los cambios confirmados mientras tanto
+     * se aplican también al índice nuevo antes de publicarlo.
+     *
+     * @param conn Conexión con la que se lee la tabla.
+     * @throws SQLException Si falla la lectura.
+     */
+    public static void construir(Connection conn) throws SQLException {
+        synchronized (IndicePacientes.class) {
+            cambiosDuranteCarga = new ArrayList<>();
+        }
+        IndiceNgramas nuevo = new IndiceNgramas();
+        Set<Integer> nuevosInactivos = ConcurrentHashMap.newKeySet();
+        String sql = "SELECT id_paciente, cedula, nombres, apellidos, estado FROM pacientes ORDER BY id_paciente";
+        try (PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Con MySQL, Integer.MIN_VALUE activa el modo streaming: las filas llegan de a una
+            if ("MySQL".equals(conn.getMetaData().getDatabaseProductName())) {
+                stmt.setFetchSize(Integer.MIN_VALUE);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id_paciente");
+                    nuevo.indexar(id, texto(rs.getString("cedula"), rs.getString("nombres"), rs.getString("apellidos")));
+                    if (rs.getInt("estado") == 0) {
+                        nuevosInactivos.add(id);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            synchronized (IndicePacientes.class) {
+                cambiosDuranteCarga = null;
+            }
+            throw e;
+        }
+        synchronized (IndicePacientes.class) {
+            for (Cambio cambio : cambiosDuranteCarga) {
+                cambio.aplicar(nuevo, nuevosInactivos);
+            }
+            cambiosDuranteCarga = null;
+            inactivos = nuevosInactivos;
+            indice = nuevo;
+        }
+    }
+
+    /**
+     * @return true si el índice ya está construido.
+     */
+    public static boolean estaListo() {
+        return indice != null;
+    }
+
+    /**
+     * Autocompletado: los pacientes activos más parecidos al texto escrito.
+     *
+     * @param texto  Cédula, nombre o apellido (completo o parcial, con o sin tildes).
+     * @param limite Cantidad máxima de sugerencias.
+     * @return IDs de pacientes del más al menos relevante, o null si el índice no está listo.
+     */
+    public static List<Integer> sugerir(String texto, int limite) {
+        IndiceNgramas actual = indice;
+        if (actual == null) {
+            return null;
+        }
+        Set<Integer> excluidos = inactivos;
+        return actual.buscar(texto, limite, id -> !excluidos.contains(id));
+    }
+
+    /**
+     * Pacientes (activos o no) cuya cédula o nombre contiene cada palabra del texto.
+     *
+     * @param texto  Texto buscado.
+     * @param maximo Cantidad máxima de pacientes aceptada.
+     * @return IDs de pacientes, o null si el índice no está listo, el texto es demasiado corto
+     *         o hay más de 'maximo' coincidencias.
+     */
+    public static List<Integer> contienen(String texto, int maximo) {
+        IndiceNgramas actual = indice;
+        return actual == null ? null : actual.contienen(texto, maximo);
+    }
+
+    /**
+     * Actualiza el texto del paciente cuando la transacción de la conexión se confirme.
+     * Un paciente nuevo queda activo; uno editado conserva su estado.
+     */
+    static void guardarAlConfirmar(Connection conn, Paciente paciente, boolean nuevo) {
+        int id = paciente.getIdPaciente();
+        String texto = texto(paciente.getCedula(), paciente.getNombres(), paciente.getApellidos());
+        ConexionDiferida.despuesDeConfirmar(conn, () -> aplicar((destino, inactivosDestino) -> {
+            destino.indexar(id, texto);
+            if (nuevo) {
+                inactivosDestino.remove(id);
+            }
+        }));
+    }
+
+    /**
+     * Cambia el estado (activo/inactivo) del paciente cuando la transacción se confirme.
+     */
+    static void cambiarEstadoAlConfirmar(Connection conn, int id, boolean activo) {
+        ConexionDiferida.despuesDeConfirmar(conn, () -> aplicar((destino, inactivosDestino) -> {
+            if (activo) {
+                inactivosDestino.remove(id);
+            } else {
+                inactivosDestino.add(id);
+            }
+        }));
+    }
+
+    // Aplica un cambio al índice vigente y, si se está construyendo otro, lo registra para él
+    private static synchronized void aplicar(Cambio cambio) {
+        if (indice != null) {
+            cambio.aplicar(indice, inactivos);
+        }
+        if (cambiosDuranteCarga != null) {
+            cambiosDuranteCarga.add(cambio);
+        }
+    }
+
+    private static String texto(String cedula, String nombres, String apellidos) {
+        return cedula + " " + nombres + " " + apellidos;
+    }
+}
@@ -51,4 +51,13 @@ public interface OdontologoRepository {
      * @throws SQLException Si ocurre un error en la consulta.
      */
     Odontologo porIdUsuario(int idUsuario) throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * Recupera todos los odontólogos, con su usuario activo o no, incluyendo el estado del usuario.
+     * Se usa para cargar de una sola vez el directorio de odontólogos en memoria.
+     *
+     * @return Lista de todos los odontólogos ordenada por nombre.
+     * @throws SQLException Si ocurre un error en la consulta.
+     */
+    List<Odontologo> listarTodos() throws SQLException;
+}
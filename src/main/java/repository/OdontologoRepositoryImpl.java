@@ -17,6 +17,8 @@
 
     import models.Odontologo;
     import models.Usuario;
+    import util.VersionesTablas;
+    import util.VersionesTablas.Tabla;
     import java.sql.*;
     import java.util.ArrayList;
     import java.util.List;
@@ -62,6 +64,33 @@
             return lista;
         }
 
+        /**
+         * Recupera todos los odontólogos (activos e inactivos) en una sola consulta,
+         * incluyendo el estado del usuario para que el directorio en memoria pueda filtrar los activos.
+         *
+         * @return Lista de todos los odontólogos ordenada por nombre.
+         * @throws SQLException Si ocurre un error en la consulta.
+         */
+        @Override
+        public List<Odontologo> listarTodos() throws SQLException {
+            List<Odontologo> lista = new ArrayList<>();
+            String sql = "SELECT o.id_odontologo, o.especialidad, o.codigo_medico, " +
+                    "u.id_usuario, u.nombre_completo, u.email, u.estado " +
+                    "FROM odontologos o " +
+                    "INNER JOIN usuarios u ON o.id_usuario = u.id_usuario " +
+                    "ORDER BY u.nombre_completo";
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    Odontologo o = crearOdontologo(rs);
+                    o.getUsuario().setEstado(rs.getInt("estado"));
+                    lista.add(o);
+                }
+            }
+            return lista;
+        }
+
         /**
          * Busca un odontólogo por su ID primario (id_odontologo).
          *
@@ -179,5 +208,6 @@
                 stmt.setInt(3, o.getUsuario().getIdUsuario());
                 stmt.executeUpdate();
             }
+            VersionesTablas.cambioAlConfirmar(conn, Tabla.ODONTOLOGOS);
         }
     }
\ No newline at end of file
@@ -81,4 +81,13 @@ public interface PacienteRepository {
      * @throws SQLException Si ocurre un error al actualizar el estado.
      */
     void activar(int id) throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * Recupera varios pacientes por su ID en una sola consulta.
+     *
+     * @param ids IDs de los pacientes.
+     * @return Pacientes encontrados, en el orden de los IDs recibidos.
+     * @throws SQLException Si ocurre un error en la consulta.
+     */
+    List<Paciente> porIds(List<Integer> ids) throws SQLException;
+}
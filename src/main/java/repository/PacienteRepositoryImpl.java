@@ -12,9 +12,13 @@ package repository;
  */
 
 import models.Paciente;
+import util.VersionesTablas;
+import util.VersionesTablas.Tabla;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class PacienteRepositoryImpl implements PacienteRepository {
 
@@ -100,6 +104,42 @@ public class PacienteRepositoryImpl implements PacienteRepository {
         return paciente;
     }
 
+    /**
+     * Recupera varios pacientes por ID en una sola consulta (IN).
+     * Usado por el autocompletado, que obtiene los IDs del índice en memoria.
+     *
+     * @param ids IDs de los pacientes.
+     * @return Pacientes encontrados, en el mismo orden de los IDs recibidos.
+     * @throws SQLException Si ocurre un error SQL.
+     */
+    @Override
+    public List<Paciente> porIds(List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Paciente> porId = new HashMap<>();
+        String sql = "SELECT * FROM pacientes WHERE id_paciente IN (" + ParametrosSql.marcadores(ids.size()) + ")";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            ParametrosSql.asignar(stmt, ids);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Paciente p = crearPaciente(rs);
+                    porId.put(p.getIdPaciente(), p);
+                }
+            }
+        }
+        // Respetamos el orden recibido (relevancia del índice)
+        List<Paciente> pacientes = new ArrayList<>();
+        for (Integer id : ids) {
+            Paciente p = porId.get(id);
+            if (p != null) {
+                pacientes.add(p);
+            }
+        }
+        return pacientes;
+    }
+
     /**
      * Busca un paciente por su cédula de identidad.
      * Crítico para validar duplicados antes de insertar uno nuevo.
@@ -145,7 +185,8 @@ public class PacienteRepositoryImpl implements PacienteRepository {
             sql = "INSERT INTO pacientes (cedula, nombres, apellidos, telefono, email, alergias) VALUES (?, ?, ?, ?, ?, ?)";
         }
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        boolean nuevo = paciente.getIdPaciente() == 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, paciente.getCedula());
             stmt.setString(2, paciente.getNombres());
             stmt.setString(3, paciente.getApellidos());
@@ -159,7 +200,18 @@ public class PacienteRepositoryImpl implements PacienteRepository {
             }
 
             stmt.executeUpdate();
+
+            // En un INSERT recuperamos el ID generado para poder indexar al paciente nuevo
+            if (nuevo) {
+                try (ResultSet rsKeys = stmt.getGeneratedKeys()) {
+                    if (rsKeys.next()) {
+                        paciente.setIdPaciente(rsKeys.getInt(1));
+                    }
+                }
+            }
         }
+        IndicePacientes.guardarAlConfirmar(conn, paciente, nuevo);
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.PACIENTES);
     }
 
     /**
@@ -179,6 +231,8 @@ public class PacienteRepositoryImpl implements PacienteRepository {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
+        IndicePacientes.cambiarEstadoAlConfirmar(conn, id, false);
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.PACIENTES);
     }
 
     /**
@@ -195,6 +249,8 @@ public class PacienteRepositoryImpl implements PacienteRepository {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
+        IndicePacientes.cambiarEstadoAlConfirmar(conn, id, true);
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.PACIENTES);
     }
 
     /**
@@ -0,0 +1,47 @@
+package repository;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Utilidades para las consultas con filtros dinámicos (búsquedas paginadas).
+ * El WHERE se arma según los filtros recibidos y los valores se acumulan en una lista
+ * en el mismo orden que sus signos de interrogación, para asignarlos al final de una vez.
+ */
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+final class ParametrosSql {
+
+    private ParametrosSql() {
+    }
+
+    /**
+     * Genera "?, ?, ?" para una cláusula IN con la cantidad de elementos indicada.
+     */
+    static String marcadores(int cantidad) {
+        return String.join(", ", Collections.nCopies(cantidad, "?"));
+    }
+
+    /**
+     * Asigna parámetros posicionales según su tipo (Integer, String o LocalDateTime).
+     */
+    static void asignar(PreparedStatement stmt, List<?> parametros) throws SQLException {
+        for (int i = 0; i < parametros.size(); i++) {
+            Object valor = parametros.get(i);
+            if (valor instanceof Integer entero) {
+                stmt.setInt(i + 1, entero);
+            } else if (valor instanceof LocalDateTime fechaHora) {
+                stmt.setTimestamp(i + 1, Timestamp.valueOf(fechaHora));
+            } else {
+                stmt.setString(i + 1, (String) valor);
+            }
+        }
+    }
+}
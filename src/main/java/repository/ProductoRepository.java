@@ -12,7 +12,9 @@ package repository;
 
 import models.Producto;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductoRepository {
 
@@ -81,4 +83,24 @@ public interface ProductoRepository {
      * @throws SQLException Si ocurre un error durante la actualización.
      */
     void actualizarStock(int id, int cantidad) throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * Busca varios productos en una sola consulta (WHERE id_producto IN (...)).
+     * Los IDs inexistentes simplemente no aparecen en el resultado.
+     *
+     * @param ids IDs de los productos a buscar.
+     * @return Lista de productos encontrados.
+     * @throws SQLException Si ocurre un error SQL.
+     */
+    List<Producto> porIds(Collection<Integer> ids) throws SQLException;
+
+    /**
+     * Descuenta el stock de varios productos con un lote de UPDATE condicionales
+     * (solo se descuenta si el stock alcanza).
+     *
+     * @param cantidades Cantidad a descontar por ID de producto.
+     * @return IDs de los productos cuyo stock no alcanzó (no se modificaron); vacío si todos alcanzaron.
+     * @throws SQLException Si ocurre un error durante la actualización.
+     */
+    List<Integer> descontarStock(Map<Integer, Integer> cantidades) throws SQLException;
+}
@@ -10,9 +10,15 @@ package repository;
  */
 
 import models.Producto;
+import util.VersionesTablas;
+import util.VersionesTablas.Tabla;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class ProductoRepositoryImpl implements ProductoRepository {
     private Connection conn;
@@ -84,6 +90,7 @@ public class ProductoRepositoryImpl implements ProductoRepository {
             }
             stmt.executeUpdate();
         }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.PRODUCTOS);
     }
 
     @Override
@@ -93,6 +100,7 @@ public class ProductoRepositoryImpl implements ProductoRepository {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.PRODUCTOS);
     }
 
     @Override
@@ -102,6 +110,7 @@ public class ProductoRepositoryImpl implements ProductoRepository {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.PRODUCTOS);
     }
 
     private Producto crearProducto(ResultSet rs) throws SQLException {
@@ -121,39 +130,94 @@ public class ProductoRepositoryImpl implements ProductoRepository {
      * Actualiza el stock de forma atómica (incremental), con validación de suficiencia.
      * Es CRÍTICO para la facturación.
      *
+     * La validación va dentro del propio UPDATE (condición stock + cambio >= 0), así que es una sola
+     * sentencia y dos facturas concurrentes no pueden dejar el stock en negativo: la segunda espera
+     * el bloqueo de la fila y, si ya no alcanza, no actualiza nada.
+     *
      * @param idProducto ID del producto.
      * @param cantidadCambio Cantidad a sumar (positivo) o restar (negativo, para venta).
      * @throws SQLException Si ocurre un error, incluyendo stock insuficiente.
      */
     @Override
     public void actualizarStock(int idProducto, int cantidadCambio) throws SQLException {
-        // Obtenemos el stock actual antes de ejecutar el UPDATE
-        String sqlCheck = "SELECT stock FROM productos WHERE id_producto = ?";
-        int stockActual = 0;
+        String sqlUpdate = "UPDATE productos SET stock = stock + ? WHERE id_producto = ? AND stock + ? >= 0";
+        try (PreparedStatement stmt = conn.prepareStatement(sqlUpdate)) {
+            stmt.setInt(1, cantidadCambio); // El valor ya es negativo si es una venta
+            stmt.setInt(2, idProducto);
+            stmt.setInt(3, cantidadCambio);
+            if (stmt.executeUpdate() == 0) {
+                // VALIDACIÓN DE INTEGRIDAD: el producto no existe o el stock resultante sería negativo.
+                // NOTA: El Servicio atrapará esta excepción SQL, la envolverá en ServiceJdbcException, y la mostrará.
+                throw new SQLException("Stock insuficiente para el producto " + idProducto +
+                        ". Se intenta descontar: " + (-cantidadCambio));
+            }
+        }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.PRODUCTOS);
+    }
 
-        try(PreparedStatement stmtCheck = conn.prepareStatement(sqlCheck)) {
-            stmtCheck.setInt(1, idProducto);
-            try(ResultSet rs = stmtCheck.executeQuery()) {
-                if (rs.next()) {
-                    stockActual = rs.getInt("stock");
+    @Override
+    public List<Producto> porIds(Collection<Integer> ids) throws SQLException {
+        List<Producto> productos = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return productos;
+        }
+        // Un marcador ? por ID: WHERE id_producto IN (?, ?, ?)
+        String marcadores = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT * FROM productos WHERE id_producto IN (" + marcadores + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (Integer id : ids) {
+                stmt.setInt(i++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    productos.add(crearProducto(rs));
                 }
             }
         }
+        return productos;
+    }
 
-        int nuevoStock = stockActual + cantidadCambio;
-
-        // VALIDACIÓN DE INTEGRIDAD: Si el nuevo stock es menor que cero, lanzamos excepción.
-        if (nuevoStock < 0) {
-            // NOTA: El Servicio atrapará esta excepción SQL, la envolverá en ServiceJdbcException, y la mostrará.
-            throw new SQLException("El stock resultante es negativo. Stock actual: " + stockActual + ", Se intenta descontar: " + (-cantidadCambio));
+    /**
+     * Descuenta el stock de todos los productos de una factura en un solo lote.
+     * Cada UPDATE lleva la condición stock >= cantidad, así que un producto sin stock suficiente
+     * simplemente no se actualiza (0 filas) y se reporta como faltante. Los que sí alcanzaban
+     * quedan descontados: quien llama debe revertir el lote (FacturaServiceImpl lo hace con un
+     * punto de guardado) antes de rechazar la factura.
+     * Los UPDATE van en orden de id_producto: dos facturas con los mismos productos bloquean las
+     * filas en el mismo orden y no se interbloquean.
+     */
+    @Override
+    public List<Integer> descontarStock(Map<Integer, Integer> cantidades) throws SQLException {
+        List<Integer> faltantes = new ArrayList<>();
+        if (cantidades.isEmpty()) {
+            return faltantes;
         }
-
-        // Si la validación pasa, ejecutamos la actualización atómica
-        String sqlUpdate = "UPDATE productos SET stock = stock + ? WHERE id_producto = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sqlUpdate)) {
-            stmt.setInt(1, cantidadCambio); // El valor ya es negativo si es una venta
-            stmt.setInt(2, idProducto);
-            stmt.executeUpdate();
+        String sql = "UPDATE productos SET stock = stock - ? WHERE id_producto = ? AND stock >= ?";
+        List<Integer> orden = new ArrayList<>(new TreeMap<>(cantidades).keySet());
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Integer id : orden) {
+                int cantidad = cantidades.get(id);
+                stmt.setInt(1, cantidad);
+                stmt.setInt(2, id);
+                stmt.setInt(3, cantidad);
+                stmt.addBatch();
+            }
+            int[] conteos = stmt.executeBatch();
+            VersionesTablas.cambioAlConfirmar(conn, Tabla.PRODUCTOS);
+            for (int i = 0; i < conteos.length; i++) {
+                // Solo 1 confirma el descuento. Con rewriteBatchedStatements=true en la URL el driver
+                // devuelve SUCCESS_NO_INFO (-2) y no se sabe qué producto alcanzó: se toma como
+                // faltante para no vender de más, y se avisa para que se quite la opción
+                if (conteos[i] != 1) {
+                    faltantes.add(orden.get(i));
+                    if (conteos[i] == Statement.SUCCESS_NO_INFO) {
+                        System.err.println("[ProductoRepositoryImpl] El driver no informó las filas del descuento de stock "
+                                + "(¿rewriteBatchedStatements=true?); la factura se rechaza");
+                    }
+                }
+            }
         }
+        return faltantes;
     }
-}
\ No newline at end of file
+}
@@ -16,6 +16,8 @@ package repository;
  */
 
 import models.Servicio;
+import util.VersionesTablas;
+import util.VersionesTablas.Tabla;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -111,6 +113,7 @@ public class ServicioRepositoryImpl implements ServicioRepository {
 
             stmt.executeUpdate();
         }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.SERVICIOS);
     }
 
     /**
@@ -128,6 +131,7 @@ public class ServicioRepositoryImpl implements ServicioRepository {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.SERVICIOS);
     }
 
     /**
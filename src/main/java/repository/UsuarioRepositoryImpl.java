@@ -17,6 +17,8 @@ package repository;
 
 import models.Rol;
 import models.Usuario;
+import util.VersionesTablas;
+import util.VersionesTablas.Tabla;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -155,6 +157,8 @@ public class UsuarioRepositoryImpl implements UsuarioRepository {
      */
     @Override
     public int guardar(Usuario usuario) throws SQLException {
+        // El nombre del usuario aparece en el directorio de odontólogos
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.ODONTOLOGOS);
         String sql;
         // Determinamos si es actualización o inserción
         if (usuario.getIdUsuario() > 0) {
@@ -200,6 +204,7 @@ public class UsuarioRepositoryImpl implements UsuarioRepository {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.ODONTOLOGOS);
     }
 
     /**
@@ -213,6 +218,7 @@ public class UsuarioRepositoryImpl implements UsuarioRepository {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
+        VersionesTablas.cambioAlConfirmar(conn, Tabla.ODONTOLOGOS);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package services;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Caché de aplicación del catálogo de servicios médicos.
+ * El catálogo se consulta en cada carga de /facturacion y cambia muy pocas veces, así que se
+ * mantiene en memoria como una instantánea inmutable (lista ordenada por nombre e índice por ID)
+ * que ServicioServiceImpl usa en lugar de consultar la base de datos.
+ * La instantánea se reconstruye después del commit de cada guardar o eliminar.
+ */
+
+import models.Servicio;
+import repository.ServicioRepositoryImpl;
+import util.CacheInstantanea;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class CatalogoServicios {
+
+    /**
+     * Contenido inmutable del catálogo.
+     * @param lista Servicios ordenados por nombre.
+     * @param porId Servicios indexados por id_servicio.
+     */
+    record Catalogo(List<Servicio> lista, Map<Integer, Servicio> porId) {
+    }
+
+    private static final CacheInstantanea<Catalogo> CACHE = new CacheInstantanea<>("servicios", conn -> {
+        List<Servicio> lista = new ServicioRepositoryImpl(conn).listar();
+        Map<Integer, Servicio> porId = new HashMap<>();
+        for (Servicio s : lista) {
+            porId.put(s.getIdServicio(), s);
+        }
+        return new Catalogo(List.copyOf(lista), Map.copyOf(porId));
+    });
+
+    private CatalogoServicios() {
+    }
+
+    static Catalogo obtener() throws SQLException {
+        return CACHE.obtener();
+    }
+
+    static void invalidarAlConfirmar(Connection conn) {
+        CACHE.invalidarAlConfirmar(conn);
+    }
+
+    /**
+     * Copia de un servicio del catálogo, para que quien lo reciba pueda modificarlo
+     * sin alterar la instantánea compartida.
+     */
+    static Servicio copia(Servicio s) {
+        return new Servicio(s.getIdServicio(), s.getNombre(), s.getDescripcion(), s.getPrecioBase());
+    }
+}
@@ -12,6 +12,9 @@ package services;
  */
 
 import models.Cita;
+import models.Cursor;
+import models.Pagina;
+import repository.CriteriosCita;
 import java.util.List;
 import java.util.Optional;
 
@@ -115,4 +118,34 @@ public interface CitaService {
      * @param estado El nuevo estado a asignar (ej: 'Facturada', 'No Asistio').
      */
     void cambiarEstado(int id, String estado);
-}
\ No newline at end of file
+
+    /**
+     * Busca citas con filtros combinables, paginadas por cursor sobre (fecha_hora, id_cita).
+     * Reemplaza a los listados completos en las pantallas de agenda e historial.
+     *
+     * @param criterios Filtros, orden, cursor y tamaño de página.
+     * @return La página de citas y el cursor de la siguiente (null si no hay más).
+     */
+    Pagina<Cita> buscar(CriteriosCita criterios);
+
+    /**
+     * Historial de citas de los pacientes cuya cédula o nombre contiene el texto indicado,
+     * de la más reciente a la más antigua. Los pacientes se resuelven primero con el índice
+     * en memoria y luego se buscan sus citas por id_paciente.
+     *
+     * @param texto  Cédula (o parte de ella), nombres o apellidos.
+     * @param cursor Cursor de la página anterior, o null para la primera página.
+     * @return Página de citas.
+     */
+    Pagina<Cita> buscarPorPaciente(String texto, Cursor cursor);
+
+    /**
+     * Igual que buscarPorPaciente(texto, cursor), pero sobre criterios ya armados (estados,
+     * orden, tamaño), a los que se agrega el filtro por paciente.
+     *
+     * @param texto     Cédula (o parte de ella), nombres o apellidos.
+     * @param criterios Criterios a los que se agrega el filtro.
+     * @return Página de citas.
+     */
+    Pagina<Cita> buscarPorPaciente(String texto, CriteriosCita criterios);
+}
@@ -14,8 +14,12 @@ package services;
  */
 
 import models.Cita;
+import models.Cursor;
+import models.Pagina;
 import repository.CitaRepository;
 import repository.CitaRepositoryImpl;
+import repository.CriteriosCita;
+import repository.IndicePacientes;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -25,6 +29,9 @@ import java.util.Optional;
 
 public class CitaServiceImpl implements CitaService {
 
+    // Máximo de pacientes que una búsqueda por nombre o cédula puede resolver para filtrar las citas
+    private static final int MAXIMO_PACIENTES_BUSQUEDA = 1000;
+
     // Dependencia del repositorio para el acceso a datos
     // Se utiliza la implementación concreta para acceder a métodos especializados de filtrado
     private CitaRepositoryImpl repository;
@@ -154,6 +161,46 @@ public class CitaServiceImpl implements CitaService {
         }
     }
 
+    /**
+     * Búsqueda de citas paginada por cursor.
+     *
+     * @param criterios Filtros, orden, cursor y tamaño de página.
+     * @return Página de citas con el cursor de la siguiente.
+     */
+    @Override
+    public Pagina<Cita> buscar(CriteriosCita criterios) {
+        try {
+            return repository.buscar(criterios);
+        } catch (SQLException e) {
+            throw new ServiceJdbcException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Búsqueda del historial por paciente.
+     * Si el índice resuelve los pacientes, las citas se buscan por id_paciente (usa índice en citas);
+     * si aún no está listo o el texto es muy amplio, una cédula se busca con LIKE como antes y un
+     * nombre se rechaza con un mensaje para el usuario.
+     */
+    @Override
+    public Pagina<Cita> buscarPorPaciente(String texto, Cursor cursor) {
+        return buscarPorPaciente(texto, new CriteriosCita().descendente().despuesDe(cursor));
+    }
+
+    @Override
+    public Pagina<Cita> buscarPorPaciente(String texto, CriteriosCita criterios) {
+        List<Integer> idsPaciente = IndicePacientes.contienen(texto, MAXIMO_PACIENTES_BUSQUEDA);
+        if (idsPaciente != null) {
+            criterios.pacientes(idsPaciente);
+        } else if (texto.matches("\\d+")) {
+            criterios.cedula(texto);
+        } else {
+            throw new ServiceJdbcException("La búsqueda es muy amplia o el buscador aún se está cargando. " +
+                    "Escriba el nombre o apellido más completo.");
+        }
+        return buscar(criterios);
+    }
+
     /**
      * Obtiene una lista global de todas las citas que están listas para cobro ('Atendida').
      * Nota: Este método busca en todo el histórico, no solo por fecha.
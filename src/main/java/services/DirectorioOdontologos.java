@@ -0,0 +1,82 @@
+package services;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Caché de aplicación del directorio de odontólogos.
+ * La lista de odontólogos se consulta en cada GET de /citas y el perfil por usuario en cada
+ * actualización del dashboard del odontólogo, siempre con un JOIN a 'usuarios'. El directorio
+ * carga todos los odontólogos en una instantánea inmutable indexada por id_odontologo y por
+ * id_usuario, que OdontologoServiceImpl usa sin consultar la base de datos.
+ * UsuarioServiceImpl lo reconstruye después del commit de guardarUsuario, eliminar y activar.
+ */
+
+import models.Odontologo;
+import models.Usuario;
+import repository.OdontologoRepositoryImpl;
+import util.CacheInstantanea;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class DirectorioOdontologos {
+
+    /**
+     * Contenido inmutable del directorio.
+     * @param activos    Odontólogos con usuario activo, ordenados por nombre.
+     * @param porId      Todos los odontólogos indexados por id_odontologo.
+     * @param porUsuario Todos los odontólogos indexados por id_usuario.
+     */
+    record Directorio(List<Odontologo> activos, Map<Integer, Odontologo> porId, Map<Integer, Odontologo> porUsuario) {
+    }
+
+    private static final CacheInstantanea<Directorio> CACHE = new CacheInstantanea<>("odontologos", conn -> {
+        List<Odontologo> activos = new ArrayList<>();
+        Map<Integer, Odontologo> porId = new HashMap<>();
+        Map<Integer, Odontologo> porUsuario = new HashMap<>();
+        for (Odontologo o : new OdontologoRepositoryImpl(conn).listarTodos()) {
+            if (o.getUsuario().getEstado() == 1) {
+                activos.add(o);
+            }
+            porId.put(o.getIdOdontologo(), o);
+            porUsuario.put(o.getUsuario().getIdUsuario(), o);
+        }
+        return new Directorio(List.copyOf(activos), Map.copyOf(porId), Map.copyOf(porUsuario));
+    });
+
+    private DirectorioOdontologos() {
+    }
+
+    static Directorio obtener() throws SQLException {
+        return CACHE.obtener();
+    }
+
+    static void invalidarAlConfirmar(Connection conn) {
+        CACHE.invalidarAlConfirmar(conn);
+    }
+
+    /**
+     * Copia de un odontólogo del directorio (con su usuario), para que quien la reciba pueda
+     * modificarla sin alterar la instantánea compartida.
+     */
+    static Odontologo copia(Odontologo o) {
+        Usuario u = new Usuario();
+        u.setIdUsuario(o.getUsuario().getIdUsuario());
+        u.setNombreCompleto(o.getUsuario().getNombreCompleto());
+        u.setEmail(o.getUsuario().getEmail());
+        u.setEstado(o.getUsuario().getEstado());
+
+        Odontologo copia = new Odontologo();
+        copia.setIdOdontologo(o.getIdOdontologo());
+        copia.setEspecialidad(o.getEspecialidad());
+        copia.setCodigoMedico(o.getCodigoMedico());
+        copia.setUsuario(u);
+        return copia;
+    }
+}
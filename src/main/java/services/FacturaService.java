@@ -12,6 +12,8 @@ package services;
  */
 
 import models.Factura;
+import models.Pagina;
+import repository.CriteriosFactura;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +27,23 @@ public interface FacturaService {
      */
     List<Factura> listar();
 
+    /**
+     * Consulta el historial de facturas con filtros (rango de fechas, método de pago, cliente),
+     * de la más reciente a la más antigua y paginado por cursor.
+     *
+     * @param criterios Filtros, cursor y tamaño de página.
+     * @return La página de facturas y el cursor de la siguiente (null si no hay más).
+     */
+    Pagina<Factura> buscar(CriteriosFactura criterios);
+
+    /**
+     * Estima cuántas facturas cumplen los filtros sin contarlas una por una.
+     *
+     * @param criterios Filtros de la búsqueda (se ignoran el cursor y el tamaño).
+     * @return Cantidad aproximada, o -1 si no se puede estimar.
+     */
+    long estimarTotal(CriteriosFactura criterios);
+
     /**
      * Busca una factura específica por su número único (ID).
      * Este método es esencial para la funcionalidad de "Ver Detalle" o "Imprimir PDF",
@@ -35,6 +54,15 @@ public interface FacturaService {
      */
     Optional<Factura> porId(int id);
 
+    /**
+     * Carga los detalles (ítems) de varias facturas con una sola consulta, en lugar de una por
+     * factura. Pensado para procesar lotes de facturas (exportación de PDF por rango de fechas).
+     *
+     * @param facturas Facturas obtenidas con buscar(); a cada una se le asignan sus detalles
+     *                 (lista vacía si no tiene).
+     */
+    void cargarDetalles(List<Factura> facturas);
+
     /**
      * Registra una nueva factura en el sistema.
      * Este es un método transaccional complejo que debe encargarse de:
@@ -1,6 +1,7 @@
 package services;
 
 import models.Factura;
+import models.Pagina;
 import models.DetalleFactura;
 import models.Producto; // Import necesario
 import repository.*;
@@ -8,7 +9,12 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class FacturaServiceImpl implements FacturaService {
@@ -18,8 +24,11 @@ public class FacturaServiceImpl implements FacturaService {
     private final DetalleFacturaRepository detalleRepo;
     private final ProductoRepository productoRepo;
     private final CitaRepository citaRepo;
+    // Conexión de la solicitud (para atar las reservas de stock a su transacción)
+    private final Connection conn;
 
     public FacturaServiceImpl(Connection conn) {
+        this.conn = conn;
         this.facturaRepo = new FacturaRepositoryImpl(conn);
         this.detalleRepo = new DetalleFacturaRepositoryImpl(conn);
         this.productoRepo = new ProductoRepositoryImpl(conn);
@@ -33,6 +42,18 @@ public class FacturaServiceImpl implements FacturaService {
         catch (SQLException e) { throw new ServiceJdbcException(e.getMessage(), e); }
     }
 
+    @Override
+    public Pagina<Factura> buscar(CriteriosFactura criterios) {
+        try { return facturaRepo.buscar(criterios); }
+        catch (SQLException e) { throw new ServiceJdbcException(e.getMessage(), e); }
+    }
+
+    @Override
+    public long estimarTotal(CriteriosFactura criterios) {
+        try { return facturaRepo.estimarTotal(criterios); }
+        catch (SQLException e) { throw new ServiceJdbcException(e.getMessage(), e); }
+    }
+
     @Override
     public Optional<Factura> porId(int id) {
         try {
@@ -45,6 +66,23 @@ public class FacturaServiceImpl implements FacturaService {
         } catch (SQLException e) { throw new ServiceJdbcException(e.getMessage(), e); }
     }
 
+    @Override
+    public void cargarDetalles(List<Factura> facturas) {
+        if (facturas.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(facturas.size());
+        for (Factura f : facturas) {
+            ids.add(f.getIdFactura());
+        }
+        try {
+            Map<Integer, List<DetalleFactura>> detalles = detalleRepo.listarPorFacturas(ids);
+            for (Factura f : facturas) {
+                f.setDetalles(detalles.getOrDefault(f.getIdFactura(), new ArrayList<>()));
+            }
+        } catch (SQLException e) { throw new ServiceJdbcException(e.getMessage(), e); }
+    }
+
     @Override
     public void calcularTotales(Factura factura) {
         BigDecimal subtotal = BigDecimal.ZERO;
@@ -66,46 +104,42 @@ public class FacturaServiceImpl implements FacturaService {
         factura.setTotalPagar(total);
     }
 
+    /**
+     * Registra una factura con un camino basado en conjuntos: como máximo una consulta IN para
+     * cargar los productos que el motor de stock no tiene en memoria, un lote de UPDATE condicionales
+     * para el stock, la cabecera, un lote de detalles y el cambio de estado de la cita.
+     */
     @Override
     public int guardar(Factura factura) {
+        MotorStock.Reserva reserva = null;
         try {
-            // 1. VALIDACIÓN PREVIA DE STOCK (CRÍTICO)
-            // Antes de guardar nada, verificamos si alcanza el inventario para TODOS los productos
-            if (factura.getDetalles() != null) {
-                for (DetalleFactura d : factura.getDetalles()) {
-                    if ("Producto".equalsIgnoreCase(d.getTipoItem()) && d.getProducto() != null) {
-                        // Consultamos el stock actual en tiempo real
-                        Producto pActual = productoRepo.porId(d.getProducto().getIdProducto());
-
-                        if (pActual == null) {
-                            throw new ServiceJdbcException("El producto con ID " + d.getProducto().getIdProducto() + " no existe.");
-                        }
-
-                        if (pActual.getStock() < d.getCantidad()) {
-                            throw new ServiceJdbcException("Stock insuficiente para: " + pActual.getNombre() +
-                                    ". Disponible: " + pActual.getStock() +
-                                    ", Solicitado: " + d.getCantidad());
-                        }
-                    }
-                }
+            // 1. RESERVA DE STOCK (CRÍTICO)
+            // Antes de guardar nada, apartamos en memoria el inventario de TODOS los productos de una vez.
+            // Si alguno no alcanza se relee su stock de la base; si tampoco alcanza, no queda nada reservado
+            // y la factura se rechaza antes de escribir.
+            Map<Integer, Integer> cantidades = cantidadesPorProducto(factura);
+            if (!cantidades.isEmpty()) {
+                reserva = MotorStock.getInstancia().reservar(cantidades, this::cargarProductos);
             }
 
-            // 2. Calcular Totales
-            calcularTotales(factura);
+            // 2. Descontar Stock
+            // Un solo lote de UPDATE condicionales: la base de datos tiene la última palabra sobre el stock.
+            // Si algún producto no alcanza, el lote se revierte completo antes de lanzar el error:
+            // FacturaServlet atrapa la excepción y la solicitud termina con commit, así que no puede
+            // quedar descontado el stock de los productos que sí alcanzaban.
+            List<Integer> faltantes = descontarTodoONada(cantidades);
+            if (!faltantes.isEmpty()) {
+                throw new ServiceJdbcException("Stock insuficiente para: " + nombresDe(faltantes, cantidades) +
+                        ". El inventario cambió mientras se registraba la factura.");
+            }
 
-            // 3. Guardar Cabecera
+            // 3. Calcular Totales y Guardar Cabecera
+            calcularTotales(factura);
             int idFactura = facturaRepo.guardar(factura);
 
-            // 4. Guardar Detalles y Descontar Stock
+            // 4. Guardar Detalles (un solo lote)
             if (factura.getDetalles() != null) {
                 detalleRepo.guardar(idFactura, factura.getDetalles());
-
-                for (DetalleFactura d : factura.getDetalles()) {
-                    if ("Producto".equalsIgnoreCase(d.getTipoItem()) && d.getProducto() != null) {
-                        // Aquí ya es seguro descontar porque validamos arriba
-                        productoRepo.actualizarStock(d.getProducto().getIdProducto(), -d.getCantidad());
-                    }
-                }
             }
 
             // 5. Actualizar Cita
@@ -113,10 +147,110 @@ public class FacturaServiceImpl implements FacturaService {
                 citaRepo.actualizarEstado(factura.getCita().getIdCita(), "Facturada");
             }
 
+            // 6. La reserva se consolida con el commit de la solicitud o se libera con el rollback
+            if (reserva != null) {
+                reserva.terminarCon(conn);
+            }
             return idFactura;
 
         } catch (SQLException e) {
+            if (reserva != null) {
+                reserva.liberar();
+            }
             throw new ServiceJdbcException("Error crítico al facturar: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            if (reserva != null) {
+                reserva.liberar();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Suma las cantidades de los ítems de tipo Producto agrupadas por id de producto
+     * (un mismo producto puede aparecer en varias líneas).
+     */
+    private Map<Integer, Integer> cantidadesPorProducto(Factura factura) {
+        Map<Integer, Integer> cantidades = new LinkedHashMap<>();
+        if (factura.getDetalles() != null) {
+            for (DetalleFactura d : factura.getDetalles()) {
+                if ("Producto".equalsIgnoreCase(d.getTipoItem()) && d.getProducto() != null) {
+                    cantidades.merge(d.getProducto().getIdProducto(), d.getCantidad(), Integer::sum);
+                }
+            }
+        }
+        return cantidades;
+    }
+
+    /**
+     * Carga en una sola consulta (IN) los productos que el motor de stock todavía no tiene en memoria.
+     */
+    private List<Producto> cargarProductos(Collection<Integer> ids) throws SQLException {
+        return productoRepo.porIds(ids);
+    }
+
+    /**
+     * Descuenta el stock de todos los productos de la factura o de ninguno. Dentro de la
+     * transacción de la solicitud usa un punto de guardado; con autocommit, el lote va en una
+     * transacción propia.
+     *
+     * @param cantidades Cantidad a descontar por id de producto.
+     * @return Ids de los productos sin stock suficiente; si hay alguno, no se descontó nada.
+     * @throws SQLException Si falla el descuento o la reversión.
+     */
+    private List<Integer> descontarTodoONada(Map<Integer, Integer> cantidades) throws SQLException {
+        if (cantidades.isEmpty()) {
+            return List.of();
+        }
+        boolean autocommit = conn.getAutoCommit();
+        if (autocommit) {
+            conn.setAutoCommit(false);
+        }
+        Savepoint antes = autocommit ? null : conn.setSavepoint();
+        try {
+            List<Integer> faltantes = productoRepo.descontarStock(cantidades);
+            if (!faltantes.isEmpty()) {
+                revertirHasta(antes);
+            } else if (autocommit) {
+                conn.commit();
+            } else {
+                conn.releaseSavepoint(antes);
+            }
+            return faltantes;
+        } catch (SQLException | RuntimeException e) {
+            revertirHasta(antes);
+            throw e;
+        } finally {
+            if (autocommit) {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Revierte hasta el punto de guardado o, si no hay (lote con transacción propia), la transacción completa.
+     */
+    private void revertirHasta(Savepoint punto) throws SQLException {
+        if (punto != null) {
+            conn.rollback(punto);
+        } else {
+            conn.rollback();
+        }
+    }
+
+    /**
+     * Nombres de los productos con faltante, para el mensaje de error. Los contadores en memoria de
+     * todos los productos de la factura se descartan para recargarlos de la base en el próximo uso:
+     * los de los faltantes estaban desfasados y los demás se tocaron en un descuento revertido.
+     */
+    private String nombresDe(List<Integer> faltantes, Map<Integer, Integer> cantidades) throws SQLException {
+        List<String> nombres = new ArrayList<>();
+        for (Producto p : productoRepo.porIds(faltantes)) {
+            nombres.add(p.getNombre() + " (disponible: " + p.getStock() + ")");
+        }
+        for (Integer id : cantidades.keySet()) {
+            MotorStock.getInstancia().invalidar(id);
         }
+        return String.join(", ", nombres);
     }
-}
\ No newline at end of file
+}
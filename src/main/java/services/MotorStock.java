@@ -0,0 +1,271 @@
+package services;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción:
+ * Motor de reservas de stock en memoria para la facturación.
+ * Antes, cada factura consultaba el stock de cada producto y después lo descontaba; dos facturas
+ * concurrentes podían pasar ambas la validación y vender más de lo que había.
+ *
+ * El motor mantiene por producto dos contadores atómicos (sin bloqueos):
+ * - disponible: stock que todavía se puede reservar.
+ * - reservado: unidades apartadas por facturas cuya transacción aún no termina.
+ * Una factura reserva todos sus productos de una vez (todo o nada). Al confirmarse la transacción
+ * la reserva se consolida; si se revierte, las unidades vuelven a estar disponibles.
+ *
+ * La base de datos sigue siendo la fuente de verdad: el descuento se persiste con un UPDATE
+ * condicional (stock >= cantidad), de modo que si los contadores se desfasan (otro nodo, un ajuste
+ * manual) la factura igual falla sin dejar stock negativo, y el contador del producto se vuelve a
+ * cargar. Por lo mismo, un contador que dice que no alcanza no basta para rechazar: pudo haber una
+ * reposición fuera de la aplicación o en otro servidor. Esos productos se recargan de la base y se
+ * reintenta una vez; solo si el stock leído tampoco alcanza se devuelven las unidades ya apartadas
+ * y la factura se rechaza. Los contadores se cargan de la base la primera vez que se usa cada
+ * producto y se descartan cuando el producto se edita.
+ */
+
+import models.Producto;
+import util.ConexionDiferida;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class MotorStock {
+
+    private static final MotorStock INSTANCIA = new MotorStock();
+
+    /**
+     * Carga desde la base de datos los productos cuyos contadores todavía no están en memoria.
+     */
+    @FunctionalInterface
+    interface CargadorProductos {
+        List<Producto> cargar(Collection<Integer> ids) throws SQLException;
+    }
+
+    /**
+     * Contadores de un producto.
+     */
+    static final class ContadorStock {
+        private final String nombre;
+        private final AtomicInteger disponible;
+        private final AtomicInteger reservado = new AtomicInteger();
+
+        ContadorStock(String nombre, int stock) {
+            this.nombre = nombre;
+            this.disponible = new AtomicInteger(stock);
+        }
+
+        /**
+         * Aparta unidades si alcanzan (compare-and-set, sin bloqueos).
+         * @return false si el disponible no alcanza.
+         */
+        boolean reservar(int cantidad) {
+            while (true) {
+                int actual = disponible.get();
+                if (actual < cantidad) {
+                    return false;
+                }
+                if (disponible.compareAndSet(actual, actual - cantidad)) {
+                    reservado.addAndGet(cantidad);
+                    return true;
+                }
+            }
+        }
+
+        void consolidar(int cantidad) {
+            reservado.addAndGet(-cantidad);
+        }
+
+        void liberar(int cantidad) {
+            reservado.addAndGet(-cantidad);
+            disponible.addAndGet(cantidad);
+        }
+
+        String getNombre() {
+            return nombre;
+        }
+
+        int getDisponible() {
+            return disponible.get();
+        }
+
+        int getReservado() {
+            return reservado.get();
+        }
+    }
+
+    /**
+     * Unidades apartadas por una factura. confirmar() y liberar() son idempotentes y
+     * excluyentes: solo la primera llamada tiene efecto.
+     */
+    static final class Reserva {
+        private final Map<ContadorStock, Integer> items;
+        private final AtomicBoolean terminada = new AtomicBoolean();
+
+        private Reserva(Map<ContadorStock, Integer> items) {
+            this.items = items;
+        }
+
+        /** La transacción se confirmó: las unidades dejan de estar reservadas. */
+        void confirmar() {
+            if (terminada.compareAndSet(false, true)) {
+                items.forEach(ContadorStock::consolidar);
+            }
+        }
+
+        /** La factura falló o se revirtió: las unidades vuelven a estar disponibles. */
+        void liberar() {
+            if (terminada.compareAndSet(false, true)) {
+                items.forEach(ContadorStock::liberar);
+            }
+        }
+
+        /**
+         * Ata la reserva a la transacción de la conexión: se confirma con el commit y se libera
+         * con el rollback.
+         */
+        void terminarCon(Connection conn) {
+            ConexionDiferida.despuesDeRevertir(conn, this::liberar);
+            ConexionDiferida.despuesDeConfirmar(conn, this::confirmar);
+        }
+    }
+
+    private final Map<Integer, ContadorStock> contadores = new ConcurrentHashMap<>();
+
+    private MotorStock() {
+    }
+
+    static MotorStock getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Reserva de una sola vez las cantidades de todos los productos de una factura.
+     *
+     * @param cantidades Cantidad total por id de producto.
+     * @param cargador   Carga los productos que aún no tienen contador o cuyo contador no alcanza.
+     * @return La reserva, que debe confirmarse o liberarse.
+     * @throws ServiceJdbcException Si un producto no existe o su stock no alcanza (nada queda reservado).
+     * @throws SQLException         Si falla la carga de los contadores.
+     */
+    Reserva reservar(Map<Integer, Integer> cantidades, CargadorProductos cargador) throws SQLException {
+        Map<Integer, ContadorStock> porId = contadoresDe(cantidades.keySet(), cargador);
+
+        // Orden fijo por id para que el resultado no dependa del orden de las líneas de la factura
+        Map<Integer, Integer> ordenadas = new TreeMap<>(cantidades);
+        Map<ContadorStock, Integer> apartadas = new LinkedHashMap<>();
+        List<Integer> sinAlcanzar = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> item : ordenadas.entrySet()) {
+            ContadorStock contador = porId.get(item.getKey());
+            if (contador == null) {
+                apartadas.forEach(ContadorStock::liberar);
+                throw new ServiceJdbcException("El producto con ID " + item.getKey() + " no existe.");
+            }
+            if (contador.reservar(item.getValue())) {
+                apartadas.put(contador, item.getValue());
+            } else {
+                sinAlcanzar.add(item.getKey());
+            }
+        }
+        if (sinAlcanzar.isEmpty()) {
+            return new Reserva(apartadas);
+        }
+
+        // El contador puede estar atrasado respecto de la base: se recarga y se reintenta una vez
+        Map<Integer, ContadorStock> recargados;
+        try {
+            recargados = recargar(sinAlcanzar, porId, cargador);
+        } catch (SQLException | RuntimeException e) {
+            apartadas.forEach(ContadorStock::liberar);
+            throw e;
+        }
+        for (Integer id : sinAlcanzar) {
+            ContadorStock contador = recargados.get(id);
+            int cantidad = ordenadas.get(id);
+            if (contador == null) {
+                apartadas.forEach(ContadorStock::liberar);
+                throw new ServiceJdbcException("El producto con ID " + id + " no existe.");
+            }
+            if (!contador.reservar(cantidad)) {
+                apartadas.forEach(ContadorStock::liberar);
+                throw new ServiceJdbcException("Stock insuficiente para: " + contador.getNombre() +
+                        ". Disponible: " + Math.max(contador.getDisponible(), 0) +
+                        ", Solicitado: " + cantidad);
+            }
+            apartadas.put(contador, cantidad);
+        }
+        return new Reserva(apartadas);
+    }
+
+    /**
+     * Descarta el contador de un producto; se vuelve a cargar de la base en su próximo uso.
+     * Las reservas en curso siguen actuando sobre el contador anterior.
+     */
+    void invalidar(int idProducto) {
+        contadores.remove(idProducto);
+    }
+
+    /**
+     * Descarta el contador de un producto cuando la transacción de la conexión se confirme.
+     */
+    void invalidarAlConfirmar(Connection conn, int idProducto) {
+        ConexionDiferida.despuesDeConfirmar(conn, () -> invalidar(idProducto));
+    }
+
+    /**
+     * Contadores de los productos indicados, cargando en una sola llamada los que faltan.
+     * Los productos inexistentes no aparecen en el resultado.
+     */
+    private Map<Integer, ContadorStock> contadoresDe(Collection<Integer> ids, CargadorProductos cargador)
+            throws SQLException {
+        Map<Integer, ContadorStock> resultado = new HashMap<>();
+        List<Integer> faltantes = new ArrayList<>();
+        for (Integer id : ids) {
+            ContadorStock contador = contadores.get(id);
+            if (contador != null) {
+                resultado.put(id, contador);
+            } else {
+                faltantes.add(id);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            for (Producto p : cargador.cargar(faltantes)) {
+                // Si otro hilo lo cargó mientras tanto, se usa el suyo para compartir los contadores
+                ContadorStock contador = contadores.computeIfAbsent(p.getIdProducto(),
+                        id -> new ContadorStock(p.getNombre(), p.getStock()));
+                resultado.put(p.getIdProducto(), contador);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Vuelve a leer de la base el stock de los productos indicados y reemplaza sus contadores.
+     * Si otro hilo ya los reemplazó, se usa el suyo (es igual de reciente). Las reservas en curso
+     * sobre el contador anterior terminan sobre él sin afectar al nuevo.
+     *
+     * @param anteriores Contadores con los que no alcanzó, para no pisar un reemplazo ajeno.
+     */
+    private Map<Integer, ContadorStock> recargar(List<Integer> ids, Map<Integer, ContadorStock> anteriores,
+                                                 CargadorProductos cargador) throws SQLException {
+        Map<Integer, ContadorStock> resultado = new HashMap<>();
+        for (Producto p : cargador.cargar(ids)) {
+            ContadorStock anterior = anteriores.get(p.getIdProducto());
+            ContadorStock nuevo = new ContadorStock(p.getNombre(), p.getStock());
+            resultado.put(p.getIdProducto(), contadores.compute(p.getIdProducto(),
+                    (id, actual) -> actual == null || actual == anterior ? nuevo : actual));
+        }
+        return resultado;
+    }
+}
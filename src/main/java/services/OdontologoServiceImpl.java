@@ -9,6 +9,7 @@ package services;
  * Esta clase actúa como intermediario entre los controladores (OdontologoServlet, CitaServlet)
  * y la capa de acceso a datos (OdontologoRepository).
  * Se encarga de coordinar la recuperación de información profesional del personal médico.
+ * Las consultas se atienden desde DirectorioOdontologos (caché en memoria), sin ir a la base de datos.
  */
 
 import models.Odontologo;
@@ -16,6 +17,7 @@ import repository.OdontologoRepository;
 import repository.OdontologoRepositoryImpl;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,7 +46,12 @@ public class OdontologoServiceImpl implements OdontologoService {
     @Override
     public List<Odontologo> listar() {
         try {
-            return repository.listar();
+            // Se entregan copias para que la instantánea compartida no se modifique
+            List<Odontologo> odontologos = new ArrayList<>();
+            for (Odontologo o : DirectorioOdontologos.obtener().activos()) {
+                odontologos.add(DirectorioOdontologos.copia(o));
+            }
+            return odontologos;
         } catch (SQLException e) {
             // Captura la excepción SQL (técnica) y la relanza como una excepción de servicio (negocio)
             // para mantener el desacoplamiento entre capas.
@@ -62,7 +69,8 @@ public class OdontologoServiceImpl implements OdontologoService {
     @Override
     public Optional<Odontologo> porId(int id) {
         try {
-            return Optional.ofNullable(repository.porId(id));
+            return Optional.ofNullable(DirectorioOdontologos.obtener().porId().get(id))
+                    .map(DirectorioOdontologos::copia);
         } catch (SQLException e) {
             throw new ServiceJdbcException(e.getMessage(), e.getCause());
         }
@@ -80,14 +88,8 @@ public class OdontologoServiceImpl implements OdontologoService {
     @Override
     public Optional<Odontologo> porIdUsuario(int idUsuario) {
         try {
-            /*
-             * Nota Técnica:
-             * Si el método 'porIdUsuario' no está definido en la interfaz genérica del Repositorio,
-             * realizamos un casteo explícito a la implementación concreta (OdontologoRepositoryImpl)
-             * para acceder a este método especializado.
-             * Lo ideal en una arquitectura estricta es agregar el método a la interfaz OdontologoRepository.
-             */
-            return Optional.ofNullable(((OdontologoRepositoryImpl) repository).porIdUsuario(idUsuario));
+            return Optional.ofNullable(DirectorioOdontologos.obtener().porUsuario().get(idUsuario))
+                    .map(DirectorioOdontologos::copia);
         } catch (SQLException e) {
             throw new ServiceJdbcException(e.getMessage(), e.getCause());
         }
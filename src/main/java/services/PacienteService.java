@@ -75,4 +75,14 @@ public interface PacienteService {
      * @param id El ID del paciente a reactivar.
      */
     void activar(int id);
-}
\ No newline at end of file
+
+    /**
+     * Autocompletado de pacientes activos por cédula, nombres o apellidos (sin importar tildes).
+     *
+     * @param texto  Texto escrito por el usuario (al menos dos caracteres).
+     * @param limite Cantidad máxima de sugerencias.
+     * @return Pacientes del más al menos relevante; lista vacía si no hay coincidencias o el
+     *         índice de búsqueda todavía se está construyendo.
+     */
+    List<Paciente> sugerir(String texto, int limite);
+}
@@ -11,10 +11,12 @@ package services;
  */
 
 import models.Paciente;
+import repository.IndicePacientes;
 import repository.PacienteRepository;
 import repository.PacienteRepositoryImpl;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.List;
 import java.util.Optional;
 
@@ -166,10 +168,38 @@ public class PacienteServiceImpl implements PacienteService {
             repository.guardar(paciente);
 
         } catch (SQLException e) {
+            // Dos altas simultáneas con la misma cédula pasan ambas la validación: el índice
+            // único de la base rechaza la segunda
+            if (esCedulaDuplicada(e)) {
+                throw new ServiceJdbcException("La cédula ya está registrada en el sistema.", e);
+            }
             throw new ServiceJdbcException(e.getMessage(), e.getCause());
         }
     }
 
+    // Violación de clave única: código 1062 en MySQL, estado SQL 23505 en H2 (pruebas de carga)
+    private static boolean esCedulaDuplicada(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException
+                && (e.getErrorCode() == 1062 || "23505".equals(e.getSQLState()));
+    }
+
+    /**
+     * Autocompletado: el índice en memoria resuelve y ordena los IDs, y la base de datos
+     * solo devuelve esas pocas filas por clave primaria.
+     */
+    @Override
+    public List<Paciente> sugerir(String texto, int limite) {
+        List<Integer> ids = IndicePacientes.sugerir(texto, limite);
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return repository.porIds(ids);
+        } catch (SQLException e) {
+            throw new ServiceJdbcException(e.getMessage(), e);
+        }
+    }
+
     /*
      * -------------------------------------------------------------------------
      * MÉTODOS PRIVADOS DE UTILIDAD (ALGORITMOS DE VALIDACIÓN)
@@ -185,11 +215,12 @@ public class PacienteServiceImpl implements PacienteService {
      * 3. Validar el tercer dígito (tipo de persona).
      * 4. Aplicar el algoritmo de coeficientes 2.1.2.1... sobre los primeros 9 dígitos.
      * 5. Calcular el dígito verificador y compararlo con el décimo dígito de la cédula.
+     * Es visible en el paquete para medirla en los benchmarks (src/jmh/java).
      *
      * @param cedula La cadena con el número de identificación.
      * @return true si es válida, false si no cumple el formato o el algoritmo.
      */
-    private boolean esCedulaValida(String cedula) {
+    static boolean esCedulaValida(String cedula) {
         // Paso 1: Validación básica de formato (no nulo y exactamente 10 dígitos)
         if (cedula == null || !cedula.matches("\\d{10}")) {
             return false;
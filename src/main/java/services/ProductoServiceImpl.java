@@ -20,9 +20,12 @@ import java.util.Optional;
 public class ProductoServiceImpl implements ProductoService {
 
     private ProductoRepository repository;
+    // Conexión de la solicitud (para descartar el contador de stock en memoria al confirmar)
+    private Connection conn;
 
     public ProductoServiceImpl(Connection conn) {
         this.repository = new ProductoRepositoryImpl(conn);
+        this.conn = conn;
     }
 
     // ... (listar, porId, guardar, eliminar, listarInactivos, activar se mantienen igual) ...
@@ -43,6 +46,10 @@ public class ProductoServiceImpl implements ProductoService {
     public void guardar(Producto producto) {
         try {
             repository.guardar(producto);
+            // El stock pudo cambiar: el motor de reservas lo vuelve a leer en su próximo uso
+            if (producto.getIdProducto() > 0) {
+                MotorStock.getInstancia().invalidarAlConfirmar(conn, producto.getIdProducto());
+            }
         } catch (SQLException e) {
             // El catch aquí atrapará la excepción de stock insuficiente lanzada por el Repositorio
             throw new ServiceJdbcException("Error al guardar producto: " + e.getMessage(), e.getCause());
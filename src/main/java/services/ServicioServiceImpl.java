@@ -9,6 +9,8 @@ package services;
  * Esta clase actúa como intermediario entre los controladores y la capa de acceso a datos (Repository).
  * Se encarga de coordinar las operaciones CRUD para el catálogo de servicios (ej: Limpieza, Extracción, etc.)
  * y de gestionar el manejo de excepciones técnicas.
+ * Las lecturas se atienden desde CatalogoServicios (caché en memoria); guardar y eliminar
+ * reconstruyen la caché cuando la transacción se confirma.
  */
 
 import models.Servicio;
@@ -16,6 +18,7 @@ import repository.ServicioRepository;
 import repository.ServicioRepositoryImpl;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +26,8 @@ public class ServicioServiceImpl implements ServicioService {
 
     // Dependencia del repositorio para el acceso a la base de datos
     private ServicioRepository repository;
+    // Conexión de la solicitud (para invalidar la caché al confirmar)
+    private Connection conn;
 
     /**
      * Constructor que inicializa el servicio inyectando la conexión a la base de datos.
@@ -32,6 +37,7 @@ public class ServicioServiceImpl implements ServicioService {
      */
     public ServicioServiceImpl(Connection conn) {
         this.repository = new ServicioRepositoryImpl(conn);
+        this.conn = conn;
     }
 
     /**
@@ -43,7 +49,12 @@ public class ServicioServiceImpl implements ServicioService {
     @Override
     public List<Servicio> listar() {
         try {
-            return repository.listar();
+            // Se entregan copias para que la instantánea compartida no se modifique
+            List<Servicio> servicios = new ArrayList<>();
+            for (Servicio s : CatalogoServicios.obtener().lista()) {
+                servicios.add(CatalogoServicios.copia(s));
+            }
+            return servicios;
         } catch (SQLException e) {
             // Envolvemos la excepción técnica (SQL) en una excepción de tiempo de ejecución (Runtime)
             // para mantener limpias las capas superiores y centralizar el manejo de errores.
@@ -61,8 +72,8 @@ public class ServicioServiceImpl implements ServicioService {
     @Override
     public Optional<Servicio> porId(int id) {
         try {
-            // Usamos Optional.ofNullable para manejar elegantemente el caso en que el repositorio retorne null
-            return Optional.ofNullable(repository.porId(id));
+            // Usamos Optional.ofNullable para manejar elegantemente el caso en que el servicio no exista
+            return Optional.ofNullable(CatalogoServicios.obtener().porId().get(id)).map(CatalogoServicios::copia);
         } catch (SQLException e) {
             throw new ServiceJdbcException("Error al buscar servicio por ID: " + e.getMessage(), e);
         }
@@ -79,6 +90,7 @@ public class ServicioServiceImpl implements ServicioService {
     public void guardar(Servicio servicio) {
         try {
             repository.guardar(servicio);
+            CatalogoServicios.invalidarAlConfirmar(conn);
         } catch (SQLException e) {
             throw new ServiceJdbcException("Error al guardar servicio: " + e.getMessage(), e);
         }
@@ -96,6 +108,7 @@ public class ServicioServiceImpl implements ServicioService {
     public void eliminar(int id) {
         try {
             repository.eliminar(id);
+            CatalogoServicios.invalidarAlConfirmar(conn);
         } catch (SQLException e) {
             throw new ServiceJdbcException("Error al eliminar servicio: " + e.getMessage(), e);
         }
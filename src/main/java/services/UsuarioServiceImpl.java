@@ -9,6 +9,7 @@ package services;
  * Esta clase actúa como intermediario entre el controlador (Servlet) y la capa de datos (Repository).
  * Se encarga de orquestar operaciones complejas como la creación de usuarios con roles específicos
  * (ej. Odontólogos) y la seguridad (encriptación de contraseñas).
+ * Cada cambio de usuario reconstruye el directorio de odontólogos en memoria al confirmarse.
  */
 
 import models.Usuario;
@@ -25,6 +26,8 @@ public class UsuarioServiceImpl implements UsuarioService {
     // Dependencias de Repositorios para acceso a datos
     private UsuarioRepository usuarioRepo;
     private OdontologoRepository odontologoRepo;
+    // Conexión de la solicitud (para invalidar el directorio de odontólogos al confirmar)
+    private Connection conn;
 
     /**
      * Constructor que inyecta la conexión a la base de datos.
@@ -36,6 +39,7 @@ public class UsuarioServiceImpl implements UsuarioService {
         this.usuarioRepo = new UsuarioRepositoryImpl(conn);
         // Instanciamos también el repo de odontólogos para guardar detalles profesionales si es necesario
         this.odontologoRepo = new OdontologoRepositoryImpl(conn);
+        this.conn = conn;
     }
 
     /**
@@ -134,6 +138,12 @@ public class UsuarioServiceImpl implements UsuarioService {
                 }
             }
 
+            /*
+             * El nombre, el email o el perfil profesional pueden haber cambiado: el directorio
+             * de odontólogos se reconstruye cuando la transacción se confirme.
+             */
+            DirectorioOdontologos.invalidarAlConfirmar(conn);
+
         } catch (SQLException e) {
             throw new ServiceJdbcException("Error al guardar el usuario y sus detalles: " + e.getMessage(), e);
         }
@@ -149,6 +159,7 @@ public class UsuarioServiceImpl implements UsuarioService {
     public void eliminar(int id) {
         try {
             usuarioRepo.eliminar(id);
+            DirectorioOdontologos.invalidarAlConfirmar(conn);
         } catch (SQLException e) {
             throw new ServiceJdbcException(e.getMessage(), e);
         }
@@ -163,6 +174,7 @@ public class UsuarioServiceImpl implements UsuarioService {
     public void activar(int id) {
         try {
             usuarioRepo.activar(id);
+            DirectorioOdontologos.invalidarAlConfirmar(conn);
         } catch (SQLException e) {
             throw new ServiceJdbcException(e.getMessage(), e);
         }
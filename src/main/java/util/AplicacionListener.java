@@ -0,0 +1,40 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Listener del ciclo de vida de la aplicación. Al desplegar inicia el pool de
+ * conexiones (abre las conexiones mínimas en segundo plano), aplica las migraciones pendientes
+ * del esquema (Migrador) y construye el índice de búsqueda de pacientes; al detener o redeplegar
+ * la aplicación cierra el pool para no dejar conexiones abiertas contra MySQL.
+ * */
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import repository.IndicePacientes;
+
+@WebListener
+public class AplicacionListener implements ServletContextListener {
+
+    /**
+     * Se ejecuta al desplegar la aplicación.
+     * @param sce Evento con el contexto de la aplicación.
+     */
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        ConexionBDD.getPool();
+        // Antes de atender solicitudes: el esquema queda con sus índices al terminar el despliegue
+        Migrador.migrar();
+        IndicePacientes.cargarEnSegundoPlano();
+    }
+
+    /**
+     * Se ejecuta al detener la aplicación.
+     * @param sce Evento con el contexto de la aplicación.
+     */
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        ConexionBDD.cerrar();
+    }
+}
@@ -0,0 +1,147 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Caché de aplicación basada en una instantánea inmutable.
+ * Pensada para catálogos pequeños que se leen en casi todas las páginas y cambian muy pocas veces
+ * (servicios, odontólogos). Todo el contenido se carga de una vez en un objeto inmutable que se
+ * publica con un AtomicReference (copy-on-write): los lectores solo leen la referencia, sin bloqueos
+ * y sin tocar la base de datos.
+ *
+ * Cuando un servicio modifica la tabla, llama a invalidarAlConfirmar(conn): después del commit de la
+ * solicitud se incrementa la generación de la caché y se carga una instantánea nueva con una conexión
+ * propia de la base principal. Una instantánea cargada con una generación anterior nunca reemplaza a
+ * una más nueva, de modo que dos escrituras concurrentes no dejan publicada una versión vieja.
+ *
+ * Cada caché cuenta sus aciertos y sus recargas; MetricasServlet las expone en /metrics.
+ * */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CacheInstantanea<T> {
+
+    // Todas las cachés creadas, para exponer sus contadores
+    private static final List<CacheInstantanea<?>> REGISTRADAS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Carga el contenido completo de la caché con la conexión indicada.
+     * @param <T> Tipo de la instantánea (debe ser inmutable).
+     */
+    @FunctionalInterface
+    public interface Cargador<T> {
+        T cargar(Connection conn) throws SQLException;
+    }
+
+    // Contenido publicado junto con la generación de la caché en la que se empezó a cargar
+    private record Instantanea<T>(T valor, long generacion) {
+    }
+
+    private final String nombre;
+    private final Cargador<T> cargador;
+    private final AtomicReference<Instantanea<T>> actual = new AtomicReference<>();
+    private final AtomicLong generacion = new AtomicLong();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder recargas = new LongAdder();
+
+    /**
+     * @param nombre   Nombre de la caché para métricas y logs.
+     * @param cargador Consulta que arma la instantánea completa.
+     */
+    public CacheInstantanea(String nombre, Cargador<T> cargador) {
+        this.nombre = nombre;
+        this.cargador = cargador;
+        REGISTRADAS.add(this);
+    }
+
+    /**
+     * Devuelve la instantánea vigente; si no existe o quedó desactualizada, la carga.
+     * @return Contenido de la caché.
+     * @throws SQLException Si hay que cargar la instantánea y la consulta falla.
+     */
+    public T obtener() throws SQLException {
+        Instantanea<T> instantanea = actual.get();
+        if (instantanea != null && instantanea.generacion() == generacion.get()) {
+            aciertos.increment();
+            return instantanea.valor();
+        }
+        return recargar();
+    }
+
+    /**
+     * Carga una instantánea nueva desde la base principal y la publica, salvo que mientras tanto
+     * se haya publicado otra de una generación más reciente.
+     *
+     * @return Contenido cargado.
+     * @throws SQLException Si la consulta falla.
+     */
+    public T recargar() throws SQLException {
+        long generacionCarga = generacion.get();
+        T valor;
+        try (Connection conn = ConexionInstrumentada.envolver(ConexionBDD.getConnection())) {
+            valor = cargador.cargar(conn);
+        }
+        recargas.increment();
+        Instantanea<T> nueva = new Instantanea<>(valor, generacionCarga);
+        actual.accumulateAndGet(nueva,
+                (vigente, candidata) -> vigente == null || vigente.generacion() <= candidata.generacion() ? candidata : vigente);
+        return valor;
+    }
+
+    /**
+     * Marca la instantánea vigente como desactualizada; la próxima lectura la vuelve a cargar.
+     */
+    public void invalidar() {
+        generacion.incrementAndGet();
+    }
+
+    /**
+     * Invalida y recarga la caché cuando la transacción de la conexión indicada se confirme.
+     * Se llama desde los servicios que modifican la tabla cacheada.
+     *
+     * @param conn Conexión con la que se hizo la escritura.
+     */
+    public void invalidarAlConfirmar(Connection conn) {
+        ConexionDiferida.despuesDeConfirmar(conn, () -> {
+            invalidar();
+            try {
+                recargar();
+            } catch (SQLException e) {
+                // La caché queda invalidada: la próxima lectura volverá a intentar la carga
+                System.err.println("[CacheInstantanea] No se pudo recargar '" + nombre + "': " + e.getMessage());
+            }
+        });
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @return Lecturas atendidas con la instantánea vigente.
+     */
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    /**
+     * @return Veces que se cargó la instantánea desde la base de datos.
+     */
+    public long getRecargas() {
+        return recargas.sum();
+    }
+
+    /**
+     * @return Todas las cachés de instantánea de la aplicación.
+     */
+    public static List<CacheInstantanea<?>> getRegistradas() {
+        return Collections.unmodifiableList(REGISTRADAS);
+    }
+}
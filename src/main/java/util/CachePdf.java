@@ -0,0 +1,281 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Caché en disco de documentos generados (PDF de facturas), con tamaño máximo y
+ * desalojo del menos usado recientemente (LRU).
+ * Una factura no cambia después del commit, así que su PDF solo depende del id y de la versión de
+ * la plantilla que lo dibuja. Cada archivo se nombra con la clave y el hash de su contenido:
+ *   factura-125-v1-3f2a9c0d4b1e7a65.pdf
+ * El hash sirve de ETag fuerte y permite reconstruir el índice al reiniciar sin releer los archivos.
+ *
+ * - El índice (clave → archivo) vive en memoria; al iniciar se arma recorriendo el directorio en
+ *   orden de modificación y se borran los archivos de otras versiones de la plantilla.
+ * - Un archivo se escribe en un temporal y se renombra al final: nunca se sirve uno a medio escribir.
+ * - Al superar el tamaño máximo se borran los menos usados. Quien ya tiene el archivo abierto puede
+ *   terminar de enviarlo; quien no alcanzó a abrirlo lo trata como un fallo y lo vuelve a generar.
+ *
+ * Configuración (propiedades del sistema):
+ *   -Dendodental.pdf.cache.directorio  (por defecto <java.io.tmpdir>/endodental-pdf)
+ *   -Dendodental.pdf.cache.maximoMB    (por defecto 256; 0 desactiva la caché)
+ * */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class CachePdf {
+
+    /**
+     * Documento guardado en la caché.
+     * @param archivo Ruta del archivo.
+     * @param tamano  Tamaño en bytes.
+     * @param hash    Hash del contenido (primeros 16 dígitos hexadecimales del SHA-256).
+     */
+    public record Entrada(Path archivo, long tamano, String hash) {
+    }
+
+    private static final Pattern NOMBRE = Pattern.compile("(.+)-(\\d+)-v(\\d+)-([0-9a-f]{16})\\.pdf");
+
+    private final String prefijo;
+    private final int version;
+    private final Path directorio;
+    private final long maximoBytes;
+    // Orden de acceso: el primero es el menos usado recientemente
+    private final LinkedHashMap<Integer, Entrada> indice = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesOcupados;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    /**
+     * @param prefijo     Tipo de documento, parte del nombre de archivo (ej: "factura").
+     * @param version     Versión de la plantilla; al cambiarla los documentos anteriores se descartan.
+     * @param directorio  Directorio de la caché (se crea si no existe).
+     * @param maximoBytes Tamaño máximo del directorio; 0 desactiva la caché.
+     */
+    public CachePdf(String prefijo, int version, Path directorio, long maximoBytes) {
+        this.prefijo = prefijo;
+        this.version = version;
+        this.directorio = directorio;
+        this.maximoBytes = maximoBytes;
+        if (maximoBytes > 0) {
+            cargarIndice();
+        }
+    }
+
+    /**
+     * Crea la caché con la configuración de las propiedades del sistema.
+     *
+     * @param prefijo Tipo de documento.
+     * @param version Versión de la plantilla.
+     * @return Caché configurada.
+     */
+    public static CachePdf desdePropiedades(String prefijo, int version) {
+        Path directorio = Path.of(System.getProperty("endodental.pdf.cache.directorio",
+                Path.of(System.getProperty("java.io.tmpdir"), "endodental-pdf").toString()));
+        long maximoMB = Long.getLong("endodental.pdf.cache.maximoMB", 256);
+        return new CachePdf(prefijo, version, directorio, maximoMB * 1024 * 1024);
+    }
+
+    /**
+     * @param id Id del documento.
+     * @return La entrada guardada, o null si no está en la caché.
+     */
+    public Entrada buscar(int id) {
+        Entrada entrada;
+        synchronized (this) {
+            entrada = indice.get(id);
+        }
+        if (entrada == null) {
+            fallos.increment();
+        } else {
+            aciertos.increment();
+        }
+        return entrada;
+    }
+
+    /**
+     * Abre el archivo de una entrada para leerlo. Si otro hilo lo desalojó entre buscar() y
+     * abrir(), la entrada se olvida y se devuelve null.
+     *
+     * @param entrada Entrada obtenida con buscar().
+     * @return Canal de lectura, o null si el archivo ya no existe.
+     * @throws IOException Si falla la apertura por otro motivo.
+     */
+    public FileChannel abrir(Entrada entrada) throws IOException {
+        try {
+            return FileChannel.open(entrada.archivo(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            synchronized (this) {
+                if (indice.values().remove(entrada)) {
+                    bytesOcupados -= entrada.tamano();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Guarda un documento y desaloja los menos usados si se supera el tamaño máximo.
+     *
+     * @param id        Id del documento.
+     * @param contenido Bytes del PDF.
+     * @param largo     Cantidad de bytes válidos en 'contenido'.
+     * @return La entrada guardada, o null si la caché está desactivada o no se pudo escribir.
+     */
+    public Entrada guardar(int id, byte[] contenido, int largo) {
+        if (maximoBytes <= 0 || largo > maximoBytes) {
+            return null;
+        }
+        String hash = hash(contenido, largo);
+        Path archivo = directorio.resolve(prefijo + "-" + id + "-v" + version + "-" + hash + ".pdf");
+        Path temporal = null;
+        try {
+            Files.createDirectories(directorio);
+            temporal = Files.createTempFile(directorio, prefijo + "-" + id + "-", ".tmp");
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                ByteBuffer datos = ByteBuffer.wrap(contenido, 0, largo);
+                while (datos.hasRemaining()) {
+                    canal.write(datos);
+                }
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[CachePdf] No se pudo guardar " + archivo.getFileName() + ": " + e.getMessage());
+            if (temporal != null) {
+                borrar(temporal);
+            }
+            return null;
+        }
+        Entrada entrada = new Entrada(archivo, largo, hash);
+        List<Path> desalojados = new ArrayList<>();
+        synchronized (this) {
+            Entrada anterior = indice.put(id, entrada);
+            if (anterior != null) {
+                bytesOcupados -= anterior.tamano();
+                if (!anterior.archivo().equals(archivo)) {
+                    desalojados.add(anterior.archivo());
+                }
+            }
+            bytesOcupados += largo;
+            Iterator<Entrada> it = indice.values().iterator();
+            while (bytesOcupados > maximoBytes && it.hasNext()) {
+                Entrada vieja = it.next();
+                if (vieja == entrada) {
+                    continue;
+                }
+                it.remove();
+                bytesOcupados -= vieja.tamano();
+                desalojados.add(vieja.archivo());
+            }
+        }
+        for (Path p : desalojados) {
+            borrar(p);
+        }
+        return entrada;
+    }
+
+    /**
+     * Hash del contenido usado en el nombre del archivo y como ETag.
+     *
+     * @param contenido Bytes del documento.
+     * @param largo     Cantidad de bytes válidos.
+     * @return Primeros 16 dígitos hexadecimales del SHA-256.
+     */
+    public static String hash(byte[] contenido, int largo) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(contenido, 0, largo);
+            return HexFormat.of().formatHex(sha.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public synchronized long getBytesOcupados() {
+        return bytesOcupados;
+    }
+
+    // Arma el índice con los archivos existentes (los más viejos primero) y borra los que no sirven
+    private void cargarIndice() {
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+        List<Path> archivos = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio, prefijo + "-*")) {
+            ds.forEach(archivos::add);
+        } catch (IOException e) {
+            System.err.println("[CachePdf] No se pudo leer " + directorio + ": " + e.getMessage());
+            return;
+        }
+        archivos.sort((a, b) -> Long.compare(modificado(a), modificado(b)));
+        for (Path archivo : archivos) {
+            Matcher m = NOMBRE.matcher(archivo.getFileName().toString());
+            if (!m.matches() || !m.group(1).equals(prefijo) || Integer.parseInt(m.group(3)) != version) {
+                // Temporales que quedaron de una caída o documentos de otra versión de la plantilla
+                borrar(archivo);
+                continue;
+            }
+            try {
+                Entrada entrada = new Entrada(archivo, Files.size(archivo), m.group(4));
+                Entrada anterior = indice.put(Integer.parseInt(m.group(2)), entrada);
+                bytesOcupados += entrada.tamano();
+                if (anterior != null) {
+                    bytesOcupados -= anterior.tamano();
+                    borrar(anterior.archivo());
+                }
+            } catch (IOException | NumberFormatException e) {
+                borrar(archivo);
+            }
+        }
+        Iterator<Map.Entry<Integer, Entrada>> it = indice.entrySet().iterator();
+        while (bytesOcupados > maximoBytes && it.hasNext()) {
+            Entrada vieja = it.next().getValue();
+            it.remove();
+            bytesOcupados -= vieja.tamano();
+            borrar(vieja.archivo());
+        }
+    }
+
+    private static long modificado(Path archivo) {
+        try {
+            return Files.getLastModifiedTime(archivo).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void borrar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            System.err.println("[CachePdf] No se pudo borrar " + archivo.getFileName() + ": " + e.getMessage());
+        }
+    }
+}
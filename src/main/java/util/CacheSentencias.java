@@ -0,0 +1,267 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Caché LRU de sentencias preparadas asociada a una conexión física del pool.
+ * Los repositorios llaman a conn.prepareStatement con el mismo SQL constante en cada invocación
+ * (porId, existeCitaEnHorario, etc.). Con esta caché la sentencia preparada se conserva junto a la
+ * conexión física: al cerrarla en el try-with-resources del repositorio no se destruye, solo se
+ * limpian sus parámetros y queda disponible para la siguiente llamada con el mismo SQL.
+ *
+ * La caché tiene un tamaño máximo; cuando se llena se desaloja la sentencia usada hace más tiempo.
+ * Si la sentencia desalojada está en uso, se cierra recién cuando su dueño la cierre.
+ * La configuración que un repositorio cambie (fetchSize, maxRows, queryTimeout, fetchDirection,
+ * maxFieldSize) se restaura al devolver la sentencia: el siguiente uso del mismo SQL no hereda,
+ * por ejemplo, el modo streaming de MySQL (fetchSize = Integer.MIN_VALUE) o un límite de filas.
+ * Una conexión física solo la usa un hilo a la vez (el que la tiene prestada), por eso la caché
+ * no necesita sincronización.
+ * */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+final class CacheSentencias {
+
+    // Clave de la caché: el texto SQL y si se pidieron las claves generadas (RETURN_GENERATED_KEYS)
+    private record Clave(String sql, int clavesGeneradas) {
+    }
+
+    // Métodos que cambian la configuración de la sentencia más allá de un uso
+    private static final Set<String> CONFIGURACION = Set.of("setFetchSize", "setMaxRows", "setLargeMaxRows",
+            "setQueryTimeout", "setFetchDirection", "setMaxFieldSize");
+
+    // Sentencia física junto con su estado dentro de la caché
+    private static final class Entrada {
+        final PreparedStatement sentencia;
+        boolean enUso;
+        boolean desalojada;
+        // Configuración original, guardada antes del primer cambio (reconfigurada = true)
+        boolean reconfigurada;
+        int fetchSize;
+        int maxRows;
+        int queryTimeout;
+        int fetchDirection;
+        int maxFieldSize;
+
+        Entrada(PreparedStatement sentencia) {
+            this.sentencia = sentencia;
+        }
+
+        void guardarConfiguracion() throws SQLException {
+            fetchSize = sentencia.getFetchSize();
+            maxRows = sentencia.getMaxRows();
+            queryTimeout = sentencia.getQueryTimeout();
+            fetchDirection = sentencia.getFetchDirection();
+            maxFieldSize = sentencia.getMaxFieldSize();
+            reconfigurada = true;
+        }
+
+        void restaurarConfiguracion() throws SQLException {
+            if (!reconfigurada) {
+                return;
+            }
+            // Primero maxRows: algunos drivers (H2) rechazan un fetchSize mayor que el límite de filas vigente
+            sentencia.setMaxRows(maxRows);
+            sentencia.setFetchSize(fetchSize);
+            sentencia.setQueryTimeout(queryTimeout);
+            sentencia.setFetchDirection(fetchDirection);
+            sentencia.setMaxFieldSize(maxFieldSize);
+            reconfigurada = false;
+        }
+    }
+
+    private final Connection conexion;
+    private final int capacidad;
+    private final LongAdder aciertos;
+    private final LongAdder fallos;
+    private final LongAdder desalojos;
+
+    /*
+     * LinkedHashMap en orden de acceso: cada get() mueve la entrada al final, así la primera
+     * entrada siempre es la menos usada recientemente y es la que se desaloja al superar la capacidad.
+     */
+    private final LinkedHashMap<Clave, Entrada> entradas = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> masAntigua) {
+            if (size() > capacidad) {
+                desalojar(masAntigua.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * @param conexion  Conexión física dueña de las sentencias.
+     * @param capacidad Número máximo de sentencias conservadas.
+     * @param aciertos  Contador compartido (del pool) de sentencias reutilizadas.
+     * @param fallos    Contador compartido de sentencias que hubo que preparar.
+     * @param desalojos Contador compartido de sentencias desalojadas por capacidad.
+     */
+    CacheSentencias(Connection conexion, int capacidad, LongAdder aciertos, LongAdder fallos, LongAdder desalojos) {
+        this.conexion = conexion;
+        this.capacidad = capacidad;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.desalojos = desalojos;
+    }
+
+    /**
+     * Entrega una sentencia preparada para el SQL indicado, reutilizando la de la caché si está libre.
+     * Si la misma sentencia ya está en uso (por ejemplo, dentro de un recorrido de otro ResultSet),
+     * se prepara una sentencia aparte que se cierra normalmente.
+     *
+     * @param sql             Texto SQL.
+     * @param clavesGeneradas Statement.RETURN_GENERATED_KEYS o Statement.NO_GENERATED_KEYS.
+     * @param logica          Conexión que ve el código de la aplicación (para getConnection()).
+     * @return Sentencia preparada cuyo close() la devuelve a la caché.
+     * @throws SQLException Si la base de datos no puede preparar la sentencia.
+     */
+    PreparedStatement preparar(String sql, int clavesGeneradas, Connection logica) throws SQLException {
+        Clave clave = new Clave(sql, clavesGeneradas);
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && !entrada.enUso && !entrada.sentencia.isClosed()) {
+            aciertos.increment();
+        } else {
+            fallos.increment();
+            PreparedStatement nueva = conexion.prepareStatement(sql, clavesGeneradas);
+            if (entrada != null && entrada.enUso) {
+                // Uso anidado del mismo SQL: esta sentencia no se guarda en la caché
+                return nueva;
+            }
+            entrada = new Entrada(nueva);
+            entradas.put(clave, entrada);
+        }
+        entrada.enUso = true;
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new SentenciaCacheada(entrada, clave, logica));
+    }
+
+    /**
+     * Marca todas las sentencias como libres. Se llama cuando la conexión vuelve al pool,
+     * por si algún código no cerró sus sentencias.
+     */
+    void liberarTodas() {
+        for (Entrada entrada : new ArrayList<>(entradas.values())) {
+            entrada.enUso = false;
+            try {
+                entrada.restaurarConfiguracion();
+            } catch (SQLException e) {
+                entradas.values().remove(entrada);
+                cerrarSilenciosamente(entrada.sentencia);
+            }
+        }
+    }
+
+    /**
+     * Cierra todas las sentencias de la caché (al cerrar la conexión física).
+     */
+    void cerrarTodas() {
+        for (Entrada entrada : new ArrayList<>(entradas.values())) {
+            cerrarSilenciosamente(entrada.sentencia);
+        }
+        entradas.clear();
+    }
+
+    private void desalojar(Entrada entrada) {
+        desalojos.increment();
+        entrada.desalojada = true;
+        if (!entrada.enUso) {
+            cerrarSilenciosamente(entrada.sentencia);
+        }
+    }
+
+    private static void cerrarSilenciosamente(Statement sentencia) {
+        try {
+            sentencia.close();
+        } catch (SQLException ignorada) {
+            // La sentencia ya no se usará
+        }
+    }
+
+    /**
+     * Proxy de la sentencia entregada al repositorio. close() no cierra la sentencia física:
+     * cierra su ResultSet, limpia parámetros y lotes, restaura su configuración y la marca como libre.
+     */
+    private final class SentenciaCacheada implements InvocationHandler {
+        private final Entrada entrada;
+        private final Clave clave;
+        private final Connection logica;
+        private boolean cerrada;
+
+        SentenciaCacheada(Entrada entrada, Clave clave, Connection logica) {
+            this.entrada = entrada;
+            this.clave = clave;
+            this.logica = logica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close":
+                    if (!cerrada) {
+                        cerrada = true;
+                        devolver();
+                    }
+                    return null;
+                case "isClosed":
+                    return cerrada || entrada.sentencia.isClosed();
+                case "getConnection":
+                    return logica;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "SentenciaCacheada[" + clave.sql() + "]";
+                default:
+                    if (cerrada) {
+                        throw new SQLException("La sentencia ya fue cerrada");
+                    }
+            }
+            if (!entrada.reconfigurada && CONFIGURACION.contains(metodo.getName())) {
+                entrada.guardarConfiguracion();
+            }
+            try {
+                return metodo.invoke(entrada.sentencia, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void devolver() {
+            entrada.enUso = false;
+            if (entrada.desalojada) {
+                cerrarSilenciosamente(entrada.sentencia);
+                return;
+            }
+            try {
+                ResultSet rs = entrada.sentencia.getResultSet();
+                if (rs != null) {
+                    rs.close();
+                }
+                entrada.sentencia.clearParameters();
+                entrada.sentencia.clearBatch();
+                entrada.sentencia.clearWarnings();
+                entrada.restaurarConfiguracion();
+            } catch (SQLException e) {
+                // La sentencia quedó en mal estado: la sacamos de la caché
+                entradas.remove(clave, entrada);
+                cerrarSilenciosamente(entrada.sentencia);
+            }
+        }
+    }
+}
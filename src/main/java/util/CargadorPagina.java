@@ -0,0 +1,223 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Cargador concurrente del modelo de una página.
+ * Varios servlets ejecutan en su doGet varias consultas independientes entre sí (facturas, citas,
+ * catálogos...) una detrás de otra sobre la misma conexión, así que la página tarda la suma de todas.
+ * Con este cargador cada consulta se registra con el atributo del request donde debe quedar su
+ * resultado y, al llamar a cargar(), se ejecutan a la vez: la primera (y las que no consigan cupo)
+ * en el hilo de la solicitud con su propia conexión, y las demás en hilos virtuales, cada una con
+ * una conexión de solo lectura adicional del pool. La página tarda aproximadamente lo que la
+ * consulta más lenta.
+ *
+ * - Las conexiones adicionales tienen un cupo global (-Dendodental.pagina.conexionesExtra, por
+ *   defecto la mitad del máximo del pool de lectura). Una consulta que no consigue cupo no espera:
+ *   se ejecuta en orden sobre la conexión de la solicitud. Así, con carga, las páginas vuelven a
+ *   usar una sola conexión cada una en lugar de agotar el pool esperando conexiones prestadas.
+ * - Hay un plazo por página (-Dendodental.pagina.plazoMs, 3000 ms por defecto) para las consultas
+ *   en hilos virtuales; las que no terminan a tiempo se cancelan y se reportan como error.
+ * - Si una consulta falla, las demás igual se cargan: el atributo de la fallida toma el valor
+ *   por defecto indicado y el error se devuelve para mostrarlo en la vista.
+ * - La conexión de cada consulta es diferida: las que se resuelven desde una caché en memoria no
+ *   llegan a pedir una conexión al pool.
+ * - Si la solicitud no es de solo lectura (un POST que vuelve a mostrar la página, o la ventana de
+ *   lectura tras una escritura), las consultas se ejecutan en orden sobre la conexión de la solicitud,
+ *   para que vean los cambios de su propia transacción.
+ * */
+
+import filter.ConexionFilter;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CargadorPagina {
+
+    private static final long PLAZO_MS = Long.getLong("endodental.pagina.plazoMs", 3_000);
+    // Conexiones adicionales prestadas a la vez por todas las páginas
+    private static final Semaphore CUPOS = new Semaphore(Integer.getInteger("endodental.pagina.conexionesExtra",
+            Math.max(1, ConfiguracionPool.desdePropiedades(
+                    ConexionBDD.tieneReplica() ? "endodental.pool.replica" : "endodental.pool").maximo() / 2)));
+
+    /**
+     * Consulta que recibe la conexión con la que debe trabajar.
+     * @param <T> Tipo del resultado.
+     */
+    @FunctionalInterface
+    public interface Consulta<T> {
+        T ejecutar(Connection conn) throws Exception;
+    }
+
+    // Consulta registrada con el valor a usar si falla
+    private record Tarea(Consulta<?> consulta, Object siFalla) {
+    }
+
+    private final HttpServletRequest req;
+    private final Map<String, Tarea> tareas = new LinkedHashMap<>();
+
+    /**
+     * @param req Solicitud cuyo modelo se va a cargar (de ella se toman la conexión y el modo de lectura).
+     */
+    public CargadorPagina(HttpServletRequest req) {
+        this.req = req;
+    }
+
+    /**
+     * Registra una consulta cuyo resultado se guardará en el atributo indicado.
+     * Si falla, el atributo queda sin asignar.
+     *
+     * @param atributo Nombre del atributo del request.
+     * @param consulta Consulta a ejecutar.
+     * @return El mismo cargador, para encadenar llamadas.
+     */
+    public <T> CargadorPagina agregar(String atributo, Consulta<T> consulta) {
+        return agregar(atributo, consulta, null);
+    }
+
+    /**
+     * Registra una consulta con un valor por defecto para el caso de error
+     * (por ejemplo, una lista vacía para que el JSP no falle).
+     *
+     * @param atributo Nombre del atributo del request.
+     * @param consulta Consulta a ejecutar.
+     * @param siFalla  Valor que se asigna al atributo si la consulta falla o no termina a tiempo.
+     * @return El mismo cargador, para encadenar llamadas.
+     */
+    public <T> CargadorPagina agregar(String atributo, Consulta<T> consulta, T siFalla) {
+        tareas.put(atributo, new Tarea(consulta, siFalla));
+        return this;
+    }
+
+    /**
+     * Ejecuta todas las consultas registradas y guarda sus resultados en el request.
+     * @return Mensajes de las consultas que fallaron; lista vacía si todas terminaron bien.
+     */
+    public List<String> cargar() {
+        List<String> errores = new ArrayList<>();
+        Object soloLectura = req.getAttribute(ConexionFilter.ATRIBUTO_SOLO_LECTURA);
+        if (Boolean.TRUE.equals(soloLectura) && tareas.size() > 1) {
+            cargarEnParalelo(errores);
+        } else {
+            cargarEnOrden(errores);
+        }
+        return errores;
+    }
+
+    /**
+     * Ejecuta las consultas una tras otra sobre la conexión de la solicitud.
+     */
+    private void cargarEnOrden(List<String> errores) {
+        Connection conn = (Connection) req.getAttribute("conn");
+        tareas.forEach((atributo, tarea) -> {
+            try {
+                req.setAttribute(atributo, tarea.consulta().ejecutar(conn));
+            } catch (Exception e) {
+                registrarError(errores, atributo, tarea, e);
+            }
+        });
+    }
+
+    /**
+     * Ejecuta en hilos virtuales, cada una con su conexión de solo lectura, las consultas que
+     * consiguen cupo; la primera y las que no lo consiguen van sobre la conexión de la solicitud
+     * mientras tanto. Las conexiones van instrumentadas y cuentan en el presupuesto de consultas
+     * de la solicitud.
+     */
+    private void cargarEnParalelo(List<String> errores) {
+        PresupuestoConsultas presupuesto = (PresupuestoConsultas) req.getAttribute(ConexionFilter.ATRIBUTO_PRESUPUESTO);
+        Map<String, Future<?>> pendientes = new LinkedHashMap<>();
+        Map<String, Tarea> enLaSolicitud = new LinkedHashMap<>();
+
+        /*
+         * No usamos try-with-resources con el ejecutor porque su close() espera a que terminen todas
+         * las tareas, incluso las canceladas por plazo; shutdown() solo impide nuevas tareas.
+         * Una consulta cancelada devuelve su conexión al pool (y su cupo) en cuanto el driver responde.
+         */
+        ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            tareas.forEach((atributo, tarea) -> {
+                if (enLaSolicitud.isEmpty() || !CUPOS.tryAcquire()) {
+                    enLaSolicitud.put(atributo, tarea);
+                    return;
+                }
+                // El cupo se devuelve al terminar la consulta, o al cancelarla si nunca llegó a empezar
+                AtomicBoolean cupoDevuelto = new AtomicBoolean();
+                Runnable devolverCupo = () -> {
+                    if (cupoDevuelto.compareAndSet(false, true)) {
+                        CUPOS.release();
+                    }
+                };
+                FutureTask<Object> futuro = new FutureTask<>(() -> {
+                    try (ConexionDiferida conn = new ConexionDiferida(
+                            () -> ConexionInstrumentada.envolver(ConexionBDD.getConexionLectura(), presupuesto), false)) {
+                        return tarea.consulta().ejecutar(conn.getConexion());
+                    } finally {
+                        devolverCupo.run();
+                    }
+                }) {
+                    @Override
+                    protected void done() {
+                        if (isCancelled()) {
+                            devolverCupo.run();
+                        }
+                    }
+                };
+                hilos.execute(futuro);
+                pendientes.put(atributo, futuro);
+            });
+
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PLAZO_MS);
+            Connection propia = (Connection) req.getAttribute("conn");
+            enLaSolicitud.forEach((atributo, tarea) -> {
+                try {
+                    req.setAttribute(atributo, tarea.consulta().ejecutar(propia));
+                } catch (Exception e) {
+                    registrarError(errores, atributo, tarea, e);
+                }
+            });
+
+            pendientes.forEach((atributo, futuro) -> {
+                Tarea tarea = tareas.get(atributo);
+                try {
+                    long restante = Math.max(0, limite - System.nanoTime());
+                    req.setAttribute(atributo, futuro.get(restante, TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    futuro.cancel(true);
+                    registrarError(errores, atributo, tarea,
+                            new TimeoutException("no terminó dentro del plazo de " + PLAZO_MS + " ms"));
+                } catch (ExecutionException e) {
+                    registrarError(errores, atributo, tarea, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futuro.cancel(true);
+                    registrarError(errores, atributo, tarea, e);
+                }
+            });
+        } finally {
+            hilos.shutdown();
+        }
+    }
+
+    private void registrarError(List<String> errores, String atributo, Tarea tarea, Throwable e) {
+        if (tarea.siFalla() != null) {
+            req.setAttribute(atributo, tarea.siFalla());
+        }
+        errores.add(atributo + ": " + e.getMessage());
+        System.err.println("[CargadorPagina] Error cargando '" + atributo + "' en " + req.getRequestURI()
+                + ": " + e);
+    }
+}
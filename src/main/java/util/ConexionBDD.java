@@ -2,33 +2,132 @@ package util;
 /*
  * Autor: Byron Melo
  * Fecha: 29/11/2025
- * Versión: 1.0
+ * Versión: 1.1
  * Descripción: Clase que permite crear una conexión centralizada y global a la base de datos
  * "clinica-odontologica" en MySQL.
+ * Desde la versión 1.1 las conexiones se obtienen de un pool (PoolConexiones) en lugar de abrir
+ * una conexión física con DriverManager en cada solicitud.
+ * Opcionalmente se puede configurar una réplica de lectura (-Dendodental.db.replica.url) a la que
+ * se envían las solicitudes de solo lectura; si no se configura, la lectura usa el pool principal.
  * */
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class ConexionBDD {
     /*Esta es la cadena de dirección, que es la dirección de en donde se encuentra
-     el driver de la base de datos
+     el driver de la base de datos. Se puede reemplazar con -Dendodental.db.url
+     useServerPrepStmts hace que MySQL prepare las sentencias en el servidor: junto con la caché
+     de sentencias del pool, cada SQL se analiza una sola vez por conexión física.
     */
-    private static String url = "jdbc:mysql://localhost:3306/clinica_odontologica?serverTimezone=UTC";
+    private static String url = System.getProperty("endodental.db.url",
+            "jdbc:mysql://localhost:3306/clinica_odontologica?serverTimezone=UTC&useServerPrepStmts=true");
     /*
      * Definimos variables privadas y estáticas (permiten utilizar directamente las variables sin crear instancias
      * pero como son private solo se pueden usar en esta clase.
      * Representan el username y password del usuario necesarias para conectarnos a MySQL.
      * */
-    private static String username="root";
-    private static String password="misifu";
+    private static String username = System.getProperty("endodental.db.usuario", "root");
+    private static String password = System.getProperty("endodental.db.clave", "misifu");
 
     /*
-     *metodo de la clase que retorna un objeto de tipo connection, lanza excepciones SQL y
-     * necesita 3 parámetros para establecer la conexión (url, username, password).
+     * El pool se crea la primera vez que se pide una conexión (patrón holder):
+     * la JVM garantiza que la inicialización de la clase interna ocurre una sola vez
+     * y sin necesidad de sincronizar cada llamada.
+     * */
+    private static class Holder {
+        static final PoolConexiones POOL = new PoolConexiones("principal", url, username, password,
+                ConfiguracionPool.desdePropiedades("endodental.pool"));
+    }
+
+    /*
+     * Pool de la réplica de lectura. Solo se crea si existe la propiedad endodental.db.replica.url;
+     * el usuario y la contraseña de la réplica por defecto son los mismos de la base principal.
+     * */
+    private static class HolderReplica {
+        static final PoolConexiones POOL = crearPoolReplica();
+
+        private static PoolConexiones crearPoolReplica() {
+            String urlReplica = System.getProperty("endodental.db.replica.url");
+            if (urlReplica == null || urlReplica.isBlank()) {
+                return null;
+            }
+            return new PoolConexiones("replica", urlReplica,
+                    System.getProperty("endodental.db.replica.usuario", username),
+                    System.getProperty("endodental.db.replica.clave", password),
+                    ConfiguracionPool.desdePropiedades("endodental.pool.replica"));
+        }
+    }
+
+    // Indican si los pools llegaron a crearse, para no crearlos solo para cerrarlos
+    private static volatile boolean poolIniciado;
+    private static volatile boolean replicaIniciada;
+
+    /*
+     *metodo de la clase que retorna un objeto de tipo connection, lanza excepciones SQL.
+     * La conexión proviene del pool: al cerrarla (close) vuelve al pool en lugar de cerrarse.
      * */
     public static Connection getConnection() throws SQLException{
-        return DriverManager.getConnection(url, username, password);
+        return getPool().obtenerConexion();
+    }
+
+    /**
+     * Obtiene una conexión de solo lectura (setReadOnly(true), con autocommit).
+     * Proviene de la réplica si está configurada; si no, del pool principal.
+     * Al cerrarla vuelve a su pool, que restaura el modo de lectura/escritura.
+     *
+     * @return Conexión de solo lectura.
+     * @throws SQLException Si no se puede obtener la conexión.
+     */
+    public static Connection getConexionLectura() throws SQLException {
+        PoolConexiones replica = getPoolReplica();
+        Connection conn = (replica != null ? replica : getPool()).obtenerConexion();
+        try {
+            conn.setReadOnly(true);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    /**
+     * Indica si hay una réplica de lectura configurada, sin crear su pool.
+     *
+     * @return true si las conexiones de solo lectura van a la réplica.
+     */
+    public static boolean tieneReplica() {
+        String urlReplica = System.getProperty("endodental.db.replica.url");
+        return urlReplica != null && !urlReplica.isBlank();
+    }
+
+    /**
+     * Devuelve el pool de la réplica de lectura.
+     * @return Pool de la réplica o null si no hay réplica configurada.
+     */
+    public static PoolConexiones getPoolReplica() {
+        replicaIniciada = true;
+        return HolderReplica.POOL;
+    }
+
+    /**
+     * Devuelve el pool de conexiones principal, por ejemplo para consultar sus estadísticas.
+     * @return Pool principal.
+     */
+    public static PoolConexiones getPool() {
+        poolIniciado = true;
+        return Holder.POOL;
+    }
+
+    /**
+     * Cierra los pools al detener la aplicación.
+     */
+    public static void cerrar() {
+        if (poolIniciado) {
+            Holder.POOL.close();
+        }
+        if (replicaIniciada && HolderReplica.POOL != null) {
+            HolderReplica.POOL.close();
+        }
     }
    
 }
@@ -0,0 +1,278 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Conexión de apertura diferida (perezosa) para una solicitud.
+ * El filtro ConexionFilter publica en el atributo "conn" un objeto Connection que todavía no
+ * tiene conexión física detrás. La conexión se pide al pool y la transacción se abre recién cuando
+ * un servlet o repositorio la usa por primera vez. Si la página nunca toca la base de datos
+ * (login.jsp, index.jsp, el logout, recursos estáticos) no se presta ninguna conexión y
+ * no hay commit ni rollback que hacer.
+ *
+ * En modo no transaccional (solicitudes de solo lectura) la conexión se usa con autocommit,
+ * sin abrir una transacción, y confirmar/revertir no hacen nada.
+ *
+ * Se pueden registrar acciones para ejecutar después del commit (despuesDeConfirmar), por ejemplo
+ * invalidar una caché de catálogo solo cuando el cambio ya es visible para las demás conexiones.
+ * Si la transacción se revierte, las acciones pendientes se descartan y se ejecutan las registradas
+ * con despuesDeRevertir (por ejemplo, liberar una reserva de stock).
+ * */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConexionDiferida implements InvocationHandler, AutoCloseable {
+
+    /**
+     * Origen de la conexión real (normalmente ConexionBDD::getConnection).
+     */
+    @FunctionalInterface
+    public interface ProveedorConexion {
+        Connection obtener() throws SQLException;
+    }
+
+    private final ProveedorConexion proveedor;
+    private final boolean transaccional;
+    private final Connection proxy;
+    // Conexión real; null mientras nadie la haya usado
+    private Connection real;
+    private boolean cerrada;
+    // Acciones a ejecutar cuando la transacción se confirme o se revierta
+    private List<Runnable> alConfirmar;
+    private List<Runnable> alRevertir;
+
+    /**
+     * @param proveedor Origen de la conexión real, invocado solo en el primer uso.
+     */
+    public ConexionDiferida(ProveedorConexion proveedor) {
+        this(proveedor, true);
+    }
+
+    /**
+     * @param proveedor     Origen de la conexión real, invocado solo en el primer uso.
+     * @param transaccional true para desactivar el autocommit y agrupar la solicitud en una transacción;
+     *                      false para solicitudes de solo lectura.
+     */
+    public ConexionDiferida(ProveedorConexion proveedor, boolean transaccional) {
+        this.proveedor = proveedor;
+        this.transaccional = transaccional;
+        this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, this);
+    }
+
+    /**
+     * Devuelve el objeto Connection que se entrega a servlets y repositorios.
+     * @return Conexión diferida.
+     */
+    public Connection getConexion() {
+        return proxy;
+    }
+
+    /**
+     * Indica si la conexión real llegó a abrirse durante la solicitud.
+     * @return true si algún componente usó la conexión.
+     */
+    public boolean estaAbierta() {
+        return real != null;
+    }
+
+    /**
+     * Confirma la transacción si la conexión llegó a abrirse; si no, no hace nada.
+     * @throws SQLException Si el commit falla.
+     */
+    public void confirmar() throws SQLException {
+        if (real != null && transaccional) {
+            real.commit();
+        }
+        alRevertir = null;
+        ejecutar(alConfirmar, "al commit");
+        alConfirmar = null;
+    }
+
+    /**
+     * Deshace la transacción si la conexión llegó a abrirse; si no, no hace nada.
+     * @throws SQLException Si el rollback falla.
+     */
+    public void revertir() throws SQLException {
+        alConfirmar = null;
+        try {
+            if (real != null && transaccional) {
+                real.rollback();
+            }
+        } finally {
+            ejecutar(alRevertir, "al rollback");
+            alRevertir = null;
+        }
+    }
+
+    /**
+     * Registra una acción que se ejecutará cuando la transacción se confirme.
+     * @param accion Acción a ejecutar después del commit.
+     */
+    public void alConfirmar(Runnable accion) {
+        if (alConfirmar == null) {
+            alConfirmar = new ArrayList<>();
+        }
+        alConfirmar.add(accion);
+    }
+
+    /**
+     * Registra una acción que se ejecutará si la transacción se revierte
+     * (o si la conexión se cierra sin haberla confirmado).
+     * @param accion Acción a ejecutar después del rollback.
+     */
+    public void alRevertir(Runnable accion) {
+        if (alRevertir == null) {
+            alRevertir = new ArrayList<>();
+        }
+        alRevertir.add(accion);
+    }
+
+    /**
+     * Ejecuta una acción cuando la transacción de la conexión indicada se confirme.
+     * Si la conexión es la conexión diferida de una solicitud, la acción espera al commit (y se
+     * descarta si hay rollback); con cualquier otra conexión se ejecuta de inmediato.
+     *
+     * @param conn   Conexión con la que se hizo la escritura.
+     * @param accion Acción a ejecutar después del commit.
+     */
+    public static void despuesDeConfirmar(Connection conn, Runnable accion) {
+        ConexionDiferida diferida = de(conn);
+        if (diferida != null) {
+            diferida.alConfirmar(accion);
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Ejecuta una acción si la transacción de la conexión indicada se revierte.
+     * Solo tiene efecto con la conexión diferida de una solicitud; con cualquier otra conexión
+     * no se puede saber si habrá rollback y la acción se descarta.
+     *
+     * @param conn   Conexión con la que se hizo la escritura.
+     * @param accion Acción a ejecutar después del rollback.
+     */
+    public static void despuesDeRevertir(Connection conn, Runnable accion) {
+        ConexionDiferida diferida = de(conn);
+        if (diferida != null) {
+            diferida.alRevertir(accion);
+        }
+    }
+
+    /**
+     * Devuelve la conexión diferida detrás de un objeto Connection, o null si no es una
+     * conexión diferida abierta.
+     */
+    private static ConexionDiferida de(Connection conn) {
+        if (conn != null && Proxy.isProxyClass(conn.getClass())
+                && Proxy.getInvocationHandler(conn) instanceof ConexionDiferida diferida && !diferida.cerrada) {
+            return diferida;
+        }
+        return null;
+    }
+
+    /**
+     * Ejecuta las acciones registradas. Un fallo en una acción se registra en el log pero no
+     * afecta a la solicitud, cuya transacción ya terminó.
+     */
+    private static void ejecutar(List<Runnable> acciones, String momento) {
+        if (acciones == null) {
+            return;
+        }
+        for (Runnable accion : acciones) {
+            try {
+                accion.run();
+            } catch (RuntimeException e) {
+                System.err.println("[ConexionDiferida] Error en una acción " + momento + ": " + e);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Devuelve la conexión real al pool (si se abrió) y deja inutilizable la conexión diferida.
+     * Si quedaron acciones de rollback pendientes (la transacción no se confirmó ni se revirtió),
+     * se ejecutan: el pool deshace la transacción al recibir la conexión.
+     * @throws SQLException Si ocurre un error al cerrar.
+     */
+    @Override
+    public void close() throws SQLException {
+        cerrada = true;
+        alConfirmar = null;
+        try {
+            if (real != null) {
+                Connection c = real;
+                real = null;
+                c.close();
+            }
+        } finally {
+            ejecutar(alRevertir, "al rollback");
+            alRevertir = null;
+        }
+    }
+
+    /**
+     * Indica si la conexión agrupa la solicitud en una transacción.
+     * @return false si es una conexión de solo lectura.
+     */
+    public boolean esTransaccional() {
+        return transaccional;
+    }
+
+    /**
+     * Abre la conexión real en el primer uso y, en modo transaccional, desactiva el autocommit
+     * para que todas las operaciones de la solicitud formen una sola transacción.
+     */
+    private Connection abrir() throws SQLException {
+        if (cerrada) {
+            throw new SQLException("La conexión de la solicitud ya fue cerrada");
+        }
+        if (real == null) {
+            Connection c = proveedor.obtener();
+            try {
+                if (transaccional && c.getAutoCommit()) {
+                    c.setAutoCommit(false);
+                }
+            } catch (SQLException e) {
+                c.close();
+                throw e;
+            }
+            real = c;
+        }
+        return real;
+    }
+
+    /*
+     * Los métodos que no necesitan la base de datos se responden sin abrir la conexión.
+     * close() se ignora porque el ciclo de vida de la conexión lo controla el filtro.
+     */
+    @Override
+    public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+        switch (metodo.getName()) {
+            case "close":
+                return null;
+            case "isClosed":
+                return cerrada;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "ConexionDiferida[" + (real != null ? "abierta" : "sin abrir") + "]";
+            default:
+                try {
+                    return metodo.invoke(abrir(), args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Envoltorio de instrumentación para la conexión de cada solicitud.
+ * Las sentencias creadas a partir de la conexión envuelta miden su tiempo de ejecución,
+ * el tiempo de recorrido del ResultSet (del primer next() al último) y la cantidad de filas
+ * leídas o modificadas, y registran los valores en MetricasJdbc agrupados por SQL normalizado.
+ *
+ * Solo se intercepta lo necesario. La conexión y las sentencias son proxies (se crean pocas por
+ * solicitud); el SQL normalizado de una PreparedStatement se resuelve una sola vez al prepararla y
+ * no en cada ejecución. El ResultSet, cuyos getters se llaman por cada columna de cada fila, es
+ * ResultadoMedido: delega directamente y solo intercepta next() y close(). ConexionInstrumentadaBenchmark
+ * mide el costo frente a la conexión sin instrumentar.
+ * Opcionalmente se puede indicar un ObservadorSentencias que recibe cada ejecución
+ * (por ejemplo, el presupuesto de consultas de la solicitud).
+ * */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+public final class ConexionInstrumentada {
+
+    private ConexionInstrumentada() {
+    }
+
+    /**
+     * Envuelve una conexión para que sus sentencias registren métricas.
+     * @param conexion Conexión a instrumentar.
+     * @return Conexión instrumentada.
+     */
+    public static Connection envolver(Connection conexion) {
+        return envolver(conexion, null);
+    }
+
+    /**
+     * Envuelve una conexión para que sus sentencias registren métricas y avisen al observador.
+     * @param conexion   Conexión a instrumentar.
+     * @param observador Observador de cada ejecución (puede ser null).
+     * @return Conexión instrumentada.
+     */
+    public static Connection envolver(Connection conexion, ObservadorSentencias observador) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ManejadorConexion(conexion, observador));
+    }
+
+    private static Object delegar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Intercepta la creación de sentencias para devolverlas instrumentadas.
+     */
+    private static final class ManejadorConexion implements InvocationHandler {
+        private final Connection conexion;
+        private final ObservadorSentencias observador;
+
+        ManejadorConexion(Connection conexion, ObservadorSentencias observador) {
+            this.conexion = conexion;
+            this.observador = observador;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            Object resultado = delegar(conexion, metodo, args);
+            switch (metodo.getName()) {
+                case "prepareStatement":
+                    return envolverSentencia((Statement) resultado, PreparedStatement.class, proxy,
+                            MetricasJdbc.getInstancia().de((String) args[0]), observador);
+                case "prepareCall":
+                    return envolverSentencia((Statement) resultado, CallableStatement.class, proxy,
+                            MetricasJdbc.getInstancia().de((String) args[0]), observador);
+                case "createStatement":
+                    return envolverSentencia((Statement) resultado, Statement.class, proxy, null, observador);
+                default:
+                    return resultado;
+            }
+        }
+    }
+
+    private static Object envolverSentencia(Statement sentencia, Class<?> tipo, Object conexion,
+                                            MetricasJdbc.MetricasSentencia metricas,
+                                            ObservadorSentencias observador) {
+        return Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo},
+                new ManejadorSentencia(sentencia, conexion, metricas, observador));
+    }
+
+    /**
+     * Mide las ejecuciones de una sentencia. Para Statement el SQL llega en cada execute;
+     * para PreparedStatement las métricas se resuelven una sola vez al preparar.
+     */
+    private static final class ManejadorSentencia implements InvocationHandler {
+        private final Statement sentencia;
+        private final Object conexion;
+        private final MetricasJdbc.MetricasSentencia metricasPreparada;
+        private final ObservadorSentencias observador;
+        private MetricasJdbc.MetricasSentencia ultimas;
+        private String ultimoSql;
+        private MetricasJdbc.MetricasSentencia ultimasDeTexto;
+
+        ManejadorSentencia(Statement sentencia, Object conexion, MetricasJdbc.MetricasSentencia metricas,
+                           ObservadorSentencias observador) {
+            this.sentencia = sentencia;
+            this.conexion = conexion;
+            this.metricasPreparada = metricas;
+            this.observador = observador;
+            this.ultimas = metricas;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            if (!nombre.startsWith("execute")) {
+                switch (nombre) {
+                    case "getConnection":
+                        return conexion;
+                    case "getResultSet":
+                        ResultSet rs = (ResultSet) delegar(sentencia, metodo, args);
+                        return rs == null || ultimas == null ? rs : envolverResultado(rs, ultimas, observador);
+                    default:
+                        return delegar(sentencia, metodo, args);
+                }
+            }
+
+            MetricasJdbc.MetricasSentencia metricas = metricasPreparada;
+            if (args != null && args.length > 0 && args[0] instanceof String sql) {
+                // Statement: el SQL llega en cada execute; si es el mismo String se reutiliza lo resuelto
+                if (sql != ultimoSql) {
+                    ultimoSql = sql;
+                    ultimasDeTexto = MetricasJdbc.getInstancia().de(sql);
+                }
+                metricas = ultimasDeTexto;
+            }
+            long inicio = System.nanoTime();
+            Object resultado = delegar(sentencia, metodo, args);
+            long duracion = System.nanoTime() - inicio;
+            if (observador != null) {
+                observador.alEjecutar(metricas != null ? metricas.getSql() : null, duracion);
+                if (modificaDatos(nombre, resultado)) {
+                    observador.alModificar();
+                }
+            }
+            if (metricas == null) {
+                return resultado;
+            }
+            ultimas = metricas;
+            metricas.getEjecucion().registrar(duracion);
+
+            if (resultado instanceof ResultSet rs) {
+                return envolverResultado(rs, metricas, observador);
+            }
+            long filas = contarFilas(resultado);
+            if (filas >= 0) {
+                metricas.getFilas().registrar(filas);
+            }
+            return resultado;
+        }
+
+        /** true para executeUpdate/executeBatch (y sus variantes Large) y para un execute sin ResultSet. */
+        private static boolean modificaDatos(String nombre, Object resultado) {
+            return switch (nombre) {
+                case "executeQuery" -> false;
+                case "execute" -> Boolean.FALSE.equals(resultado);
+                default -> true;
+            };
+        }
+
+        /** Filas afectadas según el tipo de retorno de executeUpdate/executeBatch; -1 si no aplica. */
+        private static long contarFilas(Object resultado) {
+            if (resultado instanceof Integer n) {
+                return Math.max(n, 0);
+            }
+            if (resultado instanceof Long n) {
+                return Math.max(n, 0);
+            }
+            if (resultado instanceof int[] conteos) {
+                long total = 0;
+                for (int c : conteos) {
+                    total += Math.max(c, 0);
+                }
+                return total;
+            }
+            if (resultado instanceof long[] conteos) {
+                long total = 0;
+                for (long c : conteos) {
+                    total += Math.max(c, 0);
+                }
+                return total;
+            }
+            return -1;
+        }
+    }
+
+    private static ResultSet envolverResultado(ResultSet rs, MetricasJdbc.MetricasSentencia metricas,
+                                               ObservadorSentencias observador) {
+        return new ResultadoMedido(rs, metricas, observador);
+    }
+}
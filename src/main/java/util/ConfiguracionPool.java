@@ -0,0 +1,78 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Parámetros de tamaño y tiempos del pool de conexiones. Los valores se pueden
+ * ajustar sin recompilar mediante propiedades del sistema (-D) al iniciar el servidor, por ejemplo:
+ * -Dendodental.pool.maximo=20 -Dendodental.pool.vidaMaximaMs=1800000
+ * */
+
+/**
+ * @param minimo                   Conexiones que el pool mantiene abiertas aunque no se usen.
+ * @param maximo                   Conexiones físicas como máximo (prestadas + libres).
+ * @param esperaMaximaMs           Tiempo máximo que un hilo espera por una conexión antes de fallar.
+ * @param inactividadMaximaMs      Tiempo que una conexión libre sobrante puede quedar inactiva antes de cerrarse.
+ * @param vidaMaximaMs             Tiempo de vida máximo de una conexión física (0 = sin límite).
+ * @param validarTrasInactividadMs Si la conexión estuvo libre más que esto, se valida con isValid() al prestarla.
+ * @param timeoutValidacionSeg     Tiempo máximo de la validación.
+ * @param umbralFugaMs             Tiempo prestada a partir del cual se reporta una posible fuga (0 = desactivado).
+ * @param rastrearFugas            Guardar la pila de cada préstamo para imprimirla con la fuga. Crear un
+ *                                 Throwable en cada préstamo cuesta, así que viene desactivado y se
+ *                                 activa al investigar una fuga (-Dendodental.pool.rastrearFugas=true).
+ * @param periodoMantenimientoMs   Cada cuánto se ejecuta la tarea de mantenimiento.
+ * @param tamanoCacheSentencias    Sentencias preparadas conservadas por conexión física (0 = sin caché).
+ */
+public record ConfiguracionPool(int minimo,
+                                int maximo,
+                                long esperaMaximaMs,
+                                long inactividadMaximaMs,
+                                long vidaMaximaMs,
+                                long validarTrasInactividadMs,
+                                int timeoutValidacionSeg,
+                                long umbralFugaMs,
+                                boolean rastrearFugas,
+                                long periodoMantenimientoMs,
+                                int tamanoCacheSentencias) {
+
+    /**
+     * Validamos los valores al construir para detectar configuraciones imposibles al iniciar
+     * y no en medio de una solicitud.
+     */
+    public ConfiguracionPool {
+        if (maximo < 1) {
+            throw new IllegalArgumentException("El tamaño máximo del pool debe ser al menos 1");
+        }
+        if (minimo < 0 || minimo > maximo) {
+            throw new IllegalArgumentException("El mínimo del pool debe estar entre 0 y " + maximo);
+        }
+        if (periodoMantenimientoMs <= 0) {
+            throw new IllegalArgumentException("El periodo de mantenimiento debe ser positivo");
+        }
+        if (tamanoCacheSentencias < 0) {
+            throw new IllegalArgumentException("El tamaño de la caché de sentencias no puede ser negativo");
+        }
+    }
+
+    /**
+     * Construye la configuración leyendo propiedades del sistema con el prefijo indicado.
+     * Las propiedades que no existan toman los valores por defecto.
+     *
+     * @param prefijo Prefijo de las propiedades, por ejemplo "endodental.pool".
+     * @return Configuración resultante.
+     */
+    public static ConfiguracionPool desdePropiedades(String prefijo) {
+        return new ConfiguracionPool(
+                Integer.getInteger(prefijo + ".minimo", 2),
+                Integer.getInteger(prefijo + ".maximo", 10),
+                Long.getLong(prefijo + ".esperaMaximaMs", 5_000),
+                Long.getLong(prefijo + ".inactividadMaximaMs", 600_000),
+                Long.getLong(prefijo + ".vidaMaximaMs", 1_800_000),
+                Long.getLong(prefijo + ".validarTrasInactividadMs", 500),
+                Integer.getInteger(prefijo + ".timeoutValidacionSeg", 2),
+                Long.getLong(prefijo + ".umbralFugaMs", 60_000),
+                Boolean.getBoolean(prefijo + ".rastrearFugas"),
+                Long.getLong(prefijo + ".periodoMantenimientoMs", 30_000),
+                Integer.getInteger(prefijo + ".cacheSentencias", 64));
+    }
+}
@@ -0,0 +1,60 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Instantánea de los contadores del pool de conexiones. Se obtiene con
+ * ConexionBDD.getPool().getEstadisticas() y permite revisar en caliente cuántas conexiones
+ * están en uso, cuántas libres y cuánto están esperando las solicitudes por una conexión.
+ * */
+
+/**
+ * @param pool             Nombre del pool.
+ * @param activas          Conexiones prestadas en este momento.
+ * @param libres           Conexiones abiertas esperando ser prestadas.
+ * @param total            Conexiones físicas abiertas (activas + libres).
+ * @param esperando        Hilos esperando una conexión en este momento.
+ * @param prestamos        Préstamos realizados desde el inicio.
+ * @param esperaTotalMs    Suma del tiempo de espera de todos los préstamos.
+ * @param esperaMaximaMs   Mayor tiempo de espera observado.
+ * @param esperasAgotadas  Solicitudes que fallaron por agotar el tiempo de espera.
+ * @param creadas          Conexiones físicas abiertas desde el inicio.
+ * @param destruidas       Conexiones físicas cerradas desde el inicio.
+ * @param fugasDetectadas  Conexiones reportadas como posibles fugas.
+ * @param sentenciasAciertos    Sentencias preparadas reutilizadas desde la caché.
+ * @param sentenciasFallos      Sentencias que hubo que preparar (no estaban o estaban en uso).
+ * @param sentenciasDesalojadas Sentencias desalojadas de la caché por capacidad.
+ */
+public record EstadisticasPool(String pool,
+                               int activas,
+                               int libres,
+                               int total,
+                               int esperando,
+                               long prestamos,
+                               long esperaTotalMs,
+                               long esperaMaximaMs,
+                               long esperasAgotadas,
+                               long creadas,
+                               long destruidas,
+                               long fugasDetectadas,
+                               long sentenciasAciertos,
+                               long sentenciasFallos,
+                               long sentenciasDesalojadas) {
+
+    /**
+     * Tiempo de espera promedio por préstamo, en milisegundos.
+     * @return Promedio o 0 si todavía no hubo préstamos.
+     */
+    public double esperaPromedioMs() {
+        return prestamos == 0 ? 0 : (double) esperaTotalMs / prestamos;
+    }
+
+    /**
+     * Proporción de sentencias preparadas servidas desde la caché.
+     * @return Valor entre 0 y 1, o 0 si todavía no se preparó ninguna sentencia.
+     */
+    public double tasaAciertosSentencias() {
+        long total = sentenciasAciertos + sentenciasFallos;
+        return total == 0 ? 0 : (double) sentenciasAciertos / total;
+    }
+}
@@ -0,0 +1,110 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Histograma de buckets fijos y bajo costo para métricas de producción.
+ * Cada observación incrementa un solo contador (LongAdder, sin bloqueos) más la suma y el total,
+ * por lo que puede registrarse en cada sentencia SQL sin afectar el rendimiento.
+ * Los límites siguen el formato de Prometheus: el bucket "le" cuenta las observaciones menores
+ * o iguales al límite, y al exportar se acumulan.
+ * */
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histograma {
+
+    // Límites de latencia en segundos (de 0,5 ms a 10 s)
+    public static final double[] LIMITES_SEGUNDOS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    // Límites para cantidad de filas
+    public static final double[] LIMITES_FILAS = {0, 1, 5, 10, 50, 100, 500, 1_000, 5_000, 10_000};
+
+    private final double[] limites;
+    // Los límites ya convertidos a la unidad en que se registra (nanosegundos o filas)
+    private final long[] limitesEnUnidad;
+    private final double escala;
+    private final LongAdder[] buckets;
+    private final LongAdder suma = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * @param limites Límites superiores de los buckets, en la unidad que se exporta.
+     * @param escala  Cuántas unidades registradas equivalen a una unidad exportada
+     *                (1e9 para registrar nanosegundos y exportar segundos, 1 para filas).
+     */
+    public Histograma(double[] limites, double escala) {
+        this.limites = limites.clone();
+        this.escala = escala;
+        this.limitesEnUnidad = new long[limites.length];
+        for (int i = 0; i < limites.length; i++) {
+            limitesEnUnidad[i] = (long) (limites[i] * escala);
+        }
+        // Un bucket extra para las observaciones mayores al último límite (+Inf)
+        this.buckets = new LongAdder[limites.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Histograma de latencias registradas en nanosegundos y exportadas en segundos.
+     * @return Nuevo histograma.
+     */
+    public static Histograma deLatencia() {
+        return new Histograma(LIMITES_SEGUNDOS, 1e9);
+    }
+
+    /**
+     * Histograma de cantidades de filas.
+     * @return Nuevo histograma.
+     */
+    public static Histograma deFilas() {
+        return new Histograma(LIMITES_FILAS, 1);
+    }
+
+    /**
+     * Registra una observación.
+     * @param valor Valor en la unidad de registro (nanosegundos o filas).
+     */
+    public void registrar(long valor) {
+        int i = 0;
+        while (i < limitesEnUnidad.length && valor > limitesEnUnidad[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        suma.add(valor);
+        total.increment();
+    }
+
+    public double[] getLimites() {
+        return limites.clone();
+    }
+
+    /**
+     * Conteos acumulados por bucket, en el orden de los límites; el último elemento es +Inf.
+     * @return Conteos acumulados.
+     */
+    public long[] getConteosAcumulados() {
+        long[] acumulados = new long[buckets.length];
+        long acumulado = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            acumulado += buckets[i].sum();
+            acumulados[i] = acumulado;
+        }
+        return acumulados;
+    }
+
+    /**
+     * Suma de las observaciones en la unidad exportada.
+     * @return Suma (segundos o filas).
+     */
+    public double getSuma() {
+        return suma.sum() / escala;
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+}
@@ -0,0 +1,440 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Índice invertido de trigramas en memoria para búsquedas por texto parcial.
+ * Un LIKE '%texto%' no puede usar índices y obliga a MySQL a recorrer toda la tabla. Este índice
+ * descompone el texto de cada documento (por ejemplo "0912345678 maría lópez") en trigramas y guarda,
+ * para cada trigrama, la lista ordenada de IDs de documentos que lo contienen. Una búsqueda solo
+ * recorre las listas de los trigramas de la consulta.
+ *
+ * - El texto se normaliza: minúsculas, sin tildes ("María" = "maria") y solo letras y dígitos.
+ * - Cada palabra se indexa con un espacio delante, así el trigrama " ma" representa "palabra que
+ *   empieza con ma" y las consultas de dos letras también se pueden responder.
+ * - Los resultados se ordenan por relevancia: primero los que contienen todas las palabras de la
+ *   consulta (y entre ellos los que las tienen al inicio de una palabra), luego los que coinciden
+ *   solo en parte de los trigramas (tolerancia a errores de tipeo), y por último por ID.
+ *
+ * Las consultas comparten un bloqueo de lectura y pueden correr en paralelo; las modificaciones
+ * (poco frecuentes) toman el bloqueo de escritura.
+ * */
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+public class IndiceNgramas {
+
+    // Fracción mínima de trigramas de la consulta que debe tener un documento para considerarse
+    private static final double COINCIDENCIA_MINIMA = 0.6;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+
+    /**
+     * Lista ordenada de IDs de los documentos que contienen un trigrama.
+     */
+    private static final class Lista {
+        private int[] ids = new int[4];
+        private int tamano;
+
+        void agregar(int id) {
+            // Los IDs suelen llegar en orden creciente: el caso común es agregar al final
+            if (tamano == 0 || ids[tamano - 1] < id) {
+                asegurarCapacidad();
+                ids[tamano++] = id;
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, tamano, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            asegurarCapacidad();
+            System.arraycopy(ids, pos, ids, pos + 1, tamano - pos);
+            ids[pos] = id;
+            tamano++;
+        }
+
+        void quitar(int id) {
+            int pos = Arrays.binarySearch(ids, 0, tamano, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, tamano - pos - 1);
+                tamano--;
+            }
+        }
+
+        private void asegurarCapacidad() {
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+        }
+    }
+
+    // Documento candidato con su puntaje, para armar el top-K
+    private record Candidato(int id, int puntaje) {
+    }
+
+    private final Map<Long, Lista> listas = new HashMap<>();
+    private final Map<Integer, String> documentos = new HashMap<>();
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    /**
+     * Agrega o reemplaza el texto de un documento.
+     * @param id    Identificador del documento (por ejemplo id_paciente).
+     * @param texto Texto a indexar; se normaliza internamente.
+     */
+    public void indexar(int id, String texto) {
+        String normalizado = normalizar(texto);
+        bloqueo.writeLock().lock();
+        try {
+            String anterior = documentos.put(id, normalizado);
+            if (anterior != null) {
+                if (anterior.equals(normalizado)) {
+                    return;
+                }
+                for (long trigrama : trigramas(anterior)) {
+                    Lista lista = listas.get(trigrama);
+                    if (lista != null) {
+                        lista.quitar(id);
+                    }
+                }
+            }
+            for (long trigrama : trigramas(normalizado)) {
+                listas.computeIfAbsent(trigrama, t -> new Lista()).agregar(id);
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un documento del índice.
+     * @param id Identificador del documento.
+     */
+    public void quitar(int id) {
+        bloqueo.writeLock().lock();
+        try {
+            String anterior = documentos.remove(id);
+            if (anterior != null) {
+                for (long trigrama : trigramas(anterior)) {
+                    Lista lista = listas.get(trigrama);
+                    if (lista != null) {
+                        lista.quitar(id);
+                    }
+                }
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Los mejores K documentos para una consulta de autocompletado, del más al menos relevante.
+     * Tolera errores de tipeo: basta con compartir la mayoría de los trigramas de la consulta.
+     *
+     * @param consulta Texto escrito por el usuario (al menos dos letras o dígitos).
+     * @param limite   Cantidad máxima de resultados (K).
+     * @param filtro   Documentos aceptados (por ejemplo, solo pacientes activos).
+     * @return IDs de los documentos encontrados; lista vacía si la consulta es demasiado corta.
+     */
+    public List<Integer> buscar(String consulta, int limite, IntPredicate filtro) {
+        String normalizada = normalizar(consulta);
+        long[] trigramasConsulta = trigramas(normalizada);
+        if (trigramasConsulta.length == 0 || limite <= 0) {
+            return List.of();
+        }
+        String[] palabras = normalizada.split(" ");
+        String[] inicios = new String[palabras.length];
+        for (int i = 0; i < palabras.length; i++) {
+            inicios[i] = " " + palabras[i];
+        }
+        int minimo = Math.max(1, (int) Math.ceil(trigramasConsulta.length * COINCIDENCIA_MINIMA));
+        // Cada trigrama coincidente pesa más que el bono máximo, que solo desempata
+        int peso = 2 * palabras.length + 1;
+
+        // Min-heap: en la cima queda el peor de los K mejores, que es el que se reemplaza
+        PriorityQueue<Candidato> mejores = new PriorityQueue<>(
+                (a, b) -> a.puntaje() != b.puntaje() ? Integer.compare(a.puntaje(), b.puntaje()) : Integer.compare(b.id(), a.id()));
+
+        int total = trigramasConsulta.length;
+        int puntajeMaximo = total * peso + 2 * palabras.length;
+
+        bloqueo.readLock().lock();
+        try {
+            /*
+             * 1. Documentos con todos los trigramas (intersección, barata). Como se recorren en orden
+             *    de ID y el desempate favorece al menor ID, en cuanto los K mejores tienen el puntaje
+             *    máximo posible ningún documento posterior puede desplazarlos y se corta el recorrido.
+             */
+            recorrer(trigramasConsulta, total, (id, coincidencias) -> {
+                if (filtro.test(id)) {
+                    considerar(mejores, limite, id, total * peso + bono(documentos.get(id), palabras, inicios));
+                }
+                return mejores.size() < limite || mejores.peek().puntaje() < puntajeMaximo;
+            });
+            /*
+             * 2. Solo si faltan resultados: coincidencias parciales (errores de tipeo), de a un nivel
+             *    por vez (total - 1 trigramas, total - 2...). Cada nivel queda por debajo del anterior,
+             *    así que en cuanto el top-K se llena se deja de buscar.
+             */
+            for (int nivel = total - 1; nivel >= minimo && mejores.size() < limite; nivel--) {
+                int nivelActual = nivel;
+                int puntajeNivel = nivel * peso;
+                recorrer(trigramasConsulta, nivel, (id, coincidencias) -> {
+                    // Los que tienen más coincidencias ya se consideraron en un nivel anterior
+                    if (coincidencias == nivelActual && filtro.test(id)) {
+                        considerar(mejores, limite, id, puntajeNivel);
+                    }
+                    return mejores.size() < limite || mejores.peek().puntaje() < puntajeNivel;
+                });
+            }
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+
+        Integer[] resultado = new Integer[mejores.size()];
+        for (int i = resultado.length - 1; i >= 0; i--) {
+            resultado[i] = mejores.poll().id();
+        }
+        return Arrays.asList(resultado);
+    }
+
+    // Agrega el candidato al top-K si entra entre los mejores
+    private static void considerar(PriorityQueue<Candidato> mejores, int limite, int id, int puntaje) {
+        Candidato candidato = new Candidato(id, puntaje);
+        if (mejores.size() < limite) {
+            mejores.add(candidato);
+        } else if (mejores.comparator().compare(candidato, mejores.peek()) > 0) {
+            mejores.poll();
+            mejores.add(candidato);
+        }
+    }
+
+    /**
+     * Todos los documentos cuyo texto contiene cada palabra de la consulta (equivale a un
+     * LIKE '%palabra%' por palabra, sin distinguir tildes ni mayúsculas).
+     *
+     * @param consulta Texto buscado (alguna palabra de al menos tres letras o dígitos).
+     * @param maximo   Cantidad máxima de resultados aceptada.
+     * @return IDs en orden creciente, o null si la consulta es demasiado corta o hay más de
+     *         'maximo' resultados (quien llama debe recurrir a otra estrategia).
+     */
+    public List<Integer> contienen(String consulta, int maximo) {
+        String normalizada = normalizar(consulta);
+        if (normalizada.isEmpty()) {
+            return null;
+        }
+        String[] palabras = normalizada.split(" ");
+        List<Integer> resultado = new ArrayList<>();
+
+        bloqueo.readLock().lock();
+        try {
+            /*
+             * Para contener la palabra hace falta tener todos sus trigramas internos. El trigrama de
+             * inicio de palabra (" ma") se descarta porque el texto puede estar en medio de una palabra.
+             */
+            long[] internos = trigramas(normalizada, false);
+            if (internos.length == 0) {
+                return null; // Solo palabras de dos letras: no hay trigramas que las acoten
+            }
+            boolean completo = recorrer(internos, internos.length, (id, coincidencias) -> {
+                if (!contieneTodas(documentos.get(id), palabras)) {
+                    return true;
+                }
+                resultado.add(id);
+                return resultado.size() <= maximo;
+            });
+            return completo ? resultado : null;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Cantidad de documentos indexados.
+     */
+    public int tamano() {
+        bloqueo.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Minúsculas, sin tildes ni signos; las palabras quedan separadas por un espacio.
+     * @param texto Texto original (puede ser null).
+     * @return Texto normalizado.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return NO_ALFANUMERICO.matcher(sinTildes.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    // Recibe cada documento que aparece en al menos 'minimo' listas; devuelve false para detenerse
+    @FunctionalInterface
+    private interface Visitante {
+        boolean visitar(int id, int coincidencias);
+    }
+
+    /**
+     * Visita, en orden de ID, los documentos que aparecen en al menos 'minimo' de las listas de los
+     * trigramas indicados, con la cantidad de listas en que aparecen.
+     *
+     * Un documento que está en 'minimo' listas de n tiene que estar en al menos una de cualquier
+     * grupo de n - minimo + 1 listas. Por eso los candidatos salen solo de las n - minimo + 1 listas
+     * más cortas (con minimo = n, de la más corta: es una intersección) y cada candidato se busca en
+     * las demás con búsqueda exponencial, avanzando el inicio de cada lista porque los IDs están
+     * ordenados. El costo depende de esas listas cortas y de cuándo el visitante pide detenerse,
+     * no del tamaño del índice.
+     *
+     * @return false si el visitante pidió detenerse.
+     */
+    private boolean recorrer(long[] trigramas, int minimo, Visitante visitante) {
+        List<Lista> presentes = new ArrayList<>(trigramas.length);
+        for (long trigrama : trigramas) {
+            Lista lista = listas.get(trigrama);
+            if (lista != null && lista.tamano > 0) {
+                presentes.add(lista);
+            }
+        }
+        if (presentes.size() < minimo) {
+            return true;
+        }
+        presentes.sort((a, b) -> Integer.compare(a.tamano, b.tamano));
+        int generadoras = presentes.size() - minimo + 1;
+        int[] posiciones = new int[presentes.size()];
+
+        while (true) {
+            // Siguiente candidato: el menor ID pendiente entre las listas generadoras
+            int candidato = Integer.MAX_VALUE;
+            for (int i = 0; i < generadoras; i++) {
+                Lista lista = presentes.get(i);
+                if (posiciones[i] < lista.tamano && lista.ids[posiciones[i]] < candidato) {
+                    candidato = lista.ids[posiciones[i]];
+                }
+            }
+            if (candidato == Integer.MAX_VALUE) {
+                return true;
+            }
+            int coincidencias = 0;
+            for (int i = 0; i < presentes.size(); i++) {
+                Lista lista = presentes.get(i);
+                if (i < generadoras) {
+                    if (posiciones[i] < lista.tamano && lista.ids[posiciones[i]] == candidato) {
+                        coincidencias++;
+                        posiciones[i]++;
+                    }
+                } else if (posiciones[i] < lista.tamano) {
+                    int pos = buscarDesde(lista, posiciones[i], candidato);
+                    if (pos >= 0) {
+                        coincidencias++;
+                        posiciones[i] = pos + 1;
+                    } else {
+                        posiciones[i] = -pos - 1;
+                    }
+                }
+            }
+            if (coincidencias >= minimo && !visitante.visitar(candidato, coincidencias)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Búsqueda exponencial (galloping) de un ID a partir de una posición: como los candidatos llegan
+     * en orden creciente, el ID buscado suele estar cerca y se encuentra en pocos pasos.
+     * @return Igual que Arrays.binarySearch: la posición, o (-(punto de inserción) - 1).
+     */
+    private static int buscarDesde(Lista lista, int desde, int id) {
+        int inicio = desde;
+        int salto = 1;
+        int fin = desde;
+        while (fin < lista.tamano && lista.ids[fin] < id) {
+            inicio = fin + 1;
+            fin = desde + salto;
+            salto <<= 1;
+        }
+        return Arrays.binarySearch(lista.ids, inicio, Math.min(fin + 1, lista.tamano), id);
+    }
+
+    // Bono de relevancia: +2 por palabra de la consulta al inicio de una palabra, +1 si está en medio
+    private static int bono(String documento, String[] palabras, String[] inicios) {
+        if (documento == null) {
+            return 0;
+        }
+        int bono = 0;
+        for (int i = 0; i < palabras.length; i++) {
+            if (documento.startsWith(palabras[i]) || documento.contains(inicios[i])) {
+                bono += 2;
+            } else if (documento.contains(palabras[i])) {
+                bono += 1;
+            }
+        }
+        return bono;
+    }
+
+    private static boolean contieneTodas(String documento, String[] palabras) {
+        if (documento == null) {
+            return false;
+        }
+        for (String palabra : palabras) {
+            if (!documento.contains(palabra)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] trigramas(String normalizado) {
+        return trigramas(normalizado, true);
+    }
+
+    /**
+     * Trigramas distintos de un texto normalizado, cada uno codificado en un long (3 chars de 16 bits).
+     * @param conInicio Si incluye el trigrama de inicio de palabra (" " + dos primeras letras).
+     */
+    private static long[] trigramas(String normalizado, boolean conInicio) {
+        if (normalizado.isEmpty()) {
+            return new long[0];
+        }
+        long[] resultado = new long[normalizado.length() + 1];
+        int cantidad = 0;
+        int inicioPalabra = 0;
+        for (int fin = 0; fin <= normalizado.length(); fin++) {
+            if (fin < normalizado.length() && normalizado.charAt(fin) != ' ') {
+                continue;
+            }
+            // Palabra [inicioPalabra, fin) precedida por un espacio virtual (posición inicioPalabra - 1)
+            for (int i = conInicio ? inicioPalabra - 1 : inicioPalabra; i + 3 <= fin; i++) {
+                char c0 = i < inicioPalabra ? ' ' : normalizado.charAt(i);
+                resultado[cantidad++] = ((long) c0 << 32)
+                        | ((long) normalizado.charAt(i + 1) << 16)
+                        | normalizado.charAt(i + 2);
+            }
+            inicioPalabra = fin + 1;
+        }
+        // Sin repetidos: ordenar y compactar
+        Arrays.sort(resultado, 0, cantidad);
+        int distintos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (distintos == 0 || resultado[distintos - 1] != resultado[i]) {
+                resultado[distintos++] = resultado[i];
+            }
+        }
+        return Arrays.copyOf(resultado, distintos);
+    }
+}
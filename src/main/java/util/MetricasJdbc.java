@@ -0,0 +1,128 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Registro global de métricas de las sentencias SQL de la aplicación.
+ * Cada sentencia se identifica por su SQL normalizado (espacios colapsados, literales reemplazados
+ * por '?' y listas IN (?, ?, ...) reducidas a IN (?)), de modo que las variantes de una misma
+ * consulta se agrupan en una sola serie. Por cada sentencia se registran tres histogramas:
+ * tiempo de ejecución, tiempo de lectura del ResultSet y cantidad de filas.
+ *
+ * ConexionInstrumentada alimenta este registro y MetricasServlet lo expone en formato Prometheus.
+ * */
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+public class MetricasJdbc {
+
+    // Límite de series distintas, para que un SQL generado dinámicamente no agote la memoria
+    private static final int MAXIMO_SENTENCIAS = 500;
+    private static final int MAXIMO_CACHE_NORMALIZACION = 5_000;
+    private static final String SENTENCIA_DESBORDE = "(otras sentencias)";
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern CADENAS = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMEROS = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern LISTAS_IN = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern VALUES_MULTIPLES = Pattern.compile("(?i)(\\bVALUES\\s*\\([^()]*\\))(?:\\s*,\\s*\\([^()]*\\))+");
+
+    private static final MetricasJdbc INSTANCIA = new MetricasJdbc();
+
+    private final Map<String, MetricasSentencia> porSql = new ConcurrentHashMap<>();
+    // SQL original -> métricas; evita normalizar el mismo texto en cada ejecución
+    private final Map<String, MetricasSentencia> porSqlOriginal = new ConcurrentHashMap<>();
+
+    /**
+     * Métricas de una sentencia normalizada.
+     */
+    public static final class MetricasSentencia {
+        private final String sql;
+        private final Histograma ejecucion = Histograma.deLatencia();
+        private final Histograma lectura = Histograma.deLatencia();
+        private final Histograma filas = Histograma.deFilas();
+
+        MetricasSentencia(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Histograma getEjecucion() {
+            return ejecucion;
+        }
+
+        public Histograma getLectura() {
+            return lectura;
+        }
+
+        public Histograma getFilas() {
+            return filas;
+        }
+    }
+
+    public static MetricasJdbc getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Devuelve (creándolas si hace falta) las métricas de una sentencia a partir de su SQL original.
+     * @param sqlOriginal Texto SQL tal como lo envió el repositorio.
+     * @return Métricas de la sentencia normalizada.
+     */
+    public MetricasSentencia de(String sqlOriginal) {
+        MetricasSentencia metricas = porSqlOriginal.get(sqlOriginal);
+        if (metricas != null) {
+            return metricas;
+        }
+        String normalizado = normalizar(sqlOriginal);
+        metricas = porSql.get(normalizado);
+        if (metricas == null) {
+            String clave = porSql.size() < MAXIMO_SENTENCIAS ? normalizado : SENTENCIA_DESBORDE;
+            metricas = porSql.computeIfAbsent(clave, MetricasSentencia::new);
+        }
+        /*
+         * Lleno (las listas IN de largo variable generan muchos textos distintos) se vacía en vez de
+         * dejar de guardar: si no, toda sentencia que no hubiera entrado antes pasaría por las
+         * expresiones regulares en cada ejecución. Las frecuentes vuelven a entrar en su siguiente uso.
+         */
+        if (porSqlOriginal.size() >= MAXIMO_CACHE_NORMALIZACION) {
+            porSqlOriginal.clear();
+        }
+        porSqlOriginal.put(sqlOriginal, metricas);
+        return metricas;
+    }
+
+    /**
+     * Vista de solo lectura de todas las sentencias registradas.
+     * @return Mapa SQL normalizado -> métricas.
+     */
+    public Map<String, MetricasSentencia> getSentencias() {
+        return Collections.unmodifiableMap(porSql);
+    }
+
+    /**
+     * Normaliza un SQL para agrupar sus variantes: colapsa espacios, reemplaza literales de
+     * texto y números por '?', reduce las listas IN de parámetros a un solo '?' y los
+     * INSERT de varias filas a una sola fila.
+     *
+     * @param sql Texto SQL original.
+     * @return SQL normalizado.
+     */
+    public static String normalizar(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String resultado = CADENAS.matcher(sql).replaceAll("?");
+        resultado = NUMEROS.matcher(resultado).replaceAll("?");
+        resultado = ESPACIOS.matcher(resultado).replaceAll(" ").trim();
+        resultado = LISTAS_IN.matcher(resultado).replaceAll("IN (?)");
+        resultado = VALUES_MULTIPLES.matcher(resultado).replaceAll("$1");
+        return resultado;
+    }
+}
@@ -0,0 +1,348 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Migraciones versionadas del esquema clinica_odontologica. Se ejecutan al desplegar
+ * (AplicacionListener) y registran cada versión aplicada en la tabla esquema_version, así que
+ * todos los despliegues terminan con el mismo esquema afinado sin depender de índices creados a mano.
+ *
+ * - Las migraciones se aplican en orden de versión y una sola vez; para cambiar el esquema se
+ *   agrega una versión nueva al final de MIGRACIONES, nunca se edita una ya publicada (si su
+ *   huella no coincide con la registrada se avisa en el log).
+ * - Cada paso es idempotente: un índice no se crea si ya existe uno con las mismas columnas
+ *   (con cualquier nombre). En MySQL el DDL confirma solo, así que si una versión falla a medias
+ *   se vuelve a ejecutar completa en el siguiente arranque y termina lo que faltaba.
+ * - En MySQL varias instancias que arrancan a la vez se turnan con GET_LOCK.
+ * - Se desactiva con -Dendodental.migraciones=false (por ejemplo, si el DBA aplica el DDL).
+ * */
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class Migrador {
+
+    private static final String CANDADO = "endodental_migraciones";
+    private static final int ESPERA_CANDADO_SEG = 600;
+
+    /**
+     * Paso de una migración. Debe poder repetirse sin efecto si ya se aplicó.
+     */
+    public interface Paso {
+        /**
+         * @return Texto que identifica el paso; forma parte de la huella de la migración.
+         */
+        String descripcion();
+
+        void aplicar(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Índice secundario. Las columnas van en el orden del índice: primero las de igualdad, luego
+     * la de rango u orden, y al final las que solo se leen (para que el índice cubra la consulta).
+     *
+     * @param tabla    Tabla del índice.
+     * @param nombre   Nombre del índice.
+     * @param columnas Columnas, en orden.
+     */
+    public record Indice(String tabla, String nombre, List<String> columnas) implements Paso {
+
+        @Override
+        public String descripcion() {
+            return "CREATE INDEX " + nombre + " ON " + tabla + " (" + String.join(", ", columnas) + ")";
+        }
+
+        @Override
+        public void aplicar(Connection conn) throws SQLException {
+            Map<String, List<String>> existentes = indices(conn, tabla, false);
+            for (Map.Entry<String, List<String>> e : existentes.entrySet()) {
+                if (e.getValue().equals(columnas)) {
+                    return; // Ya existe, quizás creado a mano con otro nombre
+                }
+            }
+            if (existentes.containsKey(nombre)) {
+                System.err.println("[Migrador] El índice " + nombre + " de " + tabla + " existe con otras columnas "
+                        + existentes.get(nombre) + "; se deja como está");
+                return;
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(descripcion());
+            }
+        }
+    }
+
+    /**
+     * Índice único: además de acelerar la búsqueda, la base de datos rechaza los valores repetidos.
+     * Si la tabla ya tiene repetidos el paso falla con un mensaje que indica cuál, para que se
+     * corrijan los datos antes del siguiente arranque.
+     *
+     * @param tabla    Tabla del índice.
+     * @param nombre   Nombre del índice.
+     * @param columnas Columnas, en orden.
+     */
+    public record IndiceUnico(String tabla, String nombre, List<String> columnas) implements Paso {
+
+        @Override
+        public String descripcion() {
+            return "CREATE UNIQUE INDEX " + nombre + " ON " + tabla + " (" + String.join(", ", columnas) + ")";
+        }
+
+        @Override
+        public void aplicar(Connection conn) throws SQLException {
+            if (indices(conn, tabla, true).containsValue(columnas)) {
+                return; // Ya existe, quizás como restricción UNIQUE del script original
+            }
+            String lista = String.join(", ", columnas);
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery("SELECT " + lista + " FROM " + tabla
+                        + " GROUP BY " + lista + " HAVING COUNT(*) > 1 LIMIT 1")) {
+                    if (rs.next()) {
+                        throw new SQLException("No se puede crear " + nombre + ": " + tabla + " tiene valores repetidos en ("
+                                + lista + "), por ejemplo '" + rs.getString(1) + "'");
+                    }
+                }
+                stmt.execute(descripcion());
+            }
+        }
+    }
+
+    /**
+     * @param version     Número de versión, creciente.
+     * @param descripcion Qué cambia y para qué consultas.
+     * @param pasos       Pasos, en orden.
+     */
+    public record Migracion(int version, String descripcion, List<Paso> pasos) {
+
+        /**
+         * @return SHA-256 de la versión, la descripción y los pasos: detecta si se editó una
+         * migración ya aplicada.
+         */
+        String huella() {
+            StringBuilder texto = new StringBuilder().append(version).append('\n').append(descripcion);
+            for (Paso paso : pasos) {
+                texto.append('\n').append(paso.descripcion());
+            }
+            try {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                return HexFormat.of().formatHex(sha.digest(texto.toString().getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 no disponible", e);
+            }
+        }
+    }
+
+    /*
+     * Historial del esquema. Los índices salen de los predicados de los repositorios:
+     * - citas(fecha_hora, estado): agenda del día por estados (listarPorFechaYEstados).
+     * - citas(id_odontologo, fecha_hora, estado): cruce de horarios (existeCitaEnHorario, que el
+     *   índice cubre) y pendientes del doctor (listarPendientesPorDoctor).
+     * - citas(fecha_hora, id_cita) y facturas(fecha_emision, id_factura): paginación por cursor
+     *   (buscar), que ordena por esas dos columnas sin ordenar en memoria.
+     * - pacientes(estado, apellidos, nombres): listados de activos/inactivos ya ordenados y el
+     *   conteo del dashboard, cubierto por el índice.
+     * - usuarios(username): login.
+     * - citas(estado, fecha_hora, id_cita): citas por facturar ('Atendida'), en lista completa
+     *   (listarPorEstado) o paginadas (buscar), sin recorrer el historial.
+     * - facturas(identificacion_cliente, fecha_emision, id_factura): historial de un cliente (buscar).
+     * - pacientes(cedula) único: la validación de duplicados de PacienteServiceImpl deja de depender
+     *   de que dos altas simultáneas (en este u otro servidor) no se crucen.
+     */
+    private static final List<Migracion> MIGRACIONES = List.of(
+            new Migracion(1, "Índices de la agenda de citas", List.of(
+                    indice("citas", "idx_citas_fecha_estado", "fecha_hora", "estado"),
+                    indice("citas", "idx_citas_odontologo_fecha_estado", "id_odontologo", "fecha_hora", "estado"),
+                    indice("citas", "idx_citas_fecha_id", "fecha_hora", "id_cita"))),
+            new Migracion(2, "Índice de facturas por fecha de emisión", List.of(
+                    indice("facturas", "idx_facturas_fecha_id", "fecha_emision", "id_factura"))),
+            new Migracion(3, "Índices de pacientes y usuarios", List.of(
+                    indice("pacientes", "idx_pacientes_estado_apellidos_nombres", "estado", "apellidos", "nombres"),
+                    indice("usuarios", "idx_usuarios_username", "username"))),
+            new Migracion(4, "Índices de citas por estado y de facturas por cliente", List.of(
+                    indice("citas", "idx_citas_estado_fecha_id", "estado", "fecha_hora", "id_cita"),
+                    indice("facturas", "idx_facturas_cliente_fecha_id", "identificacion_cliente", "fecha_emision", "id_factura"))),
+            new Migracion(5, "Cédula única de pacientes", List.of(
+                    new IndiceUnico("pacientes", "uk_pacientes_cedula", List.of("cedula")))));
+
+    private Migrador() {
+    }
+
+    /**
+     * @return Las migraciones conocidas, en orden de versión.
+     */
+    public static List<Migracion> migraciones() {
+        return MIGRACIONES;
+    }
+
+    /**
+     * Aplica las migraciones pendientes con una conexión del pool. Un error se informa en el log
+     * pero no detiene el despliegue: sin los índices la aplicación funciona, solo que más lenta.
+     */
+    public static void migrar() {
+        if (!Boolean.parseBoolean(System.getProperty("endodental.migraciones", "true"))) {
+            System.out.println("[Migrador] Migraciones desactivadas (-Dendodental.migraciones=false)");
+            return;
+        }
+        try (Connection conn = ConexionBDD.getConnection()) {
+            long inicio = System.nanoTime();
+            int aplicadas = migrar(conn);
+            System.out.println("[Migrador] Esquema en la versión " + MIGRACIONES.getLast().version() + " ("
+                    + aplicadas + " migraciones aplicadas en " + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+        } catch (SQLException e) {
+            System.err.println("[Migrador] No se pudo migrar el esquema: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Aplica, en orden, las migraciones que aún no están en esquema_version.
+     *
+     * @param conn Conexión a la base; se usa con autocommit y se deja como estaba.
+     * @return Cantidad de migraciones aplicadas.
+     * @throws SQLException Si falla un paso; las versiones anteriores quedan registradas.
+     */
+    public static int migrar(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(true);
+        boolean mysql = esMySql(conn);
+        if (mysql) {
+            tomarCandado(conn);
+        }
+        try {
+            crearTablaVersiones(conn);
+            Map<Integer, String> registradas = versionesRegistradas(conn);
+            int aplicadas = 0;
+            for (Migracion migracion : MIGRACIONES) {
+                String huella = migracion.huella();
+                String registrada = registradas.get(migracion.version());
+                if (registrada != null) {
+                    if (!registrada.equals(huella)) {
+                        System.err.println("[Migrador] La versión " + migracion.version()
+                                + " cambió después de aplicarse; agregue una versión nueva en lugar de editarla");
+                    }
+                    continue;
+                }
+                long inicio = System.nanoTime();
+                for (Paso paso : migracion.pasos()) {
+                    paso.aplicar(conn);
+                }
+                long ms = (System.nanoTime() - inicio) / 1_000_000;
+                registrar(conn, migracion, huella, ms);
+                System.out.println("[Migrador] Versión " + migracion.version() + " (" + migracion.descripcion()
+                        + ") aplicada en " + ms + " ms");
+                aplicadas++;
+            }
+            return aplicadas;
+        } finally {
+            if (mysql) {
+                soltarCandado(conn);
+            }
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static Indice indice(String tabla, String nombre, String... columnas) {
+        return new Indice(tabla, nombre, List.of(columnas));
+    }
+
+    /**
+     * Índices de una tabla (incluida la clave primaria) con sus columnas en orden, en minúsculas.
+     *
+     * @param soloUnicos true para listar solo los índices únicos.
+     */
+    static Map<String, List<String>> indices(Connection conn, String tabla, boolean soloUnicos) throws SQLException {
+        Map<String, TreeMap<Integer, String>> porNombre = new HashMap<>();
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), conn.getSchema(), tabla, soloUnicos, true)) {
+            while (rs.next()) {
+                String nombre = rs.getString("INDEX_NAME");
+                String columna = rs.getString("COLUMN_NAME");
+                if (nombre == null || columna == null) {
+                    continue; // Estadísticas de la tabla, no un índice
+                }
+                porNombre.computeIfAbsent(nombre.toLowerCase(Locale.ROOT), k -> new TreeMap<>())
+                        .put((int) rs.getShort("ORDINAL_POSITION"), columna.toLowerCase(Locale.ROOT));
+            }
+        }
+        Map<String, List<String>> indices = new HashMap<>();
+        porNombre.forEach((nombre, columnas) -> indices.put(nombre, new ArrayList<>(columnas.values())));
+        return indices;
+    }
+
+    private static boolean esMySql(Connection conn) throws SQLException {
+        String producto = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        return producto.contains("mysql") || producto.contains("mariadb");
+    }
+
+    private static void tomarCandado(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, CANDADO);
+            stmt.setInt(2, ESPERA_CANDADO_SEG);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Otra instancia mantiene el candado de migraciones más de "
+                            + ESPERA_CANDADO_SEG + " s");
+                }
+            }
+        }
+    }
+
+    private static void soltarCandado(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, CANDADO);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            // El candado se libera de todos modos al cerrarse la sesión
+            System.err.println("[Migrador] No se pudo liberar el candado: " + e.getMessage());
+        }
+    }
+
+    private static void crearTablaVersiones(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS esquema_version ("
+                    + "version INT PRIMARY KEY, "
+                    + "descripcion VARCHAR(200) NOT NULL, "
+                    + "huella CHAR(64) NOT NULL, "
+                    + "aplicada_en DATETIME NOT NULL, "
+                    + "duracion_ms BIGINT NOT NULL)");
+        }
+    }
+
+    private static Map<Integer, String> versionesRegistradas(Connection conn) throws SQLException {
+        Map<Integer, String> versiones = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, huella FROM esquema_version")) {
+            while (rs.next()) {
+                versiones.put(rs.getInt("version"), rs.getString("huella"));
+            }
+        }
+        return versiones;
+    }
+
+    private static void registrar(Connection conn, Migracion migracion, String huella, long ms) throws SQLException {
+        String sql = "INSERT INTO esquema_version (version, descripcion, huella, aplicada_en, duracion_ms) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migracion.version());
+            stmt.setString(2, migracion.descripcion());
+            stmt.setString(3, huella);
+            stmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setLong(5, ms);
+            stmt.executeUpdate();
+        }
+    }
+}
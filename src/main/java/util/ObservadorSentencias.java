@@ -0,0 +1,34 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Interfaz para recibir un aviso por cada sentencia SQL ejecutada sobre una
+ * conexión instrumentada (ConexionInstrumentada). La usa PresupuestoConsultas para contar
+ * las consultas de cada solicitud.
+ * */
+
+@FunctionalInterface
+public interface ObservadorSentencias {
+
+    /**
+     * Se invoca después de cada ejecución.
+     * @param sqlNormalizado SQL normalizado de la sentencia (null si no se conoce el SQL).
+     * @param nanos          Tiempo de ejecución en nanosegundos.
+     */
+    void alEjecutar(String sqlNormalizado, long nanos);
+
+    /**
+     * Se invoca al terminar de leer un ResultSet.
+     * @param nanos Tiempo del recorrido, desde el primer next() hasta el último o el close().
+     */
+    default void alLeer(long nanos) {
+    }
+
+    /**
+     * Se invoca después de una sentencia que modifica datos: executeUpdate, executeBatch o un
+     * execute cuyo primer resultado no es un ResultSet.
+     */
+    default void alModificar() {
+    }
+}
@@ -0,0 +1,486 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Pool de conexiones acotado que reemplaza la apertura de una conexión física
+ * (DriverManager) por cada solicitud. Mantiene un mínimo de conexiones listas, limita el máximo,
+ * valida las conexiones al prestarlas, retira las inactivas y las que superan su tiempo de vida,
+ * detecta conexiones retenidas demasiado tiempo (fugas) y lleva contadores de espera, activas y libres.
+ *
+ * Las conexiones entregadas son envoltorios (proxy) de la conexión física: al llamar a close()
+ * no se cierra el socket con MySQL, la conexión se limpia y vuelve al pool. Por eso el filtro y los
+ * repositorios que ya usan try-with-resources siguen funcionando sin cambios.
+ *
+ * Cada conexión física tiene además una caché LRU de sentencias preparadas (CacheSentencias):
+ * prepareStatement(sql) devuelve la sentencia ya preparada para ese SQL si está libre.
+ * */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PoolConexiones implements AutoCloseable {
+
+    // Datos de conexión física
+    private final String nombre;
+    private final String url;
+    private final String usuario;
+    private final String clave;
+    private final ConfiguracionPool config;
+
+    /*
+     * Conexiones libres. Se usan como pila (LIFO): la última devuelta es la primera prestada,
+     * así las conexiones "calientes" se reutilizan y las sobrantes envejecen y se retiran.
+     */
+    private final LinkedBlockingDeque<ConexionFisica> libres = new LinkedBlockingDeque<>();
+    // Conexiones actualmente prestadas (para detección de fugas)
+    private final Set<ConexionFisica> prestadas = ConcurrentHashMap.newKeySet();
+    // Un permiso por conexión prestada: limita cuántos hilos pueden tener conexión a la vez
+    private final Semaphore permisos;
+    // Total de conexiones físicas abiertas (libres + prestadas)
+    private final AtomicInteger totalFisicas = new AtomicInteger();
+    // Hilo de mantenimiento: retiro de inactivas, vida máxima, mínimo de conexiones y fugas
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado;
+
+    // Contadores
+    private final LongAdder prestamos = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    private final LongAdder esperasAgotadas = new LongAdder();
+    private final LongAdder creadas = new LongAdder();
+    private final LongAdder destruidas = new LongAdder();
+    private final LongAdder fugasDetectadas = new LongAdder();
+    private final LongAdder sentenciasAciertos = new LongAdder();
+    private final LongAdder sentenciasFallos = new LongAdder();
+    private final LongAdder sentenciasDesalojadas = new LongAdder();
+    // Distribución del tiempo de espera por préstamo (exportada en /metrics)
+    private final Histograma esperas = Histograma.deLatencia();
+
+    /**
+     * Crea el pool. Las conexiones mínimas se abren en segundo plano, de modo que
+     * una base de datos caída al iniciar no impide desplegar la aplicación.
+     *
+     * @param nombre  Nombre del pool (se usa en los mensajes de log).
+     * @param url     Cadena JDBC.
+     * @param usuario Usuario de MySQL.
+     * @param clave   Contraseña de MySQL.
+     * @param config  Parámetros de tamaño y tiempos del pool.
+     */
+    public PoolConexiones(String nombre, String url, String usuario, String clave, ConfiguracionPool config) {
+        this.nombre = nombre;
+        this.url = url;
+        this.usuario = usuario;
+        this.clave = clave;
+        this.config = config;
+        this.permisos = new Semaphore(config.maximo(), true);
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "pool-" + nombre + "-mantenimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = config.periodoMantenimientoMs();
+        mantenimiento.scheduleWithFixedDelay(this::mantener, 0, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool. Si no hay libres y ya se alcanzó el máximo,
+     * espera hasta el tiempo configurado y luego lanza una excepción.
+     *
+     * @return Conexión que vuelve al pool al llamar a close().
+     * @throws SQLException Si se agota la espera o no se puede abrir una conexión física.
+     */
+    public Connection obtenerConexion() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool '" + nombre + "' está cerrado");
+        }
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(config.esperaMaximaMs(), TimeUnit.MILLISECONDS)) {
+                esperasAgotadas.increment();
+                throw new SQLTransientConnectionException("Tiempo de espera agotado (" + config.esperaMaximaMs()
+                        + " ms) para obtener una conexión del pool '" + nombre + "'. " + getEstadisticas());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido mientras se esperaba una conexión", e);
+        }
+
+        try {
+            ConexionFisica fisica = tomarLibreValida();
+            while (fisica == null) {
+                if (reservarCupo()) {
+                    fisica = crearFisica();
+                } else {
+                    // El mantenimiento está abriendo una conexión: esperamos a que quede libre
+                    fisica = libres.pollFirst(10, TimeUnit.MILLISECONDS);
+                    if (fisica != null && !esUtilizable(fisica)) {
+                        destruir(fisica);
+                        fisica = null;
+                    }
+                }
+            }
+            long espera = System.nanoTime() - inicio;
+            registrarEspera(espera);
+            fisica.prestadaDesde = System.nanoTime();
+            fisica.fugaReportada = false;
+            fisica.origen = config.rastrearFugas() && config.umbralFugaMs() > 0
+                    ? new Throwable("Conexión prestada aquí") : null;
+            prestadas.add(fisica);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ConexionPrestada(fisica));
+        } catch (InterruptedException e) {
+            permisos.release();
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido mientras se esperaba una conexión", e);
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve una instantánea de los contadores del pool.
+     * @return Estadísticas actuales (activas, libres, espera, etc.).
+     */
+    public EstadisticasPool getEstadisticas() {
+        long n = prestamos.sum();
+        return new EstadisticasPool(
+                nombre,
+                prestadas.size(),
+                libres.size(),
+                totalFisicas.get(),
+                permisos.getQueueLength(),
+                n,
+                TimeUnit.NANOSECONDS.toMillis(esperaTotalNanos.sum()),
+                TimeUnit.NANOSECONDS.toMillis(esperaMaximaNanos.get()),
+                esperasAgotadas.sum(),
+                creadas.sum(),
+                destruidas.sum(),
+                fugasDetectadas.sum(),
+                sentenciasAciertos.sum(),
+                sentenciasFallos.sum(),
+                sentenciasDesalojadas.sum());
+    }
+
+    /**
+     * Histograma del tiempo de espera para obtener una conexión.
+     * @return Histograma en nanosegundos (exportado en segundos).
+     */
+    public Histograma getHistogramaEspera() {
+        return esperas;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public ConfiguracionPool getConfiguracion() {
+        return config;
+    }
+
+    /**
+     * Cierra el pool: detiene el mantenimiento y cierra las conexiones libres.
+     * Las conexiones prestadas se cierran cuando sus dueños las devuelven.
+     */
+    @Override
+    public void close() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionFisica fisica;
+        while ((fisica = libres.pollFirst()) != null) {
+            destruir(fisica);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Préstamo y devolución
+    // ------------------------------------------------------------------
+
+    /**
+     * Toma la conexión libre más reciente que siga siendo utilizable,
+     * descartando las vencidas o inválidas.
+     */
+    private ConexionFisica tomarLibreValida() {
+        ConexionFisica fisica;
+        while ((fisica = libres.pollFirst()) != null) {
+            if (esUtilizable(fisica)) {
+                return fisica;
+            }
+            destruir(fisica);
+        }
+        return null;
+    }
+
+    /**
+     * Validación al prestar: se descarta si superó la vida máxima y, si estuvo inactiva
+     * más del umbral configurado, se verifica con isValid() (un ping a MySQL).
+     * Las conexiones usadas hace muy poco no se validan para no pagar un viaje extra.
+     */
+    private boolean esUtilizable(ConexionFisica fisica) {
+        long ahora = System.nanoTime();
+        if (vencida(fisica, ahora)) {
+            return false;
+        }
+        if (ahora - fisica.ultimoUso < TimeUnit.MILLISECONDS.toNanos(config.validarTrasInactividadMs())) {
+            return true;
+        }
+        try {
+            return fisica.conexion.isValid(config.timeoutValidacionSeg());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean vencida(ConexionFisica fisica, long ahora) {
+        return config.vidaMaximaMs() > 0
+                && ahora - fisica.creada > TimeUnit.MILLISECONDS.toNanos(config.vidaMaximaMs());
+    }
+
+    /**
+     * Devuelve la conexión física al pool, deshaciendo cualquier transacción pendiente
+     * y restaurando el estado por defecto para el siguiente usuario.
+     */
+    private void devolver(ConexionFisica fisica) {
+        prestadas.remove(fisica);
+        try {
+            boolean reutilizable = !cerrado && !fisica.conexion.isClosed();
+            if (reutilizable) {
+                try {
+                    if (!fisica.conexion.getAutoCommit()) {
+                        fisica.conexion.rollback();
+                        fisica.conexion.setAutoCommit(true);
+                    }
+                    if (fisica.conexion.isReadOnly()) {
+                        fisica.conexion.setReadOnly(false);
+                    }
+                    fisica.conexion.clearWarnings();
+                } catch (SQLException e) {
+                    reutilizable = false;
+                }
+            }
+            if (fisica.sentencias != null) {
+                fisica.sentencias.liberarTodas();
+            }
+            fisica.ultimoUso = System.nanoTime();
+            fisica.origen = null;
+            if (reutilizable && !vencida(fisica, fisica.ultimoUso)) {
+                libres.offerFirst(fisica);
+            } else {
+                destruir(fisica);
+            }
+        } catch (SQLException e) {
+            destruir(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    private void registrarEspera(long nanos) {
+        prestamos.increment();
+        esperaTotalNanos.add(nanos);
+        esperaMaximaNanos.accumulateAndGet(nanos, Math::max);
+        esperas.registrar(nanos);
+    }
+
+    // ------------------------------------------------------------------
+    // Conexiones físicas
+    // ------------------------------------------------------------------
+
+    /** Reserva un lugar para una conexión física nueva sin superar el máximo. */
+    private boolean reservarCupo() {
+        int actual;
+        do {
+            actual = totalFisicas.get();
+            if (actual >= config.maximo()) {
+                return false;
+            }
+        } while (!totalFisicas.compareAndSet(actual, actual + 1));
+        return true;
+    }
+
+    /** Abre una conexión física. El cupo debe estar reservado previamente. */
+    private ConexionFisica crearFisica() throws SQLException {
+        try {
+            Connection conexion = DriverManager.getConnection(url, usuario, clave);
+            creadas.increment();
+            CacheSentencias sentencias = config.tamanoCacheSentencias() > 0
+                    ? new CacheSentencias(conexion, config.tamanoCacheSentencias(),
+                            sentenciasAciertos, sentenciasFallos, sentenciasDesalojadas)
+                    : null;
+            return new ConexionFisica(conexion, sentencias);
+        } catch (SQLException | RuntimeException e) {
+            totalFisicas.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void destruir(ConexionFisica fisica) {
+        totalFisicas.decrementAndGet();
+        destruidas.increment();
+        if (fisica.sentencias != null) {
+            fisica.sentencias.cerrarTodas();
+        }
+        try {
+            fisica.conexion.close();
+        } catch (SQLException ignorada) {
+            // La conexión ya no sirve; no hay nada más que hacer
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Mantenimiento periódico
+    // ------------------------------------------------------------------
+
+    /**
+     * Tarea periódica: retira las conexiones libres vencidas o inactivas por encima del mínimo,
+     * completa el mínimo de conexiones y reporta las conexiones prestadas por más tiempo
+     * que el umbral de fugas, indicando dónde se obtuvieron.
+     */
+    private void mantener() {
+        if (cerrado) {
+            return;
+        }
+        try {
+            long ahora = System.nanoTime();
+            long inactividad = TimeUnit.MILLISECONDS.toNanos(config.inactividadMaximaMs());
+
+            // Recorremos de la más antigua (final de la pila) a la más reciente
+            List<ConexionFisica> retiradas = new ArrayList<>();
+            Iterator<ConexionFisica> it = libres.descendingIterator();
+            while (it.hasNext()) {
+                ConexionFisica fisica = it.next();
+                boolean sobrante = totalFisicas.get() - retiradas.size() > config.minimo();
+                boolean inactiva = config.inactividadMaximaMs() > 0 && ahora - fisica.ultimoUso > inactividad;
+                if ((vencida(fisica, ahora) || (sobrante && inactiva)) && libres.remove(fisica)) {
+                    retiradas.add(fisica);
+                }
+            }
+            retiradas.forEach(this::destruir);
+
+            while (!cerrado && totalFisicas.get() < config.minimo() && reservarCupo()) {
+                ConexionFisica nueva = crearFisica();
+                nueva.ultimoUso = System.nanoTime();
+                libres.offerLast(nueva);
+            }
+
+            if (config.umbralFugaMs() > 0) {
+                long umbral = TimeUnit.MILLISECONDS.toNanos(config.umbralFugaMs());
+                for (ConexionFisica fisica : prestadas) {
+                    if (!fisica.fugaReportada && ahora - fisica.prestadaDesde > umbral) {
+                        fisica.fugaReportada = true;
+                        fugasDetectadas.increment();
+                        System.err.println("[Pool " + nombre + "] Posible fuga: conexión prestada hace más de "
+                                + config.umbralFugaMs() + " ms sin devolverse"
+                                + (fisica.origen == null ? "; active rastrearFugas del pool para ver dónde se prestó" : ""));
+                        Throwable origen = fisica.origen;
+                        if (origen != null) {
+                            origen.printStackTrace();
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("[Pool " + nombre + "] No se pudo completar el mínimo de conexiones: " + e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Conexión física con los tiempos que el pool necesita para decidir
+     * si la valida, la retira o la reporta como fuga, y su caché de sentencias.
+     */
+    private static final class ConexionFisica {
+        final Connection conexion;
+        final CacheSentencias sentencias;
+        final long creada = System.nanoTime();
+        volatile long ultimoUso = creada;
+        volatile long prestadaDesde;
+        volatile boolean fugaReportada;
+        volatile Throwable origen;
+
+        ConexionFisica(Connection conexion, CacheSentencias sentencias) {
+            this.conexion = conexion;
+            this.sentencias = sentencias;
+        }
+    }
+
+    /**
+     * Manejador del proxy entregado al código de la aplicación. Delegamos todo a la conexión
+     * física salvo close(), que devuelve la conexión al pool (una sola vez), e isClosed(),
+     * que refleja el cierre lógico. Después de cerrada, cualquier otro uso lanza SQLException.
+     * prepareStatement(sql) y prepareStatement(sql, clavesGeneradas) pasan por la caché de sentencias.
+     */
+    private final class ConexionPrestada implements InvocationHandler {
+        private final ConexionFisica fisica;
+        private boolean cerrada;
+
+        ConexionPrestada(ConexionFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close":
+                    if (!cerrada) {
+                        cerrada = true;
+                        devolver(fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return cerrada || fisica.conexion.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionPool[" + nombre + "]" + (cerrada ? " (devuelta)" : "");
+                case "unwrap":
+                case "isWrapperFor":
+                    break;
+                case "prepareStatement":
+                    if (cerrada) {
+                        throw new SQLException("La conexión ya fue devuelta al pool");
+                    }
+                    if (fisica.sentencias != null && args.length <= 2
+                            && (args.length == 1 || args[1] instanceof Integer)) {
+                        int clavesGeneradas = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        return fisica.sentencias.preparar((String) args[0], clavesGeneradas, (Connection) proxy);
+                    }
+                    break;
+                default:
+                    if (cerrada) {
+                        throw new SQLException("La conexión ya fue devuelta al pool");
+                    }
+            }
+            try {
+                return metodo.invoke(fisica.conexion, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
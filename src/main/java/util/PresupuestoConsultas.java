@@ -0,0 +1,169 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Presupuesto de consultas de una solicitud y detector de N+1.
+ * ConexionFilter crea una instancia por solicitud y la registra como observador de la conexión
+ * instrumentada. Cuenta las sentencias ejecutadas, el tiempo total en base de datos y cuántas veces
+ * se repite cada forma de SQL (SQL normalizado). Una misma forma ejecutada muchas veces en una
+ * solicitud suele indicar un patrón N+1 (una consulta dentro de un bucle).
+ *
+ * Límites configurables con propiedades del sistema:
+ * -Dendodental.presupuesto.maxSentencias    (por defecto 30)
+ * -Dendodental.presupuesto.maxTiempoMs      (por defecto 500)
+ * -Dendodental.presupuesto.maxRepeticiones  (por defecto 10)
+ * -Dendodental.presupuesto.estricto=true    hace fallar la solicitud (rollback y error 500)
+ *                                           en lugar de solo registrar el aviso; pensado para
+ *                                           ambientes de desarrollo y pruebas automatizadas.
+ *                                           Solo falla por cantidad de sentencias o N+1: el
+ *                                           tiempo depende de la carga de la base y se avisa
+ *                                           sin fallar. La prueba de carga lo activa en
+ *                                           'mvn -Pcarga verify'.
+ * Las solicitudes que exceden el presupuesto se cuentan siempre (estricto o no) y se publican en
+ * /metrics como endodental_presupuesto_excedido_total.
+ * */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PresupuestoConsultas implements ObservadorSentencias {
+
+    public static final int MAX_SENTENCIAS = Integer.getInteger("endodental.presupuesto.maxSentencias", 30);
+    public static final long MAX_TIEMPO_MS = Long.getLong("endodental.presupuesto.maxTiempoMs", 500);
+    public static final int MAX_REPETICIONES = Integer.getInteger("endodental.presupuesto.maxRepeticiones", 10);
+    public static final boolean ESTRICTO = Boolean.getBoolean("endodental.presupuesto.estricto");
+
+    // Sentencias cuyo SQL no se conoce (Statement sin texto, desborde de métricas)
+    private static final String SQL_DESCONOCIDO = "(sql desconocido)";
+
+    // Solicitudes que excedieron el presupuesto desde el arranque (se publican en /metrics)
+    private static final AtomicLong EXCESOS_SENTENCIAS = new AtomicLong();
+    private static final AtomicLong EXCESOS_TIEMPO = new AtomicLong();
+
+    // Nombre de la solicitud para los avisos (servlet y URI)
+    private final String origen;
+    private int sentencias;
+    private long nanosBaseDatos;
+    private final Map<String, Integer> repeticiones = new HashMap<>();
+    private boolean modifico;
+
+    /**
+     * @param origen Descripción de la solicitud, por ejemplo "FacturaServlet GET /facturacion".
+     */
+    public PresupuestoConsultas(String origen) {
+        this.origen = origen;
+    }
+
+    /*
+     * Los métodos están sincronizados porque una misma solicitud puede ejecutar consultas
+     * en paralelo (carga concurrente de la página), todas contra el mismo presupuesto.
+     */
+    @Override
+    public synchronized void alEjecutar(String sqlNormalizado, long nanos) {
+        sentencias++;
+        nanosBaseDatos += nanos;
+        repeticiones.merge(sqlNormalizado != null ? sqlNormalizado : SQL_DESCONOCIDO, 1, Integer::sum);
+    }
+
+    @Override
+    public synchronized void alLeer(long nanos) {
+        nanosBaseDatos += nanos;
+    }
+
+    @Override
+    public synchronized void alModificar() {
+        modifico = true;
+    }
+
+    /**
+     * @return true si la solicitud ejecutó alguna sentencia que modifica datos.
+     */
+    public synchronized boolean modificoDatos() {
+        return modifico;
+    }
+
+    public synchronized int getSentencias() {
+        return sentencias;
+    }
+
+    public synchronized long getTiempoMs() {
+        return TimeUnit.NANOSECONDS.toMillis(nanosBaseDatos);
+    }
+
+    /**
+     * Formas de SQL que se repitieron más veces que el límite (posibles N+1).
+     * @return Mapa SQL normalizado -> repeticiones.
+     */
+    public synchronized Map<String, Integer> getRepetidas() {
+        Map<String, Integer> repetidas = new HashMap<>();
+        repeticiones.forEach((sql, veces) -> {
+            if (veces > MAX_REPETICIONES) {
+                repetidas.put(sql, veces);
+            }
+        });
+        return repetidas;
+    }
+
+    /**
+     * Evalúa la solicitud contra los límites configurados.
+     * @return Lista de incumplimientos; vacía si la solicitud respetó el presupuesto.
+     */
+    public synchronized List<String> evaluar() {
+        List<String> incumplimientos = new ArrayList<>();
+        if (sentencias > MAX_SENTENCIAS) {
+            incumplimientos.add(sentencias + " sentencias (máximo " + MAX_SENTENCIAS + ")");
+        }
+        long ms = getTiempoMs();
+        if (ms > MAX_TIEMPO_MS) {
+            incumplimientos.add(ms + " ms en base de datos (máximo " + MAX_TIEMPO_MS + ")");
+        }
+        getRepetidas().forEach((sql, veces) ->
+                incumplimientos.add("posible N+1: " + veces + " ejecuciones de [" + sql + "]"));
+        return incumplimientos;
+    }
+
+    /**
+     * Indica si la solicitud se excedió en algo que no depende de la carga de la base: la
+     * cantidad de sentencias o una forma de SQL repetida (N+1). Es lo que hace fallar la
+     * solicitud en modo estricto.
+     * @return true si se superó el máximo de sentencias o el de repeticiones.
+     */
+    public synchronized boolean excedeSentencias() {
+        return sentencias > MAX_SENTENCIAS || !getRepetidas().isEmpty();
+    }
+
+    /**
+     * Cuenta una solicitud que excedió el presupuesto, según excedeSentencias().
+     */
+    public void registrarExceso() {
+        (excedeSentencias() ? EXCESOS_SENTENCIAS : EXCESOS_TIEMPO).incrementAndGet();
+    }
+
+    /**
+     * @return Solicitudes que excedieron la cantidad de sentencias o repitieron una forma de SQL (N+1).
+     */
+    public static long getExcesosSentencias() {
+        return EXCESOS_SENTENCIAS.get();
+    }
+
+    /**
+     * @return Solicitudes que solo excedieron el tiempo en base de datos.
+     */
+    public static long getExcesosTiempo() {
+        return EXCESOS_TIEMPO.get();
+    }
+
+    /**
+     * Arma el mensaje de aviso con la solicitud de origen y los incumplimientos.
+     * @param incumplimientos Resultado de evaluar().
+     * @return Texto para el log o la excepción.
+     */
+    public String reporte(List<String> incumplimientos) {
+        return "Presupuesto de consultas excedido en " + origen + ": " + String.join("; ", incumplimientos);
+    }
+}
@@ -0,0 +1,1065 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: ResultSet de una sentencia instrumentada (ConexionInstrumentada). Solo next() y
+ * close() hacen algo más que delegar: cuentan las filas y miden el recorrido, desde el primer next()
+ * hasta el último o el close(), y lo registran en MetricasJdbc una sola vez. El recorrido incluye el
+ * mapeo de filas del repositorio; medir cada next() por separado costaba dos System.nanoTime() por
+ * fila, más que la lectura de la fila en sí.
+ *
+ * Es una clase escrita a mano y no un Proxy porque los repositorios llaman a los getters una vez
+ * por columna y por fila: con un Proxy cada getString/getInt pasaba por el InvocationHandler y por
+ * Method.invoke, con un arreglo de argumentos y el valor envuelto. Aquí cada getter es una llamada
+ * directa al ResultSet del driver (ver ConexionInstrumentadaBenchmark).
+ * */
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+final class ResultadoMedido implements ResultSet {
+
+    private final ResultSet rs;
+    private final MetricasJdbc.MetricasSentencia metricas;
+    private final ObservadorSentencias observador;
+    private long inicio;
+    private long filas;
+    private boolean registrado;
+
+    ResultadoMedido(ResultSet rs, MetricasJdbc.MetricasSentencia metricas, ObservadorSentencias observador) {
+        this.rs = rs;
+        this.metricas = metricas;
+        this.observador = observador;
+    }
+
+    /**
+     * Avanza a la siguiente fila contándola; el primer llamado marca el inicio del recorrido y
+     * el que llega al final lo registra.
+     */
+    @Override
+    public boolean next() throws SQLException {
+        if (inicio == 0) {
+            inicio = System.nanoTime();
+        }
+        boolean hayFila = rs.next();
+        if (hayFila) {
+            filas++;
+        } else {
+            registrar();
+        }
+        return hayFila;
+    }
+
+    /**
+     * Registra la lectura (si el recorrido no llegó al final) y cierra el ResultSet del driver.
+     */
+    @Override
+    public void close() throws SQLException {
+        registrar();
+        rs.close();
+    }
+
+    private void registrar() {
+        if (!registrado) {
+            registrado = true;
+            long nanosLectura = inicio == 0 ? 0 : System.nanoTime() - inicio;
+            metricas.getLectura().registrar(nanosLectura);
+            metricas.getFilas().registrar(filas);
+            if (observador != null) {
+                observador.alLeer(nanosLectura);
+            }
+        }
+    }
+
+    // Lo que sigue solo delega en el ResultSet del driver
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        return rs.wasNull();
+    }
+
+    @Override
+    public String getString(int columna) throws SQLException {
+        return rs.getString(columna);
+    }
+
+    @Override
+    public boolean getBoolean(int columna) throws SQLException {
+        return rs.getBoolean(columna);
+    }
+
+    @Override
+    public byte getByte(int columna) throws SQLException {
+        return rs.getByte(columna);
+    }
+
+    @Override
+    public short getShort(int columna) throws SQLException {
+        return rs.getShort(columna);
+    }
+
+    @Override
+    public int getInt(int columna) throws SQLException {
+        return rs.getInt(columna);
+    }
+
+    @Override
+    public long getLong(int columna) throws SQLException {
+        return rs.getLong(columna);
+    }
+
+    @Override
+    public float getFloat(int columna) throws SQLException {
+        return rs.getFloat(columna);
+    }
+
+    @Override
+    public double getDouble(int columna) throws SQLException {
+        return rs.getDouble(columna);
+    }
+
+    @Deprecated
+    @Override
+    public BigDecimal getBigDecimal(int columna, int escala) throws SQLException {
+        return rs.getBigDecimal(columna, escala);
+    }
+
+    @Override
+    public byte[] getBytes(int columna) throws SQLException {
+        return rs.getBytes(columna);
+    }
+
+    @Override
+    public Date getDate(int columna) throws SQLException {
+        return rs.getDate(columna);
+    }
+
+    @Override
+    public Time getTime(int columna) throws SQLException {
+        return rs.getTime(columna);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columna) throws SQLException {
+        return rs.getTimestamp(columna);
+    }
+
+    @Override
+    public InputStream getAsciiStream(int columna) throws SQLException {
+        return rs.getAsciiStream(columna);
+    }
+
+    @Deprecated
+    @Override
+    public InputStream getUnicodeStream(int columna) throws SQLException {
+        return rs.getUnicodeStream(columna);
+    }
+
+    @Override
+    public InputStream getBinaryStream(int columna) throws SQLException {
+        return rs.getBinaryStream(columna);
+    }
+
+    @Override
+    public String getString(String columna) throws SQLException {
+        return rs.getString(columna);
+    }
+
+    @Override
+    public boolean getBoolean(String columna) throws SQLException {
+        return rs.getBoolean(columna);
+    }
+
+    @Override
+    public byte getByte(String columna) throws SQLException {
+        return rs.getByte(columna);
+    }
+
+    @Override
+    public short getShort(String columna) throws SQLException {
+        return rs.getShort(columna);
+    }
+
+    @Override
+    public int getInt(String columna) throws SQLException {
+        return rs.getInt(columna);
+    }
+
+    @Override
+    public long getLong(String columna) throws SQLException {
+        return rs.getLong(columna);
+    }
+
+    @Override
+    public float getFloat(String columna) throws SQLException {
+        return rs.getFloat(columna);
+    }
+
+    @Override
+    public double getDouble(String columna) throws SQLException {
+        return rs.getDouble(columna);
+    }
+
+    @Deprecated
+    @Override
+    public BigDecimal getBigDecimal(String columna, int escala) throws SQLException {
+        return rs.getBigDecimal(columna, escala);
+    }
+
+    @Override
+    public byte[] getBytes(String columna) throws SQLException {
+        return rs.getBytes(columna);
+    }
+
+    @Override
+    public Date getDate(String columna) throws SQLException {
+        return rs.getDate(columna);
+    }
+
+    @Override
+    public Time getTime(String columna) throws SQLException {
+        return rs.getTime(columna);
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columna) throws SQLException {
+        return rs.getTimestamp(columna);
+    }
+
+    @Override
+    public InputStream getAsciiStream(String columna) throws SQLException {
+        return rs.getAsciiStream(columna);
+    }
+
+    @Deprecated
+    @Override
+    public InputStream getUnicodeStream(String columna) throws SQLException {
+        return rs.getUnicodeStream(columna);
+    }
+
+    @Override
+    public InputStream getBinaryStream(String columna) throws SQLException {
+        return rs.getBinaryStream(columna);
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return rs.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        rs.clearWarnings();
+    }
+
+    @Override
+    public String getCursorName() throws SQLException {
+        return rs.getCursorName();
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        return rs.getMetaData();
+    }
+
+    @Override
+    public Object getObject(int columna) throws SQLException {
+        return rs.getObject(columna);
+    }
+
+    @Override
+    public Object getObject(String columna) throws SQLException {
+        return rs.getObject(columna);
+    }
+
+    @Override
+    public int findColumn(String columna) throws SQLException {
+        return rs.findColumn(columna);
+    }
+
+    @Override
+    public Reader getCharacterStream(int columna) throws SQLException {
+        return rs.getCharacterStream(columna);
+    }
+
+    @Override
+    public Reader getCharacterStream(String columna) throws SQLException {
+        return rs.getCharacterStream(columna);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columna) throws SQLException {
+        return rs.getBigDecimal(columna);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columna) throws SQLException {
+        return rs.getBigDecimal(columna);
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        return rs.isBeforeFirst();
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        return rs.isAfterLast();
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        return rs.isFirst();
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        return rs.isLast();
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        rs.beforeFirst();
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        rs.afterLast();
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        return rs.first();
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        return rs.last();
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        return rs.getRow();
+    }
+
+    @Override
+    public boolean absolute(int fila) throws SQLException {
+        return rs.absolute(fila);
+    }
+
+    @Override
+    public boolean relative(int filas) throws SQLException {
+        return rs.relative(filas);
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        return rs.previous();
+    }
+
+    @Override
+    public void setFetchDirection(int direccion) throws SQLException {
+        rs.setFetchDirection(direccion);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return rs.getFetchDirection();
+    }
+
+    @Override
+    public void setFetchSize(int filas) throws SQLException {
+        rs.setFetchSize(filas);
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return rs.getFetchSize();
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        return rs.getType();
+    }
+
+    @Override
+    public int getConcurrency() throws SQLException {
+        return rs.getConcurrency();
+    }
+
+    @Override
+    public boolean rowUpdated() throws SQLException {
+        return rs.rowUpdated();
+    }
+
+    @Override
+    public boolean rowInserted() throws SQLException {
+        return rs.rowInserted();
+    }
+
+    @Override
+    public boolean rowDeleted() throws SQLException {
+        return rs.rowDeleted();
+    }
+
+    @Override
+    public void updateNull(int columna) throws SQLException {
+        rs.updateNull(columna);
+    }
+
+    @Override
+    public void updateBoolean(int columna, boolean valor) throws SQLException {
+        rs.updateBoolean(columna, valor);
+    }
+
+    @Override
+    public void updateByte(int columna, byte valor) throws SQLException {
+        rs.updateByte(columna, valor);
+    }
+
+    @Override
+    public void updateShort(int columna, short valor) throws SQLException {
+        rs.updateShort(columna, valor);
+    }
+
+    @Override
+    public void updateInt(int columna, int valor) throws SQLException {
+        rs.updateInt(columna, valor);
+    }
+
+    @Override
+    public void updateLong(int columna, long valor) throws SQLException {
+        rs.updateLong(columna, valor);
+    }
+
+    @Override
+    public void updateFloat(int columna, float valor) throws SQLException {
+        rs.updateFloat(columna, valor);
+    }
+
+    @Override
+    public void updateDouble(int columna, double valor) throws SQLException {
+        rs.updateDouble(columna, valor);
+    }
+
+    @Override
+    public void updateBigDecimal(int columna, BigDecimal valor) throws SQLException {
+        rs.updateBigDecimal(columna, valor);
+    }
+
+    @Override
+    public void updateString(int columna, String valor) throws SQLException {
+        rs.updateString(columna, valor);
+    }
+
+    @Override
+    public void updateBytes(int columna, byte[] valor) throws SQLException {
+        rs.updateBytes(columna, valor);
+    }
+
+    @Override
+    public void updateDate(int columna, Date valor) throws SQLException {
+        rs.updateDate(columna, valor);
+    }
+
+    @Override
+    public void updateTime(int columna, Time valor) throws SQLException {
+        rs.updateTime(columna, valor);
+    }
+
+    @Override
+    public void updateTimestamp(int columna, Timestamp valor) throws SQLException {
+        rs.updateTimestamp(columna, valor);
+    }
+
+    @Override
+    public void updateAsciiStream(int columna, InputStream valor, int longitud) throws SQLException {
+        rs.updateAsciiStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateBinaryStream(int columna, InputStream valor, int longitud) throws SQLException {
+        rs.updateBinaryStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateCharacterStream(int columna, Reader valor, int longitud) throws SQLException {
+        rs.updateCharacterStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateObject(int columna, Object valor, int escalaOLongitud) throws SQLException {
+        rs.updateObject(columna, valor, escalaOLongitud);
+    }
+
+    @Override
+    public void updateObject(int columna, Object valor) throws SQLException {
+        rs.updateObject(columna, valor);
+    }
+
+    @Override
+    public void updateNull(String columna) throws SQLException {
+        rs.updateNull(columna);
+    }
+
+    @Override
+    public void updateBoolean(String columna, boolean valor) throws SQLException {
+        rs.updateBoolean(columna, valor);
+    }
+
+    @Override
+    public void updateByte(String columna, byte valor) throws SQLException {
+        rs.updateByte(columna, valor);
+    }
+
+    @Override
+    public void updateShort(String columna, short valor) throws SQLException {
+        rs.updateShort(columna, valor);
+    }
+
+    @Override
+    public void updateInt(String columna, int valor) throws SQLException {
+        rs.updateInt(columna, valor);
+    }
+
+    @Override
+    public void updateLong(String columna, long valor) throws SQLException {
+        rs.updateLong(columna, valor);
+    }
+
+    @Override
+    public void updateFloat(String columna, float valor) throws SQLException {
+        rs.updateFloat(columna, valor);
+    }
+
+    @Override
+    public void updateDouble(String columna, double valor) throws SQLException {
+        rs.updateDouble(columna, valor);
+    }
+
+    @Override
+    public void updateBigDecimal(String columna, BigDecimal valor) throws SQLException {
+        rs.updateBigDecimal(columna, valor);
+    }
+
+    @Override
+    public void updateString(String columna, String valor) throws SQLException {
+        rs.updateString(columna, valor);
+    }
+
+    @Override
+    public void updateBytes(String columna, byte[] valor) throws SQLException {
+        rs.updateBytes(columna, valor);
+    }
+
+    @Override
+    public void updateDate(String columna, Date valor) throws SQLException {
+        rs.updateDate(columna, valor);
+    }
+
+    @Override
+    public void updateTime(String columna, Time valor) throws SQLException {
+        rs.updateTime(columna, valor);
+    }
+
+    @Override
+    public void updateTimestamp(String columna, Timestamp valor) throws SQLException {
+        rs.updateTimestamp(columna, valor);
+    }
+
+    @Override
+    public void updateAsciiStream(String columna, InputStream valor, int longitud) throws SQLException {
+        rs.updateAsciiStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateBinaryStream(String columna, InputStream valor, int longitud) throws SQLException {
+        rs.updateBinaryStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateCharacterStream(String columna, Reader valor, int longitud) throws SQLException {
+        rs.updateCharacterStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateObject(String columna, Object valor, int escalaOLongitud) throws SQLException {
+        rs.updateObject(columna, valor, escalaOLongitud);
+    }
+
+    @Override
+    public void updateObject(String columna, Object valor) throws SQLException {
+        rs.updateObject(columna, valor);
+    }
+
+    @Override
+    public void insertRow() throws SQLException {
+        rs.insertRow();
+    }
+
+    @Override
+    public void updateRow() throws SQLException {
+        rs.updateRow();
+    }
+
+    @Override
+    public void deleteRow() throws SQLException {
+        rs.deleteRow();
+    }
+
+    @Override
+    public void refreshRow() throws SQLException {
+        rs.refreshRow();
+    }
+
+    @Override
+    public void cancelRowUpdates() throws SQLException {
+        rs.cancelRowUpdates();
+    }
+
+    @Override
+    public void moveToInsertRow() throws SQLException {
+        rs.moveToInsertRow();
+    }
+
+    @Override
+    public void moveToCurrentRow() throws SQLException {
+        rs.moveToCurrentRow();
+    }
+
+    @Override
+    public Statement getStatement() throws SQLException {
+        return rs.getStatement();
+    }
+
+    @Override
+    public Object getObject(int columna, Map<String, Class<?>> mapa) throws SQLException {
+        return rs.getObject(columna, mapa);
+    }
+
+    @Override
+    public Ref getRef(int columna) throws SQLException {
+        return rs.getRef(columna);
+    }
+
+    @Override
+    public Blob getBlob(int columna) throws SQLException {
+        return rs.getBlob(columna);
+    }
+
+    @Override
+    public Clob getClob(int columna) throws SQLException {
+        return rs.getClob(columna);
+    }
+
+    @Override
+    public Array getArray(int columna) throws SQLException {
+        return rs.getArray(columna);
+    }
+
+    @Override
+    public Object getObject(String columna, Map<String, Class<?>> mapa) throws SQLException {
+        return rs.getObject(columna, mapa);
+    }
+
+    @Override
+    public Ref getRef(String columna) throws SQLException {
+        return rs.getRef(columna);
+    }
+
+    @Override
+    public Blob getBlob(String columna) throws SQLException {
+        return rs.getBlob(columna);
+    }
+
+    @Override
+    public Clob getClob(String columna) throws SQLException {
+        return rs.getClob(columna);
+    }
+
+    @Override
+    public Array getArray(String columna) throws SQLException {
+        return rs.getArray(columna);
+    }
+
+    @Override
+    public Date getDate(int columna, Calendar calendario) throws SQLException {
+        return rs.getDate(columna, calendario);
+    }
+
+    @Override
+    public Date getDate(String columna, Calendar calendario) throws SQLException {
+        return rs.getDate(columna, calendario);
+    }
+
+    @Override
+    public Time getTime(int columna, Calendar calendario) throws SQLException {
+        return rs.getTime(columna, calendario);
+    }
+
+    @Override
+    public Time getTime(String columna, Calendar calendario) throws SQLException {
+        return rs.getTime(columna, calendario);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columna, Calendar calendario) throws SQLException {
+        return rs.getTimestamp(columna, calendario);
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columna, Calendar calendario) throws SQLException {
+        return rs.getTimestamp(columna, calendario);
+    }
+
+    @Override
+    public URL getURL(int columna) throws SQLException {
+        return rs.getURL(columna);
+    }
+
+    @Override
+    public URL getURL(String columna) throws SQLException {
+        return rs.getURL(columna);
+    }
+
+    @Override
+    public void updateRef(int columna, Ref valor) throws SQLException {
+        rs.updateRef(columna, valor);
+    }
+
+    @Override
+    public void updateRef(String columna, Ref valor) throws SQLException {
+        rs.updateRef(columna, valor);
+    }
+
+    @Override
+    public void updateBlob(int columna, Blob valor) throws SQLException {
+        rs.updateBlob(columna, valor);
+    }
+
+    @Override
+    public void updateBlob(String columna, Blob valor) throws SQLException {
+        rs.updateBlob(columna, valor);
+    }
+
+    @Override
+    public void updateClob(int columna, Clob valor) throws SQLException {
+        rs.updateClob(columna, valor);
+    }
+
+    @Override
+    public void updateClob(String columna, Clob valor) throws SQLException {
+        rs.updateClob(columna, valor);
+    }
+
+    @Override
+    public void updateArray(int columna, Array valor) throws SQLException {
+        rs.updateArray(columna, valor);
+    }
+
+    @Override
+    public void updateArray(String columna, Array valor) throws SQLException {
+        rs.updateArray(columna, valor);
+    }
+
+    @Override
+    public RowId getRowId(int columna) throws SQLException {
+        return rs.getRowId(columna);
+    }
+
+    @Override
+    public RowId getRowId(String columna) throws SQLException {
+        return rs.getRowId(columna);
+    }
+
+    @Override
+    public void updateRowId(int columna, RowId valor) throws SQLException {
+        rs.updateRowId(columna, valor);
+    }
+
+    @Override
+    public void updateRowId(String columna, RowId valor) throws SQLException {
+        rs.updateRowId(columna, valor);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return rs.getHoldability();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return rs.isClosed();
+    }
+
+    @Override
+    public void updateNString(int columna, String valor) throws SQLException {
+        rs.updateNString(columna, valor);
+    }
+
+    @Override
+    public void updateNString(String columna, String valor) throws SQLException {
+        rs.updateNString(columna, valor);
+    }
+
+    @Override
+    public void updateNClob(int columna, NClob valor) throws SQLException {
+        rs.updateNClob(columna, valor);
+    }
+
+    @Override
+    public void updateNClob(String columna, NClob valor) throws SQLException {
+        rs.updateNClob(columna, valor);
+    }
+
+    @Override
+    public NClob getNClob(int columna) throws SQLException {
+        return rs.getNClob(columna);
+    }
+
+    @Override
+    public NClob getNClob(String columna) throws SQLException {
+        return rs.getNClob(columna);
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columna) throws SQLException {
+        return rs.getSQLXML(columna);
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columna) throws SQLException {
+        return rs.getSQLXML(columna);
+    }
+
+    @Override
+    public void updateSQLXML(int columna, SQLXML valor) throws SQLException {
+        rs.updateSQLXML(columna, valor);
+    }
+
+    @Override
+    public void updateSQLXML(String columna, SQLXML valor) throws SQLException {
+        rs.updateSQLXML(columna, valor);
+    }
+
+    @Override
+    public String getNString(int columna) throws SQLException {
+        return rs.getNString(columna);
+    }
+
+    @Override
+    public String getNString(String columna) throws SQLException {
+        return rs.getNString(columna);
+    }
+
+    @Override
+    public Reader getNCharacterStream(int columna) throws SQLException {
+        return rs.getNCharacterStream(columna);
+    }
+
+    @Override
+    public Reader getNCharacterStream(String columna) throws SQLException {
+        return rs.getNCharacterStream(columna);
+    }
+
+    @Override
+    public void updateNCharacterStream(int columna, Reader valor, long longitud) throws SQLException {
+        rs.updateNCharacterStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateNCharacterStream(String columna, Reader valor, long longitud) throws SQLException {
+        rs.updateNCharacterStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateAsciiStream(int columna, InputStream valor, long longitud) throws SQLException {
+        rs.updateAsciiStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateBinaryStream(int columna, InputStream valor, long longitud) throws SQLException {
+        rs.updateBinaryStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateCharacterStream(int columna, Reader valor, long longitud) throws SQLException {
+        rs.updateCharacterStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateAsciiStream(String columna, InputStream valor, long longitud) throws SQLException {
+        rs.updateAsciiStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateBinaryStream(String columna, InputStream valor, long longitud) throws SQLException {
+        rs.updateBinaryStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateCharacterStream(String columna, Reader valor, long longitud) throws SQLException {
+        rs.updateCharacterStream(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateBlob(int columna, InputStream valor, long longitud) throws SQLException {
+        rs.updateBlob(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateBlob(String columna, InputStream valor, long longitud) throws SQLException {
+        rs.updateBlob(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateClob(int columna, Reader valor, long longitud) throws SQLException {
+        rs.updateClob(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateClob(String columna, Reader valor, long longitud) throws SQLException {
+        rs.updateClob(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateNClob(int columna, Reader valor, long longitud) throws SQLException {
+        rs.updateNClob(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateNClob(String columna, Reader valor, long longitud) throws SQLException {
+        rs.updateNClob(columna, valor, longitud);
+    }
+
+    @Override
+    public void updateNCharacterStream(int columna, Reader valor) throws SQLException {
+        rs.updateNCharacterStream(columna, valor);
+    }
+
+    @Override
+    public void updateNCharacterStream(String columna, Reader valor) throws SQLException {
+        rs.updateNCharacterStream(columna, valor);
+    }
+
+    @Override
+    public void updateAsciiStream(int columna, InputStream valor) throws SQLException {
+        rs.updateAsciiStream(columna, valor);
+    }
+
+    @Override
+    public void updateBinaryStream(int columna, InputStream valor) throws SQLException {
+        rs.updateBinaryStream(columna, valor);
+    }
+
+    @Override
+    public void updateCharacterStream(int columna, Reader valor) throws SQLException {
+        rs.updateCharacterStream(columna, valor);
+    }
+
+    @Override
+    public void updateAsciiStream(String columna, InputStream valor) throws SQLException {
+        rs.updateAsciiStream(columna, valor);
+    }
+
+    @Override
+    public void updateBinaryStream(String columna, InputStream valor) throws SQLException {
+        rs.updateBinaryStream(columna, valor);
+    }
+
+    @Override
+    public void updateCharacterStream(String columna, Reader valor) throws SQLException {
+        rs.updateCharacterStream(columna, valor);
+    }
+
+    @Override
+    public void updateBlob(int columna, InputStream valor) throws SQLException {
+        rs.updateBlob(columna, valor);
+    }
+
+    @Override
+    public void updateBlob(String columna, InputStream valor) throws SQLException {
+        rs.updateBlob(columna, valor);
+    }
+
+    @Override
+    public void updateClob(int columna, Reader valor) throws SQLException {
+        rs.updateClob(columna, valor);
+    }
+
+    @Override
+    public void updateClob(String columna, Reader valor) throws SQLException {
+        rs.updateClob(columna, valor);
+    }
+
+    @Override
+    public void updateNClob(int columna, Reader valor) throws SQLException {
+        rs.updateNClob(columna, valor);
+    }
+
+    @Override
+    public void updateNClob(String columna, Reader valor) throws SQLException {
+        rs.updateNClob(columna, valor);
+    }
+
+    @Override
+    public <T> T getObject(int columna, Class<T> tipo) throws SQLException {
+        return rs.getObject(columna, tipo);
+    }
+
+    @Override
+    public <T> T getObject(String columna, Class<T> tipo) throws SQLException {
+        return rs.getObject(columna, tipo);
+    }
+
+    @Override
+    public void updateObject(int columna, Object valor, SQLType tipoSql, int escalaOLongitud) throws SQLException {
+        rs.updateObject(columna, valor, tipoSql, escalaOLongitud);
+    }
+
+    @Override
+    public void updateObject(String columna, Object valor, SQLType tipoSql, int escalaOLongitud) throws SQLException {
+        rs.updateObject(columna, valor, tipoSql, escalaOLongitud);
+    }
+
+    @Override
+    public void updateObject(int columna, Object valor, SQLType tipoSql) throws SQLException {
+        rs.updateObject(columna, valor, tipoSql);
+    }
+
+    @Override
+    public void updateObject(String columna, Object valor, SQLType tipoSql) throws SQLException {
+        rs.updateObject(columna, valor, tipoSql);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> tipo) throws SQLException {
+        return rs.unwrap(tipo);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> tipo) throws SQLException {
+        return rs.isWrapperFor(tipo);
+    }
+}
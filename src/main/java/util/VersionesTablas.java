@@ -0,0 +1,107 @@
+package util;
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Versión de cambios por tabla, para la caché condicional (ETag / 304) de las páginas
+ * de listado. Cada repositorio que escribe en una tabla llama a cambioAlConfirmar(conn, tabla);
+ * los servlets arman el ETag con las versiones de las tablas que muestra la página y, si el
+ * navegador ya tiene esa versión, responden 304 sin consultar la base de datos.
+ *
+ * La versión se incrementa dos veces: al ejecutar la escritura y después del commit. Así ningún
+ * lector puede ver datos nuevos con una versión vieja (ni en el intervalo entre el commit y el
+ * segundo incremento), y una transacción revertida solo cuesta una página renderizada de más.
+ *
+ * Las versiones viven en memoria: el identificador de arranque que acompaña al ETag invalida lo
+ * que el navegador tenga guardado cuando la aplicación se reinicia. Los cambios hechos fuera de la
+ * aplicación (directamente en MySQL) no se detectan.
+ *
+ * También se guarda el instante del último cambio confirmado de cada tabla: una réplica de lectura
+ * puede no tenerlo todavía, y CacheCondicional no emite ETag para esas lecturas. Al arrancar se
+ * toma como último cambio el propio arranque, porque la instancia anterior pudo escribir poco antes.
+ * */
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class VersionesTablas {
+
+    /**
+     * Tablas cuyas escrituras invalidan las páginas que las muestran.
+     * ODONTOLOGOS incluye los cambios de 'usuarios' (nombre y estado del odontólogo).
+     */
+    public enum Tabla {
+        CITAS, PACIENTES, FACTURAS, ODONTOLOGOS, PRODUCTOS, SERVICIOS
+    }
+
+    private static final AtomicLongArray VERSIONES = new AtomicLongArray(Tabla.values().length);
+    private static final AtomicLongArray ULTIMO_CAMBIO = new AtomicLongArray(Tabla.values().length);
+    private static final String ARRANQUE;
+
+    static {
+        long ahora = System.currentTimeMillis();
+        ARRANQUE = Long.toString(ahora, 36);
+        for (int i = 0; i < ULTIMO_CAMBIO.length(); i++) {
+            ULTIMO_CAMBIO.set(i, ahora);
+        }
+    }
+
+    private VersionesTablas() {
+    }
+
+    /**
+     * Registra una escritura en la tabla: incrementa su versión ahora y cuando la transacción
+     * de la conexión se confirme.
+     *
+     * @param conn  Conexión con la que se hizo la escritura.
+     * @param tabla Tabla modificada.
+     */
+    public static void cambioAlConfirmar(Connection conn, Tabla tabla) {
+        VERSIONES.incrementAndGet(tabla.ordinal());
+        ConexionDiferida.despuesDeConfirmar(conn, () -> {
+            ULTIMO_CAMBIO.accumulateAndGet(tabla.ordinal(), System.currentTimeMillis(), Math::max);
+            VERSIONES.incrementAndGet(tabla.ordinal());
+        });
+    }
+
+    /**
+     * Indica si alguna de las tablas tuvo un cambio confirmado hace menos de la ventana indicada
+     * (o si la aplicación arrancó hace menos que eso).
+     *
+     * @param ventanaMs Ventana en milisegundos, por ejemplo el retraso máximo esperado de la réplica.
+     * @param tablas    Tablas que muestra la página.
+     * @return true si hubo un cambio dentro de la ventana.
+     */
+    public static boolean cambioReciente(long ventanaMs, Tabla... tablas) {
+        long limite = System.currentTimeMillis() - ventanaMs;
+        for (Tabla tabla : tablas) {
+            if (ULTIMO_CAMBIO.get(tabla.ordinal()) > limite) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param tabla Tabla consultada.
+     * @return Versión actual de la tabla.
+     */
+    public static long version(Tabla tabla) {
+        return VERSIONES.get(tabla.ordinal());
+    }
+
+    /**
+     * Arma una etiqueta con el identificador de arranque y las versiones de las tablas indicadas.
+     * Debe obtenerse antes de consultar los datos que se van a mostrar.
+     *
+     * @param tablas Tablas que muestra la página.
+     * @return Etiqueta del estado actual de esas tablas (ej: "m3k1x2a-14-3").
+     */
+    public static String etiqueta(Tabla... tablas) {
+        StringBuilder sb = new StringBuilder(ARRANQUE);
+        for (Tabla tabla : tablas) {
+            sb.append('-').append(version(tabla));
+        }
+        return sb.toString();
+    }
+}
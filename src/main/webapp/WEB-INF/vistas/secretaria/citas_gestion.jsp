@@ -17,7 +17,7 @@ Esta vista actúa como el "Dashboard de Operaciones" para la secretaria.
 
 Funcionalidades Principales:
 1. Visualización de citas filtradas por fecha y estado (Pestañas de navegación).
-2. Buscador global de citas por número de cédula del paciente.
+2. Buscador global de citas por cédula, nombres o apellidos del paciente.
 3. Gestión del ciclo de vida de la cita:
 - Crear/Agendar (Estado: Pendiente)
 - Editar (Solo si está Pendiente)
@@ -60,6 +60,14 @@ para evitar recargas de página innecesarias y mejorar la UX.
     // 'vistaActual' controla qué pestaña (botón) se muestra activa visualmente
     String vistaActual = (String) request.getAttribute("vistaActual");
 
+    // Paginación por cursor: 'siguienteCursor' es null cuando no hay más citas que mostrar.
+    // Los enlaces conservan la pestaña, la fecha y la búsqueda actuales.
+    String siguienteCursor = (String) request.getAttribute("siguienteCursor");
+    boolean esPaginaSiguiente = request.getParameter("cursor") != null;
+    String busquedaActual = request.getParameter("busqueda");
+    String urlVista = "citas?accion=" + vistaActual + "&fecha=" + fechaFiltro
+            + (busquedaActual != null ? "&busqueda=" + java.net.URLEncoder.encode(busquedaActual.trim(), java.nio.charset.StandardCharsets.UTF_8) : "");
+
     // Mensajes de feedback para el usuario
     String error = (String) request.getAttribute("error");
     String exito = request.getParameter("exito");
@@ -179,7 +187,7 @@ para evitar recargas de página innecesarias y mejorar la UX.
                 <!-- BUSCADOR POR CÉDULA -->
                 <form action="citas" method="GET" class="d-flex">
                     <input type="hidden" name="accion" value="buscar">
-                    <input type="text" name="busqueda" class="form-control form-control-custom me-2" placeholder="Cédula..." pattern="\d+" required>
+                    <input type="text" name="busqueda" class="form-control form-control-custom me-2" placeholder="Cédula o nombre..." minlength="2" required>
                     <button type="submit" class="btn btn-secondary rounded-4"><i class="fas fa-search"></i></button>
                 </form>
 
@@ -270,6 +278,22 @@ para evitar recargas de página innecesarias y mejorar la UX.
                 </tbody>
             </table>
         </div>
+
+        <!-- PAGINACIÓN: avanza con el cursor de la última cita mostrada -->
+        <% if (esPaginaSiguiente || siguienteCursor != null) { %>
+        <div class="d-flex justify-content-end gap-2 mt-3">
+            <% if (esPaginaSiguiente) { %>
+            <a href="<%= urlVista %>" class="btn btn-sm btn-outline-secondary">
+                <i class="fas fa-angle-double-left me-1"></i> Primera página
+            </a>
+            <% } %>
+            <% if (siguienteCursor != null) { %>
+            <a href="<%= urlVista %>&cursor=<%= siguienteCursor %>" class="btn btn-sm btn-outline-primary">
+                Siguiente página <i class="fas fa-angle-right ms-1"></i>
+            </a>
+            <% } %>
+        </div>
+        <% } %>
     </main>
 </div>
 
@@ -1,5 +1,5 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java"
-         import="java.util.*, models.*, java.math.BigDecimal" %>
+         import="java.util.*, models.*, java.math.BigDecimal, java.net.URLEncoder, java.nio.charset.StandardCharsets" %>
 
 <!--
 =============================================================================
@@ -26,6 +26,11 @@ Esta vista es el núcleo del módulo financiero. Permite a la secretaria:
     // 1. Lista de Citas pendientes de cobro (Estado: 'Atendida').
     List<Cita> citasPendientes = (List<Cita>) request.getAttribute("citasPendientes");
     if (citasPendientes == null) citasPendientes = new ArrayList<>();
+    // Solo se cargan las más recientes: si hay más, se avisa y se ofrece filtrar por paciente
+    boolean citasIncompletas = Boolean.TRUE.equals(request.getAttribute("citasPendientesIncompletas"));
+    String filtroPacienteCita = request.getParameter("paciente_cita") != null ? request.getParameter("paciente_cita") : "";
+    // El filtro se devuelve al formulario solo si tiene letras, dígitos y espacios
+    String pacienteCitaSeguro = filtroPacienteCita.matches("[\\p{L}\\d ]*") ? filtroPacienteCita : "";
 
     // 2. Catálogo de Servicios Médicos (Intangibles).
     List<Servicio> servicios = (List<Servicio>) request.getAttribute("servicios");
@@ -39,6 +44,26 @@ Esta vista es el núcleo del módulo financiero. Permite a la secretaria:
     List<Factura> historialFacturas = (List<Factura>) request.getAttribute("facturas");
     if (historialFacturas == null) historialFacturas = new ArrayList<>();
 
+    // Filtros y paginación del historial. Los filtros se conservan en los enlaces de página.
+    String siguienteCursorFacturas = (String) request.getAttribute("siguienteCursorFacturas");
+    Long totalFacturasEstimado = (Long) request.getAttribute("totalFacturasEstimado");
+    String filtroDesde = request.getParameter("desde") != null ? request.getParameter("desde") : "";
+    String filtroHasta = request.getParameter("hasta") != null ? request.getParameter("hasta") : "";
+    String filtroMetodo = request.getParameter("metodo") != null ? request.getParameter("metodo") : "";
+    String filtroCliente = request.getParameter("cliente") != null ? request.getParameter("cliente") : "";
+    boolean esPaginaSiguienteFacturas = request.getParameter("cursor") != null;
+    // Si se filtró o se cambió de página, el modal del historial se abre al cargar
+    boolean abrirHistorial = esPaginaSiguienteFacturas || !filtroDesde.isEmpty() || !filtroHasta.isEmpty()
+            || !filtroMetodo.isEmpty() || !filtroCliente.isEmpty();
+    String urlHistorial = "facturacion?desde=" + URLEncoder.encode(filtroDesde, StandardCharsets.UTF_8)
+            + "&hasta=" + URLEncoder.encode(filtroHasta, StandardCharsets.UTF_8)
+            + "&metodo=" + URLEncoder.encode(filtroMetodo, StandardCharsets.UTF_8)
+            + "&cliente=" + URLEncoder.encode(filtroCliente, StandardCharsets.UTF_8);
+    // Exportación de los PDF de todas las facturas que cumplen los filtros (ZIP o un PDF unido)
+    String urlExportar = "facturacion/exportar" + urlHistorial.substring("facturacion".length());
+    // El valor del cliente se devuelve al formulario solo si es una identificación numérica
+    String clienteSeguro = filtroCliente.matches("\\d*") ? filtroCliente : "";
+
     // Variables de control de flujo (Mensajes y IDs generados).
     String error = (String) request.getAttribute("error");
     String exito = request.getParameter("exito");
@@ -108,6 +133,17 @@ Esta vista es el núcleo del módulo financiero. Permite a la secretaria:
         </div>
         <% } %>
 
+        <!-- FILTRO DE CITAS POR PACIENTE: las citas atendidas más antiguas no entran en la lista -->
+        <form action="${pageContext.request.contextPath}/facturacion" method="GET" class="d-flex gap-2 mb-3">
+            <input type="text" name="paciente_cita" class="form-control form-control-custom"
+                   placeholder="Buscar cita atendida por cédula o nombre del paciente"
+                   value="<%= pacienteCitaSeguro %>">
+            <button type="submit" class="btn btn-outline-primary rounded-4"><i class="fas fa-search"></i></button>
+            <% if (!filtroPacienteCita.isEmpty()) { %>
+            <a href="${pageContext.request.contextPath}/facturacion" class="btn btn-outline-secondary rounded-4">Todas</a>
+            <% } %>
+        </form>
+
         <!-- FORMULARIO PRINCIPAL DE FACTURACIÓN -->
         <form action="${pageContext.request.contextPath}/facturacion" method="POST" id="formFacturaGeneral">
             <!-- Acción oculta para que el Servlet sepa qué método ejecutar -->
@@ -142,6 +178,12 @@ Esta vista es el núcleo del módulo financiero. Permite a la secretaria:
                                     <% } %>
                                 </select>
                                 <small class="text-muted">Solo aparecen citas con estado "Atendida" que no han sido facturadas.</small>
+                                <% if (citasIncompletas) { %>
+                                <small class="d-block text-warning">
+                                    <i class="fas fa-info-circle"></i> Se muestran las <%= citasPendientes.size() %> citas atendidas más recientes.
+                                    Para una cita más antigua, búsquela por cédula o nombre del paciente.
+                                </small>
+                                <% } %>
                             </div>
 
                             <!-- Campos de texto autocompletables -->
@@ -295,6 +337,36 @@ Esta vista es el núcleo del módulo financiero. Permite a la secretaria:
                 <button type="button" class="btn-close btn-close-white" data-bs-dismiss="modal"></button>
             </div>
             <div class="modal-body p-0">
+                <!-- FILTROS DEL HISTORIAL: rango de fechas, método de pago y cédula/RUC del cliente -->
+                <form action="facturacion" method="GET" class="row g-2 align-items-end p-3 border-bottom">
+                    <div class="col-md-3">
+                        <label class="form-label small mb-1">Desde</label>
+                        <input type="date" name="desde" value="<%= filtroDesde.matches("[\\d-]*") ? filtroDesde : "" %>" class="form-control form-control-sm">
+                    </div>
+                    <div class="col-md-3">
+                        <label class="form-label small mb-1">Hasta</label>
+                        <input type="date" name="hasta" value="<%= filtroHasta.matches("[\\d-]*") ? filtroHasta : "" %>" class="form-control form-control-sm">
+                    </div>
+                    <div class="col-md-2">
+                        <label class="form-label small mb-1">Pago</label>
+                        <select name="metodo" class="form-select form-select-sm">
+                            <option value="">Todos</option>
+                            <% for (String m : new String[]{"Efectivo", "Tarjeta", "Transferencia"}) { %>
+                            <option value="<%= m %>" <%= m.equals(filtroMetodo) ? "selected" : "" %>><%= m %></option>
+                            <% } %>
+                        </select>
+                    </div>
+                    <div class="col-md-2">
+                        <label class="form-label small mb-1">Cliente</label>
+                        <input type="text" name="cliente" value="<%= clienteSeguro %>" class="form-control form-control-sm" placeholder="Cédula/RUC" pattern="\d*">
+                    </div>
+                    <div class="col-md-2 d-grid">
+                        <button type="submit" class="btn btn-sm btn-secondary"><i class="fas fa-filter"></i> Filtrar</button>
+                    </div>
+                </form>
+                <% if (totalFacturasEstimado != null && totalFacturasEstimado >= 0) { %>
+                <div class="px-3 py-2 small text-muted">Aproximadamente <%= totalFacturasEstimado %> facturas coinciden con el filtro.</div>
+                <% } %>
                 <div class="table-responsive">
                     <table class="table table-hover table-striped mb-0">
                         <thead class="table-light">
@@ -323,6 +395,26 @@ Esta vista es el núcleo del módulo financiero. Permite a la secretaria:
                 </div>
             </div>
             <div class="modal-footer">
+                <!-- PAGINACIÓN: avanza con el cursor de la última factura mostrada -->
+                <% if (esPaginaSiguienteFacturas) { %>
+                <a href="<%= urlHistorial %>" class="btn btn-sm btn-outline-secondary rounded-4">
+                    <i class="fas fa-angle-double-left me-1"></i> Primera página
+                </a>
+                <% } %>
+                <% if (siguienteCursorFacturas != null) { %>
+                <a href="<%= urlHistorial %>&cursor=<%= siguienteCursorFacturas %>" class="btn btn-sm btn-outline-primary rounded-4">
+                    Siguiente página <i class="fas fa-angle-right ms-1"></i>
+                </a>
+                <% } %>
+                <!-- EXPORTACIÓN: todas las facturas del filtro, no solo la página visible -->
+                <% if (!historialFacturas.isEmpty()) { %>
+                <a href="<%= urlExportar %>" class="btn btn-sm btn-outline-danger rounded-4">
+                    <i class="fas fa-file-archive me-1"></i> Exportar ZIP
+                </a>
+                <a href="<%= urlExportar %>&formato=pdf" class="btn btn-sm btn-outline-danger rounded-4">
+                    <i class="fas fa-file-pdf me-1"></i> PDF único
+                </a>
+                <% } %>
                 <button type="button" class="btn btn-secondary rounded-4" data-bs-dismiss="modal">Cerrar</button>
             </div>
         </div>
@@ -332,6 +424,13 @@ Esta vista es el núcleo del módulo financiero. Permite a la secretaria:
 <!-- SCRIPTS DE COMPORTAMIENTO -->
 <script src="https://cdn.jsdelivr.net/npm/bootstrap@5.3.2/dist/js/bootstrap.bundle.min.js"></script>
 
+<% if (abrirHistorial) { %>
+<script>
+    // Al filtrar o paginar el historial, se vuelve a mostrar el modal con los resultados
+    new bootstrap.Modal(document.getElementById('modalHistorial')).show();
+</script>
+<% } %>
+
 <script>
     const tabla = document.getElementById("listaItems");
     const btnAgregar = document.getElementById("btnAgregarItem");
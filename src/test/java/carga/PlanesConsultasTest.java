@@ -0,0 +1,23 @@
+package carga;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Verificación de los planes de ejecución de las sentencias de los repositorios en el
+ * build por defecto. Corre PlanesConsultas sobre H2 en memoria con los datos generados a escala 1
+ * (o la base de -Dplanes.url); el detalle de cada plan queda en target/planes-consultas.txt.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlanesConsultasTest {
+
+    @Test
+    void ningunaSentenciaRecorreUnaTablaGrande() throws Exception {
+        assertEquals(0, PlanesConsultas.verificar(),
+                "sentencias con problemas o fallas del guion; ver el log y target/planes-consultas.txt");
+    }
+}
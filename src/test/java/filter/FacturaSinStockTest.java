@@ -0,0 +1,162 @@
+package filter;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Prueba del registro de una factura cuando la base no tiene el stock que el motor de
+ * reservas creía disponible. La solicitud pasa por ConexionFilter con el pool de ConexionBDD sobre
+ * H2 en memoria (propiedades de surefire) y la cadena hace lo mismo que FacturaServlet: llama a
+ * FacturaServiceImpl.guardar, atrapa la excepción y deja el error en el request, así que la
+ * solicitud termina con commit. El stock de ningún producto debe quedar descontado.
+ */
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import models.DetalleFactura;
+import models.Factura;
+import models.Producto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import services.FacturaServiceImpl;
+import util.ConexionBDD;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacturaSinStockTest {
+
+    // Ids propios: el motor de stock es único en la JVM
+    private static final int GUANTES = 9101;
+    private static final int RESINA = 9102;
+
+    @BeforeAll
+    static void crearProductos() throws SQLException {
+        try (Connection conn = ConexionBDD.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS productos (id_producto INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "nombre VARCHAR(150) NOT NULL, marca VARCHAR(100), descripcion TEXT, "
+                    + "precio_venta DECIMAL(10,2) NOT NULL, stock INT NOT NULL DEFAULT 0, "
+                    + "stock_minimo INT NOT NULL DEFAULT 0, estado TINYINT NOT NULL DEFAULT 1)");
+            stmt.execute("DELETE FROM productos WHERE id_producto IN (" + GUANTES + ", " + RESINA + ")");
+            stmt.execute("INSERT INTO productos (id_producto, nombre, precio_venta, stock) VALUES "
+                    + "(" + GUANTES + ", 'Guantes de nitrilo', 8.50, 10), (" + RESINA + ", 'Resina A2', 32.00, 10)");
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+        }
+    }
+
+    @Test
+    void unFaltanteNoDejaDescontadoElStockDeLosDemasProductos() throws Exception {
+        // Primera factura: no alcanza en la reserva, pero deja los contadores cargados con stock 10
+        assertNotNull(facturarPorElFiltro(Map.of(GUANTES, 1, RESINA, 50)));
+
+        // Otra instancia de la aplicación vende resina: la base baja a 3 y el contador sigue en 10
+        actualizarStock(RESINA, 3);
+
+        // La reserva en memoria alcanza; el UPDATE de la resina no, después de descontar los guantes
+        String error = facturarPorElFiltro(Map.of(GUANTES, 2, RESINA, 5));
+
+        assertNotNull(error, "la factura se registró sin stock suficiente");
+        assertTrue(error.startsWith("Stock insuficiente para: Resina A2 (disponible: 3)"), error);
+        assertEquals(10, stockEnBase(GUANTES), "quedó descontado el stock de un producto que sí alcanzaba");
+        assertEquals(3, stockEnBase(RESINA));
+    }
+
+    /**
+     * Envía un POST de factura a través de ConexionFilter. La cadena imita a
+     * FacturaServlet.procesarFactura: ante un error lo deja en el request y vuelve a mostrar el
+     * formulario, sin propagar la excepción.
+     *
+     * @return El mensaje de error que vería el usuario, o null si la factura se registró.
+     */
+    private String facturarPorElFiltro(Map<Integer, Integer> cantidades) throws Exception {
+        Map<String, Object> atributos = new HashMap<>();
+        FilterChain servlet = (request, response) -> {
+            Connection conn = (Connection) request.getAttribute("conn");
+            try {
+                new FacturaServiceImpl(conn).guardar(factura(cantidades));
+            } catch (Exception e) {
+                request.setAttribute("error", e.getMessage());
+            }
+        };
+        new ConexionFilter().doFilter(solicitud(atributos), respuesta(), servlet);
+        return (String) atributos.get("error");
+    }
+
+    private static Factura factura(Map<Integer, Integer> cantidades) {
+        Factura factura = new Factura();
+        factura.setIdentificacionCliente("1712345678");
+        factura.setNombreClienteFactura("Consumidor final");
+        factura.setMetodoPago("Efectivo");
+        List<DetalleFactura> detalles = new ArrayList<>();
+        cantidades.forEach((id, cantidad) -> {
+            DetalleFactura d = new DetalleFactura();
+            Producto p = new Producto();
+            p.setIdProducto(id);
+            d.setProducto(p);
+            d.setTipoItem("Producto");
+            d.setCantidad(cantidad);
+            d.setPrecioUnitario(BigDecimal.ONE);
+            detalles.add(d);
+        });
+        factura.setDetalles(detalles);
+        return factura;
+    }
+
+    private static HttpServletRequest solicitud(Map<String, Object> atributos) {
+        return (HttpServletRequest) Proxy.newProxyInstance(FacturaSinStockTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "getAttribute" -> atributos.get((String) args[0]);
+                    case "setAttribute" -> atributos.put((String) args[0], args[1]);
+                    case "getMethod" -> "POST";
+                    case "getRequestURI" -> "/facturas";
+                    case "isAsyncStarted" -> false;
+                    default -> null;
+                });
+    }
+
+    private static HttpServletResponse respuesta() {
+        return (HttpServletResponse) Proxy.newProxyInstance(FacturaSinStockTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "isCommitted" -> false;
+                    case "sendError" -> throw new AssertionError("la solicitud respondió 500: " + args[1]);
+                    default -> null;
+                });
+    }
+
+    private static void actualizarStock(int id, int stock) throws SQLException {
+        try (Connection conn = ConexionBDD.getConnection();
+             PreparedStatement ps = conn.prepareStatement("UPDATE productos SET stock = ? WHERE id_producto = ?")) {
+            ps.setInt(1, stock);
+            ps.setInt(2, id);
+            ps.executeUpdate();
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+        }
+    }
+
+    private static int stockEnBase(int id) throws SQLException {
+        try (Connection conn = ConexionBDD.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT stock FROM productos WHERE id_producto = ?")) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package services;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Pruebas del motor de reservas de stock. La base de datos se simula con un mapa de
+ * contadores y un descuento condicional, igual que el UPDATE ... WHERE stock >= ? de
+ * ProductoRepositoryImpl.descontarStock. Cada prueba usa sus propios ids de producto porque el
+ * motor es único en la JVM.
+ */
+
+import models.Producto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotorStockTest {
+
+    private final MotorStock motor = MotorStock.getInstancia();
+
+    /**
+     * Inventario simulado: el stock confirmado por producto.
+     */
+    private static final class BaseSimulada {
+        private final Map<Integer, AtomicInteger> stock = new ConcurrentHashMap<>();
+        private final AtomicInteger cargas = new AtomicInteger();
+
+        void poner(int id, int cantidad) {
+            stock.computeIfAbsent(id, k -> new AtomicInteger()).set(cantidad);
+        }
+
+        int stock(int id) {
+            return stock.get(id).get();
+        }
+
+        // UPDATE productos SET stock = stock - ? WHERE id_producto = ? AND stock >= ?
+        boolean descontar(int id, int cantidad) {
+            AtomicInteger actual = stock.get(id);
+            while (true) {
+                int valor = actual.get();
+                if (valor < cantidad) {
+                    return false;
+                }
+                if (actual.compareAndSet(valor, valor - cantidad)) {
+                    return true;
+                }
+            }
+        }
+
+        List<Producto> cargar(Collection<Integer> ids) {
+            cargas.incrementAndGet();
+            List<Producto> productos = new ArrayList<>();
+            for (Integer id : ids) {
+                AtomicInteger actual = stock.get(id);
+                if (actual != null) {
+                    productos.add(new Producto(id, "Producto " + id, "", "", BigDecimal.ONE, actual.get(), 0, 1));
+                }
+            }
+            return productos;
+        }
+    }
+
+    /**
+     * Factura como la registra FacturaServiceImpl: reserva, descuenta en la base y confirma, o
+     * libera e invalida si la base no alcanza.
+     *
+     * @return true si la factura se registró.
+     */
+    private boolean facturar(BaseSimulada base, Map<Integer, Integer> cantidades) throws Exception {
+        MotorStock.Reserva reserva;
+        try {
+            reserva = motor.reservar(cantidades, base::cargar);
+        } catch (ServiceJdbcException e) {
+            return false;
+        }
+        List<Integer> descontados = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> item : cantidades.entrySet()) {
+            if (!base.descontar(item.getKey(), item.getValue())) {
+                // Rollback del lote completo (el punto de guardado de FacturaServiceImpl): se devuelve
+                // lo descontado, se libera la reserva y se invalidan todos los productos de la factura
+                for (Integer id : descontados) {
+                    base.stock.get(id).addAndGet(cantidades.get(id));
+                }
+                reserva.liberar();
+                cantidades.keySet().forEach(motor::invalidar);
+                return false;
+            }
+            descontados.add(item.getKey());
+        }
+        reserva.confirmar();
+        return true;
+    }
+
+    @Test
+    void facturasConcurrentesNoVendenMasQueElStock() throws Exception {
+        BaseSimulada base = new BaseSimulada();
+        int idA = 1001;
+        int idB = 1002;
+        base.poner(idA, 200);
+        base.poner(idB, 150);
+
+        int hilos = 16;
+        int facturasPorHilo = 100;
+        AtomicInteger vendidasA = new AtomicInteger();
+        AtomicInteger vendidasB = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                SplittableRandom aleatorio = new SplittableRandom(h);
+                tareas.add(ejecutor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < facturasPorHilo; i++) {
+                        int cantidadA = 1 + aleatorio.nextInt(3);
+                        int cantidadB = aleatorio.nextInt(3);
+                        Map<Integer, Integer> cantidades = cantidadB == 0
+                                ? Map.of(idA, cantidadA) : Map.of(idA, cantidadA, idB, cantidadB);
+                        if (facturar(base, cantidades)) {
+                            vendidasA.addAndGet(cantidadA);
+                            vendidasB.addAndGet(cantidadB);
+                        }
+                        // Una reposición externa a mitad de la prueba, como un ajuste hecho en la base
+                        if (i == facturasPorHilo / 2 && aleatorio.nextInt(hilos) == 0) {
+                            base.stock.get(idB).addAndGet(10);
+                            vendidasB.addAndGet(-10);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        // Lo vendido más lo que queda es exactamente lo que había (más lo repuesto): nada se vendió dos veces
+        assertTrue(base.stock(idA) >= 0, "stock negativo de A");
+        assertTrue(base.stock(idB) >= 0, "stock negativo de B");
+        assertEquals(200, vendidasA.get() + base.stock(idA), "unidades de A vendidas de más o de menos");
+        assertEquals(150, vendidasB.get() + base.stock(idB), "unidades de B vendidas de más o de menos");
+    }
+
+    @Test
+    void unaReposicionFueraDeLaAplicacionSeRespeta() throws Exception {
+        BaseSimulada base = new BaseSimulada();
+        int id = 2001;
+        base.poner(id, 2);
+        assertTrue(facturar(base, Map.of(id, 2)));
+
+        // El contador en memoria quedó en 0; alguien repone directamente en la base
+        base.poner(id, 5);
+        assertTrue(facturar(base, Map.of(id, 3)), "se rechazó con el contador desactualizado");
+        assertEquals(2, base.stock(id));
+        assertEquals(2, base.cargas.get(), "el contador no se recargó de la base");
+    }
+
+    @Test
+    void unFaltanteRealRechazaLaFacturaSinDejarNadaReservado() throws Exception {
+        BaseSimulada base = new BaseSimulada();
+        int idA = 3001;
+        int idB = 3002;
+        base.poner(idA, 10);
+        base.poner(idB, 1);
+
+        ServiceJdbcException error = assertThrows(ServiceJdbcException.class,
+                () -> motor.reservar(Map.of(idA, 4, idB, 2), base::cargar));
+        assertTrue(error.getMessage().contains("Stock insuficiente"), error.getMessage());
+
+        // Lo apartado de A se devolvió: las 10 unidades siguen disponibles en el contador, sin recargarlo
+        int cargas = base.cargas.get();
+        MotorStock.Reserva reserva = motor.reservar(Map.of(idA, 10), base::cargar);
+        reserva.liberar();
+        assertEquals(cargas, base.cargas.get());
+    }
+
+    @Test
+    void unProductoInexistenteSeRechaza() {
+        BaseSimulada base = new BaseSimulada();
+        ServiceJdbcException error = assertThrows(ServiceJdbcException.class,
+                () -> motor.reservar(Map.of(4001, 1), base::cargar));
+        assertTrue(error.getMessage().contains("no existe"), error.getMessage());
+    }
+}
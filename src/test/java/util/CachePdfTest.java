@@ -0,0 +1,142 @@
+package util;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Pruebas de la caché en disco de PDF: desalojo LRU por bytes, reconstrucción del
+ * índice al reiniciar y limpieza de los documentos de otras versiones de la plantilla. Cada prueba
+ * usa su propio directorio temporal.
+ */
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachePdfTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void desalojaLosMenosUsadosAlSuperarElMaximo() throws IOException {
+        CachePdf cache = new CachePdf("factura", 1, directorio, 300);
+        CachePdf.Entrada uno = cache.guardar(1, pdf(1, 100), 100);
+        CachePdf.Entrada dos = cache.guardar(2, pdf(2, 100), 100);
+        cache.guardar(3, pdf(3, 100), 100);
+        // Usar la 1 la deja como la más reciente: la menos usada pasa a ser la 2
+        assertEquals(uno, cache.buscar(1));
+
+        cache.guardar(4, pdf(4, 150), 150);
+
+        assertNull(cache.buscar(2));
+        assertFalse(Files.exists(dos.archivo()));
+        assertNull(cache.buscar(3), "dos desalojos para hacer lugar a 150 bytes");
+        assertNotNull(cache.buscar(1));
+        assertNotNull(cache.buscar(4));
+        assertEquals(250, cache.getBytesOcupados());
+        assertEquals(2, archivos().length);
+    }
+
+    @Test
+    void reemplazarUnDocumentoBorraElArchivoAnterior() throws IOException {
+        CachePdf cache = new CachePdf("factura", 1, directorio, 1_000);
+        CachePdf.Entrada antes = cache.guardar(1, pdf(1, 100), 100);
+        CachePdf.Entrada despues = cache.guardar(1, pdf(9, 120), 120);
+
+        assertNotEquals(antes.hash(), despues.hash());
+        assertFalse(Files.exists(antes.archivo()));
+        assertEquals(despues, cache.buscar(1));
+        assertEquals(120, cache.getBytesOcupados());
+        // Un documento más grande que la caché completa no se guarda
+        assertNull(cache.guardar(2, pdf(2, 1_001), 1_001));
+        assertEquals(120, cache.getBytesOcupados());
+    }
+
+    @Test
+    void abrirUnArchivoYaDesalojadoOlvidaLaEntrada() throws IOException {
+        CachePdf cache = new CachePdf("factura", 1, directorio, 1_000);
+        CachePdf.Entrada entrada = cache.guardar(1, pdf(1, 100), 100);
+        try (FileChannel canal = cache.abrir(entrada)) {
+            assertEquals(100, canal.size());
+        }
+
+        Files.delete(entrada.archivo());
+
+        assertNull(cache.abrir(entrada));
+        assertNull(cache.buscar(1));
+        assertEquals(0, cache.getBytesOcupados());
+    }
+
+    @Test
+    void alReiniciarReconstruyeElIndiceEnOrdenDeUso() throws IOException {
+        CachePdf anterior = new CachePdf("factura", 1, directorio, 1_000);
+        CachePdf.Entrada[] entradas = new CachePdf.Entrada[4];
+        for (int id = 1; id <= 4; id++) {
+            entradas[id - 1] = anterior.guardar(id, pdf(id, 100), 100);
+            // La fecha de modificación decide el orden LRU al reconstruir: la 1 es la más vieja
+            Files.setLastModifiedTime(entradas[id - 1].archivo(), FileTime.fromMillis(1_000_000L * id));
+        }
+        // Un temporal que quedó de una caída
+        Files.write(directorio.resolve("factura-5-123456.tmp"), pdf(5, 10));
+
+        // Con menos espacio que antes se descarta lo más viejo
+        CachePdf cache = new CachePdf("factura", 1, directorio, 300);
+
+        assertNull(cache.buscar(1));
+        assertFalse(Files.exists(entradas[0].archivo()));
+        for (int id = 2; id <= 4; id++) {
+            assertEquals(entradas[id - 1], cache.buscar(id), "entrada " + id);
+        }
+        assertEquals(300, cache.getBytesOcupados());
+        assertFalse(Files.exists(directorio.resolve("factura-5-123456.tmp")));
+        assertEquals(3, archivos().length);
+    }
+
+    @Test
+    void otraVersionDeLaPlantillaBorraLosDocumentosAnteriores() throws IOException {
+        CachePdf v1 = new CachePdf("factura", 1, directorio, 1_000);
+        CachePdf.Entrada vieja = v1.guardar(1, pdf(1, 100), 100);
+        CachePdf recetas = new CachePdf("receta", 1, directorio, 1_000);
+        CachePdf.Entrada receta = recetas.guardar(1, pdf(2, 100), 100);
+
+        CachePdf v2 = new CachePdf("factura", 2, directorio, 1_000);
+
+        assertNull(v2.buscar(1));
+        assertEquals(0, v2.getBytesOcupados());
+        assertFalse(Files.exists(vieja.archivo()));
+        // Los documentos de otro tipo no son de esta caché
+        assertTrue(Files.exists(receta.archivo()));
+        CachePdf.Entrada nueva = v2.guardar(1, pdf(1, 100), 100);
+        assertTrue(nueva.archivo().getFileName().toString().startsWith("factura-1-v2-"));
+    }
+
+    @Test
+    void conMaximoCeroLaCacheEstaDesactivada() {
+        CachePdf cache = new CachePdf("factura", 1, directorio, 0);
+        assertNull(cache.guardar(1, pdf(1, 100), 100));
+        assertNull(cache.buscar(1));
+        assertEquals(1, cache.getFallos());
+    }
+
+    // Contenido distinto por semilla, para que cada documento tenga su propio hash
+    private static byte[] pdf(int semilla, int largo) {
+        byte[] contenido = new byte[largo];
+        Arrays.fill(contenido, (byte) semilla);
+        return contenido;
+    }
+
+    private Path[] archivos() throws IOException {
+        try (var lista = Files.list(directorio)) {
+            return lista.toArray(Path[]::new);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package util;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Pruebas de la caché de sentencias preparadas sobre H2 en memoria: una sentencia
+ * reutilizada no hereda la configuración que le dejó el uso anterior.
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSentenciasTest {
+
+    private static final String SQL = "SELECT X FROM SYSTEM_RANGE(1, 10)";
+
+    private Connection conexion;
+    private final LongAdder aciertos = new LongAdder();
+    private CacheSentencias cache;
+
+    @BeforeEach
+    void abrir() throws SQLException {
+        conexion = DriverManager.getConnection("jdbc:h2:mem:sentencias", "sa", "");
+        cache = new CacheSentencias(conexion, 4, aciertos, new LongAdder(), new LongAdder());
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        cache.cerrarTodas();
+        conexion.close();
+    }
+
+    @Test
+    void alDevolverseRestauraLaConfiguracionOriginal() throws SQLException {
+        try (PreparedStatement ps = cache.preparar(SQL, Statement.NO_GENERATED_KEYS, conexion)) {
+            ps.setMaxRows(3);
+            ps.setFetchSize(2);
+            ps.setQueryTimeout(7);
+            ps.setMaxFieldSize(64);
+            assertEquals(3, filas(ps));
+        }
+
+        try (PreparedStatement ps = cache.preparar(SQL, Statement.NO_GENERATED_KEYS, conexion)) {
+            assertEquals(1, aciertos.sum(), "la sentencia no se reutilizó");
+            assertEquals(0, ps.getMaxRows());
+            assertEquals(0, ps.getQueryTimeout());
+            assertEquals(0, ps.getMaxFieldSize());
+            assertEquals(ResultSet.FETCH_FORWARD, ps.getFetchDirection());
+            assertEquals(10, filas(ps));
+        }
+    }
+
+    @Test
+    void unaSentenciaSinCerrarSeRestauraAlLiberarLaConexion() throws SQLException {
+        PreparedStatement olvidada = cache.preparar(SQL, Statement.NO_GENERATED_KEYS, conexion);
+        olvidada.setMaxRows(1);
+
+        // La conexión vuelve al pool sin que el repositorio cerrara la sentencia
+        cache.liberarTodas();
+
+        try (PreparedStatement ps = cache.preparar(SQL, Statement.NO_GENERATED_KEYS, conexion)) {
+            assertEquals(1, aciertos.sum());
+            assertEquals(10, filas(ps));
+        }
+    }
+
+    private static int filas(PreparedStatement ps) throws SQLException {
+        int filas = 0;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                filas++;
+            }
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,104 @@
+package util;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Pruebas del cargador concurrente de páginas. Las consultas de prueba no usan la
+ * conexión que reciben, así que las conexiones diferidas nunca llegan a pedir una al pool y no
+ * hace falta base de datos. El request es un proxy que solo guarda atributos.
+ */
+
+import filter.ConexionFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CargadorPaginaTest {
+
+    // Por defecto el cupo es la mitad del máximo del pool (10)
+    private static final int CUPO = 5;
+
+    private static HttpServletRequest solicitud(Map<String, Object> atributos) {
+        return (HttpServletRequest) Proxy.newProxyInstance(CargadorPaginaTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "getAttribute" -> atributos.get((String) args[0]);
+                    case "setAttribute" -> atributos.put((String) args[0], args[1]);
+                    case "getRequestURI" -> "/prueba";
+                    default -> null;
+                });
+    }
+
+    @Test
+    void lasConsultasParalelasNoSuperanElCupoDeConexiones() {
+        Map<String, Object> atributos = new HashMap<>();
+        Connection propia = (Connection) Proxy.newProxyInstance(CargadorPaginaTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, metodo, args) -> null);
+        atributos.put("conn", propia);
+        atributos.put(ConexionFilter.ATRIBUTO_SOLO_LECTURA, Boolean.TRUE);
+        HttpServletRequest req = solicitud(atributos);
+
+        AtomicInteger enCurso = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+        Map<String, Boolean> conConexionPropia = new ConcurrentHashMap<>();
+        CargadorPagina cargador = new CargadorPagina(req);
+        int consultas = 20;
+        for (int i = 0; i < consultas; i++) {
+            String atributo = "consulta" + i;
+            cargador.agregar(atributo, conn -> {
+                if (conn == propia) {
+                    conConexionPropia.put(atributo, true);
+                    return atributo;
+                }
+                maximo.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } finally {
+                    enCurso.decrementAndGet();
+                }
+                return atributo;
+            });
+        }
+
+        List<String> errores = cargador.cargar();
+
+        assertEquals(List.of(), errores);
+        for (int i = 0; i < consultas; i++) {
+            assertEquals("consulta" + i, atributos.get("consulta" + i));
+        }
+        assertTrue(maximo.get() <= CUPO, "conexiones adicionales a la vez: " + maximo.get());
+        assertTrue(conConexionPropia.containsKey("consulta0"), "la primera consulta usa la conexión de la solicitud");
+        assertEquals(consultas - CUPO, conConexionPropia.size(), "las que no consiguen cupo van en la solicitud");
+    }
+
+    @Test
+    void unaSolicitudDeEscrituraEjecutaTodoEnOrdenSobreSuConexion() {
+        Map<String, Object> atributos = new HashMap<>();
+        Connection propia = (Connection) Proxy.newProxyInstance(CargadorPaginaTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, metodo, args) -> null);
+        atributos.put("conn", propia);
+        HttpServletRequest req = solicitud(atributos);
+
+        StringBuilder orden = new StringBuilder();
+        List<String> errores = new CargadorPagina(req)
+                .agregar("a", conn -> orden.append(conn == propia ? "a" : "?"))
+                .agregar("b", conn -> orden.append(conn == propia ? "b" : "?"))
+                .agregar("c", conn -> {
+                    throw new IllegalStateException("falla");
+                }, "vacío")
+                .cargar();
+
+        assertEquals("ab", orden.toString());
+        assertEquals("vacío", atributos.get("c"));
+        assertEquals(1, errores.size());
+    }
+}
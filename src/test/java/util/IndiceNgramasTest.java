@@ -0,0 +1,161 @@
+package util;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Pruebas del índice de trigramas. Los resultados de la intersección (búsqueda
+ * exponencial sobre las listas ordenadas) se comparan con un recorrido ingenuo de los textos; el
+ * corte anticipado del top-K se comprueba contando los documentos que llegan al filtro.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceNgramasTest {
+
+    private static final String[] NOMBRES = {"maría", "josé", "ana", "luis", "carmen", "jorge", "lucía", "andrés"};
+    private static final String[] APELLIDOS = {"lópez", "pérez", "torres", "mendoza", "zambrano", "villacís", "loor"};
+
+    @Test
+    void laInterseccionCoincideConUnRecorridoDeTodosLosTextos() {
+        IndiceNgramas indice = new IndiceNgramas();
+        Map<Integer, String> textos = new HashMap<>();
+        // Listas de largos muy distintos: "comun" en todos, "medio" en un tercio, "raro" en uno de 97
+        for (int id = 1; id <= 20_000; id++) {
+            String texto = "comun " + (id % 3 == 0 ? "medio " : "") + (id % 97 == 0 ? "raro " : "") + id;
+            indice.indexar(id, texto);
+            textos.put(id, texto);
+        }
+
+        assertEquals(esperados(textos, "raro comun medio"), indice.contienen("raro comun medio", 20_000));
+        assertEquals(esperados(textos, "medio comun"), indice.contienen("Medio COMÚN", 20_000));
+        assertEquals(esperados(textos, "raro 9"), indice.contienen("raro 9", 20_000));
+    }
+
+    @Test
+    void consultasAlAzarDevuelvenLoMismoQueElRecorrido() {
+        SplittableRandom azar = new SplittableRandom(17);
+        IndiceNgramas indice = new IndiceNgramas();
+        Map<Integer, String> textos = new HashMap<>();
+        for (int id = 1; id <= 5_000; id++) {
+            String texto = NOMBRES[azar.nextInt(NOMBRES.length)] + " " + APELLIDOS[azar.nextInt(APELLIDOS.length)]
+                    + " 09" + (10_000_000 + azar.nextInt(90_000_000));
+            indice.indexar(id, texto);
+            textos.put(id, IndiceNgramas.normalizar(texto));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            String nombre = IndiceNgramas.normalizar(NOMBRES[azar.nextInt(NOMBRES.length)]);
+            String apellido = IndiceNgramas.normalizar(APELLIDOS[azar.nextInt(APELLIDOS.length)]);
+            // Partes de palabras, como las escribe alguien que busca
+            String consulta = nombre.substring(0, Math.min(nombre.length(), 3 + azar.nextInt(3))) + " "
+                    + apellido.substring(azar.nextInt(apellido.length() - 2));
+            assertEquals(esperados(textos, consulta), indice.contienen(consulta, 5_000), consulta);
+        }
+    }
+
+    @Test
+    void contienenRespetaElMaximoYRechazaConsultasCortas() {
+        IndiceNgramas indice = new IndiceNgramas();
+        for (int id = 1; id <= 10; id++) {
+            indice.indexar(id, "Paciente " + id + (id <= 4 ? " Zambrano" : " Mendoza"));
+        }
+
+        // En medio de una palabra y sin tildes ni mayúsculas, como un LIKE '%texto%'
+        assertEquals(List.of(1, 2, 3, 4), indice.contienen("BRAN", 10));
+        // Exactamente 'maximo' resultados todavía se aceptan; uno más ya no
+        assertEquals(List.of(1, 2, 3, 4), indice.contienen("zambrano", 4));
+        assertNull(indice.contienen("zambrano", 3));
+        assertNull(indice.contienen("paciente", 9));
+        // Sin trigramas internos que acoten la búsqueda
+        assertNull(indice.contienen("za", 10));
+        assertNull(indice.contienen("  ¡! ", 10));
+        // Sin resultados es una lista vacía, no null
+        assertEquals(List.of(), indice.contienen("torres", 10));
+    }
+
+    @Test
+    void buscarCortaElRecorridoCuandoElTopKNoPuedeMejorar() {
+        IndiceNgramas indice = new IndiceNgramas();
+        for (int id = 1; id <= 10_000; id++) {
+            indice.indexar(id, "maria lopez");
+        }
+        AtomicInteger revisados = new AtomicInteger();
+
+        List<Integer> mejores = indice.buscar("maria lopez", 5, id -> revisados.incrementAndGet() > 0);
+
+        // Todos tienen el puntaje máximo: ganan los de menor ID y no se revisa ninguno más
+        assertEquals(List.of(1, 2, 3, 4, 5), mejores);
+        assertEquals(5, revisados.get());
+    }
+
+    @Test
+    void buscarNoCortaAntesDeEncontrarUnMejorPuntaje() {
+        IndiceNgramas indice = new IndiceNgramas();
+        // "lopez" en medio de una palabra: coinciden todos los trigramas, pero con menos bono
+        for (int id = 1; id <= 100; id++) {
+            indice.indexar(id, "xlopez " + id);
+        }
+        indice.indexar(500, "lopez 500");
+        indice.indexar(600, "lopes 600");
+
+        assertEquals(List.of(500, 1, 2), indice.buscar("lopez", 3, id -> true));
+        // El filtro descarta documentos sin ocupar lugar en el top-K
+        assertEquals(List.of(1, 2, 3), indice.buscar("lopez", 3, id -> id != 500));
+        // Error de tipeo: "lopez 500" tiene 3 de los 4 trigramas de "lopes" y va después de la coincidencia completa
+        assertEquals(List.of(600, 500), indice.buscar("lopes", 3, id -> true));
+        assertEquals(List.of(500), indice.buscar("lopes", 3, id -> id != 600));
+        assertEquals(List.of(), indice.buscar("l", 3, id -> true));
+    }
+
+    @Test
+    void reindexarReemplazaElTextoAnterior() {
+        IndiceNgramas indice = new IndiceNgramas();
+        indice.indexar(7, "María López");
+        indice.indexar(3, "Ana Torres");
+        // Un ID menor que el último de la lista se inserta en orden
+        indice.indexar(5, "José López");
+
+        assertEquals(List.of(5, 7), indice.contienen("lopez", 10));
+
+        indice.indexar(7, "María Mendoza");
+        assertEquals(List.of(5), indice.contienen("lopez", 10));
+        assertEquals(List.of(7), indice.contienen("mendoza", 10));
+        assertEquals(List.of(7), indice.buscar("maria", 5, id -> true));
+
+        // Mismo texto con otra forma: no cambia nada
+        indice.indexar(7, "MARIA  mendoza");
+        assertEquals(List.of(7), indice.contienen("maria mendoza", 10));
+        assertEquals(3, indice.tamano());
+
+        indice.quitar(3);
+        assertEquals(List.of(), indice.contienen("torres", 10));
+        assertEquals(2, indice.tamano());
+    }
+
+    // IDs, en orden, de los textos que contienen cada palabra de la consulta
+    private static List<Integer> esperados(Map<Integer, String> textos, String consulta) {
+        String[] palabras = IndiceNgramas.normalizar(consulta).split(" ");
+        List<Integer> ids = new ArrayList<>();
+        textos.forEach((id, texto) -> {
+            String normalizado = IndiceNgramas.normalizar(texto);
+            for (String palabra : palabras) {
+                if (!normalizado.contains(palabra)) {
+                    return;
+                }
+            }
+            ids.add(id);
+        });
+        ids.sort(null);
+        return ids;
+    }
+}
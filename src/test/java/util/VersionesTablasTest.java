@@ -0,0 +1,38 @@
+package util;
+
+/*
+ * Autor: Byron Melo
+ * Fecha: 17/10/2026
+ * Versión: 1.0
+ * Descripción: Pruebas de las versiones por tabla que arman el ETag de los listados, en
+ * particular la ventana de cambios recientes que evita emitir ETag sobre una réplica atrasada.
+ * Sin conexión de solicitud las acciones posteriores al commit se ejecutan de inmediato.
+ */
+
+import org.junit.jupiter.api.Test;
+import util.VersionesTablas.Tabla;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionesTablasTest {
+
+    @Test
+    void elArranqueCuentaComoCambioReciente() {
+        assertTrue(VersionesTablas.cambioReciente(60_000, Tabla.SERVICIOS));
+    }
+
+    @Test
+    void unCambioConfirmadoAvanzaLaVersionYQuedaDentroDeLaVentana() throws Exception {
+        long antes = VersionesTablas.version(Tabla.PRODUCTOS);
+        String etiquetaAntes = VersionesTablas.etiqueta(Tabla.PRODUCTOS);
+        Thread.sleep(20);
+        assertFalse(VersionesTablas.cambioReciente(10, Tabla.PRODUCTOS));
+
+        VersionesTablas.cambioAlConfirmar(null, Tabla.PRODUCTOS);
+
+        assertEquals(antes + 2, VersionesTablas.version(Tabla.PRODUCTOS));
+        assertNotEquals(etiquetaAntes, VersionesTablas.etiqueta(Tabla.PRODUCTOS));
+        assertTrue(VersionesTablas.cambioReciente(10_000, Tabla.PRODUCTOS));
+        assertTrue(VersionesTablas.cambioReciente(10_000, Tabla.CITAS, Tabla.PRODUCTOS));
+    }
+}